@@ -2,270 +2,476 @@ package analyzer;
 
 import analyzer.config.AnalyzerConfig;
 import analyzer.models.Author;
+import analyzer.models.activity.ActivityPeriod;
 import analyzer.models.channel.Channel;
+import analyzer.models.channel.ChannelInfo;
 import analyzer.models.message.Attachment;
 import analyzer.models.message.Mention;
 import analyzer.models.message.Message;
 import analyzer.models.message.embed.Embed;
 import analyzer.models.message.reaction.Emoji;
 import analyzer.models.message.reaction.Reaction;
+import analyzer.models.ranking.Metric;
 import analyzer.models.ranking.Ranking;
 import analyzer.models.ranking.RankingFactory;
 import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
+import analyzer.stats.AuthorStatsStore;
+import analyzer.stats.ChannelStatsStore;
+import analyzer.utils.HyperLogLog;
 import analyzer.utils.SocialGraphUtils;
+import analyzer.utils.Scheduler;
 import analyzer.utils.SocialGraphVisualizer;
+import analyzer.utils.TaskScope;
+import analyzer.utils.Timestamps;
+import analyzer.utils.WordCounter;
 import lombok.Getter;
 import org.apache.commons.lang3.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates per-author statistics. An analyzer is not thread-safe: parallel work is done by giving
+ * every worker its own analyzer and combining the partial results with {@link #merge(Analyzer)}.
+ * Authors are identified by their id only, users sharing a name are kept apart. Results are ordered by name on output.
+ */
+public final class Analyzer {
+
+    // Output order: case-insensitive name, authors with the same name by id
+    private static final Comparator<AuthorData> NAME_ORDER = Comparator
+        .comparing((AuthorData authorData) -> authorData.getAuthor().getName(), Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+        .thenComparing(AuthorData::getAuthorId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    @Getter
+    private final AuthorStatsStore statsStore = new AuthorStatsStore();
+
+    @Getter
+    private final ChannelStatsStore channelStore = new ChannelStatsStore();
+
+    // Messages arrive in runs of the same channel, the slot of the previous one is reused
+    private ChannelInfo currentChannel;
+    private int currentChannelSlot;
+    private int currentCubeChannel;
+    // Messages of a channel arrive in time order, the active users sketch of the previous day is reused
+    private int sketchChannelSlot = -1;
+    private int sketchDay;
+    private HyperLogLog activeUsersSketch;
+
+    // Authors in the results, set by finalizeAnalysis once inactive authors are removed
+    private List<AuthorData> activeAuthors;
+
+    // Collectors to run per message, messages are always counted
+    @Getter
+    private final Set<Metric> metrics;
+    private final boolean collectWords;
+    private final boolean collectEmbeds;
+    private final boolean collectAttachments;
+    private final boolean collectMentions;
+    private final boolean collectReactions;
+    private final boolean collectFirstMessage;
+    private final boolean collectActivity;
+    private final boolean collectDistinctCounts;
+    private final boolean collectChannelCounts;
 
-@Getter
-public class Analyzer {
+    /**
+     * Creates an empty analyzer for streaming ingestion. Feed it via {@link #addMessage(ChannelInfo, Message)}
+     * and call {@link #finalizeAnalysis()} once all messages were added.
+     */
+    public Analyzer() {
+        this(Metric.all());
+    }
 
-    private final Map<Author, AuthorData> authorDataMap;
+    /**
+     * Creates an empty analyzer collecting only the given metrics, e.g. the ones of the selected rankings.
+     * Statistics of other metrics stay zero.
+     */
+    public Analyzer(final Set<Metric> metrics) {
+        this.metrics = Set.copyOf(metrics);
+        this.collectWords = metrics.contains(Metric.WORDS);
+        this.collectEmbeds = metrics.contains(Metric.EMBEDS);
+        this.collectAttachments = metrics.contains(Metric.ATTACHMENTS);
+        this.collectMentions = metrics.contains(Metric.MENTIONS);
+        this.collectReactions = metrics.contains(Metric.REACTIONS);
+        this.collectFirstMessage = metrics.contains(Metric.FIRST_MESSAGE);
+        this.collectActivity = AnalyzerConfig.ACTIVITY_ROLLUPS && metrics.contains(Metric.DAILY_ACTIVITY);
+        this.collectDistinctCounts = AnalyzerConfig.DISTINCT_COUNT_SKETCHES && metrics.contains(Metric.DISTINCT_COUNTS);
+        this.collectChannelCounts = AnalyzerConfig.DIMENSION_RANKINGS && metrics.contains(Metric.CHANNEL_COUNTS);
+    }
 
     public Analyzer(final List<Channel> channels) {
-        this.authorDataMap = new TreeMap<>(new Author.AuthorComparator());
+        this(channels, Scheduler.shared());
+    }
+
+    public Analyzer(final List<Channel> channels, final Scheduler scheduler) {
+        this(channels, scheduler, Metric.all());
+    }
+
+    /**
+     * Analyzes materialized channels on the CPU pool of the scheduler. Must not be called from a CPU pool thread.
+     */
+    public Analyzer(final List<Channel> channels, final Scheduler scheduler, final Set<Metric> metrics) {
+        this(metrics);
 
         if (channels != null) {
-            // Process all channels first
-            channels.parallelStream().forEach(this::analyzeChannel);
+            // Map: every chunk of messages is aggregated by its own analyzer, without any shared state
+            final List<TaskScope.Subtask<Analyzer>> partials;
+            try (TaskScope scope = new TaskScope()) {
+                partials = channels.stream()
+                    .flatMap(Analyzer::chunks)
+                    .map(chunk -> scope.fork(scheduler.cpu(), () -> analyzeChunk(chunk, metrics)))
+                    .toList();
+                scope.join();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Analyzing channels failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while analyzing channels", e);
+            }
+
+            // Reduce: partials are merged in chunk order, so the result does not depend on thread scheduling
+            partials.forEach(partial -> merge(partial.get()));
 
             // Then do final calculations once
             finalizeAnalysis();
         }
     }
 
+    private static Stream<Chunk> chunks(final Channel channel) {
+        final Message[] messages = channel.getMessages();
+        if (messages == null) {
+            return Stream.empty();
+        }
+
+        final List<Message> messageList = Arrays.asList(messages);
+        final int chunkSize = AnalyzerConfig.ANALYSIS_CHUNK_SIZE;
+        return IntStream.range(0, (messages.length + chunkSize - 1) / chunkSize)
+            .mapToObj(chunk -> new Chunk(channel.getChannel(),
+                messageList.subList(chunk * chunkSize, Math.min(messages.length, (chunk + 1) * chunkSize))));
+    }
+
+    private static Analyzer analyzeChunk(final Chunk chunk, final Set<Metric> metrics) {
+        final Analyzer analyzer = new Analyzer(metrics);
+        chunk.messages().forEach(message -> analyzer.addMessage(chunk.channel(), message));
+        return analyzer;
+    }
+
     /**
-     * More efficient word counting without regex split
+     * Returns all authors ordered by name, keyed by author. Built on every call, meant for writing the results.
      */
-    private static int countWordsEfficiently(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
-        }
+    public Map<Author, AuthorData> getAuthorDataMap() {
+        final Map<Author, AuthorData> authorDataMap = new LinkedHashMap<>();
+        getSortedAuthorData().forEach(authorData -> authorDataMap.put(authorData.getAuthor(), authorData));
+        return authorDataMap;
+    }
 
-        int count = 0;
-        boolean inWord = false;
-
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (Character.isWhitespace(c)) {
-                inWord = false;
-            } else {
-                if (!inWord) {
-                    count++;
-                    inWord = true;
-                }
-            }
-        }
+    /**
+     * Returns all authors in order of their first appearance, only the active ones once the analysis is finalized
+     */
+    public Collection<AuthorData> getAuthorData() {
+        return activeAuthors != null ? activeAuthors : statsStore.views();
+    }
 
-        return count;
+    /**
+     * Returns all authors ordered by name, a new list on every call
+     */
+    public List<AuthorData> getSortedAuthorData() {
+        final List<AuthorData> sorted = new ArrayList<>(getAuthorData());
+        sorted.sort(NAME_ORDER);
+        return sorted;
     }
 
     public Ranking getRanking(RankingType rankingType) {
-        // Pass the collection directly instead of creating a new LinkedList
-        return RankingFactory.createRanking(rankingType, authorDataMap.values());
+        return RankingFactory.createRanking(rankingType, getSortedAuthorData());
     }
 
     /**
      * Get social graph utilities for analyzing mention relationships
      */
     public SocialGraphUtils.NetworkStatistics getNetworkStatistics() {
-        return SocialGraphUtils.calculateNetworkStatistics(authorDataMap.values());
+        return SocialGraphUtils.calculateNetworkStatistics(getSortedAuthorData());
     }
 
     /**
      * Get the most connected users in the social graph
      */
     public List<SocialGraphUtils.UserConnection> getMostConnectedUsers() {
-        return SocialGraphUtils.getMostConnectedUsers(authorDataMap.values());
+        return SocialGraphUtils.getMostConnectedUsers(getSortedAuthorData());
     }
 
     /**
      * Find mutual mention relationships (users who mention each other)
      */
     public List<SocialGraphUtils.MutualMentionRelationship> getMutualMentionRelationships() {
-        return SocialGraphUtils.findMutualMentionRelationships(authorDataMap.values());
+        return SocialGraphUtils.findMutualMentionRelationships(getSortedAuthorData());
     }
 
     /**
      * Export social graph data for visualization tools
      */
     public SocialGraphUtils.SocialGraphExport exportSocialGraphData() {
-        return SocialGraphUtils.exportSocialGraphData(authorDataMap.values());
+        return SocialGraphUtils.exportSocialGraphData(getSortedAuthorData());
     }
 
     /**
      * Generate a text-based visualization of the social graph
      */
     public String generateTextVisualization() {
-        return SocialGraphVisualizer.generateTextVisualization(authorDataMap.values());
+        return SocialGraphVisualizer.generateTextVisualization(getSortedAuthorData());
     }
 
     /**
      * Generate HTML content for visualization (as string)
      */
     public String generateHTMLContent() {
-        return SocialGraphVisualizer.generateHTMLContent(authorDataMap.values());
+        return SocialGraphVisualizer.generateHTMLContent(getSortedAuthorData());
     }
 
     /**
      * Generate an interactive HTML visualization
      */
     public void generateHTMLVisualization(String outputPath) throws java.io.IOException {
-        SocialGraphVisualizer.generateHTMLVisualization(authorDataMap.values(), outputPath);
+        SocialGraphVisualizer.generateHTMLVisualization(getSortedAuthorData(), outputPath);
     }
 
     /**
      * Export social graph in Gephi format
      */
     public void exportGephiFormat(String outputPath) throws java.io.IOException {
-        SocialGraphVisualizer.exportGephiFormat(authorDataMap.values(), outputPath);
+        SocialGraphVisualizer.exportGephiFormat(getSortedAuthorData(), outputPath);
     }
 
     /**
      * Export social graph in GraphML format
      */
     public void exportGraphMLFormat(String outputPath) throws java.io.IOException {
-        SocialGraphVisualizer.exportGraphMLFormat(authorDataMap.values(), outputPath);
+        SocialGraphVisualizer.exportGraphMLFormat(getSortedAuthorData(), outputPath);
     }
 
     private void removeAuthors() {
-        authorDataMap.values().removeIf(
-            authorData -> authorData.getMessagesSent() < AnalyzerConfig.MIN_AMOUNT_MESSAGES
-        );
+        // Inactive authors keep their slots, mentions of them are still part of the other authors' data
+        activeAuthors = statsStore.views().stream()
+            .filter(authorData -> authorData.getMessagesSent() >= AnalyzerConfig.MIN_AMOUNT_MESSAGES)
+            .toList();
     }
 
-    private void finalizeAnalysis() {
-        // Calculate emoji sums for all authors
-        authorDataMap.entrySet().parallelStream().forEach(this::countEmojis);
-
+    /**
+     * Removes inactive authors. Must be called exactly once after the last message.
+     * Totals such as the emojis received are maintained by the stats store while analyzing.
+     */
+    public void finalizeAnalysis() {
         // Remove authors with insufficient messages
         removeAuthors();
     }
 
-    private void countEmojis(Map.Entry<Author, AuthorData> entry) {
-        final AuthorData authorData = entry.getValue();
-        authorData.setSumEmojisReceived(
-            authorData.getEmojisReceived()
-                .values()
-                .stream()
-                .mapToLong(value -> value)
-                .sum()
-        );
+    /**
+     * Adds a single message of the given channel to the analysis, used by the streaming ingestion
+     */
+    public void addMessage(final ChannelInfo channel, final Message message) {
+        analyzeSingleMessage(channel, message);
     }
 
-    private synchronized void analyzeChannel(final Channel channel) {
-        for (Message message : channel.getMessages()) {
-            final Author author = message.getAuthor();
+    /**
+     * Merges all authors and channels of another, not yet finalized analyzer into this one.
+     * The other analyzer must not be used afterwards.
+     */
+    public void merge(final Analyzer other) {
+        merge(other.statsStore);
+        merge(other.channelStore);
+    }
 
-            if (!authorDataMap.containsKey(author)) {
-                final AuthorData authorData = new AuthorData();
-                populateAuthorDataMap(authorData, message);
-            } else {
-                populateAuthorDataMap(authorDataMap.get(author), message);
+    /**
+     * Merges the channel statistics of a partial aggregate into this analyzer
+     */
+    public void merge(final ChannelStatsStore partial) {
+        channelStore.merge(partial);
+    }
+
+    /**
+     * Merges partial aggregates, e.g. the result of analyzing a single channel export, into this analyzer.
+     * Authors are matched by id, a placeholder of a user that was only mentioned never replaces a real author.
+     */
+    public void merge(final AuthorStatsStore partial) {
+        statsStore.merge(partial);
+    }
+
+    private void analyzeSingleMessage(final ChannelInfo channel, final Message message) {
+        final Author author = message.getAuthor();
+        final int slot = statsStore.getOrAddSlot(author.getId());
+        statsStore.setAuthor(slot, author);
+        // Decoding the timestamp is skipped if no collector needs the day
+        final int epochDay = collectFirstMessage || collectActivity || collectDistinctCounts
+            ? Timestamps.localEpochDay(message.getTimestamp())
+            : 0;
+        if (collectFirstMessage) {
+            statsStore.updateEarliestEpochDay(slot, epochDay);
+        }
+        analyzeMessage(slot, channel, epochDay, message);
+    }
+
+    private void analyzeMessage(int slot, ChannelInfo channel, int epochDay, Message message) {
+        statsStore.incrementMessages(slot);
+        // The activity rollups and the channel cube count every message, whichever ranking metrics are collected
+        final int words = collectWords || collectActivity || collectChannelCounts ? analyzeContent(slot, message) : 0;
+        if (collectWords) {
+            statsStore.addMessageWords(slot, words);
+            if (channel != null) {
+                channelStore.addMessageWords(channelSlot(channel), words);
+            }
+        }
+        final int embeds = collectEmbeds || collectChannelCounts ? analyzeEmbeds(slot, message) : 0;
+        final int attachments = collectAttachments || collectChannelCounts ? analyzeAttachments(slot, message) : 0;
+        final int mentions = collectMentions || collectDistinctCounts || collectActivity || collectChannelCounts
+            ? analyzeMentions(slot, message)
+            : 0;
+        final int reactions = collectReactions || collectDistinctCounts || collectActivity
+            ? analyzeReactions(slot, channel, message.getReactions())
+            : 0;
+
+        if (collectChannelCounts && channel != null) {
+            statsStore.getChannelCube().addMessage(slot, cubeChannel(channel), words, embeds, attachments, mentions);
+        }
+        if (collectDistinctCounts && channel != null) {
+            activeUsersSketch(channelSlot(channel), epochDay).add(statsStore.getIdHash(slot));
+        }
+
+        if (collectActivity) {
+            statsStore.addActivity(slot, epochDay, 1, words, mentions, reactions);
+            if (channel != null) {
+                channelStore.addActivity(channelSlot(channel), epochDay, 1, words, mentions, reactions);
             }
         }
     }
 
-    private void populateAuthorDataMap(AuthorData authorData, Message message) {
-        analyzeMessage(authorData, message);
-        authorData.setAuthorId(message.getAuthor().getId());
-        authorData.setAuthor(message.getAuthor());
-        authorData.setEarliestLocalDate(message.getTimestamp());
-        authorDataMap.put(message.getAuthor(), authorData);
+    private HyperLogLog activeUsersSketch(int channelSlot, int epochDay) {
+        if (channelSlot != sketchChannelSlot || epochDay != sketchDay) {
+            sketchChannelSlot = channelSlot;
+            sketchDay = epochDay;
+            activeUsersSketch = channelStore.activeUsers(channelSlot, ActivityPeriod.MONTH.start(epochDay));
+        }
+        return activeUsersSketch;
+    }
+
+    private int channelSlot(ChannelInfo channel) {
+        if (channel != currentChannel) {
+            currentChannel = channel;
+            currentChannelSlot = channelStore.getOrAddSlot(channel);
+            currentCubeChannel = collectChannelCounts ? statsStore.getChannelCube().member(channel.getId()) : -1;
+        }
+        return currentChannelSlot;
     }
 
-    private void analyzeMessage(AuthorData authorData, Message message) {
-        authorData.incrementMessages();
-        analyzeContent(authorData, message);
-        analyzeEmbeds(authorData, message);
-        analyzeAttachments(authorData, message);
-        analyzeMentions(authorData, message);
-        analyzeReactions(authorData, message.getReactions());
+    private int cubeChannel(ChannelInfo channel) {
+        channelSlot(channel);
+        return currentCubeChannel;
     }
 
-    private void analyzeMentions(AuthorData authorData, Message message) {
+    /**
+     * @return the number of users mentioned by the message
+     */
+    private int analyzeMentions(int slot, Message message) {
         final Mention[] mentions = message.getMentions();
         if (mentions != null && mentions.length > 0) {
-            authorData.incrementTimesMentioned();
+            if (collectMentions) {
+                statsStore.incrementTimesMentioned(slot);
 
-            // Track mention relationships for social graph
-            final String mentionerId = message.getAuthor().getId();
-
-            for (Mention mention : mentions) {
-                final String mentionedId = mention.getId();
-
-                // Record that this author mentioned someone
-                authorData.addMentionSent(mentionedId);
-
-                // Record that the mentioned person was mentioned by this author
-                AuthorData mentionedAuthorData = findOrCreateAuthorData(mentionedId);
-                mentionedAuthorData.addMentionReceived(mentionerId);
+                // Track mention relationships for social graph. Mentioned users without messages
+                // get a placeholder slot, which is taken over once a message of the user is analyzed
+                for (Mention mention : mentions) {
+                    statsStore.addMention(slot, statsStore.getOrAddSlot(mention.getId()), 1);
+                }
+            }
+            if (collectDistinctCounts) {
+                for (Mention mention : mentions) {
+                    statsStore.addMentionPartner(slot, HyperLogLog.hash(mention.getId()));
+                }
             }
+            return mentions.length;
         }
+        return 0;
     }
 
-    private void analyzeAttachments(AuthorData authorData, Message message) {
+    /**
+     * @return 1 if the message has attachments, else 0
+     */
+    private int analyzeAttachments(int slot, Message message) {
         final Attachment[] attachments = message.getAttachments();
         if (attachments != null && attachments.length > 0) {
-            authorData.incrementAttachments();
+            if (collectAttachments) {
+                statsStore.incrementAttachments(slot);
+            }
+            return 1;
         }
+        return 0;
     }
 
-    private void analyzeEmbeds(AuthorData authorData, Message message) {
+    /**
+     * @return 1 if the message has embeds, else 0
+     */
+    private int analyzeEmbeds(int slot, Message message) {
         final Embed[] embeds = message.getEmbeds();
         if (embeds != null && embeds.length > 0) {
-            authorData.incrementEmbeds();
+            if (collectEmbeds) {
+                statsStore.incrementEmbeds(slot);
+            }
+            return 1;
         }
+        return 0;
     }
 
-    private void analyzeContent(AuthorData authorData, Message message) {
-        final String content = message.getContent();
-        if (StringUtils.isNotBlank(content)) {
-            int wordCount = countWordsEfficiently(content);
-            authorData.addWordCount(wordCount);
+    /**
+     * @return the number of words of the message
+     */
+    private int analyzeContent(int slot, Message message) {
+        // Replayed snapshots carry the word count instead of the content
+        final int wordCount;
+        if (message.getWordCount() >= 0) {
+            wordCount = message.getWordCount();
+        } else {
+            final String content = message.getContent();
+            wordCount = StringUtils.isNotBlank(content) ? WordCounter.countWords(content) : 0;
         }
+        if (collectWords && wordCount > 0) {
+            statsStore.addWordCount(slot, wordCount);
+        }
+        return wordCount;
     }
 
-    private void analyzeReactions(AuthorData authorData, Reaction[] reactions) {
+    /**
+     * @return the number of reactions the message received
+     */
+    private int analyzeReactions(int slot, ChannelInfo channel, Reaction[] reactions) {
         if (reactions == null || reactions.length == 0) {
-            return; // Early return for performance
+            return 0; // Early return for performance
         }
 
-        final Map<Emoji, Integer> emojisReceived = authorData.getEmojisReceived();
+        int count = 0;
         for (Reaction reaction : reactions) {
-            final Emoji emoji = reaction.getEmoji();
-            final int count = reaction.getCount();
-
-            // More efficient than contains + get + put
-            emojisReceived.merge(emoji, count, Integer::sum);
-        }
-    }
-
-    private AuthorData findOrCreateAuthorData(String userId) {
-        // Find existing author data by user ID
-        for (Map.Entry<Author, AuthorData> entry : authorDataMap.entrySet()) {
-            if (entry.getKey().getId().equals(userId)) {
-                return entry.getValue();
+            if (collectReactions) {
+                statsStore.addEmojisReceived(slot, reaction.getEmoji(), reaction.getCount());
             }
+            if (collectDistinctCounts && channel != null && reaction.getEmoji() != null) {
+                channelStore.addEmoji(channelSlot(channel), emojiHash(reaction.getEmoji()));
+            }
+            count += reaction.getCount();
         }
+        return count;
+    }
 
-        // If not found, create a new AuthorData with minimal author info
-        // This handles cases where mentioned users don't have messages in the analyzed channels
-        Author placeholderAuthor = new Author();
-        placeholderAuthor.setId(userId);
-        placeholderAuthor.setName("Unknown User " + userId);
-        placeholderAuthor.setNickname("Unknown User " + userId);
-
-        AuthorData newAuthorData = new AuthorData();
-        newAuthorData.setAuthorId(userId);
-        newAuthorData.setAuthor(placeholderAuthor);
+    // Emojis are told apart by name, by id if they have no name, like in the AuthorStatsStore
+    private static long emojiHash(Emoji emoji) {
+        return HyperLogLog.hash(StringUtils.isNotBlank(emoji.getName()) ? emoji.getName() : String.valueOf(emoji.getId()));
+    }
 
-        authorDataMap.put(placeholderAuthor, newAuthorData);
-        return newAuthorData;
+    private record Chunk(ChannelInfo channel, List<Message> messages) {
     }
 }
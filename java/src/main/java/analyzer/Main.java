@@ -2,76 +2,197 @@ package analyzer;
 
 import analyzer.config.AnalyzerConfig;
 import analyzer.models.channel.Channel;
-import analyzer.models.ranking.Ranking;
-import analyzer.models.ranking.RankingType;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankingFactory;
+import analyzer.models.ranking.RankingProvider;
 import analyzer.service.FileService;
+import analyzer.service.IncrementalAnalysisService;
+import analyzer.service.IngestionPipeline;
+import analyzer.service.OutputGraph;
+import analyzer.service.ShardedAnalysisService;
+import analyzer.service.index.ActivityRangeIndex;
+import analyzer.service.index.FullTextIndex;
+import analyzer.service.index.FullTextIndexBuilder;
 import analyzer.utils.ExceptionHandler;
-
+import analyzer.utils.Scheduler;
+import analyzer.utils.TaskScope;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
 public class Main {
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            runCommand(args);
+            return;
+        }
+
         ExceptionHandler.logInfo("Starting Discord Chat Analysis");
+        final long start = System.nanoTime();
 
+        final Scheduler scheduler = Scheduler.shared();
         final FileService fileService = new FileService();
+        final IncrementalAnalysisService incrementalAnalysisService = new IncrementalAnalysisService(fileService);
+
+        // Folders are processed concurrently, a failing folder cancels the others
+        try (TaskScope scope = new TaskScope()) {
+            AnalyzerConfig.LOG_FOLDER_PATHS.forEach(folderPath -> scope.fork(scheduler.io(), () -> {
+                processFolder(scheduler, fileService, incrementalAnalysisService, folderPath);
+                return null;
+            }));
+            scope.join();
+            ExceptionHandler.logInfo(String.format("All analyses completed successfully in %d ms on %d CPU threads",
+                (System.nanoTime() - start) / 1_000_000, scheduler.getCpuThreads()));
+        } catch (ExecutionException e) {
+            ExceptionHandler.handleException(e, "analyzing log folders");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ExceptionHandler.handleException(e, "analyzing log folders");
+        }
+    }
 
-        // Process folders in parallel for better performance
-        AnalyzerConfig.LOG_FOLDER_PATHS.parallelStream().forEach(folderPath -> {
-            ExceptionHandler.logInfo("Processing folder: " + folderPath);
-
-            final List<Channel> channels = fileService.parseJsonToChannels(folderPath);
-            final Analyzer analyzer = new Analyzer(channels);
-            final String outputDir = fileService.createOutputDirectory(folderPath);
-
-            // Write Author Data
-            fileService.writeAuthorData(analyzer.getAuthorDataMap(), outputDir);
-
-            // Write Rankings in parallel
-            writeRankings(analyzer, fileService, outputDir);
+    /**
+     * Multi-process mode, see {@link ShardedAnalysisService}:
+     * {@code worker <folder> <shardIndex> <shardCount> <partialFile>} analyzes one shard of a folder,
+     * {@code merge <folder> <partialFile>...} combines shard partials and writes the outputs of the folder.
+     * Date range queries, see {@link ActivityRangeIndex}:
+     * {@code range <folder> <from> <to> [metric] [limit]} ranks the authors of an analyzed folder in the date window.
+     * Full-text search, see {@link FullTextIndex}:
+     * {@code index <folder>} indexes the message content of a folder,
+     * {@code search <folder> <query> [limit]} lists the messages containing all words of the query.
+     * Narrow reports, see {@link RankingProvider}:
+     * {@code report <folder> <ranking>...} collects only the metrics of the named rankings and writes just those.
+     * Exits with status 1 if the command fails.
+     */
+    private static void runCommand(String[] args) {
+        final FileService fileService = new FileService();
+        final ShardedAnalysisService shardedAnalysisService = new ShardedAnalysisService(fileService);
+        final long start = System.nanoTime();
 
-            // Write Social Graph Visualizations
-            writeSocialGraphVisualizations(analyzer, fileService, outputDir);
+        try {
+            if (args[0].equals("worker") && args.length == 5) {
+                shardedAnalysisService.writeShard(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), Paths.get(args[4]));
+            } else if (args[0].equals("merge") && args.length >= 3) {
+                final Analyzer analyzer = shardedAnalysisService.mergeShards(
+                    Arrays.stream(args, 2, args.length).map(Paths::get).toList());
+                new OutputGraph(analyzer, fileService, fileService.createOutputDirectory(args[1]), Scheduler.shared()).write();
+            } else if (args[0].equals("range") && args.length >= 4 && args.length <= 6) {
+                logRange(fileService.readActivityIndex(args[1]), LocalDate.parse(args[2]), LocalDate.parse(args[3]),
+                    args.length > 4 ? args[4] : "messages", args.length > 5 ? Integer.parseInt(args[5]) : 10);
+            } else if (args[0].equals("index") && args.length == 2) {
+                final Path indexPath = new FullTextIndexBuilder(fileService, Scheduler.shared()).build(args[1]);
+                ExceptionHandler.logInfo("Full-text index written to: " + indexPath);
+            } else if (args[0].equals("search") && args.length >= 3 && args.length <= 4) {
+                try (FullTextIndex index = fileService.openSearchIndex(args[1])) {
+                    logSearch(index, args[2], args.length > 3 ? Integer.parseInt(args[3]) : 10);
+                }
+            } else if (args[0].equals("report") && args.length >= 3) {
+                writeReport(fileService, args[1], RankingFactory.providers(Arrays.asList(args).subList(2, args.length)));
+            } else {
+                ExceptionHandler.logWarning("Usage: worker <folder> <shardIndex> <shardCount> <partialFile>"
+                    + " | merge <folder> <partialFile>... | range <folder> <from> <to> [metric] [limit]"
+                    + " | index <folder> | search <folder> <query> [limit] | report <folder> <ranking>...");
+                System.exit(1);
+            }
+            ExceptionHandler.logInfo(String.format("Completed %s in %d ms", args[0], (System.nanoTime() - start) / 1_000_000));
+        } catch (IOException | ExecutionException | IllegalArgumentException | DateTimeParseException e) {
+            ExceptionHandler.handleException(e, "running " + args[0]);
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ExceptionHandler.handleException(e, "running " + args[0]);
+            System.exit(1);
+        }
+    }
 
-            ExceptionHandler.logInfo("Completed analysis for folder: " + folderPath);
-        });
+    /**
+     * Analyzes a folder collecting only the metrics of the given rankings and writes only those rankings.
+     * The incremental cache holds complete aggregates, so a report always analyzes the exports.
+     */
+    private static void writeReport(FileService fileService, String folderPath, List<RankingProvider> providers)
+        throws InterruptedException, ExecutionException {
+        final Set<Metric> metrics = RankingFactory.metrics(providers);
+        ExceptionHandler.logInfo("Collecting " + metrics + " for " + providers.stream().map(RankingProvider::getName).toList());
+        final Analyzer analyzer = analyzeFolder(fileService, folderPath, metrics);
+        OutputGraph.rankingsOnly(analyzer, fileService, fileService.createOutputDirectory(folderPath), Scheduler.shared(), providers)
+            .write();
+    }
 
-        ExceptionHandler.logInfo("All analyses completed successfully");
+    private static void logRange(ActivityRangeIndex index, LocalDate from, LocalDate to, String metricName, int limit) {
+        final List<ActivityRangeIndex.RangeCount> top = index.top(ActivityRangeIndex.metric(metricName), from, to, limit);
+        ExceptionHandler.logInfo(String.format("Top %d authors by %s from %s to %s:", top.size(), metricName, from, to));
+        for (int i = 0; i < top.size(); i++) {
+            final ActivityRangeIndex.RangeCount count = top.get(i);
+            ExceptionHandler.logInfo(String.format("%d. %s (%s): %d", i + 1, count.authorName(), count.authorId(), count.count()));
+        }
     }
 
-    private static void writeRankings(Analyzer analyzer, FileService fileService, String outputDir) {
-        ExecutorService executorService = Executors.newFixedThreadPool(AnalyzerConfig.THREAD_POOL_SIZE);
-        try {
-            Arrays.stream(RankingType.values())
-                .forEach(rankingType ->
-                    executorService.execute(() -> {
-                        final Ranking ranking = analyzer.getRanking(rankingType);
-                        fileService.writeRanking(ranking, outputDir);
-                    }));
-        } catch (Exception e) {
-            ExceptionHandler.handleException(e, "writing rankings");
-        } finally {
-            executorService.shutdown();
+    private static void logSearch(FullTextIndex index, String query, int limit) throws IOException {
+        final List<FullTextIndex.Posting> hits = index.search(query);
+        ExceptionHandler.logInfo(String.format("%d of %d messages match \"%s\"", hits.size(), index.getMessageCount(), query));
+
+        // messages per author, most matches first
+        final Map<String, Long> messagesByAuthor = new HashMap<>();
+        final Map<String, String> authorNames = new HashMap<>();
+        for (FullTextIndex.Posting hit : hits) {
+            messagesByAuthor.merge(hit.authorId(), 1L, Long::sum);
+            authorNames.put(hit.authorId(), hit.authorName());
+        }
+        messagesByAuthor.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(limit)
+            .forEach(entry -> ExceptionHandler.logInfo(String.format("%s (%s): %d messages",
+                authorNames.get(entry.getKey()), entry.getKey(), entry.getValue())));
+
+        // most recent matches
+        for (int i = hits.size() - 1; i >= Math.max(0, hits.size() - limit); i--) {
+            final FullTextIndex.Posting hit = hits.get(i);
+            ExceptionHandler.logInfo(String.format("#%d %s by %s", hit.ordinal(), Instant.ofEpochMilli(hit.epochMillis()), hit.authorName()));
         }
     }
 
-    private static void writeSocialGraphVisualizations(Analyzer analyzer, FileService fileService, String outputDir) {
-        try {
-            // Generate and write text visualization
-            String textVisualization = analyzer.generateTextVisualization();
-            fileService.writeSocialGraphTextVisualization(textVisualization, outputDir);
+    private static void processFolder(Scheduler scheduler, FileService fileService,
+                                      IncrementalAnalysisService incrementalAnalysisService, String folderPath)
+        throws InterruptedException, ExecutionException {
+        ExceptionHandler.logInfo("Processing folder: " + folderPath);
+        final long start = System.nanoTime();
 
-            // Generate and write HTML visualization
-            String htmlContent = analyzer.generateHTMLContent();
-            fileService.writeSocialGraphHTMLVisualization(htmlContent, outputDir);
+        final Analyzer analyzer = AnalyzerConfig.INCREMENTAL_ANALYSIS
+            ? incrementalAnalysisService.analyzeFolder(folderPath)
+            : analyzeFolder(fileService, folderPath, Metric.all());
+        final String outputDir = fileService.createOutputDirectory(folderPath);
 
-        } catch (Exception e) {
-            ExceptionHandler.handleException(e, "writing social graph visualizations");
-        }
+        // Shared intermediate products are computed once, independent outputs are written concurrently
+        new OutputGraph(analyzer, fileService, outputDir, scheduler).write();
+
+        ExceptionHandler.logInfo(String.format("Completed analysis for folder: %s in %d ms",
+            folderPath, (System.nanoTime() - start) / 1_000_000));
     }
 
+    private static Analyzer analyzeFolder(FileService fileService, String folderPath, Set<Metric> metrics)
+        throws InterruptedException, ExecutionException {
+        if (AnalyzerConfig.STREAMING_INGESTION) {
+            // Parsing and aggregation overlap, the per-file results arrive in file order
+            final List<String> logPaths = fileService.listLogFiles(folderPath).stream().sorted().toList();
+            final Analyzer analyzer = new Analyzer(metrics);
+            new IngestionPipeline(fileService, Scheduler.shared(), metrics)
+                .run(folderPath, logPaths, result -> analyzer.merge(result.analyzer()));
+            analyzer.finalizeAnalysis();
+            return analyzer;
+        }
 
+        final List<Channel> channels = fileService.parseJsonToChannels(folderPath);
+        return new Analyzer(channels, Scheduler.shared(), metrics);
+    }
 }
@@ -0,0 +1,95 @@
+package analyzer.benchmark;
+
+import analyzer.Analyzer;
+import analyzer.models.channel.Channel;
+import analyzer.service.FileService;
+import analyzer.stats.AuthorData;
+import analyzer.utils.ExceptionHandler;
+import analyzer.utils.Scheduler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Measures how the analysis of already parsed channels scales with the number of worker threads.
+ * Every thread count runs on its own {@link Scheduler} with a CPU pool of that size.
+ * <p>
+ * Usage: {@code AnalysisScalingBenchmark <folder> [iterations]}
+ */
+public final class AnalysisScalingBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16};
+
+    private AnalysisScalingBenchmark() {
+        // Utility class - prevent instantiation
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        if (args.length < 1) {
+            ExceptionHandler.logWarning("Usage: AnalysisScalingBenchmark <folder> [iterations]");
+            return;
+        }
+
+        final List<Channel> channels = new FileService().parseJsonToChannels(args[0]);
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        final long messageCount = channels.stream()
+            .mapToLong(channel -> channel.getMessages() == null ? 0 : channel.getMessages().length)
+            .sum();
+
+        ExceptionHandler.logInfo(String.format("Analyzing %,d messages in %d channels on %d available cores",
+            messageCount, channels.size(), Runtime.getRuntime().availableProcessors()));
+
+        // warm up the JIT before the single threaded baseline is taken
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            new Analyzer(channels);
+        }
+
+        double singleThreadSeconds = 0;
+        for (int threads : THREAD_COUNTS) {
+            try (Scheduler scheduler = new Scheduler(threads)) {
+                double bestSeconds = Double.MAX_VALUE;
+                long checksum = 0;
+
+                // first iteration warms up the pool
+                for (int iteration = 0; iteration <= iterations; iteration++) {
+                    final long start = System.nanoTime();
+                    final Analyzer analyzer = new Analyzer(channels, scheduler);
+                    final double seconds = (System.nanoTime() - start) / 1e9;
+
+                    checksum = checksum(analyzer);
+                    if (iteration > 0) {
+                        bestSeconds = Math.min(bestSeconds, seconds);
+                    }
+                }
+
+                if (threads == 1) {
+                    singleThreadSeconds = bestSeconds;
+                }
+                ExceptionHandler.logInfo(String.format("%2d threads: best of %d %.3f s, %,.0f messages/s, speedup %.2fx (checksum %d)",
+                    threads, iterations, bestSeconds, messageCount / bestSeconds, singleThreadSeconds / bestSeconds, checksum));
+            }
+        }
+    }
+
+    /**
+     * Order-independent fingerprint of the result, equal for every thread count if the merge is correct
+     */
+    private static long checksum(Analyzer analyzer) {
+        long checksum = 0;
+        for (AuthorData authorData : analyzer.getAuthorData()) {
+            checksum += Arrays.hashCode(new long[]{
+                authorData.getAuthorId().hashCode(),
+                authorData.getMessagesSent(),
+                authorData.getWordCountSum(),
+                authorData.getAttachmentsSent(),
+                authorData.getEmbedsSent(),
+                authorData.getTimesMentioned(),
+                authorData.getSumEmojisReceived(),
+                authorData.getTotalMentionsSent(),
+                authorData.getTotalMentionsReceived()
+            });
+        }
+        return checksum;
+    }
+}
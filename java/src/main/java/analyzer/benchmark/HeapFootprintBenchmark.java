@@ -0,0 +1,105 @@
+package analyzer.benchmark;
+
+import analyzer.models.message.Message;
+import analyzer.service.parser.CanonicalizingTypeAdapterFactory;
+import analyzer.service.parser.ChannelParser;
+import analyzer.service.parser.GsonChannelParser;
+import analyzer.service.parser.MappedChannelParser;
+import analyzer.service.parser.MessageCanonicalizer;
+import analyzer.service.parser.ParserBackend;
+import analyzer.utils.ExceptionHandler;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Compares the retained heap of materialized messages with and without {@link MessageCanonicalizer}
+ * for every {@link ParserBackend}. Run with a fixed heap (e.g. -Xmx4g) and optionally cap the number of
+ * retained messages, the per-message cost is projected to an export of 10 million messages.
+ * <p>
+ * Usage: {@code HeapFootprintBenchmark <folder> [maxMessages]}
+ */
+public final class HeapFootprintBenchmark {
+
+    private static final long PROJECTED_MESSAGES = 10_000_000L;
+
+    private HeapFootprintBenchmark() {
+        // Utility class - prevent instantiation
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            ExceptionHandler.logWarning("Usage: HeapFootprintBenchmark <folder> [maxMessages]");
+            return;
+        }
+
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(Paths.get(args[0]))) {
+            files = walk.filter(path -> path.toString().endsWith(".json")).sorted().toList();
+        }
+        final long maxMessages = args.length > 1 ? Long.parseLong(args[1]) : Long.MAX_VALUE;
+
+        for (ParserBackend backend : ParserBackend.values()) {
+            for (boolean canonicalize : new boolean[]{false, true}) {
+                final MessageCanonicalizer canonicalizer = canonicalize ? new MessageCanonicalizer() : MessageCanonicalizer.disabled();
+                measure(backend, canonicalize, createParser(backend, canonicalizer), files, maxMessages);
+            }
+        }
+    }
+
+    private static ChannelParser createParser(ParserBackend backend, MessageCanonicalizer canonicalizer) {
+        return switch (backend) {
+            case GSON -> {
+                final Gson gson = new GsonBuilder()
+                    .registerTypeAdapterFactory(new CanonicalizingTypeAdapterFactory(canonicalizer))
+                    .create();
+                yield new GsonChannelParser(gson);
+            }
+            case MAPPED -> new MappedChannelParser(canonicalizer);
+        };
+    }
+
+    private static void measure(ParserBackend backend, boolean canonicalize, ChannelParser parser,
+                                List<Path> files, long maxMessages) throws IOException {
+        final long baseline = usedHeap();
+        final List<Message> messages = new ArrayList<>();
+
+        for (Path file : files) {
+            if (messages.size() >= maxMessages) {
+                break;
+            }
+            parser.parse(file, (channelInfo, message) -> {
+                if (messages.size() < maxMessages) {
+                    messages.add(message);
+                }
+            });
+        }
+
+        final long retained = usedHeap() - baseline;
+        final Set<Object> authors = Collections.newSetFromMap(new IdentityHashMap<>());
+        messages.forEach(message -> authors.add(message.getAuthor()));
+
+        ExceptionHandler.logInfo(String.format("%-6s canonical=%-5s %,d messages retain %,.1f MB, %,.0f bytes/message, "
+                + "%,d author instances, projected %,.2f GB for %,d messages",
+            backend, canonicalize, messages.size(), retained / 1e6, (double) retained / messages.size(), authors.size(),
+            (double) retained / messages.size() * PROJECTED_MESSAGES / 1e9, PROJECTED_MESSAGES));
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,74 @@
+package analyzer.benchmark;
+
+import analyzer.models.message.Message;
+import analyzer.service.parser.ChannelParser;
+import analyzer.service.parser.ParserBackend;
+import analyzer.utils.ExceptionHandler;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Compares the throughput of the available {@link ParserBackend}s on a folder of channel exports.
+ * <p>
+ * Usage: {@code ParserBenchmark <folder> [iterations]}
+ */
+public final class ParserBenchmark {
+
+    private ParserBenchmark() {
+        // Utility class - prevent instantiation
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            ExceptionHandler.logWarning("Usage: ParserBenchmark <folder> [iterations]");
+            return;
+        }
+
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(Paths.get(args[0]))) {
+            files = walk.filter(path -> path.toString().endsWith(".json")).toList();
+        }
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        long totalBytes = 0;
+        for (Path file : files) {
+            totalBytes += Files.size(file);
+        }
+
+        for (ParserBackend backend : ParserBackend.values()) {
+            final ChannelParser parser = backend.createParser(new Gson());
+
+            // first iteration warms up the JIT and the page cache
+            for (int iteration = 0; iteration <= iterations; iteration++) {
+                final long[] checksum = new long[2];
+                final long start = System.nanoTime();
+
+                for (Path file : files) {
+                    parser.parse(file, (channelInfo, message) -> consume(message, checksum));
+                }
+
+                final double seconds = (System.nanoTime() - start) / 1e9;
+                if (iteration > 0) {
+                    ExceptionHandler.logInfo(String.format("%-6s run %d: %,d messages in %.3f s, %.1f MB/s, %,.0f messages/s (checksum %d)",
+                        backend, iteration, checksum[0], seconds, totalBytes / seconds / 1e6, checksum[0] / seconds, checksum[1]));
+                }
+            }
+        }
+    }
+
+    private static void consume(Message message, long[] checksum) {
+        checksum[0]++;
+        checksum[1] += message.getAuthor().getId().length()
+            + (message.getContent() == null ? 0 : message.getContent().length())
+            + message.getMentions().length
+            + message.getReactions().length
+            + message.getAttachments().length
+            + message.getEmbeds().length;
+    }
+}
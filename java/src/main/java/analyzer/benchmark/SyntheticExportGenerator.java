@@ -0,0 +1,169 @@
+package analyzer.benchmark;
+
+import analyzer.utils.ExceptionHandler;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Writes DiscordChatExporter-like channel exports with random content, used to benchmark the ingestion paths.
+ * <p>
+ * Usage: {@code SyntheticExportGenerator <outputFolder> <channels> <messagesPerChannel> [authors] [seed]}
+ */
+public final class SyntheticExportGenerator {
+
+    private static final String[] WORDS = {
+        "hello", "world", "lorem", "ipsum", "dolor", "sit", "amet", "gg", "lol", "ünïcödé",
+        "emoji😀", "\"quoted\"", "back\\slash", "tab\tseparated", "https://example.com/a?b=c", "ok"
+    };
+    private static final String[] EMOJIS = {"👍", "😂", "❤️", "🎉", "kekw", "pepega"};
+    private static final long SNOWFLAKE_BASE = 100_000_000_000_000_000L;
+
+    private SyntheticExportGenerator() {
+        // Utility class - prevent instantiation
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            ExceptionHandler.logWarning("Usage: SyntheticExportGenerator <outputFolder> <channels> <messagesPerChannel> [authors] [seed]");
+            return;
+        }
+
+        final Path outputFolder = Paths.get(args[0]);
+        final int channels = Integer.parseInt(args[1]);
+        final int messagesPerChannel = Integer.parseInt(args[2]);
+        final int authors = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        final Random random = new Random(args.length > 4 ? Long.parseLong(args[4]) : 42L);
+
+        Files.createDirectories(outputFolder);
+        for (int channel = 0; channel < channels; channel++) {
+            final Path file = outputFolder.resolve("channel-" + channel + ".json");
+            writeChannel(file, channel, messagesPerChannel, authors, random);
+            ExceptionHandler.logInfo("Generated " + file + " (" + Files.size(file) + " bytes)");
+        }
+    }
+
+    private static void writeChannel(Path file, int channel, int messages, int authors, Random random) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file); JsonWriter json = new JsonWriter(writer)) {
+            json.setIndent("  ");
+            json.beginObject();
+            json.name("guild").beginObject()
+                .name("id").value("1")
+                .name("name").value("Synthetic Guild")
+                .name("iconUrl").value("https://cdn.discordapp.com/icons/1.png")
+                .endObject();
+            json.name("channel").beginObject()
+                .name("id").value(String.valueOf(SNOWFLAKE_BASE + channel))
+                .name("type").value("GuildTextChat")
+                .name("categoryId").value(String.valueOf(SNOWFLAKE_BASE + 1000 + channel % 3))
+                .name("category").value("Category " + channel % 3)
+                .name("name").value("channel-" + channel)
+                .name("topic").nullValue()
+                .endObject();
+            json.name("dateRange").beginObject().name("after").nullValue().name("before").nullValue().endObject();
+            json.name("messages").beginArray();
+            for (int i = 0; i < messages; i++) {
+                writeMessage(json, channel, i, authors, random);
+            }
+            json.endArray();
+            json.name("messageCount").value(messages);
+            json.endObject();
+        }
+    }
+
+    private static void writeMessage(JsonWriter json, int channel, int index, int authors, Random random) throws IOException {
+        final int author = random.nextInt(authors);
+
+        json.beginObject();
+        json.name("id").value(String.valueOf(SNOWFLAKE_BASE * 2 + (long) channel * 100_000_000L + index));
+        json.name("type").value("Default");
+        json.name("timestamp").value(String.format("20%02d-%02d-%02dT%02d:%02d:29.781+0%d:00",
+            18 + random.nextInt(7), 1 + random.nextInt(12), 1 + random.nextInt(28),
+            random.nextInt(24), random.nextInt(60), random.nextInt(3)));
+        json.name("timestampEdited").nullValue();
+        json.name("callEndedTimestamp").nullValue();
+        json.name("isPinned").value(false);
+        json.name("content").value(content(random));
+        json.name("author");
+        writeUser(json, author, true);
+
+        json.name("attachments").beginArray();
+        if (random.nextInt(8) == 0) {
+            json.beginObject()
+                .name("id").value(String.valueOf(SNOWFLAKE_BASE + index))
+                .name("url").value("https://cdn.discordapp.com/attachments/" + index + "/image.png")
+                .name("fileName").value("image.png")
+                .name("fileSizeBytes").value(1024 + random.nextInt(100_000))
+                .endObject();
+        }
+        json.endArray();
+
+        json.name("embeds").beginArray();
+        if (random.nextInt(12) == 0) {
+            json.beginObject()
+                .name("title").value("Embedded {link} [title]")
+                .name("url").value("https://example.com/" + index)
+                .name("description").value(content(random))
+                .name("fields").beginArray().endArray()
+                .name("thumbnail").beginObject().name("url").value("https://example.com/t.png")
+                .name("width").value(128).name("height").value(128).endObject()
+                .endObject();
+        }
+        json.endArray();
+        json.name("stickers").beginArray().endArray();
+
+        json.name("reactions").beginArray();
+        for (int i = random.nextInt(4) == 0 ? 1 + random.nextInt(3) : 0; i > 0; i--) {
+            final String emoji = EMOJIS[random.nextInt(EMOJIS.length)];
+            json.beginObject();
+            json.name("emoji").beginObject()
+                .name("id").value("")
+                .name("name").value(emoji)
+                .name("isAnimated").value(false)
+                .name("imageUrl").value("https://cdn.jsdelivr.net/gh/twitter/twemoji/" + emoji.hashCode() + ".svg")
+                .endObject();
+            json.name("count").value(1 + random.nextInt(9));
+            json.name("users").beginArray().endArray();
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("mentions").beginArray();
+        for (int i = random.nextInt(5) == 0 ? 1 + random.nextInt(2) : 0; i > 0; i--) {
+            writeUser(json, random.nextInt(authors + authors / 4), false);
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private static void writeUser(JsonWriter json, int user, boolean withAvatar) throws IOException {
+        json.beginObject()
+            .name("id").value(String.valueOf(SNOWFLAKE_BASE + user * 7919L))
+            .name("name").value("user" + user)
+            .name("discriminator").value("0000")
+            .name("nickname").value("Nick " + user)
+            .name("isBot").value(user % 50 == 0);
+        if (withAvatar) {
+            json.name("color").value("#FFFFFF")
+                .name("avatarUrl").value("https://cdn.discordapp.com/avatars/" + user + "/a.png?size=256");
+        }
+        json.endObject();
+    }
+
+    private static String content(Random random) {
+        final int words = random.nextInt(4) == 0 ? 0 : 1 + random.nextInt(30);
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sb.append(random.nextInt(10) == 0 ? "\n" : " ");
+            }
+            sb.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.toString();
+    }
+}
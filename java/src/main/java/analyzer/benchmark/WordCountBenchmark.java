@@ -0,0 +1,206 @@
+package analyzer.benchmark;
+
+import analyzer.service.parser.ChannelParser;
+import analyzer.service.parser.ParserBackend;
+import analyzer.utils.ExceptionHandler;
+import analyzer.utils.WordCounter;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Checks that all word counting implementations agree on the message contents of a folder of channel exports,
+ * plus a few Unicode edge cases, and compares their throughput per message and on one large joined text.
+ * The Vector API implementation is only included if it was built with the Maven profile {@code vector} and the JVM
+ * runs with {@code --add-modules jdk.incubator.vector}.
+ * <p>
+ * Usage: {@code WordCountBenchmark <folder> [iterations]}
+ */
+public final class WordCountBenchmark {
+
+    // Whitespace that is not ASCII, whitespace-like chars that are none and a surrogate pair
+    private static final List<String> EDGE_CASES = List.of(
+        "",
+        " ",
+        "one",
+        " leading and trailing ",
+        "tab\tnew\nline\rvertical\u000Bfeed\u000C",
+        "file\u001Cgroup\u001Drecord\u001Eunit\u001Fseparators",
+        "no\u00A0break\u2007figure\u202Fnarrow",
+        "em\u2003space\u3000ideographic\u2028line\u2029paragraph\u1680ogham",
+        "über größe naïve café",
+        "emoji \uD83D\uDE00 between\uD83D\uDE00words",
+        "a".repeat(100) + " " + "b é".repeat(50) + " ".repeat(70) + "c"
+    );
+
+    private WordCountBenchmark() {
+        // Utility class - prevent instantiation
+    }
+
+    // VectorWordCounter is not part of the default build, so it is looked up at runtime
+    private static void addVectorCounter(Map<String, ToIntFunction<char[]>> charCounters) {
+        final MethodHandle countWords;
+        final int lanes;
+        try {
+            final Class<?> vectorWordCounter = Class.forName("analyzer.utils.VectorWordCounter");
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            countWords = lookup.findStatic(vectorWordCounter, "countWords",
+                MethodType.methodType(int.class, char[].class, int.class, int.class));
+            lanes = (int) lookup.findStatic(vectorWordCounter, "lanes", MethodType.methodType(int.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Loading the Vector API word counter failed", e);
+        }
+        charCounters.put("vector-" + lanes, text -> {
+            try {
+                return (int) countWords.invokeExact(text, 0, text.length);
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            ExceptionHandler.logWarning("Usage: WordCountBenchmark <folder> [iterations]");
+            return;
+        }
+
+        final List<Path> files;
+        try (Stream<Path> walk = Files.walk(Paths.get(args[0]))) {
+            files = walk.filter(path -> path.toString().endsWith(".json")).sorted().toList();
+        }
+        final int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final List<String> corpus = new ArrayList<>(EDGE_CASES);
+        final ChannelParser parser = ParserBackend.MAPPED.createParser(new Gson());
+        for (Path file : files) {
+            parser.parse(file, (channelInfo, message) -> {
+                if (message.getContent() != null) {
+                    corpus.add(message.getContent());
+                }
+            });
+        }
+        final String joined = String.join("\n", corpus);
+        final char[][] corpusChars = corpus.stream().map(String::toCharArray).toArray(char[][]::new);
+        final char[] joinedChars = joined.toCharArray();
+
+        final Map<String, ToIntFunction<char[]>> charCounters = new LinkedHashMap<>();
+        charCounters.put("ascii-table", text -> WordCounter.countWords(text, 0, text.length));
+        if (WordCounter.isVectorApiAvailable()) {
+            addVectorCounter(charCounters);
+        } else {
+            ExceptionHandler.logInfo("Vector API not available, build with -Pvector and run with --add-modules jdk.incubator.vector to include it");
+        }
+
+        if (!verify(corpus, corpusChars, joined, joinedChars, charCounters)) {
+            return;
+        }
+        ExceptionHandler.logInfo(String.format("All implementations agree on %,d texts, %,d chars", corpus.size(), joined.length()));
+
+        // first iteration warms up the JIT
+        for (int iteration = 0; iteration <= iterations; iteration++) {
+            final boolean report = iteration > 0;
+            measure("reference", report, joined.length(), () -> {
+                long words = 0;
+                for (String text : corpus) {
+                    words += referenceCount(text);
+                }
+                return words;
+            });
+            measure("string", report, joined.length(), () -> {
+                long words = 0;
+                for (String text : corpus) {
+                    words += WordCounter.countWords(text);
+                }
+                return words;
+            });
+            for (Map.Entry<String, ToIntFunction<char[]>> counter : charCounters.entrySet()) {
+                measure(counter.getKey(), report, joined.length(), () -> {
+                    long words = 0;
+                    for (char[] text : corpusChars) {
+                        words += counter.getValue().applyAsInt(text);
+                    }
+                    return words;
+                });
+                measure(counter.getKey() + " joined", report, joined.length(),
+                    () -> counter.getValue().applyAsInt(joinedChars));
+            }
+        }
+    }
+
+    private static boolean verify(List<String> corpus, char[][] corpusChars, String joined, char[] joinedChars,
+                                  Map<String, ToIntFunction<char[]>> charCounters) {
+        int mismatches = 0;
+        for (int i = 0; i < corpus.size(); i++) {
+            final int expected = referenceCount(corpus.get(i));
+            mismatches += check("string", corpus.get(i), expected, WordCounter.countWords(corpus.get(i)));
+            for (Map.Entry<String, ToIntFunction<char[]>> counter : charCounters.entrySet()) {
+                mismatches += check(counter.getKey(), corpus.get(i), expected, counter.getValue().applyAsInt(corpusChars[i]));
+            }
+        }
+        for (Map.Entry<String, ToIntFunction<char[]>> counter : charCounters.entrySet()) {
+            mismatches += check(counter.getKey(), "<joined corpus>", referenceCount(joined), counter.getValue().applyAsInt(joinedChars));
+        }
+
+        if (mismatches > 0) {
+            ExceptionHandler.logWarning(mismatches + " word counts differ from the reference implementation");
+            return false;
+        }
+        return true;
+    }
+
+    private static int check(String implementation, String text, int expected, int actual) {
+        if (expected == actual) {
+            return 0;
+        }
+        ExceptionHandler.logWarning(String.format("%s counted %d instead of %d words in: %s",
+            implementation, actual, expected, text.length() > 80 ? text.substring(0, 80) + "..." : text));
+        return 1;
+    }
+
+    private static void measure(String implementation, boolean report, long chars, WordCount wordCount) {
+        final long start = System.nanoTime();
+        final long words = wordCount.count();
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        if (report) {
+            ExceptionHandler.logInfo(String.format("%-18s %,d words in %.3f s, %,.0f Mchars/s",
+                implementation, words, seconds, chars / seconds / 1e6));
+        }
+    }
+
+    /**
+     * The original implementation, {@link Character#isWhitespace(char)} on every char
+     */
+    private static int referenceCount(String text) {
+        int count = 0;
+        boolean inWord = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                inWord = false;
+            } else if (!inWord) {
+                count++;
+                inWord = true;
+            }
+        }
+
+        return count;
+    }
+
+    @FunctionalInterface
+    private interface WordCount {
+        long count();
+    }
+}
@@ -1,6 +1,10 @@
 package analyzer.config;
 
+import analyzer.models.ranking.RankingType;
+import analyzer.service.parser.ParserBackend;
+
 import java.util.List;
+import java.util.Map;
 
 public final class AnalyzerConfig {
 
@@ -8,6 +12,29 @@ public final class AnalyzerConfig {
     public static final int MIN_AMOUNT_MESSAGES = 10;
     public static final int MIN_MESSAGES_FOR_AVG_WORD_COUNT = 10;
     public static final int DECIMAL_PRECISION = 2;
+    // Counts messages, words, mentions and reactions per author and channel per day for the activity rollup files
+    // and the date range index
+    public static final boolean ACTIVITY_ROLLUPS = true;
+    // Estimates distinct active users per channel and month, distinct mention partners per author and distinct emojis
+    // per channel with HyperLogLog sketches of fixed size, see HyperLogLog for the error bounds
+    public static final boolean DISTINCT_COUNT_SKETCHES = false;
+    // Sketches have 2^precision one-byte registers, the relative standard error is 1.04 / sqrt(2^precision):
+    // 11 uses 2 KiB per channel and month at 2.3 %, 8 uses 256 bytes per mentioning author at 6.5 %
+    public static final int SKETCH_PRECISION = 11;
+    public static final int AUTHOR_SKETCH_PRECISION = 8;
+
+    // Ranking Configuration
+    // Entries kept per ranking file, rankings without an entry here keep all authors (or emojis)
+    public static final Map<RankingType, Integer> RANKING_TOP_K = Map.of();
+    public static final int RANKING_DEFAULT_TOP_K = Integer.MAX_VALUE;
+    // Relationships listed by the mention network ranking
+    public static final int TOP_MENTION_RELATIONSHIPS = 20;
+    // At least this many authors are ranked in one range per CPU thread, the ranges are accumulated concurrently
+    public static final int RANKING_PARALLEL_THRESHOLD = 65_536;
+    // Counts messages, words, embeds, attachments and mentions per author and channel in the same pass and writes
+    // the rankings per channel and per category, keeping the top DIMENSION_RANKING_TOP_K authors of each
+    public static final boolean DIMENSION_RANKINGS = true;
+    public static final int DIMENSION_RANKING_TOP_K = 10;
 
     // File Names (will be combined with output directory)
     public static final String OUTPUT_FILE_AUTHORS = "output-all.json";
@@ -21,11 +48,24 @@ public final class AnalyzerConfig {
     public static final String RANKING_MENTION_NETWORK = "ranking-mention-network.json";
     public static final String RANKING_MOST_MENTIONS_SENT = "ranking-most-mentions-sent.json";
     public static final String RANKING_SOCIAL_GRAPH_MATRIX = "ranking-social-graph-matrix.json";
+    public static final String RANKING_BY_CHANNEL = "ranking-by-channel.json";
+    public static final String RANKING_BY_CATEGORY = "ranking-by-category.json";
     public static final String SOCIAL_GRAPH_TEXT_VISUALIZATION = "social-graph-analysis.txt";
     public static final String SOCIAL_GRAPH_HTML_VISUALIZATION = "social-graph.html";
+    public static final String ACTIVITY_DAILY = "activity-daily.json";
+    public static final String ACTIVITY_WEEKLY = "activity-weekly.json";
+    public static final String ACTIVITY_MONTHLY = "activity-monthly.json";
+    public static final String ACTIVITY_INDEX = "activity-index.bin";
+    public static final String DISTINCT_COUNTS = "distinct-counts.json";
+    public static final String MESSAGE_LENGTHS = "message-lengths.json";
+    public static final String SEARCH_INDEX = "search-index.bin";
 
     // Output directory structure
     public static final String OUTPUT_SUBFOLDER = "output";
+    public static final String CACHE_SUBFOLDER = "cache"; // inside the output folder
+    public static final String ANALYSIS_MANIFEST = "analysis-manifest.json";
+    public static final String SNAPSHOT_SUBFOLDER = "snapshot"; // inside the cache folder
+    public static final String SEARCH_SEGMENT_SUBFOLDER = "search-segments"; // inside the cache folder, removed after merging
 
     // Data Source Folders
     public static final List<String> LOG_FOLDER_PATHS = List.of(
@@ -33,8 +73,42 @@ public final class AnalyzerConfig {
         "logs/dttd"
     );
 
+    // Ingestion Configuration
+    // Streams messages one by one into the analyzer instead of materializing whole channel exports
+    public static final boolean STREAMING_INGESTION = true;
+    // Parser used by the streaming ingestion, MAPPED tokenizes memory-mapped bytes and only decodes analyzed fields
+    public static final ParserBackend PARSER_BACKEND = ParserBackend.MAPPED;
+    // Caches per-file aggregates and only parses new or changed exports on re-runs
+    public static final boolean INCREMENTAL_ANALYSIS = true;
+    // Cached partials decoded ahead of the in-order merge, decoded partials are dropped once merged
+    public static final int INCREMENTAL_PREFETCHED_PARTIALS = 8;
+    // Keeps a binary snapshot of the parsed messages per export, re-runs skip the JSON parsing for unchanged files
+    public static final boolean MESSAGE_SNAPSHOTS = true;
+    // Compressed exports (.json.gz, .json.zst, .zip) are decompressed ahead of the parser in chunks of this size
+    public static final int DECOMPRESSION_CHUNK_SIZE = 256 * 1024;
+    // Decompressed chunks buffered between the decompression thread and the parser
+    public static final int DECOMPRESSION_QUEUE_DEPTH = 4;
+
+    // Full-text Index Configuration (index command)
+    // Postings kept in memory per segment, a full segment is written to disk and merged into the index at the end
+    public static final int SEARCH_INDEX_SEGMENT_POSTINGS = 2_000_000;
+    // Longer words, e.g. links or pasted blobs, are not indexed
+    public static final int SEARCH_INDEX_MAX_TERM_LENGTH = 64;
+
     // Threading Configuration
+    // Size of the CPU pool of the Scheduler, blocking IO runs on virtual threads
     public static final int THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+    // Messages per independently aggregated work unit when analyzing materialized channels
+    public static final int ANALYSIS_CHUNK_SIZE = 16_384;
+    // Ingestion pipeline: parser tasks feed message batches to the CPU pool, at most INGESTION_QUEUE_CAPACITY at a time
+    public static final int INGESTION_PARSER_THREADS = Math.max(1, THREAD_POOL_SIZE / 2);
+    public static final int INGESTION_BATCH_SIZE = 4096;
+    public static final int INGESTION_QUEUE_CAPACITY = 64;
+    // Upper bound for the estimated heap of parsed messages waiting for or in analysis or waiting to be merged, parsers block above it
+    public static final long INGESTION_MAX_IN_FLIGHT_BYTES = 256L * 1024 * 1024;
+    // Plain JSON exports above this size are split at message boundaries and parsed concurrently (MAPPED parser only)
+    public static final long INGESTION_SPLIT_THRESHOLD_BYTES = 64L * 1024 * 1024;
+    public static final long INGESTION_SPLIT_SEGMENT_BYTES = 16L * 1024 * 1024;
 
     private AnalyzerConfig() {
         // Utility class - prevent instantiation
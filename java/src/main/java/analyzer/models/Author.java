@@ -58,6 +58,13 @@ public class Author {
         this.nickname = escapeBackslashes(nickname);
     }
 
+    /**
+     * Sets the nickname exactly as found in the export, like Gson's field based deserialization does
+     */
+    public void setExportedNickname(String nickname) {
+        this.nickname = nickname;
+    }
+
     public static class AuthorComparator implements Comparator<Author> {
         @Override
         public int compare(Author o1, Author o2) {
@@ -0,0 +1,62 @@
+package analyzer.models.activity;
+
+import analyzer.config.AnalyzerConfig;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.IsoFields;
+
+/**
+ * Time buckets of the activity rollups. Days are the calendar days of the message timestamps as written,
+ * weeks are ISO weeks starting on Monday.
+ */
+public enum ActivityPeriod {
+    DAY(AnalyzerConfig.ACTIVITY_DAILY),
+    WEEK(AnalyzerConfig.ACTIVITY_WEEKLY),
+    MONTH(AnalyzerConfig.ACTIVITY_MONTHLY);
+
+    private final String outputFileName;
+
+    ActivityPeriod(String outputFileName) {
+        this.outputFileName = outputFileName;
+    }
+
+    public String getOutputFileName() {
+        return outputFileName;
+    }
+
+    /**
+     * @return the first day of the period containing the given day, both in days since the epoch
+     */
+    public int start(int epochDay) {
+        return switch (this) {
+            case DAY -> epochDay;
+            // 1970-01-01 was a Thursday
+            case WEEK -> epochDay - Math.floorMod(epochDay + 3, 7);
+            case MONTH -> (int) LocalDate.ofEpochDay(epochDay).withDayOfMonth(1).toEpochDay();
+        };
+    }
+
+    /**
+     * @return the first day of the period following the one starting at the given day
+     */
+    public int next(int startDay) {
+        return switch (this) {
+            case DAY -> startDay + 1;
+            case WEEK -> startDay + 7;
+            case MONTH -> (int) LocalDate.ofEpochDay(startDay).plusMonths(1).toEpochDay();
+        };
+    }
+
+    /**
+     * @return the name of the period starting at the given day, e.g. 2022-03-01, 2022-W09 or 2022-03
+     */
+    public String label(int startDay) {
+        final LocalDate start = LocalDate.ofEpochDay(startDay);
+        return switch (this) {
+            case DAY -> start.toString();
+            case WEEK -> String.format("%d-W%02d", start.get(IsoFields.WEEK_BASED_YEAR), start.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH -> YearMonth.from(start).toString();
+        };
+    }
+}
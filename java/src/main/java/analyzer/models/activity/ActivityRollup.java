@@ -0,0 +1,115 @@
+package analyzer.models.activity;
+
+import analyzer.models.channel.ChannelInfo;
+import analyzer.stats.AuthorData;
+import analyzer.stats.ChannelStatsStore;
+import analyzer.stats.DailyActivity;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Messages, words, mentions and reactions per author and per channel, summed up per {@link ActivityPeriod}
+ * from the daily counts collected during the analysis. Periods without messages are left out.
+ */
+@Getter
+public class ActivityRollup {
+
+    // Output order of the channels: case-insensitive name, channels with the same name by id
+    static final Comparator<ChannelInfo> CHANNEL_ORDER = Comparator
+        .comparing(ChannelInfo::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+        .thenComparing(ChannelInfo::getId, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final transient ActivityPeriod activityPeriod;
+    private final String period;
+    private final List<Series> authors = new ArrayList<>();
+    private final List<Series> channels = new ArrayList<>();
+
+    private ActivityRollup(ActivityPeriod activityPeriod) {
+        this.activityPeriod = activityPeriod;
+        this.period = activityPeriod.name();
+    }
+
+    /**
+     * Rolls up the authors in the given order and all channels ordered by name
+     */
+    public static ActivityRollup of(ActivityPeriod period, Collection<AuthorData> authorDataCollection,
+                                    ChannelStatsStore channelStore) {
+        final ActivityRollup rollup = new ActivityRollup(period);
+        for (AuthorData authorData : authorDataCollection) {
+            if (authorData.getDailyActivity() != null) {
+                rollup.authors.add(Series.of(period, authorData.getAuthorId(), authorData.getAuthor().getName(),
+                    authorData.getDailyActivity()));
+            }
+        }
+
+        IntStream.range(0, channelStore.size())
+            .filter(slot -> channelStore.getDailyActivity(slot) != null)
+            .boxed()
+            .sorted(Comparator.comparing(channelStore::getChannel, CHANNEL_ORDER))
+            .forEach(slot -> rollup.channels.add(Series.of(period, channelStore.getChannelId(slot),
+                channelStore.getChannel(slot).getName(), channelStore.getDailyActivity(slot))));
+        return rollup;
+    }
+
+    public String getOutputFileName() {
+        return activityPeriod.getOutputFileName();
+    }
+
+    @Getter
+    public static class Series {
+        private final String id;
+        private final String name;
+        private final List<PeriodCounts> periods = new ArrayList<>();
+
+        private Series(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        static Series of(ActivityPeriod period, String id, String name, DailyActivity activity) {
+            final Series series = new Series(id, name);
+            if (activity.isEmpty()) {
+                return series;
+            }
+
+            // Days arrive in ascending order, a period ends with the first day after it
+            final int[] periodEnd = {Integer.MIN_VALUE};
+            final PeriodCounts[] current = new PeriodCounts[1];
+            activity.forEachDay((day, messages, words, mentions, reactions) -> {
+                if (day >= periodEnd[0]) {
+                    series.add(current[0]);
+                    final int start = period.start(day);
+                    periodEnd[0] = period.next(start);
+                    current[0] = new PeriodCounts();
+                    current[0].period = period.label(start);
+                }
+                current[0].messages += messages;
+                current[0].words += words;
+                current[0].mentions += mentions;
+                current[0].reactions += reactions;
+            });
+            series.add(current[0]);
+            return series;
+        }
+
+        private void add(PeriodCounts counts) {
+            if (counts != null && counts.messages > 0) {
+                periods.add(counts);
+            }
+        }
+    }
+
+    @Getter
+    public static class PeriodCounts {
+        private String period;
+        private long messages;
+        private long words;
+        private long mentions;
+        private long reactions;
+    }
+}
@@ -0,0 +1,127 @@
+package analyzer.models.activity;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.stats.AuthorData;
+import analyzer.stats.ChannelStatsStore;
+import analyzer.stats.MonthlySketches;
+import analyzer.utils.HyperLogLog;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Estimated distinct active users per channel and month, distinct emojis per channel and distinct mention partners
+ * per author, read from the {@link HyperLogLog} sketches collected during the analysis. Overall and guild-wide
+ * estimates merge the sketches of the months and channels, so users active in several of them count once.
+ */
+@Getter
+public class DistinctCounts {
+
+    // Relative standard errors of the estimates, see HyperLogLog
+    private final double activeUsersError = HyperLogLog.relativeStandardError(AnalyzerConfig.SKETCH_PRECISION);
+    private final double distinctEmojisError = HyperLogLog.relativeStandardError(AnalyzerConfig.SKETCH_PRECISION);
+    private final double mentionPartnersError = HyperLogLog.relativeStandardError(AnalyzerConfig.AUTHOR_SKETCH_PRECISION);
+    private long activeUsers;
+    private long distinctEmojis;
+    private final List<MonthEstimate> months = new ArrayList<>();
+    private final List<ChannelEstimates> channels = new ArrayList<>();
+    private final List<AuthorEstimate> authors = new ArrayList<>();
+
+    /**
+     * Estimates the authors in the given order and all channels ordered by name
+     */
+    public static DistinctCounts of(Collection<AuthorData> authorDataCollection, ChannelStatsStore channelStore) {
+        final DistinctCounts counts = new DistinctCounts();
+        final MonthlySketches guildActiveUsers = new MonthlySketches(AnalyzerConfig.SKETCH_PRECISION);
+        final HyperLogLog guildEmojis = new HyperLogLog(AnalyzerConfig.SKETCH_PRECISION);
+
+        IntStream.range(0, channelStore.size())
+            .filter(slot -> channelStore.getActiveUsers(slot) != null || channelStore.getDistinctEmojis(slot) != null)
+            .boxed()
+            .sorted(Comparator.comparing(channelStore::getChannel, ActivityRollup.CHANNEL_ORDER))
+            .forEach(slot -> {
+                final ChannelEstimates channel = new ChannelEstimates(channelStore.getChannelId(slot),
+                    channelStore.getChannel(slot).getName());
+                final MonthlySketches activeUsers = channelStore.getActiveUsers(slot);
+                if (activeUsers != null) {
+                    channel.activeUsers = estimate(activeUsers, channel.months);
+                    guildActiveUsers.merge(activeUsers);
+                }
+                if (channelStore.getDistinctEmojis(slot) != null) {
+                    channel.distinctEmojis = channelStore.getDistinctEmojis(slot).estimate();
+                    guildEmojis.merge(channelStore.getDistinctEmojis(slot));
+                }
+                counts.channels.add(channel);
+            });
+        counts.activeUsers = estimate(guildActiveUsers, counts.months);
+        counts.distinctEmojis = guildEmojis.estimate();
+
+        for (AuthorData authorData : authorDataCollection) {
+            if (authorData.getMentionPartners() != null) {
+                counts.authors.add(new AuthorEstimate(authorData.getAuthorId(), authorData.getAuthor().getName(),
+                    authorData.getMentionPartners().estimate()));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Adds the estimate of every month to the list
+     *
+     * @return the estimate over all months
+     */
+    private static long estimate(MonthlySketches sketches, List<MonthEstimate> months) {
+        final HyperLogLog overall = new HyperLogLog(AnalyzerConfig.SKETCH_PRECISION);
+        sketches.getMonths().forEach((monthStart, sketch) -> {
+            months.add(new MonthEstimate(ActivityPeriod.MONTH.label(monthStart), sketch.estimate()));
+            overall.merge(sketch);
+        });
+        return overall.estimate();
+    }
+
+    public String getOutputFileName() {
+        return AnalyzerConfig.DISTINCT_COUNTS;
+    }
+
+    @Getter
+    public static class MonthEstimate {
+        private final String period;
+        private final long activeUsers;
+
+        MonthEstimate(String period, long activeUsers) {
+            this.period = period;
+            this.activeUsers = activeUsers;
+        }
+    }
+
+    @Getter
+    public static class ChannelEstimates {
+        private final String id;
+        private final String name;
+        private long activeUsers;
+        private long distinctEmojis;
+        private final List<MonthEstimate> months = new ArrayList<>();
+
+        ChannelEstimates(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Getter
+    public static class AuthorEstimate {
+        private final String id;
+        private final String name;
+        private final long mentionPartners;
+
+        AuthorEstimate(String id, String name, long mentionPartners) {
+            this.id = id;
+            this.name = name;
+            this.mentionPartners = mentionPartners;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package analyzer.models.activity;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.stats.ChannelStatsStore;
+import analyzer.utils.LogHistogram;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Average and percentiles of the words per message per channel and for all channels together. Percentiles are
+ * estimated from the {@link LogHistogram}s collected during the analysis: exact up to 15 words, within 6.25 % above.
+ */
+@Getter
+public class MessageLengths {
+
+    private final Distribution all;
+    private final List<ChannelDistribution> channels = new ArrayList<>();
+
+    private MessageLengths(Distribution all) {
+        this.all = all;
+    }
+
+    /**
+     * Summarizes all channels with messages ordered by name
+     */
+    public static MessageLengths of(ChannelStatsStore channelStore) {
+        final LogHistogram allMessages = new LogHistogram();
+        long allWords = 0;
+        for (int slot = 0; slot < channelStore.size(); slot++) {
+            if (channelStore.getWordsPerMessage(slot) != null) {
+                allMessages.merge(channelStore.getWordsPerMessage(slot));
+                allWords += channelStore.getWordCount(slot);
+            }
+        }
+
+        final MessageLengths lengths = new MessageLengths(new Distribution(allWords, allMessages));
+        IntStream.range(0, channelStore.size())
+            .filter(slot -> channelStore.getWordsPerMessage(slot) != null)
+            .boxed()
+            .sorted(Comparator.comparing(channelStore::getChannel, ActivityRollup.CHANNEL_ORDER))
+            .forEach(slot -> lengths.channels.add(new ChannelDistribution(channelStore.getChannelId(slot),
+                channelStore.getChannel(slot).getName(),
+                new Distribution(channelStore.getWordCount(slot), channelStore.getWordsPerMessage(slot)))));
+        return lengths;
+    }
+
+    public String getOutputFileName() {
+        return AnalyzerConfig.MESSAGE_LENGTHS;
+    }
+
+    // round to configurable precision points
+    private static double round(double value) {
+        double scale = Math.pow(10, AnalyzerConfig.DECIMAL_PRECISION);
+        return Math.round(value * scale) / scale;
+    }
+
+    @Getter
+    public static class Distribution {
+        private final long messages;
+        private final double averageWords;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+
+        Distribution(long words, LogHistogram histogram) {
+            this.messages = histogram.getTotal();
+            this.averageWords = messages > 0 ? round((double) words / messages) : 0;
+            this.p50 = round(histogram.quantile(0.5));
+            this.p90 = round(histogram.quantile(0.9));
+            this.p99 = round(histogram.quantile(0.99));
+        }
+    }
+
+    @Getter
+    public static class ChannelDistribution {
+        private final String id;
+        private final String name;
+        private final Distribution wordsPerMessage;
+
+        ChannelDistribution(String id, String name, Distribution wordsPerMessage) {
+            this.id = id;
+            this.name = name;
+            this.wordsPerMessage = wordsPerMessage;
+        }
+    }
+}
@@ -22,4 +22,7 @@ public class Message {
     private Reaction[] reactions;
     private Mention[] mentions;
     private Reference reference;
+
+    // Word count of the content if already known, e.g. when replayed from a snapshot. -1 if not computed.
+    private transient int wordCount = -1;
 }
@@ -4,7 +4,6 @@ import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
 
-import java.util.Comparator;
 import java.util.Objects;
 
 @Getter
@@ -14,7 +13,6 @@ public class Emoji {
     private String name;
     private boolean isAnimated;
     private String imageUrl;
-    private transient Integer count;
 
     @Override
     public boolean equals(Object o) {
@@ -41,38 +39,4 @@ public class Emoji {
     public String toString() {
         return name;
     }
-
-    public static class EmojiCountComparator implements Comparator<Emoji> {
-        @Override
-        public int compare(Emoji o1, Emoji o2) {
-            final int compare = o2.count.compareTo(o1.count);
-
-            if (compare == 0) {
-                return 1;
-            } else {
-                return compare;
-            }
-        }
-    }
-
-    public static class EmojiComparator implements Comparator<Emoji> {
-
-        // compare by name
-        @Override
-        public int compare(Emoji o1, Emoji o2) {
-            int result = 0;
-
-            if (StringUtils.isNotBlank(o1.getName()) && StringUtils.isNotBlank(o2.getName())) {
-                final int compare = o1.getName().compareToIgnoreCase(o2.getName());
-
-                if (compare == 0) {
-                    return 1;
-                } else {
-                    return compare;
-                }
-            }
-
-            return result;
-        }
-    }
 }
@@ -0,0 +1,51 @@
+package analyzer.models.ranking;
+
+import analyzer.stats.AuthorData;
+import analyzer.utils.TopKHeap;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Accumulates a count of every author: the total over all authors and the authors with the highest counts
+ */
+public final class AuthorCounts {
+
+    private final ToLongFunction<AuthorData> count;
+    private final TopKHeap top;
+    private long total;
+
+    public AuthorCounts(ToLongFunction<AuthorData> count, int k) {
+        this.count = count;
+        this.top = new TopKHeap(k);
+    }
+
+    public void accept(int index, AuthorData authorData) {
+        final long value = count.applyAsLong(authorData);
+        total += value;
+        top.offer(index, value);
+    }
+
+    /**
+     * Adds the counts of another range of authors
+     */
+    public void merge(AuthorCounts other) {
+        total += other.total;
+        top.merge(other.top);
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return the authors with the highest counts labeled with their nickname, highest first
+     */
+    public List<RankedEntry<Long>> ranked(List<AuthorData> authors) {
+        return Arrays.stream(top.sortedIndexes())
+            .mapToObj(authors::get)
+            .map(authorData -> new RankedEntry<>(authorData.getAuthor().getNickname(), count.applyAsLong(authorData)))
+            .toList();
+    }
+}
@@ -0,0 +1,51 @@
+package analyzer.models.ranking;
+
+import analyzer.stats.AuthorData;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provider with a fixed name and set of metrics, the built-in rankings register one each. Rankings are always
+ * computed by their {@link RankingAccumulator}.
+ */
+public abstract class BaseRankingProvider implements RankingProvider {
+
+    private final String name;
+    private final Set<Metric> metrics;
+
+    protected BaseRankingProvider(RankingType rankingType, Metric... metrics) {
+        this(rankingType.name(), metrics);
+    }
+
+    protected BaseRankingProvider(String name, Metric... metrics) {
+        this.name = name;
+        this.metrics = Collections.unmodifiableSet(metrics.length == 0
+            ? EnumSet.noneOf(Metric.class)
+            : EnumSet.copyOf(List.of(metrics)));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Set<Metric> getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public abstract RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap);
+
+    @Override
+    public Ranking create(Collection<AuthorData> authorDataCollection, Map<String, String> idToNameMap,
+                          RankingEngine rankingEngine) {
+        return rankingEngine.accumulate(Ranking.asList(authorDataCollection), authors -> newAccumulator(authors, idToNameMap))
+            .finish();
+    }
+}
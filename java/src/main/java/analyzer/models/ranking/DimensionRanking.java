@@ -0,0 +1,211 @@
+package analyzer.models.ranking;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.stats.AuthorData;
+import analyzer.stats.AuthorStatsStore;
+import analyzer.stats.ChannelStatsStore;
+import analyzer.stats.DimensionCube;
+import analyzer.utils.TopKHeap;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * The count rankings broken down per channel or per category, read from the {@link DimensionCube} of the authors.
+ * All members are ranked in a single pass over the cells of the cube, every member keeps its top
+ * {@link AnalyzerConfig#DIMENSION_RANKING_TOP_K} authors per ranking. Like the server-wide rankings, only active
+ * authors are ranked and equal counts keep the order of the given authors.
+ */
+public class DimensionRanking extends Ranking {
+
+    private static final String NO_CATEGORY = "";
+
+    private final transient String outputFileName;
+    @Getter
+    private final String dimension;
+    @Getter
+    private final List<MemberRanking> members = new ArrayList<>();
+
+    private DimensionRanking(List<AuthorData> authors, String dimension, String outputFileName) {
+        super(authors);
+        this.dimension = dimension;
+        this.outputFileName = outputFileName;
+    }
+
+    /**
+     * Ranks the authors of every channel
+     *
+     * @param authors the ranked authors, ordered like the server-wide rankings
+     */
+    public static DimensionRanking byChannel(List<AuthorData> authors, AuthorStatsStore statsStore, ChannelStatsStore channelStore) {
+        final DimensionRanking ranking = new DimensionRanking(authors, "CHANNEL", AnalyzerConfig.RANKING_BY_CHANNEL);
+        ranking.rank(authors, statsStore, statsStore.getChannelCube(), channelId -> {
+            final ChannelInfo channel = channel(channelStore, channelId);
+            return channel != null ? channel.getName() : null;
+        });
+        return ranking;
+    }
+
+    /**
+     * Ranks the authors of every category, channels without category are ranked together
+     *
+     * @param authors the ranked authors, ordered like the server-wide rankings
+     */
+    public static DimensionRanking byCategory(List<AuthorData> authors, AuthorStatsStore statsStore, ChannelStatsStore channelStore) {
+        final DimensionRanking ranking = new DimensionRanking(authors, "CATEGORY", AnalyzerConfig.RANKING_BY_CATEGORY);
+        final UnaryOperator<String> categoryId = channelId -> {
+            final ChannelInfo channel = channel(channelStore, channelId);
+            return channel != null && channel.getCategoryId() != null ? channel.getCategoryId() : NO_CATEGORY;
+        };
+        // The name of a category is taken from the first of its channels
+        final Map<String, String> categoryNames = new HashMap<>();
+        for (int slot = 0; slot < channelStore.size(); slot++) {
+            final ChannelInfo channel = channelStore.getChannel(slot);
+            if (channel.getCategory() != null) {
+                categoryNames.putIfAbsent(categoryId.apply(channel.getId()), channel.getCategory());
+            }
+        }
+        ranking.rank(authors, statsStore, statsStore.getChannelCube().rollUp(categoryId), categoryNames::get);
+        return ranking;
+    }
+
+    private static ChannelInfo channel(ChannelStatsStore channelStore, String channelId) {
+        final int slot = channelStore.slotOf(channelId);
+        return slot >= 0 ? channelStore.getChannel(slot) : null;
+    }
+
+    private void rank(List<AuthorData> authors, AuthorStatsStore statsStore, DimensionCube cube, Function<String, String> memberName) {
+        // Position of every slot in the ranked authors, inactive authors are not ranked. Heaps rank positions,
+        // so equal counts keep the order of the authors however the cells are ordered.
+        final int[] positions = new int[statsStore.size()];
+        final int[] slots = new int[authors.size()];
+        Arrays.fill(positions, -1);
+        for (int position = 0; position < authors.size(); position++) {
+            slots[position] = statsStore.slotOf(authors.get(position).getAuthorId());
+            positions[slots[position]] = position;
+        }
+
+        final MemberAccumulator[] accumulators = new MemberAccumulator[cube.memberCount()];
+        for (int cell = 0; cell < cube.size(); cell++) {
+            final int position = positions[cube.getAuthorSlot(cell)];
+            if (position >= 0) {
+                final int member = cube.getMember(cell);
+                if (accumulators[member] == null) {
+                    accumulators[member] = new MemberAccumulator();
+                }
+                accumulators[member].accept(position, cube, cell);
+            }
+        }
+
+        for (int member = 0; member < accumulators.length; member++) {
+            if (accumulators[member] != null) {
+                final String id = cube.getMemberId(member);
+                members.add(accumulators[member].finish(new MemberRanking(id, memberName.apply(id)), authors, slots, cube, member));
+            }
+        }
+        members.sort(Comparator.comparing(MemberRanking::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))
+            .thenComparing(MemberRanking::getId));
+    }
+
+    @Override
+    public String getOutputFileName() {
+        return outputFileName;
+    }
+
+    // round to configurable precision points
+    private static double round(double value) {
+        double scale = Math.pow(10, AnalyzerConfig.DECIMAL_PRECISION);
+        return Math.round(value * scale) / scale;
+    }
+
+    private static final class MemberAccumulator {
+
+        private static final int[] RANKED_MEASURES = {DimensionCube.MESSAGES, DimensionCube.EMBEDS,
+            DimensionCube.ATTACHMENTS, DimensionCube.MENTIONING_MESSAGES, DimensionCube.MENTIONS};
+
+        private final long[] totals = new long[DimensionCube.MEASURE_COUNT];
+        private final TopKHeap[] top = new TopKHeap[DimensionCube.MEASURE_COUNT];
+        private final TopKHeap highestAverages = new TopKHeap(AnalyzerConfig.DIMENSION_RANKING_TOP_K);
+
+        private MemberAccumulator() {
+            for (int measure : RANKED_MEASURES) {
+                top[measure] = new TopKHeap(AnalyzerConfig.DIMENSION_RANKING_TOP_K);
+            }
+        }
+
+        void accept(int position, DimensionCube cube, int cell) {
+            for (int measure = 0; measure < DimensionCube.MEASURE_COUNT; measure++) {
+                totals[measure] += cube.get(cell, measure);
+            }
+            for (int measure : RANKED_MEASURES) {
+                top[measure].offer(position, cube.get(cell, measure));
+            }
+            if (cube.get(cell, DimensionCube.MESSAGES) >= AnalyzerConfig.MIN_MESSAGES_FOR_AVG_WORD_COUNT
+                && cube.get(cell, DimensionCube.WORDS) > 0) {
+                highestAverages.offer(position, TopKHeap.doubleScore(averageWordsPerMessage(cube, cell)));
+            }
+        }
+
+        /**
+         * Labels the kept positions, their counts are looked up in the cube again
+         */
+        MemberRanking finish(MemberRanking ranking, List<AuthorData> authors, int[] slots, DimensionCube cube, int member) {
+            ranking.messagesSent = totals[DimensionCube.MESSAGES];
+            ranking.mostMessages = ranked(DimensionCube.MESSAGES, authors, slots, cube, member);
+            ranking.averageWordsPerMessage = Arrays.stream(highestAverages.sortedIndexes())
+                .mapToObj(position -> new RankedEntry<>(authors.get(position).getAuthor().getNickname(),
+                    averageWordsPerMessage(cube, cube.find(slots[position], member))))
+                .toList();
+            ranking.embedsSent = totals[DimensionCube.EMBEDS];
+            ranking.mostEmbeds = ranked(DimensionCube.EMBEDS, authors, slots, cube, member);
+            ranking.attachmentsSent = totals[DimensionCube.ATTACHMENTS];
+            ranking.mostAttachments = ranked(DimensionCube.ATTACHMENTS, authors, slots, cube, member);
+            ranking.countMentions = totals[DimensionCube.MENTIONING_MESSAGES];
+            ranking.timesMentioned = ranked(DimensionCube.MENTIONING_MESSAGES, authors, slots, cube, member);
+            ranking.totalMentionsSent = totals[DimensionCube.MENTIONS];
+            ranking.mostMentionsSent = ranked(DimensionCube.MENTIONS, authors, slots, cube, member);
+            return ranking;
+        }
+
+        private List<RankedEntry<Long>> ranked(int measure, List<AuthorData> authors, int[] slots, DimensionCube cube, int member) {
+            return Arrays.stream(top[measure].sortedIndexes())
+                .mapToObj(position -> new RankedEntry<>(authors.get(position).getAuthor().getNickname(),
+                    cube.get(cube.find(slots[position], member), measure)))
+                .toList();
+        }
+
+        private static double averageWordsPerMessage(DimensionCube cube, int cell) {
+            return round((double) cube.get(cell, DimensionCube.WORDS) / cube.get(cell, DimensionCube.MESSAGES));
+        }
+    }
+
+    @Getter
+    public static class MemberRanking {
+        private final String id;
+        private final String name;
+        private long messagesSent;
+        private List<RankedEntry<Long>> mostMessages;
+        private List<RankedEntry<Double>> averageWordsPerMessage;
+        private long embedsSent;
+        private List<RankedEntry<Long>> mostEmbeds;
+        private long attachmentsSent;
+        private List<RankedEntry<Long>> mostAttachments;
+        private long countMentions;
+        private List<RankedEntry<Long>> timesMentioned;
+        private long totalMentionsSent;
+        private List<RankedEntry<Long>> mostMentionsSent;
+
+        MemberRanking(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package analyzer.models.ranking;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Per-message data collected by the {@link analyzer.Analyzer}. Rankings declare the metrics they read, see
+ * {@link RankingProvider#getMetrics()}, and the analyzer skips the collectors no selected ranking needs.
+ */
+public enum Metric {
+    // Messages per author, always collected: authors below the activity threshold are left out of every ranking
+    MESSAGES,
+    // Words of the message content
+    WORDS,
+    // Messages with embeds
+    EMBEDS,
+    // Messages with attachments
+    ATTACHMENTS,
+    // Mentioned users, the mention graph between authors
+    MENTIONS,
+    // Emojis of the reactions a message received
+    REACTIONS,
+    // Day of the author's first message, decodes every timestamp
+    FIRST_MESSAGE,
+    // Counts per author, channel and day for the activity rollups, see AnalyzerConfig.ACTIVITY_ROLLUPS
+    DAILY_ACTIVITY,
+    // Sketches of distinct users, mention partners and emojis, see AnalyzerConfig.DISTINCT_COUNT_SKETCHES
+    DISTINCT_COUNTS,
+    // Counts per author and channel for the per-channel and per-category rankings, see AnalyzerConfig.DIMENSION_RANKINGS
+    CHANNEL_COUNTS;
+
+    private static final Set<Metric> ALL = Collections.unmodifiableSet(EnumSet.allOf(Metric.class));
+
+    /**
+     * @return every metric, as collected for the full analysis
+     */
+    public static Set<Metric> all() {
+        return ALL;
+    }
+}
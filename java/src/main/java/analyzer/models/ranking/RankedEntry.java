@@ -0,0 +1,7 @@
+package analyzer.models.ranking;
+
+/**
+ * One place of a ranking, rankings are written as lists of entries, best first
+ */
+public record RankedEntry<V>(String name, V value) {
+}
@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.util.Collection;
+import java.util.List;
 
 public abstract class Ranking {
 
@@ -19,4 +20,11 @@ public abstract class Ranking {
     public String getOutputFileName() {
         return "not-implemented.json";
     }
+
+    /**
+     * @return the collection as a list, rankings refer to authors by their index in it
+     */
+    protected static <T> List<T> asList(Collection<T> collection) {
+        return collection instanceof List<T> list ? list : List.copyOf(collection);
+    }
 }
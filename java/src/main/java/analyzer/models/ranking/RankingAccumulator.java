@@ -0,0 +1,25 @@
+package analyzer.models.ranking;
+
+import analyzer.stats.AuthorData;
+
+/**
+ * Partial result of a ranking over a range of authors. The {@link RankingEngine} visits every author once and feeds
+ * it to the accumulators of all rankings, ranges of authors are accumulated concurrently and merged in order.
+ */
+public interface RankingAccumulator {
+
+    /**
+     * Adds the author at the given index of the ranked list, indexes increase within a range
+     */
+    void accept(int index, AuthorData authorData);
+
+    /**
+     * Adds the result of the following range, accumulated by an accumulator of the same provider
+     */
+    void merge(RankingAccumulator other);
+
+    /**
+     * Computes the ranking from the merged result, this may update the authors
+     */
+    Ranking finish();
+}
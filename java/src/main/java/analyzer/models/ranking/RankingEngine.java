@@ -0,0 +1,137 @@
+package analyzer.models.ranking;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.stats.AuthorData;
+import analyzer.utils.Scheduler;
+import analyzer.utils.TaskScope;
+import analyzer.utils.TopKHeap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Evaluates rankings in a single pass over the authors: every author is visited once and fed to the
+ * {@link RankingAccumulator}s of all rankings. Rankings select their top k with a bounded {@link TopKHeap} instead of
+ * sorting all items. Items with the same score keep their order in the input list, so rankings are deterministic as
+ * long as the input is, e.g. the authors ordered by name.
+ * <p>
+ * With a scheduler, at least {@link AnalyzerConfig#RANKING_PARALLEL_THRESHOLD} authors are split into one range per
+ * CPU thread, the ranges are accumulated on the CPU pool and merged in order by the caller. Like every join, this must
+ * not be called from the CPU pool itself.
+ */
+public final class RankingEngine {
+
+    private static final RankingEngine SEQUENTIAL = new RankingEngine(null);
+
+    private final Scheduler scheduler;
+
+    public RankingEngine(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * An engine computing every ranking on the calling thread
+     */
+    public static RankingEngine sequential() {
+        return SEQUENTIAL;
+    }
+
+    /**
+     * @return the number of entries kept by the ranking, see {@link AnalyzerConfig#RANKING_TOP_K}
+     */
+    public static int topK(RankingType rankingType) {
+        return AnalyzerConfig.RANKING_TOP_K.getOrDefault(rankingType, AnalyzerConfig.RANKING_DEFAULT_TOP_K);
+    }
+
+    /**
+     * @return the k items with the highest score, best first
+     */
+    public static <T> List<T> top(List<T> items, ToLongFunction<T> score, int k) {
+        final TopKHeap heap = new TopKHeap(k);
+        for (int index = 0; index < items.size(); index++) {
+            heap.offer(index, score.applyAsLong(items.get(index)));
+        }
+
+        final int[] indexes = heap.sortedIndexes();
+        final List<T> top = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            top.add(items.get(index));
+        }
+        return top;
+    }
+
+    /**
+     * Accumulates the rankings of all providers in a single pass over the authors
+     *
+     * @param idToNameMap {@link analyzer.utils.SocialGraphUtils#idToNameMap(java.util.Collection)} of the same
+     *                    authors, only passed to the providers that use it
+     * @return the merged accumulators in the order of the providers, not finished yet
+     */
+    public List<RankingAccumulator> accumulate(List<AuthorData> authors, List<RankingProvider> providers,
+                                               Map<String, String> idToNameMap) {
+        return accumulateAll(authors, providers.stream()
+            .<Function<List<AuthorData>, ? extends RankingAccumulator>>map(provider ->
+                rankedAuthors -> provider.newAccumulator(rankedAuthors, provider.usesIdToNameMap() ? idToNameMap : null))
+            .toList());
+    }
+
+    /**
+     * Accumulates a single ranking over the authors
+     */
+    @SuppressWarnings("unchecked")
+    public <A extends RankingAccumulator> A accumulate(List<AuthorData> authors, Function<List<AuthorData>, A> newAccumulator) {
+        return (A) accumulateAll(authors, List.of(newAccumulator)).get(0);
+    }
+
+    private List<RankingAccumulator> accumulateAll(List<AuthorData> authors,
+                                                   List<Function<List<AuthorData>, ? extends RankingAccumulator>> newAccumulators) {
+        if (scheduler == null || authors.size() < AnalyzerConfig.RANKING_PARALLEL_THRESHOLD) {
+            return accumulateRange(authors, 0, authors.size(), newAccumulators);
+        }
+
+        final int ranges = Math.max(1, scheduler.getCpuThreads());
+        final int rangeSize = (authors.size() + ranges - 1) / ranges;
+        try (TaskScope scope = new TaskScope()) {
+            final List<TaskScope.Subtask<List<RankingAccumulator>>> partials = new ArrayList<>(ranges);
+            for (int from = 0; from < authors.size(); from += rangeSize) {
+                final int start = from;
+                final int end = Math.min(authors.size(), from + rangeSize);
+                partials.add(scope.fork(scheduler.cpu(), () -> accumulateRange(authors, start, end, newAccumulators)));
+            }
+            scope.join();
+
+            final List<RankingAccumulator> merged = partials.get(0).get();
+            for (int range = 1; range < partials.size(); range++) {
+                final List<RankingAccumulator> partial = partials.get(range).get();
+                for (int ranking = 0; ranking < merged.size(); ranking++) {
+                    merged.get(ranking).merge(partial.get(ranking));
+                }
+            }
+            return merged;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ranking failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ranking interrupted", e);
+        }
+    }
+
+    private static List<RankingAccumulator> accumulateRange(List<AuthorData> authors, int from, int to,
+                                                            List<Function<List<AuthorData>, ? extends RankingAccumulator>> newAccumulators) {
+        final RankingAccumulator[] accumulators = new RankingAccumulator[newAccumulators.size()];
+        for (int ranking = 0; ranking < accumulators.length; ranking++) {
+            accumulators[ranking] = newAccumulators.get(ranking).apply(authors);
+        }
+        for (int index = from; index < to; index++) {
+            final AuthorData authorData = authors.get(index);
+            for (RankingAccumulator accumulator : accumulators) {
+                accumulator.accept(index, authorData);
+            }
+        }
+        return List.of(accumulators);
+    }
+}
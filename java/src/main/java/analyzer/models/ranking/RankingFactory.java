@@ -1,41 +1,83 @@
 package analyzer.models.ranking;
 
-import analyzer.models.ranking.impl.AccountAgeRanking;
-import analyzer.models.ranking.impl.AvgWordCountRanking;
-import analyzer.models.ranking.impl.MentionNetworkRanking;
-import analyzer.models.ranking.impl.MostAttachmentsRanking;
-import analyzer.models.ranking.impl.MostCommonReactionRanking;
-import analyzer.models.ranking.impl.MostEmbedsRanking;
-import analyzer.models.ranking.impl.MostMentionsSentRanking;
-import analyzer.models.ranking.impl.MostMessagesRanking;
-import analyzer.models.ranking.impl.SocialGraphMatrixRanking;
-import analyzer.models.ranking.impl.TimesMentionedRanking;
 import analyzer.stats.AuthorData;
+import analyzer.utils.SocialGraphUtils;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.ServiceLoader;
+import java.util.Set;
 
+/**
+ * Looks up the {@link RankingProvider}s on the classpath, the built-in rankings and any plugins, in the order of
+ * their {@code META-INF/services} files.
+ */
 public class RankingFactory {
 
-    private static final Map<RankingType, Function<Collection<AuthorData>, Ranking>> RANKING_CREATORS = Map.of(
-        RankingType.MOST_MESSAGES, MostMessagesRanking::new,
-        RankingType.ACCOUNT_AGE, AccountAgeRanking::new,
-        RankingType.MOST_COMMON_REACTION, MostCommonReactionRanking::new,
-        RankingType.AVG_WORD_COUNT, AvgWordCountRanking::new,
-        RankingType.MOST_EMBEDS, MostEmbedsRanking::new,
-        RankingType.MOST_ATTACHMENTS, MostAttachmentsRanking::new,
-        RankingType.TIMES_MENTIONED, TimesMentionedRanking::new,
-        RankingType.MENTION_NETWORK, MentionNetworkRanking::new,
-        RankingType.MOST_MENTIONS_SENT, MostMentionsSentRanking::new,
-        RankingType.SOCIAL_GRAPH_MATRIX, SocialGraphMatrixRanking::new
-    );
+    private static final Map<String, RankingProvider> PROVIDERS = loadProviders();
+
+    private static Map<String, RankingProvider> loadProviders() {
+        final Map<String, RankingProvider> providers = new LinkedHashMap<>();
+        for (RankingProvider provider : ServiceLoader.load(RankingProvider.class, RankingFactory.class.getClassLoader())) {
+            if (providers.putIfAbsent(provider.getName(), provider) != null) {
+                throw new IllegalStateException("Duplicate ranking: " + provider.getName());
+            }
+        }
+        return Collections.unmodifiableMap(providers);
+    }
+
+    /**
+     * @return all rankings found on the classpath
+     */
+    public static List<RankingProvider> providers() {
+        return List.copyOf(PROVIDERS.values());
+    }
+
+    /**
+     * @return the providers of the named rankings, in the given order
+     */
+    public static List<RankingProvider> providers(Collection<String> names) {
+        final List<RankingProvider> providers = new ArrayList<>(names.size());
+        for (String name : names) {
+            final RankingProvider provider = PROVIDERS.get(name);
+            if (provider == null) {
+                throw new IllegalArgumentException("Unknown ranking: " + name + ", available: " + PROVIDERS.keySet());
+            }
+            providers.add(provider);
+        }
+        return providers;
+    }
+
+    /**
+     * @return the metrics the analyzer has to collect for the given rankings
+     */
+    public static Set<Metric> metrics(Collection<RankingProvider> providers) {
+        final Set<Metric> metrics = EnumSet.of(Metric.MESSAGES);
+        providers.forEach(provider -> metrics.addAll(provider.getMetrics()));
+        return metrics;
+    }
 
     public static Ranking createRanking(RankingType rankingType, Collection<AuthorData> authorDataCollection) {
-        Function<Collection<AuthorData>, Ranking> creator = RANKING_CREATORS.get(rankingType);
-        if (creator == null) {
+        return createRanking(rankingType, authorDataCollection, RankingEngine.sequential());
+    }
+
+    public static Ranking createRanking(RankingType rankingType, Collection<AuthorData> authorDataCollection,
+                                        RankingEngine rankingEngine) {
+        final RankingProvider provider = provider(rankingType);
+        return provider.create(authorDataCollection,
+            provider.usesIdToNameMap() ? SocialGraphUtils.idToNameMap(authorDataCollection) : null, rankingEngine);
+    }
+
+    private static RankingProvider provider(RankingType rankingType) {
+        final RankingProvider provider = PROVIDERS.get(rankingType.name());
+        if (provider == null) {
             throw new IllegalArgumentException("Unknown ranking type: " + rankingType);
         }
-        return creator.apply(authorDataCollection);
+        return provider;
     }
 }
@@ -0,0 +1,73 @@
+package analyzer.models.ranking;
+
+import analyzer.stats.AuthorData;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service provider interface of a ranking, found with {@link java.util.ServiceLoader}. Additional rankings are
+ * added by putting a jar on the classpath that lists its providers in
+ * {@code META-INF/services/analyzer.models.ranking.RankingProvider}.
+ * Implementations need a public no-argument constructor.
+ */
+public interface RankingProvider {
+
+    /**
+     * @return the unique name of the ranking, the built-in rankings use their {@link RankingType} name
+     */
+    String getName();
+
+    /**
+     * @return the per-message metrics the ranking reads from the authors, {@link Metric#MESSAGES} is always collected
+     */
+    Set<Metric> getMetrics();
+
+    /**
+     * @return whether the ranking labels mentioned users and is passed a prebuilt id to name map
+     */
+    default boolean usesIdToNameMap() {
+        return false;
+    }
+
+    /**
+     * @return whether the ranking updates the authors it ranks, it then runs after the author data is written
+     */
+    default boolean updatesAuthors() {
+        return false;
+    }
+
+    /**
+     * Computes the ranking
+     *
+     * @param idToNameMap {@link analyzer.utils.SocialGraphUtils#idToNameMap(Collection)} of the same authors if
+     *                    {@link #usesIdToNameMap()}, null otherwise
+     */
+    Ranking create(Collection<AuthorData> authorDataCollection, Map<String, String> idToNameMap, RankingEngine rankingEngine);
+
+    /**
+     * Creates an accumulator of a range of the given authors, so the ranking joins the single pass of
+     * {@link RankingEngine#accumulate(List, List, Map)}. By default, the ranking is computed on its own by
+     * {@link #create(Collection, Map, RankingEngine)} when finished.
+     */
+    default RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+        return new RankingAccumulator() {
+            @Override
+            public void accept(int index, AuthorData authorData) {
+                // computed by create
+            }
+
+            @Override
+            public void merge(RankingAccumulator other) {
+                // computed by create
+            }
+
+            @Override
+            public Ranking finish() {
+                return create(authors, idToNameMap, RankingEngine.sequential());
+            }
+        };
+    }
+}
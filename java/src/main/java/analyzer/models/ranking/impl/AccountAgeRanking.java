@@ -1,33 +1,86 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
+import analyzer.utils.TopKHeap;
 import lombok.Getter;
 
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Map;
 
 public class AccountAgeRanking extends Ranking {
 
     @Getter
-    private TreeMap<AuthorData, String> joinedServer;
+    private List<RankedEntry<String>> joinedServer;
 
     public AccountAgeRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateAccountAgeRanking(authorDataCollection);
+        this(authorDataCollection, RankingEngine.sequential());
     }
 
-    // todo bug, somehow does not add a lot of accounts
-    private void calculateAccountAgeRanking(Collection<AuthorData> authorDataCollection) {
-        joinedServer = new TreeMap<>(new AuthorData.AuthorDataFirstMessageComparator());
-        authorDataCollection.stream()
-            .filter(authorData -> authorData.getMessagesSent() >= AnalyzerConfig.MIN_AMOUNT_MESSAGES)
-            .forEach(authorData -> joinedServer.put(authorData, authorData.getLocalDateAsString(authorData.getEarliestLocalDate())));
+    public AccountAgeRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
+    }
+
+    private AccountAgeRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        joinedServer = Arrays.stream(accumulator.earliest.sortedIndexes())
+            .mapToObj(accumulator.authors::get)
+            .map(authorData -> new RankedEntry<>(authorData.getAuthor().getNickname(),
+                authorData.getLocalDateAsString(authorData.getEarliestLocalDate())))
+            .toList();
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_ACCOUNT_AGE;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.ACCOUNT_AGE, Metric.FIRST_MESSAGE);
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final TopKHeap earliest = new TopKHeap(RankingEngine.topK(RankingType.ACCOUNT_AGE));
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        // Earliest first message first
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            if (authorData.getMessagesSent() >= AnalyzerConfig.MIN_AMOUNT_MESSAGES) {
+                earliest.offer(index, -(long) authorData.getEarliestEpochDay());
+            }
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            earliest.merge(((Accumulator) other).earliest);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new AccountAgeRanking(this);
+        }
+    }
 }
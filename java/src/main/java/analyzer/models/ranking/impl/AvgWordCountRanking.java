@@ -1,25 +1,66 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
-import analyzer.utils.ComparatorUtils;
+import analyzer.utils.GrowableIntArray;
+import analyzer.utils.LogHistogram;
+import analyzer.utils.TopKHeap;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 public class AvgWordCountRanking extends Ranking {
 
     @Getter
     @Setter
-    private Map<Double, String> averageWordsPerMessage = new TreeMap<>(ComparatorUtils.descendingWithTieBreaker(d -> d));
+    private List<RankedEntry<WordsPerMessage>> averageWordsPerMessage;
 
     public AvgWordCountRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateAvgWordCount(authorDataCollection);
+        this(authorDataCollection, RankingEngine.sequential());
+    }
+
+    public AvgWordCountRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
+    }
+
+    private AvgWordCountRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        for (int i = 0; i < accumulator.rankedAuthors.size(); i++) {
+            final AuthorData authorData = accumulator.authors.get(accumulator.rankedAuthors.get(i));
+            authorData.setAverageWordsPerMessage(averageWordsPerMessage(authorData));
+        }
+
+        averageWordsPerMessage = Arrays.stream(accumulator.highestAverages.sortedIndexes())
+            .mapToObj(accumulator.authors::get)
+            .map(authorData -> new RankedEntry<>(authorData.getAuthor().getNickname(), WordsPerMessage.of(authorData)))
+            .toList();
+    }
+
+    /**
+     * Average and percentiles of the words per message, percentiles are estimated from the author's
+     * {@link LogHistogram}: exact up to 15 words, within 6.25 % above
+     */
+    public record WordsPerMessage(double average, double p50, double p90, double p99) {
+
+        static WordsPerMessage of(AuthorData authorData) {
+            final LogHistogram histogram = authorData.getWordsPerMessage();
+            if (histogram == null) {
+                return new WordsPerMessage(authorData.getAverageWordsPerMessage(), 0, 0, 0);
+            }
+            return new WordsPerMessage(authorData.getAverageWordsPerMessage(), round(histogram.quantile(0.5)),
+                round(histogram.quantile(0.9)), round(histogram.quantile(0.99)));
+        }
     }
 
     // round to configurable precision points
@@ -28,22 +69,68 @@ public class AvgWordCountRanking extends Ranking {
         return Math.round(value * scale) / scale;
     }
 
-    private void calculateAvgWordCount(Collection<AuthorData> authorDataCollection) {
-        authorDataCollection
-            .parallelStream() // Use parallel processing for better performance
-            .filter(authorData -> authorData.getMessagesSent() >= AnalyzerConfig.MIN_MESSAGES_FOR_AVG_WORD_COUNT)
-            .filter(authorData -> authorData.getWordCountSum() > 0) // Early filter
-            .forEach(authorData -> {
-                final double wordCountSum = authorData.getWordCountSum();
-                final double messagesSent = authorData.getMessagesSent();
-
-                authorData.setAverageWordsPerMessage(round(wordCountSum / messagesSent));
-                averageWordsPerMessage.put(authorData.getAverageWordsPerMessage(), authorData.getAuthor().getNickname());
-            });
+    private static double averageWordsPerMessage(AuthorData authorData) {
+        final double wordCountSum = authorData.getWordCountSum();
+        final double messagesSent = authorData.getMessagesSent();
+        return round(wordCountSum / messagesSent);
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_AVG_WORD_COUNT;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.AVG_WORD_COUNT, Metric.WORDS);
+        }
+
+        // Sets the average words per message of the authors
+        @Override
+        public boolean updatesAuthors() {
+            return true;
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    /**
+     * Ranks the averages without setting them, the authors are only updated when the ranking is finished
+     */
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final GrowableIntArray rankedAuthors = new GrowableIntArray();
+        private final TopKHeap highestAverages = new TopKHeap(RankingEngine.topK(RankingType.AVG_WORD_COUNT));
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            if (authorData.getMessagesSent() >= AnalyzerConfig.MIN_MESSAGES_FOR_AVG_WORD_COUNT && authorData.getWordCountSum() > 0) {
+                rankedAuthors.add(index);
+                highestAverages.offer(index, TopKHeap.doubleScore(averageWordsPerMessage(authorData)));
+            }
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            final Accumulator following = (Accumulator) other;
+            for (int i = 0; i < following.rankedAuthors.size(); i++) {
+                rankedAuthors.add(following.rankedAuthors.get(i));
+            }
+            highestAverages.merge(following.highestAverages);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new AvgWordCountRanking(this);
+        }
+    }
 }
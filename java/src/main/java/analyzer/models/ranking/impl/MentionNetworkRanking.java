@@ -1,79 +1,72 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.AuthorCounts;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
+import analyzer.utils.SocialGraphUtils;
 import lombok.Getter;
 
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.stream.Collectors;
 
 @Getter
 public class MentionNetworkRanking extends Ranking {
 
-    private TreeMap<AuthorData, Long> mostMentionsSent;
+    private static final Comparator<MentionRelationship> RELATIONSHIP_ORDER = Comparator
+        .comparing(MentionRelationship::getMentionerName, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(MentionRelationship::getMentionedName, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private List<RankedEntry<Long>> mostMentionsSent;
     private Map<String, Map<String, Integer>> mentionMatrix; // mentioner -> mentioned -> count
     private List<MentionRelationship> topMentionRelationships;
     private long totalMentionConnections;
 
     public MentionNetworkRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateMentionNetwork(authorDataCollection);
+        this(authorDataCollection, SocialGraphUtils.idToNameMap(authorDataCollection));
     }
 
-    private void calculateMentionNetwork(Collection<AuthorData> authorDataCollection) {
-        calculateMentionsSentRanking(authorDataCollection);
-        buildMentionMatrix(authorDataCollection);
-        calculateTopRelationships();
-        countTotalConnections();
+    /**
+     * Uses a shared {@link SocialGraphUtils#idToNameMap(Collection)} of the same authors
+     */
+    public MentionNetworkRanking(Collection<AuthorData> authorDataCollection, Map<String, String> idToNameMap) {
+        this(authorDataCollection, idToNameMap, RankingEngine.sequential());
     }
 
-    private void calculateMentionsSentRanking(Collection<AuthorData> authorDataCollection) {
-        mostMentionsSent = new TreeMap<>(new AuthorData.AuthorDataMentionsSentComparator());
-        authorDataCollection.forEach(authorData ->
-            mostMentionsSent.put(authorData, authorData.getTotalMentionsSent())
-        );
+    public MentionNetworkRanking(Collection<AuthorData> authorDataCollection, Map<String, String> idToNameMap,
+                                 RankingEngine rankingEngine) {
+        this(rankingEngine.<Accumulator>accumulate(asList(authorDataCollection), authors -> new Accumulator(authors, idToNameMap)));
     }
 
-    private void buildMentionMatrix(Collection<AuthorData> authorDataCollection) {
-        mentionMatrix = new HashMap<>();
-
-        // Create mapping from ID to name for lookup
-        Map<String, String> idToNameMap = new HashMap<>();
-        for (AuthorData authorData : authorDataCollection) {
-            idToNameMap.put(authorData.getAuthorId(), authorData.getAuthor().getName());
-        }
-
-        for (AuthorData authorData : authorDataCollection) {
-            String authorName = authorData.getAuthor().getName();
-            Map<String, Integer> mentionsFromThisUser = new HashMap<>();
-
-            // Add all mentions sent by this user, converting IDs to names
-            authorData.getMentionsSent().forEach((mentionedId, count) -> {
-                String mentionedName = idToNameMap.getOrDefault(mentionedId, "Unknown User");
-                mentionsFromThisUser.put(mentionedName, count);
-            });
-
-            if (!mentionsFromThisUser.isEmpty()) {
-                mentionMatrix.put(authorName, mentionsFromThisUser);
-            }
-        }
+    private MentionNetworkRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        mostMentionsSent = accumulator.mentionsSent.ranked(accumulator.authors);
+        mentionMatrix = accumulator.mentionMatrix;
+        calculateTopRelationships();
+        countTotalConnections();
     }
 
     private void calculateTopRelationships() {
-        topMentionRelationships = mentionMatrix.entrySet().stream()
+        // Relationships with the same count are listed by mentioner, then mentioned name
+        final List<MentionRelationship> relationships = mentionMatrix.entrySet().stream()
             .flatMap(entry -> entry.getValue().entrySet().stream()
                 .map(mentionEntry -> new MentionRelationship(
                     entry.getKey(),   // Already a name now
                     mentionEntry.getKey(),  // Already a name now
                     mentionEntry.getValue())))
-            .sorted((r1, r2) -> Integer.compare(r2.getCount(), r1.getCount()))
-            .limit(20) // Top 20 relationships
-            .collect(Collectors.toList());
+            .sorted(RELATIONSHIP_ORDER)
+            .toList();
+        topMentionRelationships = RankingEngine.top(relationships, MentionRelationship::getCount,
+            AnalyzerConfig.TOP_MENTION_RELATIONSHIPS);
     }
 
     private void countTotalConnections() {
@@ -89,6 +82,68 @@ public class MentionNetworkRanking extends Ranking {
         return AnalyzerConfig.RANKING_MENTION_NETWORK;
     }
 
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.MENTION_NETWORK, Metric.MENTIONS);
+        }
+
+        @Override
+        public boolean usesIdToNameMap() {
+            return true;
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors, idToNameMap);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final Map<String, String> idToNameMap;
+        private final AuthorCounts mentionsSent = new AuthorCounts(AuthorData::getTotalMentionsSent,
+            RankingEngine.topK(RankingType.MENTION_NETWORK));
+        private final Map<String, Map<String, Integer>> mentionMatrix = new HashMap<>(); // mentioner -> mentioned -> count
+
+        private Accumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            this.authors = authors;
+            this.idToNameMap = idToNameMap;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            mentionsSent.accept(index, authorData);
+
+            String authorName = authorData.getAuthor().getName();
+            Map<String, Integer> mentionsFromThisUser = new HashMap<>();
+
+            // Add all mentions sent by this user, converting IDs to names
+            authorData.getMentionsSent().forEach((mentionedId, count) -> {
+                String mentionedName = idToNameMap.getOrDefault(mentionedId, "Unknown User");
+                mentionsFromThisUser.put(mentionedName, count);
+            });
+
+            if (!mentionsFromThisUser.isEmpty()) {
+                mentionMatrix.put(authorName, mentionsFromThisUser);
+            }
+        }
+
+        // Authors of the following range win, as if they were added after the authors of this range
+        @Override
+        public void merge(RankingAccumulator other) {
+            final Accumulator following = (Accumulator) other;
+            mentionsSent.merge(following.mentionsSent);
+            mentionMatrix.putAll(following.mentionMatrix);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new MentionNetworkRanking(this);
+        }
+    }
+
     @Getter
     public static class MentionRelationship {
         private final String mentionerName;
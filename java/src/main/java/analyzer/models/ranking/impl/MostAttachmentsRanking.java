@@ -1,39 +1,81 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.AuthorCounts;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
 import lombok.Getter;
 
 import java.util.Collection;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Map;
 
 public class MostAttachmentsRanking extends Ranking {
 
     @Getter
     private long attachmentsSent;
     @Getter
-    private TreeMap<AuthorData, Long> mostAttachments;
+    private List<RankedEntry<Long>> mostAttachments;
 
     public MostAttachmentsRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateAttachments(authorDataCollection);
-        countAttachments(authorDataCollection);
+        this(authorDataCollection, RankingEngine.sequential());
     }
 
-    private void calculateAttachments(Collection<AuthorData> authorDataCollection) {
-        mostAttachments = new TreeMap<>(new AuthorData.AuthorDataAttachmentsCountComparator());
-        authorDataCollection.forEach(authorData -> mostAttachments.put(authorData, authorData.getAttachmentsSent()));
+    public MostAttachmentsRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
     }
 
-    private void countAttachments(Collection<AuthorData> authorDataCollection) {
-        attachmentsSent = authorDataCollection.stream()
-            .mapToLong(AuthorData::getAttachmentsSent)
-            .sum();
+    private MostAttachmentsRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        mostAttachments = accumulator.attachments.ranked(accumulator.authors);
+        attachmentsSent = accumulator.attachments.getTotal();
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_MOST_ATTACHMENTS;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.MOST_ATTACHMENTS, Metric.ATTACHMENTS);
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final AuthorCounts attachments = new AuthorCounts(AuthorData::getAttachmentsSent, RankingEngine.topK(RankingType.MOST_ATTACHMENTS));
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            attachments.accept(index, authorData);
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            attachments.merge(((Accumulator) other).attachments);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new MostAttachmentsRanking(this);
+        }
+    }
 }
@@ -2,55 +2,101 @@ package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
 import analyzer.models.message.reaction.Emoji;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 public class MostCommonReactionRanking extends Ranking {
 
+    // Emojis with the same count are listed by name, then id
+    private static final Comparator<Map.Entry<Emoji, Integer>> EMOJI_ORDER = Comparator
+        .comparing((Map.Entry<Emoji, Integer> entry) -> entry.getKey().getName(), Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(entry -> entry.getKey().getId(), Comparator.nullsFirst(Comparator.naturalOrder()));
+
     @Getter
     private long reactionsGiven;
     @Getter
     @Setter
-    private TreeMap<Emoji, Integer> mostCommonReaction = new TreeMap<>(new Emoji.EmojiCountComparator());
+    private List<RankedEntry<Integer>> mostCommonReaction;
 
     public MostCommonReactionRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateMostCommonReaction(authorDataCollection);
-        countReactions();
+        this(authorDataCollection, RankingEngine.sequential());
+    }
+
+    public MostCommonReactionRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
     }
 
-    private void countReactions() {
-        reactionsGiven = mostCommonReaction.values().stream()
+    private MostCommonReactionRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        final Map<Emoji, Integer> emojiCount = accumulator.emojiCount;
+
+        // Counted over all emojis, not just the ranked ones
+        reactionsGiven = emojiCount.values().stream()
             .mapToLong(Integer::intValue)
             .sum();
-    }
 
-    private void calculateMostCommonReaction(Collection<AuthorData> authorDataCollection) {
-        Map<Emoji, Integer> emojiCount = new HashMap<>();
-        authorDataCollection.forEach(authorData -> {
-            final Map<Emoji, Integer> emojisReceived = authorData.getEmojisReceived();
-            emojisReceived.forEach((key, value) -> {
-                // Use more efficient merge operation
-                emojiCount.merge(key, value, Integer::sum);
-            });
-        });
-
-        // write emoji count
-        for (Map.Entry<Emoji, Integer> emoji : emojiCount.entrySet()) {
-            emoji.getKey().setCount(emoji.getValue());
-        }
-        mostCommonReaction.putAll(emojiCount);
+        final List<Map.Entry<Emoji, Integer>> emojis = new ArrayList<>(emojiCount.entrySet());
+        emojis.sort(EMOJI_ORDER);
+        mostCommonReaction = RankingEngine.top(emojis, Map.Entry::getValue, RankingEngine.topK(RankingType.MOST_COMMON_REACTION))
+            .stream()
+            .map(entry -> new RankedEntry<>(entry.getKey().toString(), entry.getValue()))
+            .toList();
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_MOST_COMMON_REACTION;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.MOST_COMMON_REACTION, Metric.REACTIONS);
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final Map<Emoji, Integer> emojiCount = new HashMap<>();
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            authorData.getEmojisReceived().forEach((emoji, count) -> emojiCount.merge(emoji, count, Integer::sum));
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            ((Accumulator) other).emojiCount.forEach((emoji, count) -> emojiCount.merge(emoji, count, Integer::sum));
+        }
+
+        @Override
+        public Ranking finish() {
+            return new MostCommonReactionRanking(this);
+        }
+    }
 }
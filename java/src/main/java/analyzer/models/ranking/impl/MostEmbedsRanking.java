@@ -1,39 +1,81 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.AuthorCounts;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
 import lombok.Getter;
 
 import java.util.Collection;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Map;
 
 public class MostEmbedsRanking extends Ranking {
 
     @Getter
     private long embedsSent;
     @Getter
-    private TreeMap<AuthorData, Long> mostEmbeds;
+    private List<RankedEntry<Long>> mostEmbeds;
 
     public MostEmbedsRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateEmbeds(authorDataCollection);
-        countEmbeds(authorDataCollection);
+        this(authorDataCollection, RankingEngine.sequential());
     }
 
-    private void calculateEmbeds(Collection<AuthorData> authorDataCollection) {
-        mostEmbeds = new TreeMap<>(new AuthorData.AuthorDataEmbedsCountComparator());
-        authorDataCollection.forEach(authorData -> mostEmbeds.put(authorData, authorData.getEmbedsSent()));
+    public MostEmbedsRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
     }
 
-    private void countEmbeds(Collection<AuthorData> authorDataCollection) {
-        embedsSent = authorDataCollection.stream()
-            .mapToLong(AuthorData::getEmbedsSent)
-            .sum();
+    private MostEmbedsRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        mostEmbeds = accumulator.embeds.ranked(accumulator.authors);
+        embedsSent = accumulator.embeds.getTotal();
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_MOST_EMBEDS;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.MOST_EMBEDS, Metric.EMBEDS);
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final AuthorCounts embeds = new AuthorCounts(AuthorData::getEmbedsSent, RankingEngine.topK(RankingType.MOST_EMBEDS));
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            embeds.accept(index, authorData);
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            embeds.merge(((Accumulator) other).embeds);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new MostEmbedsRanking(this);
+        }
+    }
 }
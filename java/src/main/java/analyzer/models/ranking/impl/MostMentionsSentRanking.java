@@ -1,40 +1,80 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.AuthorCounts;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
 import lombok.Getter;
 
 import java.util.Collection;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Map;
 
 @Getter
 public class MostMentionsSentRanking extends Ranking {
 
     private long totalMentionsSent;
-    private TreeMap<AuthorData, Long> mostMentionsSent;
+    private List<RankedEntry<Long>> mostMentionsSent;
 
     public MostMentionsSentRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateMentionsSentRanking(authorDataCollection);
-        countTotalMentionsSent(authorDataCollection);
+        this(authorDataCollection, RankingEngine.sequential());
     }
 
-    private void calculateMentionsSentRanking(Collection<AuthorData> authorDataCollection) {
-        mostMentionsSent = new TreeMap<>(new AuthorData.AuthorDataMentionsSentComparator());
-        authorDataCollection.forEach(authorData ->
-            mostMentionsSent.put(authorData, authorData.getTotalMentionsSent())
-        );
+    public MostMentionsSentRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
     }
 
-    private void countTotalMentionsSent(Collection<AuthorData> authorDataCollection) {
-        totalMentionsSent = authorDataCollection.stream()
-            .mapToLong(AuthorData::getTotalMentionsSent)
-            .sum();
+    private MostMentionsSentRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        mostMentionsSent = accumulator.mentionsSent.ranked(accumulator.authors);
+        totalMentionsSent = accumulator.mentionsSent.getTotal();
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_MOST_MENTIONS_SENT;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.MOST_MENTIONS_SENT, Metric.MENTIONS);
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final AuthorCounts mentionsSent = new AuthorCounts(AuthorData::getTotalMentionsSent, RankingEngine.topK(RankingType.MOST_MENTIONS_SENT));
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            mentionsSent.accept(index, authorData);
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            mentionsSent.merge(((Accumulator) other).mentionsSent);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new MostMentionsSentRanking(this);
+        }
+    }
 }
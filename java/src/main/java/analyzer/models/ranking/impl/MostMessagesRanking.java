@@ -1,12 +1,20 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.AuthorCounts;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
 import lombok.Getter;
 
 import java.util.Collection;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class MostMessagesRanking extends Ranking {
@@ -14,27 +22,61 @@ public class MostMessagesRanking extends Ranking {
     @Getter
     private long messagesSent;
     @Getter
-    private TreeMap<AuthorData, Long> mostMessages;
+    private List<RankedEntry<Long>> mostMessages;
 
     public MostMessagesRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateMessageRanking(authorDataCollection);
-        countMessages(authorDataCollection);
+        this(authorDataCollection, RankingEngine.sequential());
     }
 
-    private void calculateMessageRanking(Collection<AuthorData> authorDataCollection) {
-        mostMessages = new TreeMap<>(new AuthorData.AuthorDataMessagesCountComparator());
-        authorDataCollection.forEach(authorData -> mostMessages.put(authorData, authorData.getMessagesSent()));
+    public MostMessagesRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
     }
 
-    private void countMessages(Collection<AuthorData> authorDataCollection) {
-        messagesSent = authorDataCollection.stream()
-            .mapToLong(AuthorData::getMessagesSent)
-            .sum();
+    private MostMessagesRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        mostMessages = accumulator.messages.ranked(accumulator.authors);
+        messagesSent = accumulator.messages.getTotal();
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_MOST_MESSAGES;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.MOST_MESSAGES, Metric.MESSAGES);
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final AuthorCounts messages = new AuthorCounts(AuthorData::getMessagesSent, RankingEngine.topK(RankingType.MOST_MESSAGES));
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            messages.accept(index, authorData);
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            messages.merge(((Accumulator) other).messages);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new MostMessagesRanking(this);
+        }
+    }
 }
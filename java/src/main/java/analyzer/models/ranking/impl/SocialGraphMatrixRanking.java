@@ -1,15 +1,22 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
+import analyzer.utils.SocialGraphUtils;
 import lombok.Getter;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Getter
 public class SocialGraphMatrixRanking extends Ranking {
@@ -19,77 +26,116 @@ public class SocialGraphMatrixRanking extends Ranking {
     private Map<String, UserGraphStats> userGraphStats;
 
     public SocialGraphMatrixRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateSocialGraphMatrix(authorDataCollection);
+        this(authorDataCollection, SocialGraphUtils.idToNameMap(authorDataCollection));
     }
 
-    private void calculateSocialGraphMatrix(Collection<AuthorData> authorDataCollection) {
-        extractAllUserIds(authorDataCollection);
-        buildSocialGraphMatrix(authorDataCollection);
-        calculateUserGraphStats(authorDataCollection);
+    /**
+     * Uses a shared {@link SocialGraphUtils#idToNameMap(Collection)} of the same authors
+     */
+    public SocialGraphMatrixRanking(Collection<AuthorData> authorDataCollection, Map<String, String> idToNameMap) {
+        this(RankingEngine.sequential().<Accumulator>accumulate(asList(authorDataCollection), authors -> new Accumulator(authors, idToNameMap)));
     }
 
-    private void extractAllUserIds(Collection<AuthorData> authorDataCollection) {
-        allUserIds = authorDataCollection.stream()
-            .map(AuthorData::getAuthorId)
-            .collect(Collectors.toSet());
+    private SocialGraphMatrixRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        socialGraphMatrix = accumulator.socialGraphMatrix;
+        allUserIds = accumulator.allUserIds;
+        userGraphStats = accumulator.userGraphStats;
     }
 
-    private void buildSocialGraphMatrix(Collection<AuthorData> authorDataCollection) {
-        socialGraphMatrix = new HashMap<>();
+    @Override
+    public String getOutputFileName() {
+        return AnalyzerConfig.RANKING_SOCIAL_GRAPH_MATRIX;
+    }
+
+    public static class Provider extends BaseRankingProvider {
 
-        // Create mapping from ID to name for lookup
-        Map<String, String> idToNameMap = new HashMap<>();
-        for (AuthorData authorData : authorDataCollection) {
-            idToNameMap.put(authorData.getAuthorId(), authorData.getAuthor().getName());
+        public Provider() {
+            super(RankingType.SOCIAL_GRAPH_MATRIX, Metric.MENTIONS);
         }
 
-        // Initialize matrix with all users (using names as keys)
-        for (AuthorData authorData : authorDataCollection) {
-            String authorName = authorData.getAuthor().getName();
-            socialGraphMatrix.put(authorName, new HashMap<>());
+        @Override
+        public boolean usesIdToNameMap() {
+            return true;
         }
 
-        // Populate matrix with mention data (converting IDs to names)
-        for (AuthorData authorData : authorDataCollection) {
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors, idToNameMap);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final Map<String, String> idToNameMap;
+        private final Map<String, Map<String, Integer>> socialGraphMatrix = new HashMap<>();
+        private final Set<String> allUserIds = new HashSet<>();
+        private final Map<String, UserGraphStats> userGraphStats = new HashMap<>();
+
+        private Accumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            this.authors = authors;
+            this.idToNameMap = idToNameMap;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            allUserIds.add(authorData.getAuthorId());
+
+            // Every user is in the matrix (using names as keys), authors with the same name share a row
             String authorName = authorData.getAuthor().getName();
-            Map<String, Integer> authorMentions = socialGraphMatrix.get(authorName);
+            Map<String, Integer> authorMentions = row(authorName);
 
             // Add mentions sent by this user, converting mentioned IDs to names
             authorData.getMentionsSent().forEach((mentionedId, count) -> {
                 String mentionedName = idToNameMap.getOrDefault(mentionedId, "Unknown User");
                 authorMentions.put(mentionedName, count);
             });
+
+            userGraphStats.put(authorName, graphStats(authorData));
         }
-    }
 
-    private void calculateUserGraphStats(Collection<AuthorData> authorDataCollection) {
-        userGraphStats = new HashMap<>();
+        // Authors of the following range win, as if they were added after the authors of this range
+        @Override
+        public void merge(RankingAccumulator other) {
+            final Accumulator following = (Accumulator) other;
+            allUserIds.addAll(following.allUserIds);
+            following.socialGraphMatrix.forEach((authorName, mentions) -> row(authorName).putAll(mentions));
+            userGraphStats.putAll(following.userGraphStats);
+        }
 
-        for (AuthorData authorData : authorDataCollection) {
-            String userName = authorData.getAuthor().getName();
+        @Override
+        public Ranking finish() {
+            return new SocialGraphMatrixRanking(this);
+        }
+
+        // get and put keep the insertion order of colliding names, computeIfAbsent would not
+        private Map<String, Integer> row(String authorName) {
+            Map<String, Integer> authorMentions = socialGraphMatrix.get(authorName);
+            if (authorMentions == null) {
+                authorMentions = new HashMap<>();
+                socialGraphMatrix.put(authorName, authorMentions);
+            }
+            return authorMentions;
+        }
+
+        private static UserGraphStats graphStats(AuthorData authorData) {
             UserGraphStats stats = new UserGraphStats();
 
             // Calculate outgoing connections (mentions sent)
-            stats.outgoingConnections = authorData.getMentionsSent().size();
+            stats.outgoingConnections = authorData.getDistinctUsersMentioned();
             stats.totalMentionsSent = authorData.getTotalMentionsSent();
 
             // Calculate incoming connections (mentions received)
-            stats.incomingConnections = authorData.getMentionsReceived().size();
+            stats.incomingConnections = authorData.getDistinctMentioners();
             stats.totalMentionsReceived = authorData.getTotalMentionsReceived();
 
             // Calculate centrality score (simple metric: in + out connections)
             stats.centralityScore = stats.incomingConnections + stats.outgoingConnections;
-
-            userGraphStats.put(userName, stats);
+            return stats;
         }
     }
 
-    @Override
-    public String getOutputFileName() {
-        return AnalyzerConfig.RANKING_SOCIAL_GRAPH_MATRIX;
-    }
-
     @Getter
     public static class UserGraphStats {
         private int incomingConnections;
@@ -1,12 +1,20 @@
 package analyzer.models.ranking.impl;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.AuthorCounts;
+import analyzer.models.ranking.BaseRankingProvider;
+import analyzer.models.ranking.Metric;
+import analyzer.models.ranking.RankedEntry;
 import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingType;
 import analyzer.stats.AuthorData;
 import lombok.Getter;
 
 import java.util.Collection;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class TimesMentionedRanking extends Ranking {
@@ -14,27 +22,61 @@ public class TimesMentionedRanking extends Ranking {
     @Getter
     private long countMentions;
     @Getter
-    private TreeMap<AuthorData, Long> timesMentioned;
+    private List<RankedEntry<Long>> timesMentioned;
 
     public TimesMentionedRanking(Collection<AuthorData> authorDataCollection) {
-        super(authorDataCollection);
-        calculateMentionRanking(authorDataCollection);
-        countMentions(authorDataCollection);
+        this(authorDataCollection, RankingEngine.sequential());
     }
 
-    private void calculateMentionRanking(Collection<AuthorData> authorDataCollection) {
-        timesMentioned = new TreeMap<>(new AuthorData.AuthorDataMentionsCountComparator());
-        authorDataCollection.forEach(authorData -> timesMentioned.put(authorData, authorData.getTimesMentioned()));
+    public TimesMentionedRanking(Collection<AuthorData> authorDataCollection, RankingEngine rankingEngine) {
+        this(rankingEngine.accumulate(asList(authorDataCollection), Accumulator::new));
     }
 
-    private void countMentions(Collection<AuthorData> authorDataCollection) {
-        countMentions = authorDataCollection.stream()
-            .mapToLong(AuthorData::getTimesMentioned)
-            .sum();
+    private TimesMentionedRanking(Accumulator accumulator) {
+        super(accumulator.authors);
+        timesMentioned = accumulator.mentions.ranked(accumulator.authors);
+        countMentions = accumulator.mentions.getTotal();
     }
 
     @Override
     public String getOutputFileName() {
         return AnalyzerConfig.RANKING_TIMES_MENTIONED;
     }
+
+    public static class Provider extends BaseRankingProvider {
+
+        public Provider() {
+            super(RankingType.TIMES_MENTIONED, Metric.MENTIONS);
+        }
+
+        @Override
+        public RankingAccumulator newAccumulator(List<AuthorData> authors, Map<String, String> idToNameMap) {
+            return new Accumulator(authors);
+        }
+    }
+
+    private static final class Accumulator implements RankingAccumulator {
+
+        private final List<AuthorData> authors;
+        private final AuthorCounts mentions = new AuthorCounts(AuthorData::getTimesMentioned, RankingEngine.topK(RankingType.TIMES_MENTIONED));
+
+        private Accumulator(List<AuthorData> authors) {
+            this.authors = authors;
+        }
+
+        @Override
+        public void accept(int index, AuthorData authorData) {
+            mentions.accept(index, authorData);
+        }
+
+        @Override
+        public void merge(RankingAccumulator other) {
+            mentions.merge(((Accumulator) other).mentions);
+        }
+
+        @Override
+        public Ranking finish() {
+            return new TimesMentionedRanking(this);
+        }
+    }
 }
@@ -1,67 +1,160 @@
 package analyzer.service;
 
 import analyzer.config.AnalyzerConfig;
+import analyzer.models.activity.ActivityRollup;
+import analyzer.models.activity.DistinctCounts;
+import analyzer.models.activity.MessageLengths;
 import analyzer.models.channel.Channel;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
 import analyzer.models.ranking.Ranking;
+import analyzer.service.cache.MessageSnapshotCache;
+import analyzer.service.index.ActivityRangeIndex;
+import analyzer.service.index.FullTextIndex;
+import analyzer.service.parser.CanonicalizingTypeAdapterFactory;
+import analyzer.service.parser.ChannelParser;
+import analyzer.service.parser.CompressedChannelParser;
+import analyzer.service.parser.ExportFormat;
+import analyzer.service.parser.GsonChannelParser;
+import analyzer.service.parser.MappedChannelParser;
+import analyzer.service.parser.MessageCanonicalizer;
 import analyzer.stats.AuthorData;
+import analyzer.stats.AuthorDataSerializer;
 import analyzer.utils.ExceptionHandler;
+import analyzer.utils.Scheduler;
+import analyzer.utils.TaskScope;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
 import java.io.IOException;
-import java.io.Reader;
+import java.io.InputStreamReader;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class FileService {
 
     private final Gson gson;
+    private final ChannelParser channelParser;
+    private final MappedChannelParser splitParser;
 
     public FileService() {
         this.gson = new GsonBuilder()
             .setDateFormat(DateFormat.FULL, DateFormat.FULL)
             .setPrettyPrinting()
             .serializeNulls() // Performance: avoid null checks during serialization
+            .registerTypeAdapterFactory(new CanonicalizingTypeAdapterFactory(new MessageCanonicalizer()))
+            .registerTypeHierarchyAdapter(AuthorData.class, new AuthorDataSerializer())
             .create();
+        final ChannelParser backendParser = AnalyzerConfig.PARSER_BACKEND.createParser(gson);
+        this.channelParser = new CompressedChannelParser(backendParser, new GsonChannelParser(gson));
+        this.splitParser = backendParser instanceof MappedChannelParser mappedParser ? mappedParser : null;
     }
 
     /**
      * Reads and parses JSON log files from a specific folder into Channel objects
+     *
+     * @throws ExecutionException with the first failure as cause if a file fails to parse
      */
-    public List<Channel> parseJsonToChannels(String folderPath) {
+    public List<Channel> parseJsonToChannels(String folderPath) throws InterruptedException, ExecutionException {
         List<String> logPaths = readLogPathsFromFolder(folderPath);
-        List<Channel> channels = Collections.synchronizedList(new ArrayList<>());
+        List<Channel> channels = new ArrayList<>();
 
         ExceptionHandler.logInfo("Processing " + logPaths.size() + " log files from " + folderPath);
 
-        logPaths.parallelStream().forEach(logFilePath -> {
-            try {
-                Channel channel = parseChannelFromFile(logFilePath);
-                if (channel != null) {
-                    channels.add(channel);
-                }
-            } catch (Exception e) {
-                ExceptionHandler.handleFileProcessingException(e, logFilePath);
-            }
-        });
+        // Files are parsed on the CPU pool, channels keep the order of the files
+        try (TaskScope scope = new TaskScope()) {
+            final List<TaskScope.Subtask<List<Channel>>> parsed = logPaths.stream()
+                .map(logFilePath -> scope.fork(Scheduler.shared().cpu(), () -> parseChannelsFromFile(logFilePath)))
+                .toList();
+            scope.join();
+            parsed.forEach(subtask -> channels.addAll(subtask.get()));
+        }
 
         ExceptionHandler.logInfo("Successfully processed " + channels.size() + " channels from " + folderPath);
         return channels;
     }
 
     /**
-     * Writes author data to JSON file in the specified output directory
+     * Streams the messages of a single log file of the given folder to the consumer.
+     * With message snapshots enabled, unchanged files are replayed from their binary snapshot.
+     *
+     * @return the number of messages read
+     */
+    public long streamMessagesFromFile(String folderPath, String logFilePath,
+                                       BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        if (AnalyzerConfig.MESSAGE_SNAPSHOTS) {
+            return snapshotCache(folderPath).stream(Paths.get(logFilePath), channelParser, messageConsumer);
+        }
+        return channelParser.parse(Paths.get(logFilePath), messageConsumer);
+    }
+
+    /**
+     * Parses a single log file without the message snapshots, which do not keep the message content
+     *
+     * @return the number of messages read
+     */
+    public long parseLogFile(String logFilePath, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        return channelParser.parse(Paths.get(logFilePath), messageConsumer);
+    }
+
+    /**
+     * Splits a large plain JSON export at message boundaries, so its parts can be parsed and analyzed concurrently.
+     *
+     * @return null if the file is smaller than {@link AnalyzerConfig#INGESTION_SPLIT_THRESHOLD_BYTES}, compressed,
+     * not read by the mapped parser or served from a valid message snapshot. Stream it instead.
+     */
+    public SplitExport splitLogFile(String folderPath, String logFilePath) throws IOException {
+        final Path path = Paths.get(logFilePath);
+        if (splitParser == null || ExportFormat.of(path) != ExportFormat.JSON) {
+            return null;
+        }
+
+        final long size = Files.size(path);
+        final long lastModified = Files.getLastModifiedTime(path).toMillis();
+        if (size < AnalyzerConfig.INGESTION_SPLIT_THRESHOLD_BYTES) {
+            return null;
+        }
+
+        final MessageSnapshotCache snapshotCache = AnalyzerConfig.MESSAGE_SNAPSHOTS ? snapshotCache(folderPath) : null;
+        if (snapshotCache != null && snapshotCache.hasValidSnapshot(path)) {
+            return null;
+        }
+
+        final List<MappedChannelParser.Segment> segments = splitParser.split(path, AnalyzerConfig.INGESTION_SPLIT_SEGMENT_BYTES);
+        if (segments.size() < 2) {
+            return null;
+        }
+        return new SplitExport(splitParser, segments, path, size, lastModified, snapshotCache);
+    }
+
+    private MessageSnapshotCache snapshotCache(String folderPath) {
+        final Path snapshotDir = Paths.get(createOutputDirectory(folderPath),
+            AnalyzerConfig.CACHE_SUBFOLDER, AnalyzerConfig.SNAPSHOT_SUBFOLDER);
+        return new MessageSnapshotCache(Paths.get(folderPath), snapshotDir);
+    }
+
+    /**
+     * Lists all log files of a folder (plain, compressed and zipped exports), excluding generated output
+     */
+    public List<String> listLogFiles(String folderPath) {
+        return readLogPathsFromFolder(folderPath);
+    }
+
+    /**
+     * Writes author data keyed by author id to JSON file in the specified output directory
      */
-    public void writeAuthorData(Map<?, AuthorData> authorDataMap, String outputDir) {
+    public void writeAuthorData(Map<String, AuthorData> authorDataMap, String outputDir) {
         String outputPath = createOutputPath(outputDir, AnalyzerConfig.OUTPUT_FILE_AUTHORS);
         createOutputDirectoryIfNotExists(outputDir);
 
@@ -93,6 +186,80 @@ public class FileService {
         }
     }
 
+    /**
+     * Writes an activity rollup to JSON file in the specified output directory
+     */
+    public void writeActivityRollup(ActivityRollup rollup, String outputDir) {
+        String outputPath = createOutputPath(outputDir, rollup.getOutputFileName());
+        createOutputDirectoryIfNotExists(outputDir);
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(outputPath))) {
+            gson.toJson(rollup, writer);
+            ExceptionHandler.logInfo("Activity rollup written to: " + outputPath);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "writing activity rollup: " + rollup.getPeriod());
+        }
+    }
+
+    /**
+     * Writes the words per message distributions of the channels to JSON file in the specified output directory
+     */
+    public void writeMessageLengths(MessageLengths messageLengths, String outputDir) {
+        String outputPath = createOutputPath(outputDir, messageLengths.getOutputFileName());
+        createOutputDirectoryIfNotExists(outputDir);
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(outputPath))) {
+            gson.toJson(messageLengths, writer);
+            ExceptionHandler.logInfo("Message lengths written to: " + outputPath);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "writing message lengths");
+        }
+    }
+
+    /**
+     * Writes the distinct count estimates to JSON file in the specified output directory
+     */
+    public void writeDistinctCounts(DistinctCounts distinctCounts, String outputDir) {
+        String outputPath = createOutputPath(outputDir, distinctCounts.getOutputFileName());
+        createOutputDirectoryIfNotExists(outputDir);
+
+        try (Writer writer = Files.newBufferedWriter(Paths.get(outputPath))) {
+            gson.toJson(distinctCounts, writer);
+            ExceptionHandler.logInfo("Distinct counts written to: " + outputPath);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "writing distinct counts");
+        }
+    }
+
+    /**
+     * Writes the activity range index in the specified output directory
+     */
+    public void writeActivityIndex(ActivityRangeIndex index, String outputDir) {
+        String outputPath = createOutputPath(outputDir, AnalyzerConfig.ACTIVITY_INDEX);
+        createOutputDirectoryIfNotExists(outputDir);
+
+        try {
+            index.write(Paths.get(outputPath));
+            ExceptionHandler.logInfo("Activity index written to: " + outputPath);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "writing activity index");
+        }
+    }
+
+    /**
+     * Reads the activity range index written for the given input folder
+     */
+    public ActivityRangeIndex readActivityIndex(String inputFolderPath) throws IOException {
+        return ActivityRangeIndex.read(Paths.get(createOutputPath(createOutputDirectory(inputFolderPath), AnalyzerConfig.ACTIVITY_INDEX)));
+    }
+
+    /**
+     * Opens the full-text index built for the given input folder, the caller closes it
+     */
+    public FullTextIndex openSearchIndex(String inputFolderPath) throws IOException {
+        return FullTextIndex.open(Paths.get(createOutputPath(createOutputDirectory(inputFolderPath), AnalyzerConfig.SEARCH_INDEX)));
+    }
+
     /**
      * Writes social graph text visualization to file in the specified output directory
      */
@@ -133,13 +300,23 @@ public class FileService {
         }
     }
 
-    private Channel parseChannelFromFile(String logFilePath) {
-        try (Reader reader = Files.newBufferedReader(Paths.get(logFilePath))) {
-            return gson.fromJson(reader, Channel.class);
-        } catch (Exception e) {
-            ExceptionHandler.handleFileProcessingException(e, logFilePath);
-            return null;
+    /**
+     * Parses every channel contained in a log file, archives can hold more than one
+     */
+    private List<Channel> parseChannelsFromFile(String logFilePath) throws IOException {
+        final Path path = Paths.get(logFilePath);
+        final List<Channel> channels = new ArrayList<>();
+        try {
+            ExportFormat.of(path).forEachDocument(path, document -> {
+                final Channel channel = gson.fromJson(new InputStreamReader(document, StandardCharsets.UTF_8), Channel.class);
+                if (channel != null) {
+                    channels.add(channel);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("Parsing " + logFilePath + " failed", e);
         }
+        return channels;
     }
 
     private List<String> readLogPathsFromFolder(String folderPath) {
@@ -147,7 +324,8 @@ public class FileService {
 
         try (Stream<Path> walk = Files.walk(Paths.get(folderPath))) {
             List<String> result = walk
-                .filter(path -> path.toString().endsWith(".json"))
+                .filter(ExportFormat::isExport)
+                .filter(Files::isRegularFile)
                 .filter(path -> !containsOutputFolder(path))  // Exclude output directory files
                 .map(Path::toString)
                 .toList();
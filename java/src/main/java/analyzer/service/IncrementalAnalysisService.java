@@ -0,0 +1,351 @@
+package analyzer.service;
+
+import analyzer.Analyzer;
+import analyzer.config.AnalyzerConfig;
+import analyzer.service.cache.AnalysisManifest;
+import analyzer.service.cache.PartialAggregate;
+import analyzer.stats.AuthorStatsStore;
+import analyzer.stats.ChannelStatsStore;
+import analyzer.utils.ExceptionHandler;
+import analyzer.utils.Scheduler;
+import analyzer.utils.TaskScope;
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Analyzes a folder incrementally. Every export file is reduced to a partial per-author aggregate
+ * which is cached together with a manifest entry (size, modification time, content hash).
+ * On re-runs only new or changed files are parsed, all others are served from the cache.
+ */
+public class IncrementalAnalysisService {
+
+    // Bump whenever the analysis or the PartialAggregate format changes, invalidates all cached partials
+    private static final int CACHE_VERSION = 6;
+    private static final String PARTIAL_EXTENSION = ".bin";
+
+    private final FileService fileService;
+    private final Gson gson = new Gson();
+
+    public IncrementalAnalysisService(FileService fileService) {
+        this.fileService = fileService;
+    }
+
+    /**
+     * @throws ExecutionException if a file cannot be read or fails to parse, the manifest is not updated then
+     */
+    public Analyzer analyzeFolder(String folderPath) throws InterruptedException, ExecutionException {
+        final Path cacheDir = Paths.get(fileService.createOutputDirectory(folderPath), AnalyzerConfig.CACHE_SUBFOLDER);
+        final AnalysisManifest previous = loadManifest(cacheDir);
+        final AnalysisManifest manifest = new AnalysisManifest(CACHE_VERSION);
+        final List<String> logPaths = fileService.listLogFiles(folderPath).stream().sorted().toList();
+        final AnalysisManifest.Entry[] entries = new AnalysisManifest.Entry[logPaths.size()];
+
+        createDirectories(cacheDir);
+
+        // Hashing runs on virtual threads, one per file
+        forEachOnIoThreads(IntStream.range(0, logPaths.size()).boxed().toList(), index -> {
+            final String logPath = logPaths.get(index);
+            entries[index] = currentEntry(Paths.get(logPath), previous.getEntries().get(logPath), cacheDir);
+        });
+
+        final boolean[] cached = new boolean[logPaths.size()];
+        final List<Integer> changed = new ArrayList<>();
+        final List<Integer> unchanged = new ArrayList<>();
+        for (int index = 0; index < logPaths.size(); index++) {
+            cached[index] = entries[index].getPartialFile() != null;
+            (cached[index] ? unchanged : changed).add(index);
+        }
+
+        // Partials are merged in file order as soon as they are decoded, so the result does not depend on thread
+        // scheduling and only the partials waiting for their turn are held
+        final Analyzer analyzer = new Analyzer();
+        final PartialSequencer sequencer = new PartialSequencer(analyzer, cached);
+        final AtomicInteger parsedFiles = new AtomicInteger(changed.size());
+        try (TaskScope scope = new TaskScope()) {
+            // New or changed files go through the ingestion pipeline
+            scope.fork(Scheduler.shared().io(), () -> {
+                new IngestionPipeline(fileService).run(folderPath, changed.stream().map(logPaths::get).toList(),
+                    result -> {
+                        final int index = changed.get(result.fileIndex());
+                        awaitTurn(sequencer, index);
+                        sequencer.complete(index, restoreParsed(scope, result.analyzer(), entries[index], cacheDir));
+                    });
+                return null;
+            });
+            // Cached partials are read and decoded on virtual threads, a few files ahead of the merge
+            scope.fork(Scheduler.shared().io(), () -> {
+                for (int index : unchanged) {
+                    sequencer.acquirePrefetch();
+                    scope.fork(Scheduler.shared().io(), () -> {
+                        RestoredPartial partial = readPartial(cacheDir.resolve(entries[index].getPartialFile()));
+                        if (partial == null) {
+                            partial = reparse(scope, folderPath, logPaths.get(index), entries[index], cacheDir);
+                            parsedFiles.incrementAndGet();
+                        }
+                        sequencer.complete(index, partial);
+                        return null;
+                    });
+                }
+                return null;
+            });
+            scope.join();
+        }
+        analyzer.finalizeAnalysis();
+
+        for (int index = 0; index < logPaths.size(); index++) {
+            manifest.getEntries().put(logPaths.get(index), entries[index]);
+        }
+        ExceptionHandler.logInfo("Parsed " + parsedFiles.get() + " new or changed files, reused "
+            + (logPaths.size() - parsedFiles.get()) + " cached partials in " + folderPath);
+
+        writeJson(manifest, cacheDir.resolve(AnalyzerConfig.ANALYSIS_MANIFEST));
+        deleteUnreferencedPartials(previous, manifest, cacheDir);
+
+        return analyzer;
+    }
+
+    /**
+     * Parses a file whose cached partial cannot be read, on the calling thread
+     */
+    private RestoredPartial reparse(TaskScope scope, String folderPath, String logPath, AnalysisManifest.Entry entry,
+                                    Path cacheDir) throws InterruptedException, ExecutionException {
+        final RestoredPartial[] partial = new RestoredPartial[1];
+        new IngestionPipeline(fileService).run(folderPath, List.of(logPath),
+            result -> partial[0] = restoreParsed(scope, result.analyzer(), entry, cacheDir));
+        return partial[0];
+    }
+
+    /**
+     * Encodes the aggregate of a parsed file, writes it to the cache in the background and decodes it again.
+     * New partials are merged like cached ones, so a warm run gives the same result as a cold one.
+     */
+    private RestoredPartial restoreParsed(TaskScope scope, Analyzer fileAnalyzer, AnalysisManifest.Entry entry,
+                                          Path cacheDir) {
+        final PartialAggregate partial = PartialAggregate.of(fileAnalyzer.getAuthorData(), fileAnalyzer.getChannelStore());
+        entry.setPartialFile(entry.getContentHash() + PARTIAL_EXTENSION);
+        final Path partialPath = cacheDir.resolve(entry.getPartialFile());
+        scope.fork(Scheduler.shared().io(), () -> {
+            writePartial(partial, partialPath);
+            return null;
+        });
+        try {
+            return RestoredPartial.of(partial);
+        } catch (IOException e) {
+            throw new IllegalStateException("Decoding in memory failed", e);
+        }
+    }
+
+    private static void awaitTurn(PartialSequencer sequencer, int fileIndex) {
+        try {
+            sequencer.awaitTurn(fileIndex);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to merge a partial", e);
+        }
+    }
+
+    /**
+     * Builds the manifest entry for the file as it is now. The previous partial is kept if size and
+     * modification time are unchanged, or if the file was touched but its content hash is still the same.
+     */
+    private AnalysisManifest.Entry currentEntry(Path logPath, AnalysisManifest.Entry previousEntry, Path cacheDir)
+        throws IOException {
+        final long size = Files.size(logPath);
+        final long lastModified = Files.getLastModifiedTime(logPath).toMillis();
+
+        final boolean cached = previousEntry != null
+            && previousEntry.getPartialFile() != null
+            && Files.exists(cacheDir.resolve(previousEntry.getPartialFile()));
+        if (cached && previousEntry.matches(size, lastModified)) {
+            return previousEntry;
+        }
+
+        final AnalysisManifest.Entry entry = new AnalysisManifest.Entry();
+        entry.setSize(size);
+        entry.setLastModified(lastModified);
+        entry.setContentHash(hash(logPath));
+        if (cached && entry.getContentHash().equals(previousEntry.getContentHash())) {
+            entry.setPartialFile(previousEntry.getPartialFile());
+        }
+        return entry;
+    }
+
+    private AnalysisManifest loadManifest(Path cacheDir) {
+        final Path manifestPath = cacheDir.resolve(AnalyzerConfig.ANALYSIS_MANIFEST);
+        if (Files.exists(manifestPath)) {
+            try (Reader reader = Files.newBufferedReader(manifestPath)) {
+                final AnalysisManifest manifest = gson.fromJson(reader, AnalysisManifest.class);
+                if (manifest != null && manifest.getVersion() == CACHE_VERSION) {
+                    return manifest;
+                }
+                ExceptionHandler.logInfo("Discarding analysis cache with outdated version: " + manifestPath);
+            } catch (Exception e) {
+                ExceptionHandler.handleFileProcessingException(e, manifestPath.toString());
+            }
+        }
+        return new AnalysisManifest(CACHE_VERSION);
+    }
+
+    /**
+     * @return the decoded partial, null if it cannot be read, the file is parsed again then
+     */
+    private RestoredPartial readPartial(Path partialPath) {
+        try {
+            return RestoredPartial.of(PartialAggregate.read(partialPath));
+        } catch (Exception e) {
+            ExceptionHandler.handleFileProcessingException(e, partialPath.toString());
+            return null;
+        }
+    }
+
+    private void writePartial(PartialAggregate partial, Path partialPath) {
+        try {
+            // write to a temporary file first so an interrupted run never leaves a truncated partial behind
+            final Path temporary = Files.createTempFile(partialPath.getParent(), partialPath.getFileName().toString(), ".tmp");
+            partial.write(temporary);
+            Files.move(temporary, partialPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "writing analysis cache: " + partialPath);
+        }
+    }
+
+    private void writeJson(Object object, Path path) {
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            gson.toJson(object, writer);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "writing analysis cache: " + path);
+        }
+    }
+
+    private void deleteUnreferencedPartials(AnalysisManifest previous, AnalysisManifest manifest, Path cacheDir) {
+        final Set<String> referenced = new HashSet<>();
+        manifest.getEntries().values().forEach(entry -> referenced.add(entry.getPartialFile()));
+
+        for (AnalysisManifest.Entry entry : previous.getEntries().values()) {
+            if (entry.getPartialFile() != null && !referenced.contains(entry.getPartialFile())) {
+                try {
+                    Files.deleteIfExists(cacheDir.resolve(entry.getPartialFile()));
+                } catch (IOException e) {
+                    ExceptionHandler.handleIOException(e, "deleting stale partial: " + entry.getPartialFile());
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the task for every index on its own virtual thread
+     *
+     * @throws ExecutionException with the first failure as cause, the other tasks are cancelled
+     */
+    private static void forEachOnIoThreads(List<Integer> indices, FileTask task) throws InterruptedException, ExecutionException {
+        try (TaskScope scope = new TaskScope()) {
+            indices.forEach(index -> scope.fork(Scheduler.shared().io(), () -> {
+                task.run(index);
+                return null;
+            }));
+            scope.join();
+        }
+    }
+
+    /**
+     * Merges partials into the analyzer in file order, as soon as the partial before them is merged, like the
+     * result sequencer of the {@link IngestionPipeline}. Merged partials are dropped. At most
+     * {@link AnalyzerConfig#INCREMENTAL_PREFETCHED_PARTIALS} cached partials are decoded ahead of the merge,
+     * parsed files wait for their turn before they are encoded and decoded.
+     */
+    private static final class PartialSequencer {
+
+        private final Analyzer analyzer;
+        private final boolean[] cached;
+        private final Semaphore prefetched = new Semaphore(AnalyzerConfig.INCREMENTAL_PREFETCHED_PARTIALS);
+        private final Map<Integer, RestoredPartial> pending = new HashMap<>();
+        private int nextFile;
+
+        private PartialSequencer(Analyzer analyzer, boolean[] cached) {
+            this.analyzer = analyzer;
+            this.cached = cached;
+        }
+
+        // Taken in file order, so the cached partials held ahead of the merge are bounded
+        void acquirePrefetch() throws InterruptedException {
+            prefetched.acquire();
+        }
+
+        synchronized void awaitTurn(int fileIndex) throws InterruptedException {
+            while (nextFile < fileIndex) {
+                wait();
+            }
+        }
+
+        synchronized void complete(int fileIndex, RestoredPartial partial) {
+            pending.put(fileIndex, partial);
+            RestoredPartial next;
+            while ((next = pending.remove(nextFile)) != null) {
+                analyzer.merge(next.statsStore());
+                analyzer.merge(next.channelStore());
+                if (cached[nextFile]) {
+                    prefetched.release();
+                }
+                nextFile++;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * The stores of a partial, decoded ahead of the merge
+     */
+    private record RestoredPartial(AuthorStatsStore statsStore, ChannelStatsStore channelStore) {
+        static RestoredPartial of(PartialAggregate partial) throws IOException {
+            return new RestoredPartial(partial.toStatsStore(), partial.toChannelStore());
+        }
+    }
+
+    @FunctionalInterface
+    private interface FileTask {
+        void run(int index) throws IOException;
+    }
+
+    private void createDirectories(Path path) {
+        try {
+            Files.createDirectories(path);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "creating cache directory: " + path);
+        }
+    }
+
+    private static String hash(Path path) throws IOException {
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] buffer = new byte[1 << 16];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
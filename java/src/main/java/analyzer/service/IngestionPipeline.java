@@ -0,0 +1,382 @@
+package analyzer.service;
+
+import analyzer.Analyzer;
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+import analyzer.models.ranking.Metric;
+import analyzer.utils.Scheduler;
+import analyzer.utils.TaskScope;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Bounded producer/consumer pipeline between parsing and analysis.
+ * <p>
+ * Parser tasks on IO threads stream the messages of one file at a time into batches, every batch is aggregated
+ * into its own {@link Analyzer} on the CPU pool of the {@link Scheduler}. At most
+ * {@link AnalyzerConfig#INGESTION_QUEUE_CAPACITY} batches wait for analysis, are analyzed or wait to be merged, their
+ * estimated heap is capped by {@link AnalyzerConfig#INGESTION_MAX_IN_FLIGHT_BYTES}. A batch keeps its share of the
+ * budget until its aggregate is merged into the aggregate of its file. Parsers block until analysis catches up and
+ * stay at most two files per parser ahead of the file handed out next. Batch aggregates are merged per file in batch
+ * order and handed out in file order, so the result does not depend on thread scheduling.
+ * <p>
+ * Large plain exports are split at message boundaries instead ({@link SplitExport}), every segment is parsed and
+ * aggregated by its own CPU task and takes the place of a batch, so a single busy channel uses all cores.
+ * <p>
+ * All tasks run in a {@link TaskScope}: the first failure, a file that fails to parse included, cancels the
+ * remaining work and is rethrown by {@link #run(String, List, Consumer)}.
+ */
+public class IngestionPipeline {
+
+    private static final int KIB = 1024;
+
+    private final FileService fileService;
+    private final Scheduler scheduler;
+    private final Set<Metric> metrics;
+
+    public IngestionPipeline(FileService fileService) {
+        this(fileService, Scheduler.shared());
+    }
+
+    public IngestionPipeline(FileService fileService, Scheduler scheduler) {
+        this(fileService, scheduler, Metric.all());
+    }
+
+    /**
+     * A pipeline whose analyzers only collect the given metrics, see {@link Analyzer#Analyzer(Set)}
+     */
+    public IngestionPipeline(FileService fileService, Scheduler scheduler, Set<Metric> metrics) {
+        this.fileService = fileService;
+        this.scheduler = scheduler;
+        this.metrics = Set.copyOf(metrics);
+    }
+
+    /**
+     * Aggregated messages of a single log file
+     */
+    public record FileResult(int fileIndex, String logPath, Analyzer analyzer) {
+    }
+
+    /**
+     * Parses and analyzes the given files of a folder. The consumer is called once per file, in the order of
+     * the list and never concurrently.
+     *
+     * @throws ExecutionException with the first failure as cause if a file fails to parse or to be analyzed or the
+     *                            consumer fails, files after the failed one are not handed out
+     */
+    public void run(String folderPath, List<String> logPaths, Consumer<FileResult> fileConsumer)
+        throws InterruptedException, ExecutionException {
+        final int parserThreads = AnalyzerConfig.INGESTION_PARSER_THREADS;
+        run(folderPath, logPaths, fileConsumer, parserThreads, new Budget(AnalyzerConfig.INGESTION_MAX_IN_FLIGHT_BYTES,
+            AnalyzerConfig.INGESTION_QUEUE_CAPACITY, 2 * parserThreads));
+    }
+
+    /**
+     * Runs the pipeline with the given number of parser tasks, within the limits of the budget
+     */
+    void run(String folderPath, List<String> logPaths, Consumer<FileResult> fileConsumer, int parserThreads, Budget budget)
+        throws InterruptedException, ExecutionException {
+        if (logPaths.isEmpty()) {
+            return;
+        }
+
+        final ResultSequencer sequencer = new ResultSequencer(logPaths, fileConsumer, budget);
+        final AtomicInteger nextFile = new AtomicInteger();
+
+        try (TaskScope scope = new TaskScope()) {
+            for (int i = 0; i < Math.min(parserThreads, logPaths.size()); i++) {
+                scope.fork(scheduler.io(), () -> {
+                    while (true) {
+                        // Taken before the file, so the files between the next one to hand out and the parsed ones are bounded
+                        budget.acquireFile();
+                        final int fileIndex = nextFile.getAndIncrement();
+                        if (fileIndex >= logPaths.size()) {
+                            budget.releaseFile();
+                            return null;
+                        }
+
+                        final String logPath = logPaths.get(fileIndex);
+                        // splitting only pays off with several CPU threads, the boundary scan and snapshot join are extra work
+                        final SplitExport splitExport = scheduler.getCpuThreads() > 1 ? split(folderPath, logPath) : null;
+                        if (splitExport != null) {
+                            analyzeSegments(fileIndex, splitExport, budget, sequencer);
+                        } else {
+                            parseFile(folderPath, fileIndex, logPath, budget,
+                                batch -> scope.fork(scheduler.cpu(), () -> analyzeBatch(batch, sequencer)));
+                        }
+                    }
+                });
+            }
+            scope.join();
+        }
+    }
+
+    private SplitExport split(String folderPath, String logPath) {
+        try {
+            return fileService.splitLogFile(folderPath, logPath);
+        } catch (IOException e) {
+            // streamed instead, which reports the problem with the file
+            return null;
+        }
+    }
+
+    /**
+     * Parses and aggregates all segments of a split export on the CPU pool, then stores its snapshot
+     */
+    private void analyzeSegments(int fileIndex, SplitExport splitExport, Budget budget, ResultSequencer sequencer)
+        throws InterruptedException, ExecutionException {
+        try (TaskScope segmentScope = new TaskScope()) {
+            for (int i = 0; i < splitExport.getSegmentCount(); i++) {
+                final int segment = i;
+                final int permits = budget.acquire(splitExport.getSegmentBytes(segment));
+                segmentScope.fork(scheduler.cpu(), () -> analyzeSegment(fileIndex, splitExport, segment, permits, sequencer));
+            }
+            segmentScope.join();
+        }
+        splitExport.finish();
+    }
+
+    private Void analyzeSegment(int fileIndex, SplitExport splitExport, int segment, int permits,
+                                ResultSequencer sequencer) throws IOException {
+        final Analyzer analyzer = new Analyzer(metrics);
+        splitExport.parse(segment, analyzer::addMessage);
+        sequencer.complete(fileIndex, segment, segment == splitExport.getSegmentCount() - 1, analyzer, permits);
+        return null;
+    }
+
+    private void parseFile(String folderPath, int fileIndex, String logPath, Budget budget, Consumer<Batch> batchConsumer)
+        throws IOException, InterruptedException {
+        final BatchBuilder builder = new BatchBuilder(fileIndex, budget, batchConsumer);
+        try {
+            fileService.streamMessagesFromFile(folderPath, logPath, builder::add);
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("Parsing " + logPath + " failed", e);
+        }
+        builder.finish();
+    }
+
+    private Void analyzeBatch(Batch batch, ResultSequencer sequencer) {
+        final Analyzer analyzer = new Analyzer(metrics);
+        for (int i = 0; i < batch.messages().size(); i++) {
+            analyzer.addMessage(batch.channels().get(i), batch.messages().get(i));
+        }
+        sequencer.complete(batch.fileIndex(), batch.batchIndex(), batch.last(), analyzer, batch.permits());
+        return null;
+    }
+
+    /**
+     * Backpressure: limits the number of batches waiting for analysis, in analysis or waiting to be merged and
+     * their estimated heap, and the number of files that were started but not handed out yet
+     */
+    static final class Budget {
+
+        private final int maxPermits;
+        private final Semaphore batches;
+        private final Semaphore kibibytes;
+        private final Semaphore files;
+        // Most batch aggregates and finished files held by the sequencer at the same time
+        private volatile int peakPendingBatches;
+        private volatile int peakPendingFiles;
+
+        Budget(long maxInFlightBytes, int maxBatches, int maxFiles) {
+            this.maxPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxInFlightBytes / KIB));
+            this.batches = new Semaphore(maxBatches);
+            this.kibibytes = new Semaphore(maxPermits);
+            this.files = new Semaphore(maxFiles);
+        }
+
+        /**
+         * @return the permits taken for the estimated size, to be released once the batch is merged
+         */
+        int acquire(long bytes) throws InterruptedException {
+            // an oversized batch takes the whole budget instead of waiting forever
+            final int permits = (int) Math.min(maxPermits, (bytes + KIB - 1) / KIB);
+            batches.acquire();
+            try {
+                kibibytes.acquire(permits);
+            } catch (InterruptedException e) {
+                batches.release();
+                throw e;
+            }
+            return permits;
+        }
+
+        void release(int permits) {
+            kibibytes.release(permits);
+            batches.release();
+        }
+
+        void acquireFile() throws InterruptedException {
+            files.acquire();
+        }
+
+        void releaseFile() {
+            files.release();
+        }
+
+        int getPeakPendingBatches() {
+            return peakPendingBatches;
+        }
+
+        int getPeakPendingFiles() {
+            return peakPendingFiles;
+        }
+
+        private void recordPending(int pendingBatches, int pendingFiles) {
+            peakPendingBatches = Math.max(peakPendingBatches, pendingBatches);
+            peakPendingFiles = Math.max(peakPendingFiles, pendingFiles);
+        }
+    }
+
+    /**
+     * Collects the messages of one file and hands them out in batches of
+     * {@link AnalyzerConfig#INGESTION_BATCH_SIZE}, blocking while the budget is used up
+     */
+    private static final class BatchBuilder {
+
+        private final int fileIndex;
+        private final Budget budget;
+        private final Consumer<Batch> batchConsumer;
+        private List<Message> messages = new ArrayList<>();
+        private List<ChannelInfo> channels = new ArrayList<>();
+        private long bytes;
+        private int batchIndex;
+
+        private BatchBuilder(int fileIndex, Budget budget, Consumer<Batch> batchConsumer) {
+            this.fileIndex = fileIndex;
+            this.budget = budget;
+            this.batchConsumer = batchConsumer;
+        }
+
+        void add(ChannelInfo channel, Message message) {
+            messages.add(message);
+            channels.add(channel);
+            bytes += estimateBytes(message);
+            if (messages.size() >= AnalyzerConfig.INGESTION_BATCH_SIZE) {
+                try {
+                    submit(false);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting for the ingestion budget", e);
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            submit(true);
+        }
+
+        private void submit(boolean last) throws InterruptedException {
+            final int permits = budget.acquire(bytes);
+            batchConsumer.accept(new Batch(fileIndex, batchIndex++, last, messages, channels, permits));
+            messages = new ArrayList<>();
+            channels = new ArrayList<>();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * Merges batch (or segment) aggregates into the aggregate of their file in batch order, as soon as the previous
+     * batch of the file is merged, and releases their budget. Finished files are handed out in file order.
+     */
+    private static final class ResultSequencer {
+
+        private final List<String> logPaths;
+        private final Consumer<FileResult> fileConsumer;
+        private final Budget budget;
+        private final Map<Integer, FileAggregate> files = new HashMap<>();
+        private int nextFile;
+        private int pendingBatches;
+        private int pendingFiles;
+
+        private ResultSequencer(List<String> logPaths, Consumer<FileResult> fileConsumer, Budget budget) {
+            this.logPaths = logPaths;
+            this.fileConsumer = fileConsumer;
+            this.budget = budget;
+        }
+
+        synchronized void complete(int fileIndex, int batchIndex, boolean last, Analyzer analyzer, int permits) {
+            FileAggregate file = files.get(fileIndex);
+            if (file == null) {
+                file = new FileAggregate();
+                files.put(fileIndex, file);
+            }
+            file.pending.put(batchIndex, new CompletedBatch(last, analyzer, permits));
+            pendingBatches++;
+            budget.recordPending(pendingBatches, pendingFiles);
+
+            CompletedBatch next;
+            while ((next = file.pending.remove(file.nextBatch)) != null) {
+                if (file.analyzer == null) {
+                    file.analyzer = next.analyzer();
+                } else {
+                    file.analyzer.merge(next.analyzer());
+                }
+                pendingBatches--;
+                budget.release(next.permits());
+                file.nextBatch++;
+                if (next.last()) {
+                    file.finished = true;
+                    pendingFiles++;
+                    budget.recordPending(pendingBatches, pendingFiles);
+                }
+            }
+
+            while ((file = files.get(nextFile)) != null && file.finished) {
+                publish(file);
+            }
+        }
+
+        private void publish(FileAggregate file) {
+            files.remove(nextFile);
+            pendingFiles--;
+            fileConsumer.accept(new FileResult(nextFile, logPaths.get(nextFile), file.analyzer));
+            nextFile++;
+            budget.releaseFile();
+        }
+    }
+
+    // Aggregate of the batches of one file merged so far, and its batches that finished ahead of their turn
+    private static final class FileAggregate {
+        private final Map<Integer, CompletedBatch> pending = new HashMap<>();
+        private Analyzer analyzer;
+        private int nextBatch;
+        private boolean finished;
+    }
+
+    // channels holds the channel of every message, an export can contain more than one channel
+    private record Batch(int fileIndex, int batchIndex, boolean last, List<Message> messages, List<ChannelInfo> channels,
+                         int permits) {
+    }
+
+    private record CompletedBatch(boolean last, Analyzer analyzer, int permits) {
+    }
+
+    /**
+     * Rough retained heap of a parsed message: object headers and references, the content characters
+     * and the mention and reaction objects. Only used to bound the pipeline, not for reporting.
+     */
+    private static long estimateBytes(Message message) {
+        long bytes = 160;
+        if (message.getContent() != null) {
+            bytes += 48 + message.getContent().length();
+        }
+        if (message.getMentions() != null) {
+            bytes += 40L * message.getMentions().length;
+        }
+        if (message.getReactions() != null) {
+            bytes += 32L * message.getReactions().length;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,193 @@
+package analyzer.service;
+
+import analyzer.Analyzer;
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.activity.ActivityPeriod;
+import analyzer.models.activity.ActivityRollup;
+import analyzer.models.activity.DistinctCounts;
+import analyzer.models.activity.MessageLengths;
+import analyzer.models.ranking.DimensionRanking;
+import analyzer.models.ranking.Ranking;
+import analyzer.models.ranking.RankingAccumulator;
+import analyzer.models.ranking.RankingEngine;
+import analyzer.models.ranking.RankingFactory;
+import analyzer.models.ranking.RankingProvider;
+import analyzer.service.index.ActivityRangeIndex;
+import analyzer.stats.AuthorData;
+import analyzer.utils.Scheduler;
+import analyzer.utils.SocialGraphUtils;
+import analyzer.utils.SocialGraphUtils.MutualMentionRelationship;
+import analyzer.utils.SocialGraphUtils.NetworkStatistics;
+import analyzer.utils.SocialGraphUtils.SocialGraphExport;
+import analyzer.utils.SocialGraphUtils.UserConnection;
+import analyzer.utils.SocialGraphVisualizer;
+import analyzer.utils.TaskGraph;
+import analyzer.utils.TaskGraph.Node;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Writes all results of an analyzed folder as a {@link TaskGraph}, one ranking per {@link RankingProvider}.
+ * Every output declares the intermediate products it needs, shared products like the id to name map, the graph export, the most connected users and the
+ * network statistics are computed once per folder. Products are computed on the CPU pool, files are written
+ * from IO threads, independent outputs run concurrently.
+ */
+public class OutputGraph {
+
+    private final TaskGraph graph;
+    private final List<Node<?>> outputs = new ArrayList<>();
+
+    public OutputGraph(Analyzer analyzer, FileService fileService, String outputDir, Scheduler scheduler) {
+        this(analyzer, fileService, outputDir, scheduler, RankingFactory.providers(), true);
+    }
+
+    /**
+     * Writes only the given rankings, e.g. a narrow report of an analyzer that collected their metrics only
+     */
+    public static OutputGraph rankingsOnly(Analyzer analyzer, FileService fileService, String outputDir, Scheduler scheduler,
+                                           List<RankingProvider> providers) {
+        return new OutputGraph(analyzer, fileService, outputDir, scheduler, providers, false);
+    }
+
+    private OutputGraph(Analyzer analyzer, FileService fileService, String outputDir, Scheduler scheduler,
+                        List<RankingProvider> providers, boolean fullReport) {
+        this.graph = new TaskGraph(scheduler);
+
+        // Shared intermediate products
+        final Node<List<AuthorData>> authors = TaskGraph.cpu("authors", results -> analyzer.getSortedAuthorData());
+        final Node<Map<String, String>> idToNameMap = TaskGraph.cpu("idToNameMap",
+            results -> SocialGraphUtils.idToNameMap(results.get(authors)), authors);
+
+        // All rankings are accumulated in a single pass over the authors. Many authors are split into ranges
+        // accumulated on the CPU pool, the node joins them and runs on an IO thread then. Fewer authors are
+        // accumulated on the CPU pool directly.
+        final boolean parallelRankings = analyzer.getAuthorData().size() >= AnalyzerConfig.RANKING_PARALLEL_THRESHOLD;
+        final RankingEngine rankingEngine = parallelRankings ? new RankingEngine(scheduler) : RankingEngine.sequential();
+        final boolean anyUsesIdToNameMap = providers.stream().anyMatch(RankingProvider::usesIdToNameMap);
+        final TaskGraph.Computation<List<RankingAccumulator>> accumulate = results -> rankingEngine.accumulate(
+            results.get(authors), providers, anyUsesIdToNameMap ? results.get(idToNameMap) : null);
+        final Node<?>[] accumulateDependencies = anyUsesIdToNameMap ? new Node<?>[]{authors, idToNameMap} : new Node<?>[]{authors};
+        final Node<List<RankingAccumulator>> rankingAccumulators = parallelRankings
+            ? TaskGraph.io("rankingAccumulators", accumulate, accumulateDependencies)
+            : TaskGraph.cpu("rankingAccumulators", accumulate, accumulateDependencies);
+
+        final Node<Void> authorDataFile = fullReport ? authorDataFile(fileService, outputDir, authors) : null;
+        for (int i = 0; i < providers.size(); i++) {
+            final RankingProvider provider = providers.get(i);
+            final int rankingIndex = i;
+            final TaskGraph.Computation<Ranking> finish = results -> results.get(rankingAccumulators).get(rankingIndex).finish();
+            // Updates the authors it ranks, so it has to wait until the author data is written
+            final Node<Ranking> ranking = provider.updatesAuthors() && authorDataFile != null
+                ? TaskGraph.cpu(provider.getName(), finish, rankingAccumulators, authorDataFile)
+                : TaskGraph.cpu(provider.getName(), finish, rankingAccumulators);
+            outputs.add(TaskGraph.io(provider.getName() + "File", results -> {
+                fileService.writeRanking(results.get(ranking), outputDir);
+                return null;
+            }, ranking));
+        }
+
+        if (!fullReport) {
+            return;
+        }
+        outputs.add(authorDataFile);
+
+        final Node<Map<String, AuthorData>> authorsById = TaskGraph.cpu("authorsById",
+            results -> SocialGraphUtils.authorsById(results.get(authors)), authors);
+        final Node<SocialGraphExport> graphExport = TaskGraph.cpu("graphExport",
+            results -> SocialGraphUtils.exportSocialGraphData(results.get(authors), results.get(idToNameMap)), authors, idToNameMap);
+        final Node<List<UserConnection>> mostConnected = TaskGraph.cpu("mostConnectedUsers",
+            results -> SocialGraphUtils.getMostConnectedUsers(results.get(authors)), authors);
+        final Node<NetworkStatistics> networkStatistics = TaskGraph.cpu("networkStatistics",
+            results -> SocialGraphUtils.calculateNetworkStatistics(results.get(authors)), authors);
+        final Node<List<MutualMentionRelationship>> mutualRelationships = TaskGraph.cpu("mutualRelationships",
+            results -> SocialGraphUtils.findMutualMentionRelationships(results.get(authors), results.get(authorsById)),
+            authors, authorsById);
+
+        if (AnalyzerConfig.ACTIVITY_ROLLUPS) {
+            for (ActivityPeriod period : ActivityPeriod.values()) {
+                final Node<ActivityRollup> rollup = TaskGraph.cpu(period.name() + "Rollup",
+                    results -> ActivityRollup.of(period, results.get(authors), analyzer.getChannelStore()), authors);
+                outputs.add(TaskGraph.io(period.name() + "RollupFile", results -> {
+                    fileService.writeActivityRollup(results.get(rollup), outputDir);
+                    return null;
+                }, rollup));
+            }
+
+            final Node<ActivityRangeIndex> activityIndex = TaskGraph.cpu("activityIndex",
+                results -> ActivityRangeIndex.build(results.get(authors)), authors);
+            outputs.add(TaskGraph.io("activityIndexFile", results -> {
+                fileService.writeActivityIndex(results.get(activityIndex), outputDir);
+                return null;
+            }, activityIndex));
+        }
+
+        if (AnalyzerConfig.DIMENSION_RANKINGS) {
+            final Node<DimensionRanking> byChannel = TaskGraph.cpu("rankingByChannel",
+                results -> DimensionRanking.byChannel(results.get(authors), analyzer.getStatsStore(), analyzer.getChannelStore()),
+                authors);
+            final Node<DimensionRanking> byCategory = TaskGraph.cpu("rankingByCategory",
+                results -> DimensionRanking.byCategory(results.get(authors), analyzer.getStatsStore(), analyzer.getChannelStore()),
+                authors);
+            for (Node<DimensionRanking> ranking : List.of(byChannel, byCategory)) {
+                outputs.add(TaskGraph.io(ranking.getName() + "File", results -> {
+                    fileService.writeRanking(results.get(ranking), outputDir);
+                    return null;
+                }, ranking));
+            }
+        }
+
+        final Node<MessageLengths> messageLengths = TaskGraph.cpu("messageLengths",
+            results -> MessageLengths.of(analyzer.getChannelStore()));
+        outputs.add(TaskGraph.io("messageLengthsFile", results -> {
+            fileService.writeMessageLengths(results.get(messageLengths), outputDir);
+            return null;
+        }, messageLengths));
+
+        if (AnalyzerConfig.DISTINCT_COUNT_SKETCHES) {
+            final Node<DistinctCounts> distinctCounts = TaskGraph.cpu("distinctCounts",
+                results -> DistinctCounts.of(results.get(authors), analyzer.getChannelStore()), authors);
+            outputs.add(TaskGraph.io("distinctCountsFile", results -> {
+                fileService.writeDistinctCounts(results.get(distinctCounts), outputDir);
+                return null;
+            }, distinctCounts));
+        }
+
+        final Node<String> textVisualization = TaskGraph.cpu("textVisualization",
+            results -> SocialGraphVisualizer.generateTextVisualization(results.get(networkStatistics),
+                results.get(mostConnected), results.get(mutualRelationships), results.get(authorsById)),
+            networkStatistics, mostConnected, mutualRelationships, authorsById);
+        outputs.add(TaskGraph.io("textVisualizationFile", results -> {
+            fileService.writeSocialGraphTextVisualization(results.get(textVisualization), outputDir);
+            return null;
+        }, textVisualization));
+
+        final Node<String> htmlContent = TaskGraph.cpu("htmlContent",
+            results -> SocialGraphVisualizer.generateHTMLContent(results.get(graphExport), results.get(networkStatistics)),
+            graphExport, networkStatistics);
+        outputs.add(TaskGraph.io("htmlContentFile", results -> {
+            fileService.writeSocialGraphHTMLVisualization(results.get(htmlContent), outputDir);
+            return null;
+        }, htmlContent));
+    }
+
+    private static Node<Void> authorDataFile(FileService fileService, String outputDir, Node<List<AuthorData>> authors) {
+        return TaskGraph.io("authorDataFile", results -> {
+            // Keyed by id, users sharing a name or nickname would collide as JSON keys
+            final Map<String, AuthorData> authorDataMap = new LinkedHashMap<>();
+            results.get(authors).forEach(authorData -> authorDataMap.put(authorData.getAuthorId(), authorData));
+            fileService.writeAuthorData(authorDataMap, outputDir);
+            return null;
+        }, authors);
+    }
+
+    /**
+     * Computes and writes all outputs, the first failure cancels the remaining ones
+     */
+    public void write() throws InterruptedException, ExecutionException {
+        graph.run(outputs);
+    }
+}
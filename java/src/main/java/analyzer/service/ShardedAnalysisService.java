@@ -0,0 +1,108 @@
+package analyzer.service;
+
+import analyzer.Analyzer;
+import analyzer.service.cache.PartialAggregate;
+import analyzer.service.cache.ShardPartial;
+import analyzer.utils.ExceptionHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Splits the analysis of a folder across processes. Every worker analyzes a contiguous range of the sorted export
+ * files and writes a {@link ShardPartial} with the partial aggregate of every file, the merge combines any number
+ * of them in shard and file order into the final {@link Analyzer}. The partials are merged like the cached partials
+ * of the {@link IncrementalAnalysisService}, so merging all shards gives the same result as analyzing the folder in
+ * a single process.
+ */
+public class ShardedAnalysisService {
+
+    // Bump whenever the PartialAggregate format changes, partials of another version are rejected
+    private static final int SHARD_VERSION = 7;
+
+    private final FileService fileService;
+
+    public ShardedAnalysisService(FileService fileService) {
+        this.fileService = fileService;
+    }
+
+    /**
+     * Analyzes one shard of the folder and writes its partial aggregate
+     */
+    public void writeShard(String folderPath, int shardIndex, int shardCount, Path partialPath)
+        throws IOException, InterruptedException, ExecutionException {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+
+        final List<String> logPaths = shardFiles(fileService.listLogFiles(folderPath).stream().sorted().toList(), shardIndex, shardCount);
+        ExceptionHandler.logInfo(String.format("Analyzing shard %d of %d: %d log files from %s",
+            shardIndex, shardCount, logPaths.size(), folderPath));
+
+        // Not finalized, the merge decides which authors are active
+        final List<PartialAggregate> aggregates = new ArrayList<>();
+        new IngestionPipeline(fileService).run(folderPath, logPaths, result ->
+            aggregates.add(PartialAggregate.of(result.analyzer().getAuthorData(), result.analyzer().getChannelStore())));
+
+        final ShardPartial shard = new ShardPartial(SHARD_VERSION, shardIndex, shardCount, logPaths, aggregates);
+        final Path parent = partialPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        shard.write(partialPath);
+        ExceptionHandler.logInfo("Shard partial written to: " + partialPath);
+    }
+
+    /**
+     * Merges shard partials in shard order, missing shards are reported and skipped
+     */
+    public Analyzer mergeShards(List<Path> partialPaths) throws IOException {
+        final List<ShardPartial> shards = new ArrayList<>();
+        for (Path partialPath : partialPaths) {
+            shards.add(ShardPartial.read(partialPath, SHARD_VERSION));
+        }
+        shards.sort(Comparator.comparingInt(ShardPartial::getShardIndex));
+
+        for (int i = 0; i < shards.size(); i++) {
+            final ShardPartial shard = shards.get(i);
+            if (shard.getShardCount() != shards.getFirst().getShardCount()) {
+                throw new IllegalArgumentException("Shard partials of different shard counts: "
+                    + shard.getShardCount() + " and " + shards.getFirst().getShardCount());
+            }
+            if (i > 0 && shard.getShardIndex() == shards.get(i - 1).getShardIndex()) {
+                throw new IllegalArgumentException("Shard " + shard.getShardIndex() + " was given twice");
+            }
+        }
+        if (!shards.isEmpty() && shards.size() < shards.getFirst().getShardCount()) {
+            ExceptionHandler.logWarning(String.format("Merging %d of %d shards, the result is incomplete",
+                shards.size(), shards.getFirst().getShardCount()));
+        }
+
+        final Analyzer analyzer = new Analyzer();
+        for (ShardPartial shard : shards) {
+            for (PartialAggregate aggregate : shard.getAggregates()) {
+                analyzer.merge(aggregate.toStatsStore());
+                analyzer.merge(aggregate.toChannelStore());
+            }
+        }
+        analyzer.finalizeAnalysis();
+
+        ExceptionHandler.logInfo("Merged " + shards.size() + " shard partials covering "
+            + shards.stream().mapToInt(shard -> shard.getLogFiles().size()).sum() + " log files");
+        return analyzer;
+    }
+
+    /**
+     * The files of a shard: a contiguous range of the sorted files, so shards merge in file order
+     */
+    static List<String> shardFiles(List<String> sortedLogPaths, int shardIndex, int shardCount) {
+        final int from = (int) ((long) sortedLogPaths.size() * shardIndex / shardCount);
+        final int to = (int) ((long) sortedLogPaths.size() * (shardIndex + 1) / shardCount);
+        return sortedLogPaths.subList(from, to);
+    }
+}
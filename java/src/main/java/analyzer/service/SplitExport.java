@@ -0,0 +1,87 @@
+package analyzer.service;
+
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+import analyzer.service.cache.MessageSnapshot;
+import analyzer.service.cache.MessageSnapshotCache;
+import analyzer.service.parser.MappedChannelParser;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A large channel export split at message boundaries, see {@link FileService#splitLogFile(String, String)}.
+ * Segments are parsed independently and concurrently. With message snapshots enabled, every segment records its
+ * own snapshot part, {@link #finish()} joins the parts in segment order and stores them as the snapshot of the file.
+ */
+public final class SplitExport {
+
+    private final MappedChannelParser parser;
+    private final List<MappedChannelParser.Segment> segments;
+    private final Path logFilePath;
+    private final long sourceSize;
+    private final long sourceLastModified;
+    private final MessageSnapshotCache snapshotCache;
+    private final MessageSnapshot[] snapshotParts;
+
+    SplitExport(MappedChannelParser parser, List<MappedChannelParser.Segment> segments, Path logFilePath,
+                long sourceSize, long sourceLastModified, MessageSnapshotCache snapshotCache) {
+        this.parser = parser;
+        this.segments = segments;
+        this.logFilePath = logFilePath;
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.snapshotCache = snapshotCache;
+        this.snapshotParts = new MessageSnapshot[segments.size()];
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public long getSegmentBytes(int segment) {
+        return segments.get(segment).getByteLength();
+    }
+
+    /**
+     * Parses a single segment, may be called concurrently for different segments
+     *
+     * @return the number of messages handed to the consumer
+     */
+    public long parse(int segment, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        if (snapshotCache == null) {
+            return parser.parse(segments.get(segment), messageConsumer);
+        }
+
+        final MessageSnapshot part = MessageSnapshot.recording(sourceSize, sourceLastModified);
+        final long messageCount = parser.parse(segments.get(segment), (channelInfo, message) -> {
+            part.record(channelInfo, message);
+            messageConsumer.accept(channelInfo, message);
+        });
+        snapshotParts[segment] = part;
+        return messageCount;
+    }
+
+    /**
+     * Stores the snapshot of the file once all segments were parsed successfully
+     */
+    public void finish() {
+        if (snapshotCache == null) {
+            return;
+        }
+        for (MessageSnapshot part : snapshotParts) {
+            if (part == null) {
+                return;
+            }
+        }
+
+        final MessageSnapshot snapshot = snapshotParts[0];
+        for (int i = 1; i < snapshotParts.length; i++) {
+            snapshot.append(snapshotParts[i]);
+            snapshotParts[i] = null;
+        }
+        snapshotCache.store(logFilePath, snapshot);
+    }
+}
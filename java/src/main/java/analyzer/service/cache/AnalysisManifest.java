@@ -0,0 +1,42 @@
+package analyzer.service.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records which export files were already analyzed and where their partial aggregates are stored.
+ */
+@Getter
+@Setter
+public class AnalysisManifest {
+
+    private int version;
+    private Map<String, Entry> entries = new HashMap<>();
+
+    public AnalysisManifest() {
+        // Required by Gson
+    }
+
+    public AnalysisManifest(int version) {
+        this.version = version;
+    }
+
+    @Getter
+    @Setter
+    public static class Entry {
+        private long size;
+        private long lastModified;
+        private String contentHash;
+        private String partialFile;
+
+        /**
+         * Cheap check, a matching size and modification time means the file is unchanged
+         */
+        public boolean matches(long size, long lastModified) {
+            return this.size == size && this.lastModified == lastModified;
+        }
+    }
+}
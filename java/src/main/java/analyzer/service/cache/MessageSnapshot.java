@@ -0,0 +1,445 @@
+package analyzer.service.cache;
+
+import analyzer.models.Author;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Attachment;
+import analyzer.models.message.Mention;
+import analyzer.models.message.Message;
+import analyzer.models.message.embed.Embed;
+import analyzer.models.message.reaction.Emoji;
+import analyzer.models.message.reaction.Reaction;
+import analyzer.utils.GrowableIntArray;
+import analyzer.utils.GrowableLongArray;
+import analyzer.utils.Timestamps;
+import analyzer.utils.VarInts;
+import analyzer.utils.WordCounter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Compact, column-oriented binary encoding of the parsed messages of a single export file.
+ * <p>
+ * Users (authors and mentioned users) and emojis are dictionary encoded, every message is reduced to
+ * the values the analysis reads: author, timestamp (epoch millis plus offset), word count, attachment
+ * and embed counts, mentioned users and reactions. Archives hold several channels, the channel of a message
+ * is stored as runs of consecutive messages. The header records size and modification time
+ * of the source file, a snapshot is only valid while both still match.
+ */
+public final class MessageSnapshot {
+
+    private static final int MAGIC = 0x44434153; // "DCAS"
+    private static final int FORMAT_VERSION = 2;
+
+    private static final Attachment[] NO_ATTACHMENTS = new Attachment[0];
+    private static final Embed[] NO_EMBEDS = new Embed[0];
+    private static final Reaction[] NO_REACTIONS = new Reaction[0];
+    private static final Mention[] NO_MENTIONS = new Mention[0];
+
+    private final long sourceSize;
+    private final long sourceLastModified;
+
+    // Dictionaries
+    private final List<ChannelInfo> channels = new ArrayList<>();
+    private final List<Author> users = new ArrayList<>();
+    private final Map<String, Integer> userIndex = new HashMap<>();
+    private final List<Emoji> emojis = new ArrayList<>();
+    private final Map<EmojiKey, Integer> emojiIndex = new HashMap<>();
+
+    // Columns, one value per message
+    private final GrowableIntArray authorRefs = new GrowableIntArray(1024);
+    private final GrowableLongArray epochMillis = new GrowableLongArray(1024);
+    private final GrowableIntArray offsetSeconds = new GrowableIntArray(1024);
+    private final GrowableIntArray wordCounts = new GrowableIntArray(1024);
+    private final GrowableIntArray attachmentCounts = new GrowableIntArray(1024);
+    private final GrowableIntArray embedCounts = new GrowableIntArray(1024);
+    private final GrowableIntArray mentionCounts = new GrowableIntArray(1024);
+    private final GrowableIntArray reactionCounts = new GrowableIntArray(1024);
+
+    // Channel runs, messages from channelRunStarts[i] on belong to channel channelRunRefs[i]
+    private final GrowableIntArray channelRunStarts = new GrowableIntArray();
+    private final GrowableIntArray channelRunRefs = new GrowableIntArray();
+
+    // Flattened list columns, sliced by the per message counts above
+    private final GrowableIntArray mentionRefs = new GrowableIntArray();
+    private final GrowableIntArray reactionEmojiRefs = new GrowableIntArray();
+    private final GrowableIntArray reactionAmounts = new GrowableIntArray();
+
+    private MessageSnapshot(long sourceSize, long sourceLastModified) {
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+    }
+
+    /**
+     * Creates an empty snapshot for the given source file state, filled via {@link #record(ChannelInfo, Message)}
+     */
+    public static MessageSnapshot recording(long sourceSize, long sourceLastModified) {
+        return new MessageSnapshot(sourceSize, sourceLastModified);
+    }
+
+    /**
+     * Checks the header of a snapshot file against the current state of its source file
+     */
+    public static boolean isValid(Path snapshotPath, long sourceSize, long sourceLastModified) {
+        if (!Files.exists(snapshotPath)) {
+            return false;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath), 64))) {
+            return in.readInt() == MAGIC
+                && in.readInt() == FORMAT_VERSION
+                && in.readLong() == sourceSize
+                && in.readLong() == sourceLastModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends a parsed message. The word count is computed here and stored on the message,
+     * so the analysis does not count the same content twice.
+     */
+    public void record(ChannelInfo channelInfo, Message message) {
+        if (channelRunRefs.size() == 0 || channels.get(channelRunRefs.get(channelRunRefs.size() - 1)) != channelInfo) {
+            channels.add(channelInfo);
+            channelRunStarts.add(getMessageCount());
+            channelRunRefs.add(channels.size() - 1);
+        }
+
+        if (message.getWordCount() < 0) {
+            message.setWordCount(StringUtils.isNotBlank(message.getContent()) ? WordCounter.countWords(message.getContent()) : 0);
+        }
+
+        authorRefs.add(userRef(message.getAuthor()));
+        epochMillis.add(Timestamps.epochMillis(message.getTimestamp()));
+        offsetSeconds.add(Timestamps.offsetSeconds(message.getTimestamp()));
+        wordCounts.add(message.getWordCount());
+        attachmentCounts.add(message.getAttachments() != null ? message.getAttachments().length : 0);
+        embedCounts.add(message.getEmbeds() != null ? message.getEmbeds().length : 0);
+
+        final Mention[] mentions = message.getMentions() != null ? message.getMentions() : NO_MENTIONS;
+        mentionCounts.add(mentions.length);
+        for (Mention mention : mentions) {
+            mentionRefs.add(userRef(mention));
+        }
+
+        final Reaction[] reactions = message.getReactions() != null ? message.getReactions() : NO_REACTIONS;
+        reactionCounts.add(reactions.length);
+        for (Reaction reaction : reactions) {
+            reactionEmojiRefs.add(emojiRef(reaction.getEmoji()));
+            reactionAmounts.add(reaction.getCount());
+        }
+    }
+
+    /**
+     * Appends all messages of a snapshot recorded for the following part of the same source,
+     * as if they had been recorded into this one
+     */
+    public void append(MessageSnapshot part) {
+        final int messageOffset = getMessageCount();
+        for (int run = 0; run < part.channelRunStarts.size(); run++) {
+            final ChannelInfo channelInfo = part.channels.get(part.channelRunRefs.get(run));
+            if (channelRunRefs.size() == 0 || channels.get(channelRunRefs.get(channelRunRefs.size() - 1)) != channelInfo) {
+                channels.add(channelInfo);
+                channelRunStarts.add(messageOffset + part.channelRunStarts.get(run));
+                channelRunRefs.add(channels.size() - 1);
+            }
+        }
+
+        final int[] userRefs = new int[part.users.size()];
+        for (int i = 0; i < userRefs.length; i++) {
+            final Author user = part.users.get(i);
+            userRefs[i] = userIndex.computeIfAbsent(user.getId(), id -> {
+                users.add(user);
+                return users.size() - 1;
+            });
+        }
+        final int[] emojiRefs = new int[part.emojis.size()];
+        for (int i = 0; i < emojiRefs.length; i++) {
+            emojiRefs[i] = emojiRef(part.emojis.get(i));
+        }
+
+        for (int i = 0; i < part.getMessageCount(); i++) {
+            authorRefs.add(userRefs[part.authorRefs.get(i)]);
+            epochMillis.add(part.epochMillis.get(i));
+            offsetSeconds.add(part.offsetSeconds.get(i));
+            wordCounts.add(part.wordCounts.get(i));
+            attachmentCounts.add(part.attachmentCounts.get(i));
+            embedCounts.add(part.embedCounts.get(i));
+            mentionCounts.add(part.mentionCounts.get(i));
+            reactionCounts.add(part.reactionCounts.get(i));
+        }
+        for (int i = 0; i < part.mentionRefs.size(); i++) {
+            mentionRefs.add(userRefs[part.mentionRefs.get(i)]);
+        }
+        for (int i = 0; i < part.reactionEmojiRefs.size(); i++) {
+            reactionEmojiRefs.add(emojiRefs[part.reactionEmojiRefs.get(i)]);
+            reactionAmounts.add(part.reactionAmounts.get(i));
+        }
+    }
+
+    public int getMessageCount() {
+        return authorRefs.size();
+    }
+
+    /**
+     * Rebuilds the messages and hands them to the consumer. Authors and emojis are shared between messages,
+     * the content is not restored, only its word count.
+     */
+    public long replay(BiConsumer<ChannelInfo, Message> messageConsumer) {
+        int mentionOffset = 0;
+        int reactionOffset = 0;
+        int channelRun = -1;
+        ChannelInfo channelInfo = null;
+
+        for (int i = 0; i < getMessageCount(); i++) {
+            if (channelRun + 1 < channelRunStarts.size() && channelRunStarts.get(channelRun + 1) == i) {
+                channelInfo = channels.get(channelRunRefs.get(++channelRun));
+            }
+
+            final Message message = new Message();
+            message.setAuthor(users.get(authorRefs.get(i)));
+            message.setTimestamp(OffsetDateTime.ofInstant(Instant.ofEpochMilli(epochMillis.get(i)),
+                ZoneOffset.ofTotalSeconds(offsetSeconds.get(i))).toString());
+            message.setWordCount(wordCounts.get(i));
+            message.setAttachments(attachmentCounts.get(i) == 0 ? NO_ATTACHMENTS : new Attachment[attachmentCounts.get(i)]);
+            message.setEmbeds(embedCounts.get(i) == 0 ? NO_EMBEDS : new Embed[embedCounts.get(i)]);
+
+            final Mention[] mentions = mentionCounts.get(i) == 0 ? NO_MENTIONS : new Mention[mentionCounts.get(i)];
+            for (int m = 0; m < mentions.length; m++) {
+                mentions[m] = toMention(users.get(mentionRefs.get(mentionOffset++)));
+            }
+            message.setMentions(mentions);
+
+            final Reaction[] reactions = reactionCounts.get(i) == 0 ? NO_REACTIONS : new Reaction[reactionCounts.get(i)];
+            for (int r = 0; r < reactions.length; r++) {
+                reactions[r] = new Reaction();
+                reactions[r].setEmoji(emojis.get(reactionEmojiRefs.get(reactionOffset)));
+                reactions[r].setCount((short) reactionAmounts.get(reactionOffset++));
+            }
+            message.setReactions(reactions);
+
+            messageConsumer.accept(channelInfo, message);
+        }
+
+        return getMessageCount();
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceLastModified);
+
+            VarInts.writeUnsigned(out, channels.size());
+            for (ChannelInfo channelInfo : channels) {
+                writeChannelInfo(out, channelInfo);
+            }
+            VarInts.writeUnsigned(out, channelRunStarts.size());
+            writeColumn(out, channelRunStarts);
+            writeColumn(out, channelRunRefs);
+
+            VarInts.writeUnsigned(out, users.size());
+            for (Author user : users) {
+                writeString(out, user.getId());
+                writeString(out, user.getName());
+                writeString(out, user.getNickname());
+            }
+
+            VarInts.writeUnsigned(out, emojis.size());
+            for (Emoji emoji : emojis) {
+                writeString(out, emoji.getId());
+                writeString(out, emoji.getName());
+                out.writeBoolean(emoji.isAnimated());
+                writeString(out, emoji.getImageUrl());
+            }
+
+            VarInts.writeUnsigned(out, getMessageCount());
+            writeColumn(out, authorRefs);
+            long previousMillis = 0;
+            for (int i = 0; i < epochMillis.size(); i++) {
+                // exports are chronological, deltas keep the column small
+                VarInts.writeSigned(out, epochMillis.get(i) - previousMillis);
+                previousMillis = epochMillis.get(i);
+            }
+            for (int i = 0; i < offsetSeconds.size(); i++) {
+                VarInts.writeSigned(out, offsetSeconds.get(i));
+            }
+            writeColumn(out, wordCounts);
+            writeColumn(out, attachmentCounts);
+            writeColumn(out, embedCounts);
+            writeColumn(out, mentionCounts);
+            writeColumn(out, reactionCounts);
+
+            VarInts.writeUnsigned(out, mentionRefs.size());
+            writeColumn(out, mentionRefs);
+            VarInts.writeUnsigned(out, reactionEmojiRefs.size());
+            writeColumn(out, reactionEmojiRefs);
+            writeColumn(out, reactionAmounts);
+        }
+    }
+
+    public static MessageSnapshot read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a message snapshot: " + path);
+            }
+
+            final MessageSnapshot snapshot = new MessageSnapshot(in.readLong(), in.readLong());
+            final int channelCount = VarInts.readUnsignedInt(in);
+            for (int i = 0; i < channelCount; i++) {
+                snapshot.channels.add(readChannelInfo(in));
+            }
+            final int channelRunCount = VarInts.readUnsignedInt(in);
+            readColumn(in, snapshot.channelRunStarts, channelRunCount);
+            readColumn(in, snapshot.channelRunRefs, channelRunCount);
+
+            final int userCount = VarInts.readUnsignedInt(in);
+            for (int i = 0; i < userCount; i++) {
+                final Author user = new Author();
+                user.setId(readString(in));
+                user.setName(readString(in));
+                user.setExportedNickname(readString(in));
+                snapshot.users.add(user);
+            }
+
+            final int emojiCount = VarInts.readUnsignedInt(in);
+            for (int i = 0; i < emojiCount; i++) {
+                final Emoji emoji = new Emoji();
+                emoji.setId(readString(in));
+                emoji.setName(readString(in));
+                emoji.setAnimated(in.readBoolean());
+                emoji.setImageUrl(readString(in));
+                snapshot.emojis.add(emoji);
+            }
+
+            final int messageCount = VarInts.readUnsignedInt(in);
+            readColumn(in, snapshot.authorRefs, messageCount);
+            long millis = 0;
+            for (int i = 0; i < messageCount; i++) {
+                millis += VarInts.readSigned(in);
+                snapshot.epochMillis.add(millis);
+            }
+            for (int i = 0; i < messageCount; i++) {
+                snapshot.offsetSeconds.add((int) VarInts.readSigned(in));
+            }
+            readColumn(in, snapshot.wordCounts, messageCount);
+            readColumn(in, snapshot.attachmentCounts, messageCount);
+            readColumn(in, snapshot.embedCounts, messageCount);
+            readColumn(in, snapshot.mentionCounts, messageCount);
+            readColumn(in, snapshot.reactionCounts, messageCount);
+
+            readColumn(in, snapshot.mentionRefs, VarInts.readUnsignedInt(in));
+            final int reactionTotal = VarInts.readUnsignedInt(in);
+            readColumn(in, snapshot.reactionEmojiRefs, reactionTotal);
+            readColumn(in, snapshot.reactionAmounts, reactionTotal);
+
+            return snapshot;
+        }
+    }
+
+    private int userRef(Author author) {
+        return userIndex.computeIfAbsent(author.getId(), id -> {
+            users.add(author);
+            return users.size() - 1;
+        });
+    }
+
+    private int userRef(Mention mention) {
+        return userIndex.computeIfAbsent(mention.getId(), id -> {
+            final Author user = new Author();
+            user.setId(mention.getId());
+            user.setName(mention.getName());
+            user.setExportedNickname(mention.getNickname());
+            users.add(user);
+            return users.size() - 1;
+        });
+    }
+
+    private int emojiRef(Emoji emoji) {
+        return emojiIndex.computeIfAbsent(new EmojiKey(emoji), key -> {
+            emojis.add(emoji);
+            return emojis.size() - 1;
+        });
+    }
+
+    private static Mention toMention(Author user) {
+        final Mention mention = new Mention();
+        mention.setId(user.getId());
+        mention.setName(user.getName());
+        mention.setNickname(user.getNickname());
+        return mention;
+    }
+
+    private static void writeChannelInfo(DataOutputStream out, ChannelInfo channelInfo) throws IOException {
+        out.writeBoolean(channelInfo != null);
+        if (channelInfo != null) {
+            writeString(out, channelInfo.getId());
+            writeString(out, channelInfo.getType());
+            writeString(out, channelInfo.getCategoryId());
+            writeString(out, channelInfo.getCategory());
+            writeString(out, channelInfo.getName());
+            writeString(out, channelInfo.getTopic());
+        }
+    }
+
+    private static ChannelInfo readChannelInfo(DataInputStream in) throws IOException {
+        ChannelInfo channelInfo = null;
+        if (in.readBoolean()) {
+            channelInfo = new ChannelInfo();
+            channelInfo.setId(readString(in));
+            channelInfo.setType(readString(in));
+            channelInfo.setCategoryId(readString(in));
+            channelInfo.setCategory(readString(in));
+            channelInfo.setName(readString(in));
+            channelInfo.setTopic(readString(in));
+        }
+        return channelInfo;
+    }
+
+    private static void writeColumn(DataOutputStream out, GrowableIntArray column) throws IOException {
+        for (int i = 0; i < column.size(); i++) {
+            VarInts.writeUnsigned(out, column.get(i));
+        }
+    }
+
+    private static void readColumn(DataInputStream in, GrowableIntArray column, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            column.add(VarInts.readUnsignedInt(in));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Identity of an emoji in the dictionary, all serialized fields have to match
+     */
+    private record EmojiKey(String id, String name, boolean animated, String imageUrl) {
+        EmojiKey(Emoji emoji) {
+            this(emoji.getId(), emoji.getName(), emoji.isAnimated(), emoji.getImageUrl());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package analyzer.service.cache;
+
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+import analyzer.service.parser.ChannelParser;
+import analyzer.utils.ExceptionHandler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Serves the messages of an export from its {@link MessageSnapshot} if the export is unchanged,
+ * otherwise parses the JSON and records a fresh snapshot on the way.
+ */
+public class MessageSnapshotCache {
+
+    private static final String SNAPSHOT_EXTENSION = ".snap";
+
+    private final Path folder;
+    private final Path snapshotDir;
+
+    public MessageSnapshotCache(Path folder, Path snapshotDir) {
+        this.folder = folder;
+        this.snapshotDir = snapshotDir;
+    }
+
+    public long stream(Path logFilePath, ChannelParser parser, BiConsumer<ChannelInfo, Message> messageConsumer)
+        throws IOException {
+        final long size = Files.size(logFilePath);
+        final long lastModified = Files.getLastModifiedTime(logFilePath).toMillis();
+        final Path snapshotPath = snapshotPath(logFilePath);
+
+        if (MessageSnapshot.isValid(snapshotPath, size, lastModified)) {
+            try {
+                return MessageSnapshot.read(snapshotPath).replay(messageConsumer);
+            } catch (IOException e) {
+                ExceptionHandler.handleFileProcessingException(e, snapshotPath.toString());
+            }
+        }
+
+        final MessageSnapshot snapshot = MessageSnapshot.recording(size, lastModified);
+        final long messageCount = parser.parse(logFilePath, (channelInfo, message) -> {
+            snapshot.record(channelInfo, message);
+            messageConsumer.accept(channelInfo, message);
+        });
+        write(snapshot, snapshotPath);
+
+        return messageCount;
+    }
+
+    /**
+     * @return whether the export can be served from its snapshot
+     */
+    public boolean hasValidSnapshot(Path logFilePath) throws IOException {
+        return MessageSnapshot.isValid(snapshotPath(logFilePath),
+            Files.size(logFilePath), Files.getLastModifiedTime(logFilePath).toMillis());
+    }
+
+    /**
+     * Stores a snapshot recorded elsewhere, e.g. joined from the parts of a split export
+     */
+    public void store(Path logFilePath, MessageSnapshot snapshot) {
+        write(snapshot, snapshotPath(logFilePath));
+    }
+
+    private void write(MessageSnapshot snapshot, Path snapshotPath) {
+        try {
+            Files.createDirectories(snapshotDir);
+            // write to a temporary file first so an interrupted run never leaves a truncated snapshot behind
+            final Path temporary = Files.createTempFile(snapshotDir, snapshotPath.getFileName().toString(), ".tmp");
+            snapshot.write(temporary);
+            Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            ExceptionHandler.handleIOException(e, "writing message snapshot: " + snapshotPath);
+        }
+    }
+
+    private Path snapshotPath(Path logFilePath) {
+        final Path relative = folder.toAbsolutePath().normalize().relativize(logFilePath.toAbsolutePath().normalize());
+        return snapshotDir.resolve(relative.toString().replaceAll("[\\\\/:]", "_") + SNAPSHOT_EXTENSION);
+    }
+}
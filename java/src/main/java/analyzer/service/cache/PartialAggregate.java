@@ -0,0 +1,467 @@
+package analyzer.service.cache;
+
+import analyzer.models.Author;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.reaction.Emoji;
+import analyzer.stats.AuthorData;
+import analyzer.stats.AuthorStatsStore;
+import analyzer.stats.ChannelStatsStore;
+import analyzer.stats.DailyActivity;
+import analyzer.stats.DimensionCube;
+import analyzer.utils.GrowableIntArray;
+import analyzer.utils.HyperLogLog;
+import analyzer.utils.LogHistogram;
+import analyzer.utils.VarInts;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Per-author and per-channel aggregates of a single export file in a compact binary form, like {@link MessageSnapshot}.
+ * AuthorData itself is not used because its output format drops the transient fields needed for merging.
+ * <p>
+ * The authors and the channels are encoded in two sections, each with a dictionary of its strings (ids, names,
+ * emojis) followed by varint-encoded records. Daily activity keeps only the active days, sketches only their set
+ * registers. Partials are decoded straight into new stats stores, ready to be merged into an analyzer.
+ */
+public final class PartialAggregate {
+
+    private static final int MAGIC = 0x44435041; // "DCPA"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    private static final int NO_STRING = 0;
+    // An active day and its counts
+    private static final int ACTIVITY_VALUES = 1 + DailyActivity.METRIC_COUNT;
+
+    // Header, authors section, channels section, the header holds the length of the authors section
+    private final byte[] encoded;
+
+    private PartialAggregate(byte[] encoded) {
+        this.encoded = encoded;
+    }
+
+    public static PartialAggregate of(Collection<AuthorData> authorDataCollection, ChannelStatsStore channelStore) {
+        try {
+            final byte[] authors = encodeAuthors(authorDataCollection);
+            final byte[] channels = encodeChannels(channelStore);
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + authors.length + channels.length);
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(authors.length);
+            out.write(authors);
+            out.write(channels);
+            return new PartialAggregate(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new IllegalStateException("Encoding in memory failed", e);
+        }
+    }
+
+    public static PartialAggregate read(Path path) throws IOException {
+        return checked(Files.readAllBytes(path), path.toString());
+    }
+
+    /**
+     * Reads a partial written by {@link #write(DataOutput)}, e.g. embedded in a {@link ShardPartial}
+     */
+    public static PartialAggregate read(DataInput in) throws IOException {
+        final byte[] encoded = new byte[VarInts.readUnsignedInt(in)];
+        in.readFully(encoded);
+        return checked(encoded, "embedded partial");
+    }
+
+    private static PartialAggregate checked(byte[] encoded, String source) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+        if (encoded.length < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+            || in.readInt() > encoded.length - HEADER_BYTES) {
+            throw new IOException("Not a partial aggregate of version " + FORMAT_VERSION + ": " + source);
+        }
+        return new PartialAggregate(encoded);
+    }
+
+    public void write(Path path) throws IOException {
+        Files.write(path, encoded);
+    }
+
+    /**
+     * Writes the partial with its length, see {@link #read(DataInput)}
+     */
+    public void write(DataOutput out) throws IOException {
+        VarInts.writeUnsigned(out, encoded.length);
+        out.write(encoded);
+    }
+
+    /**
+     * @return the size of the encoded partial in bytes
+     */
+    public int size() {
+        return encoded.length;
+    }
+
+    /**
+     * @return the encoded partial, a copy
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(encoded, encoded.length);
+    }
+
+    /**
+     * Restores the aggregates into a new stats store, ready to be merged into an analyzer
+     */
+    public AuthorStatsStore toStatsStore() throws IOException {
+        final Decoder decoder = new Decoder(encoded, HEADER_BYTES, authorsLength());
+        final AuthorStatsStore store = new AuthorStatsStore();
+        final int authorCount = decoder.readInt();
+        final int[] slots = new int[authorCount];
+        for (int i = 0; i < authorCount; i++) {
+            slots[i] = decodeAuthor(decoder, store);
+        }
+        // Mentions received are the mirror image of the mentions sent, restoring one side rebuilds both.
+        // They are added once every author has a slot, mentioned users without one get theirs in mention order.
+        for (int i = 0; i < authorCount; i++) {
+            final int mentionCount = decoder.readInt();
+            for (int mention = 0; mention < mentionCount; mention++) {
+                store.addMention(slots[i], store.getOrAddSlot(decoder.readString()), decoder.readInt());
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Restores the channel aggregates into a new channel store
+     */
+    public ChannelStatsStore toChannelStore() throws IOException {
+        final int offset = HEADER_BYTES + authorsLength();
+        final Decoder decoder = new Decoder(encoded, offset, encoded.length - offset);
+        final ChannelStatsStore store = new ChannelStatsStore();
+        final int channelCount = decoder.readInt();
+        for (int i = 0; i < channelCount; i++) {
+            decodeChannel(decoder, store);
+        }
+        return store;
+    }
+
+    private int authorsLength() {
+        return ((encoded[8] & 0xFF) << 24) | ((encoded[9] & 0xFF) << 16) | ((encoded[10] & 0xFF) << 8) | (encoded[11] & 0xFF);
+    }
+
+    private static byte[] encodeAuthors(Collection<AuthorData> authorDataCollection) throws IOException {
+        final Encoder encoder = new Encoder();
+        encoder.writeInt(authorDataCollection.size());
+        for (AuthorData authorData : authorDataCollection) {
+            encodeAuthor(encoder, authorData);
+        }
+        for (AuthorData authorData : authorDataCollection) {
+            // Mentioned users without a slot get theirs in this order, by user id hash as in earlier cache versions
+            final Map<String, Integer> mentionsSent = new HashMap<>(authorData.getMentionsSent());
+            encoder.writeInt(mentionsSent.size());
+            for (Map.Entry<String, Integer> mention : mentionsSent.entrySet()) {
+                encoder.writeString(mention.getKey());
+                encoder.writeInt(mention.getValue());
+            }
+        }
+        return encoder.toByteArray();
+    }
+
+    private static void encodeAuthor(Encoder encoder, AuthorData authorData) throws IOException {
+        final DataOutputStream out = encoder.out;
+        encoder.writeString(authorData.getAuthorId());
+        encoder.writeString(authorData.getAuthor().getName());
+        encoder.writeString(authorData.getAuthor().getNickname());
+        VarInts.writeSigned(out, authorData.getEarliestEpochDay());
+        VarInts.writeUnsigned(out, authorData.getMessagesSent());
+        VarInts.writeUnsigned(out, authorData.getEmbedsSent());
+        VarInts.writeUnsigned(out, authorData.getAttachmentsSent());
+        VarInts.writeUnsigned(out, authorData.getWordCountSum());
+        VarInts.writeUnsigned(out, authorData.getTimesMentioned());
+        writeHistogram(out, authorData.getWordsPerMessage());
+
+        final Map<Emoji, Integer> emojisReceived = authorData.getEmojisReceived();
+        encoder.writeInt(emojisReceived.size());
+        for (Map.Entry<Emoji, Integer> emojiCount : emojisReceived.entrySet()) {
+            encoder.writeString(emojiCount.getKey().getId());
+            encoder.writeString(emojiCount.getKey().getName());
+            out.writeBoolean(emojiCount.getKey().isAnimated());
+            encoder.writeString(emojiCount.getKey().getImageUrl());
+            encoder.writeInt(emojiCount.getValue());
+        }
+
+        writeActivity(out, authorData.getDailyActivity());
+        writeSketch(out, authorData.getMentionPartners());
+
+        final Map<String, long[]> channelCounts = authorData.getChannelCounts();
+        encoder.writeInt(channelCounts.size());
+        for (Map.Entry<String, long[]> counts : channelCounts.entrySet()) {
+            encoder.writeString(counts.getKey());
+            for (long count : counts.getValue()) {
+                VarInts.writeUnsigned(out, count);
+            }
+        }
+    }
+
+    private static int decodeAuthor(Decoder decoder, AuthorStatsStore store) throws IOException {
+        final DataInputStream in = decoder.in;
+        final Author author = new Author();
+        author.setId(decoder.readString());
+        author.setName(decoder.readString());
+        author.setExportedNickname(decoder.readString());
+
+        final int slot = store.getOrAddSlot(author.getId());
+        if (!AuthorStatsStore.isPlaceholder(author)) {
+            store.setAuthor(slot, author);
+        }
+        store.updateEarliestEpochDay(slot, (int) VarInts.readSigned(in));
+        store.addCounts(slot, VarInts.readUnsigned(in), VarInts.readUnsigned(in), VarInts.readUnsigned(in),
+            VarInts.readUnsigned(in), VarInts.readUnsigned(in));
+        final LogHistogram wordsPerMessage = readHistogram(in);
+        if (wordsPerMessage != null) {
+            store.addWordsPerMessage(slot, wordsPerMessage);
+        }
+
+        final int emojiCount = decoder.readInt();
+        for (int i = 0; i < emojiCount; i++) {
+            final Emoji emoji = new Emoji();
+            emoji.setId(decoder.readString());
+            emoji.setName(decoder.readString());
+            emoji.setAnimated(in.readBoolean());
+            emoji.setImageUrl(decoder.readString());
+            store.addEmojisReceived(slot, emoji, decoder.readInt());
+        }
+
+        final DailyActivity activity = readActivity(in);
+        if (activity != null) {
+            store.addActivity(slot, activity);
+        }
+        if (in.readBoolean()) {
+            store.addMentionPartners(slot, HyperLogLog.read(in));
+        }
+
+        final int channelCount = decoder.readInt();
+        final DimensionCube cube = store.getChannelCube();
+        final long[] measures = new long[DimensionCube.MEASURE_COUNT];
+        for (int i = 0; i < channelCount; i++) {
+            final int member = cube.member(decoder.readString());
+            for (int measure = 0; measure < measures.length; measure++) {
+                measures[measure] = VarInts.readUnsigned(in);
+            }
+            cube.addCounts(slot, member, measures);
+        }
+        return slot;
+    }
+
+    private static byte[] encodeChannels(ChannelStatsStore store) throws IOException {
+        final Encoder encoder = new Encoder();
+        final DataOutputStream out = encoder.out;
+        encoder.writeInt(store.size());
+        for (int slot = 0; slot < store.size(); slot++) {
+            final ChannelInfo channel = store.getChannel(slot);
+            encoder.writeString(channel.getId());
+            encoder.writeString(channel.getType());
+            encoder.writeString(channel.getCategoryId());
+            encoder.writeString(channel.getCategory());
+            encoder.writeString(channel.getName());
+            encoder.writeString(channel.getTopic());
+
+            writeHistogram(out, store.getWordsPerMessage(slot));
+            if (store.getWordsPerMessage(slot) != null) {
+                VarInts.writeUnsigned(out, store.getWordCount(slot));
+            }
+            writeActivity(out, store.getDailyActivity(slot));
+
+            if (store.getActiveUsers(slot) == null) {
+                encoder.writeInt(0);
+            } else {
+                final SortedMap<Integer, HyperLogLog> months = store.getActiveUsers(slot).getMonths();
+                encoder.writeInt(months.size() + 1);
+                for (Map.Entry<Integer, HyperLogLog> month : months.entrySet()) {
+                    VarInts.writeSigned(out, month.getKey());
+                    month.getValue().write(out);
+                }
+            }
+            writeSketch(out, store.getDistinctEmojis(slot));
+        }
+        return encoder.toByteArray();
+    }
+
+    private static void decodeChannel(Decoder decoder, ChannelStatsStore store) throws IOException {
+        final DataInputStream in = decoder.in;
+        final ChannelInfo channel = new ChannelInfo();
+        channel.setId(decoder.readString());
+        channel.setType(decoder.readString());
+        channel.setCategoryId(decoder.readString());
+        channel.setCategory(decoder.readString());
+        channel.setName(decoder.readString());
+        channel.setTopic(decoder.readString());
+
+        final int slot = store.getOrAddSlot(channel);
+        final LogHistogram wordsPerMessage = readHistogram(in);
+        if (wordsPerMessage != null) {
+            store.addWordsPerMessage(slot, VarInts.readUnsigned(in), wordsPerMessage);
+        }
+        final DailyActivity activity = readActivity(in);
+        if (activity != null) {
+            store.addActivity(slot, activity);
+        }
+        // Month count + 1, 0 if no sketches were recorded
+        final int months = decoder.readInt() - 1;
+        for (int i = 0; i < months; i++) {
+            final int monthStart = (int) VarInts.readSigned(in);
+            store.activeUsers(slot, monthStart).merge(HyperLogLog.read(in));
+        }
+        if (in.readBoolean()) {
+            store.addEmojis(slot, HyperLogLog.read(in));
+        }
+    }
+
+    // Bucket count + 1, 0 for no histogram
+    private static void writeHistogram(DataOutput out, LogHistogram histogram) throws IOException {
+        if (histogram == null) {
+            VarInts.writeUnsigned(out, 0);
+            return;
+        }
+        final int[] counts = histogram.toArray();
+        VarInts.writeUnsigned(out, counts.length + 1);
+        for (int count : counts) {
+            VarInts.writeUnsigned(out, count);
+        }
+    }
+
+    private static LogHistogram readHistogram(DataInput in) throws IOException {
+        final int buckets = VarInts.readUnsignedInt(in) - 1;
+        if (buckets < 0) {
+            return null;
+        }
+        final int[] counts = new int[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            counts[bucket] = VarInts.readUnsignedInt(in);
+        }
+        return LogHistogram.of(counts);
+    }
+
+    // Active day count + 1, 0 for no activity, then the days as gaps with their counts
+    private static void writeActivity(DataOutput out, DailyActivity activity) throws IOException {
+        if (activity == null) {
+            VarInts.writeUnsigned(out, 0);
+            return;
+        }
+        final GrowableIntArray days = new GrowableIntArray();
+        activity.forEachDay((day, messages, words, mentions, reactions) -> {
+            days.add(day);
+            days.add(messages);
+            days.add(words);
+            days.add(mentions);
+            days.add(reactions);
+        });
+        VarInts.writeUnsigned(out, days.size() / ACTIVITY_VALUES + 1);
+        int previousDay = 0;
+        for (int offset = 0; offset < days.size(); offset += ACTIVITY_VALUES) {
+            VarInts.writeSigned(out, days.get(offset) - previousDay);
+            previousDay = days.get(offset);
+            for (int metric = 1; metric < ACTIVITY_VALUES; metric++) {
+                VarInts.writeUnsigned(out, days.get(offset + metric));
+            }
+        }
+    }
+
+    private static DailyActivity readActivity(DataInput in) throws IOException {
+        final int days = VarInts.readUnsignedInt(in) - 1;
+        if (days < 0) {
+            return null;
+        }
+        final DailyActivity activity = new DailyActivity();
+        int day = 0;
+        for (int i = 0; i < days; i++) {
+            day += (int) VarInts.readSigned(in);
+            activity.add(day, VarInts.readUnsignedInt(in), VarInts.readUnsignedInt(in), VarInts.readUnsignedInt(in),
+                VarInts.readUnsignedInt(in));
+        }
+        return activity;
+    }
+
+    private static void writeSketch(DataOutput out, HyperLogLog sketch) throws IOException {
+        out.writeBoolean(sketch != null);
+        if (sketch != null) {
+            sketch.write(out);
+        }
+    }
+
+    /**
+     * Writes a section: strings are replaced by their position in a dictionary, which is written ahead of the records
+     */
+    private static final class Encoder {
+
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(records);
+        private final Map<String, Integer> stringRefs = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        void writeInt(int value) throws IOException {
+            VarInts.writeUnsigned(out, value);
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                VarInts.writeUnsigned(out, NO_STRING);
+                return;
+            }
+            Integer ref = stringRefs.get(value);
+            if (ref == null) {
+                strings.add(value);
+                ref = strings.size();
+                stringRefs.put(value, ref);
+            }
+            VarInts.writeUnsigned(out, ref);
+        }
+
+        byte[] toByteArray() throws IOException {
+            final ByteArrayOutputStream section = new ByteArrayOutputStream(records.size() + strings.size() * 16);
+            final DataOutputStream sectionOut = new DataOutputStream(section);
+            VarInts.writeUnsigned(sectionOut, strings.size());
+            for (String string : strings) {
+                sectionOut.writeUTF(string);
+            }
+            records.writeTo(section);
+            return section.toByteArray();
+        }
+    }
+
+    private static final class Decoder {
+
+        private final DataInputStream in;
+        private final String[] strings;
+
+        Decoder(byte[] encoded, int offset, int length) throws IOException {
+            this.in = new DataInputStream(new ByteArrayInputStream(encoded, offset, length));
+            this.strings = new String[VarInts.readUnsignedInt(in) + 1];
+            for (int ref = 1; ref < strings.length; ref++) {
+                strings[ref] = in.readUTF();
+            }
+        }
+
+        int readInt() throws IOException {
+            return VarInts.readUnsignedInt(in);
+        }
+
+        String readString() throws IOException {
+            final int ref = VarInts.readUnsignedInt(in);
+            if (ref >= strings.length) {
+                throw new IOException("Unknown string " + ref + " of " + (strings.length - 1));
+            }
+            return strings[ref];
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package analyzer.service.cache;
+
+import analyzer.utils.VarInts;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Partial aggregates of one shard of a folder, written by a worker process and combined by the merge mode.
+ * Every file of the shard has its own {@link PartialAggregate}, like in the incremental cache, and the shard index
+ * gives the merge order, so the merged result matches a single-process run.
+ * Stored in binary: the shard header and file list followed by the partial of every file.
+ */
+@Getter
+public class ShardPartial {
+
+    private static final int MAGIC = 0x44435350; // "DCSP"
+
+    private final int version;
+    private final int shardIndex;
+    private final int shardCount;
+    private final List<String> logFiles;
+    // One per log file, in the order of the files
+    private final List<PartialAggregate> aggregates;
+
+    public ShardPartial(int version, int shardIndex, int shardCount, List<String> logFiles, List<PartialAggregate> aggregates) {
+        if (logFiles.size() != aggregates.size()) {
+            throw new IllegalArgumentException(logFiles.size() + " log files but " + aggregates.size() + " partial aggregates");
+        }
+        this.version = version;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.logFiles = new ArrayList<>(logFiles);
+        this.aggregates = new ArrayList<>(aggregates);
+    }
+
+    public void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(version);
+            VarInts.writeUnsigned(out, shardIndex);
+            VarInts.writeUnsigned(out, shardCount);
+            VarInts.writeUnsigned(out, logFiles.size());
+            for (String logFile : logFiles) {
+                out.writeUTF(logFile);
+            }
+            for (PartialAggregate aggregate : aggregates) {
+                aggregate.write(out);
+            }
+        }
+    }
+
+    /**
+     * Reads a shard partial of the given version
+     *
+     * @throws IOException if the file is not a shard partial of that version
+     */
+    public static ShardPartial read(Path path, int expectedVersion) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != expectedVersion) {
+                throw new IOException("Not a shard partial of version " + expectedVersion + ": " + path);
+            }
+            final int shardIndex = VarInts.readUnsignedInt(in);
+            final int shardCount = VarInts.readUnsignedInt(in);
+            final int logFileCount = VarInts.readUnsignedInt(in);
+            final List<String> logFiles = new ArrayList<>(logFileCount);
+            for (int i = 0; i < logFileCount; i++) {
+                logFiles.add(in.readUTF());
+            }
+            final List<PartialAggregate> aggregates = new ArrayList<>(logFileCount);
+            for (int i = 0; i < logFileCount; i++) {
+                aggregates.add(PartialAggregate.read(in));
+            }
+            return new ShardPartial(expectedVersion, shardIndex, shardCount, logFiles, aggregates);
+        }
+    }
+}
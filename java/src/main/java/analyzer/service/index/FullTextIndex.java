@@ -0,0 +1,216 @@
+package analyzer.service.index;
+
+import analyzer.utils.VarInts;
+import analyzer.utils.WordCounter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Inverted index over the message content of a folder, see {@link FullTextIndexBuilder}. Every term maps to its
+ * postings: message ordinal (position of the message in the sorted export files), author, timestamp and the number
+ * of times the message uses the term. Postings are delta and varint encoded, only the term directory is held in
+ * memory, the postings of a term are read on demand.
+ * <p>
+ * Terms are the words of the word count, lower-cased. Not thread-safe.
+ */
+public final class FullTextIndex implements Closeable {
+
+    static final int MAGIC = 0x44435349; // "DCSI"
+    static final int FORMAT_VERSION = 1;
+
+    private final FileChannel channel;
+    private final long messageCount;
+    private final String[] authorIds;
+    private final String[] authorNames;
+    // Sorted terms with the position of their postings, the postings of a term end where the next ones start
+    private final String[] terms;
+    private final int[] postingCounts;
+    private final long[] offsets;
+    private final long directoryOffset;
+
+    private FullTextIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+
+        final DataInputStream header = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)), 1 << 16));
+        if (header.readInt() != MAGIC || header.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not a full-text index");
+        }
+        messageCount = VarInts.readUnsigned(header);
+        final int authorCount = VarInts.readUnsignedInt(header);
+        authorIds = new String[authorCount];
+        authorNames = new String[authorCount];
+        for (int i = 0; i < authorCount; i++) {
+            authorIds[i] = readString(header);
+            authorNames[i] = readString(header);
+        }
+
+        final ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES);
+        readFully(trailer, channel.size() - Long.BYTES);
+        directoryOffset = trailer.flip().getLong();
+
+        final DataInputStream directory = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(directoryOffset)), 1 << 16));
+        final int termCount = VarInts.readUnsignedInt(directory);
+        terms = new String[termCount];
+        postingCounts = new int[termCount];
+        offsets = new long[termCount];
+        long offset = 0;
+        for (int i = 0; i < termCount; i++) {
+            terms[i] = directory.readUTF();
+            postingCounts[i] = VarInts.readUnsignedInt(directory);
+            offset += VarInts.readUnsigned(directory);
+            offsets[i] = offset;
+        }
+    }
+
+    public static FullTextIndex open(Path path) throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new FullTextIndex(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw new IOException("Reading full-text index failed: " + path, e);
+        }
+    }
+
+    /**
+     * @return the term a word is indexed as
+     */
+    public static String normalize(String word) {
+        return word.toLowerCase(Locale.ROOT);
+    }
+
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    public int getTermCount() {
+        return terms.length;
+    }
+
+    /**
+     * @return all postings of the word in message order, empty if it does not occur
+     */
+    public List<Posting> postings(String word) throws IOException {
+        final int term = Arrays.binarySearch(terms, normalize(word));
+        if (term < 0) {
+            return List.of();
+        }
+
+        final long end = term + 1 < terms.length ? offsets[term + 1] : directoryOffset;
+        final ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(end - offsets[term]));
+        readFully(buffer, offsets[term]);
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+
+        final List<Posting> postings = new ArrayList<>(postingCounts[term]);
+        long ordinal = 0;
+        long epochMillis = 0;
+        for (int i = 0; i < postingCounts[term]; i++) {
+            ordinal += VarInts.readUnsigned(in);
+            final int author = VarInts.readUnsignedInt(in);
+            epochMillis += VarInts.readSigned(in);
+            postings.add(new Posting(ordinal, authorIds[author], authorNames[author], epochMillis, VarInts.readUnsignedInt(in)));
+        }
+        return postings;
+    }
+
+    /**
+     * Finds the messages containing every word of the query, split into words like the message content
+     *
+     * @return one posting per matching message, its frequency is the sum over all query terms
+     */
+    public List<Posting> search(String query) throws IOException {
+        final List<String> words = new ArrayList<>();
+        WordCounter.forEachWord(query, words::add);
+        if (words.isEmpty()) {
+            return List.of();
+        }
+
+        List<Posting> matches = postings(words.getFirst());
+        for (int w = 1; w < words.size() && !matches.isEmpty(); w++) {
+            final List<Posting> other = postings(words.get(w));
+            final List<Posting> intersection = new ArrayList<>();
+            int i = 0;
+            int j = 0;
+            while (i < matches.size() && j < other.size()) {
+                final int compare = Long.compare(matches.get(i).ordinal(), other.get(j).ordinal());
+                if (compare == 0) {
+                    final Posting match = matches.get(i);
+                    intersection.add(new Posting(match.ordinal(), match.authorId(), match.authorName(),
+                        match.epochMillis(), match.frequency() + other.get(j).frequency()));
+                    i++;
+                    j++;
+                } else if (compare < 0) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            matches = intersection;
+        }
+        return matches;
+    }
+
+    /**
+     * Per-author term statistics: how often each author used the word, most frequent users first
+     */
+    public Map<String, Long> countsByAuthor(String word) throws IOException {
+        final Map<String, Long> counts = new HashMap<>();
+        for (Posting posting : postings(word)) {
+            counts.merge(posting.authorId(), (long) posting.frequency(), Long::sum);
+        }
+
+        final Map<String, Long> sorted = new LinkedHashMap<>();
+        counts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Full-text index is truncated");
+            }
+        }
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * A message using a term: its ordinal, author, timestamp in epoch millis and how often it uses the term
+     */
+    public record Posting(long ordinal, String authorId, String authorName, long epochMillis, int frequency) {
+    }
+}
@@ -0,0 +1,294 @@
+package analyzer.service.index;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.message.Message;
+import analyzer.service.FileService;
+import analyzer.utils.ExceptionHandler;
+import analyzer.utils.GrowableIntArray;
+import analyzer.utils.GrowableLongArray;
+import analyzer.utils.Scheduler;
+import analyzer.utils.TaskScope;
+import analyzer.utils.Timestamps;
+import analyzer.utils.VarInts;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Builds the {@link FullTextIndex} of a folder. The export files are indexed concurrently on the CPU pool, each into
+ * segments of bounded size spilled to the cache folder. The segments are then merged term by term into the index,
+ * translating the per-file ordinals and author dictionaries to the global ones.
+ * <p>
+ * Message ordinals count the messages of the sorted export files, so they are stable as long as the exports are.
+ */
+public class FullTextIndexBuilder {
+
+    private final FileService fileService;
+    private final Scheduler scheduler;
+
+    public FullTextIndexBuilder(FileService fileService, Scheduler scheduler) {
+        this.fileService = fileService;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Indexes all export files of the folder and writes the index to its output folder
+     *
+     * @return the path of the written index
+     */
+    public Path build(String folderPath) throws IOException, InterruptedException, ExecutionException {
+        final List<String> logPaths = fileService.listLogFiles(folderPath).stream().sorted().toList();
+        final Path outputDir = Paths.get(fileService.createOutputDirectory(folderPath));
+        final Path segmentDir = outputDir.resolve(AnalyzerConfig.CACHE_SUBFOLDER).resolve(AnalyzerConfig.SEARCH_SEGMENT_SUBFOLDER);
+        deleteDirectory(segmentDir);
+        Files.createDirectories(segmentDir);
+
+        try {
+            final List<FileSegments> files = new ArrayList<>(logPaths.size());
+            try (TaskScope scope = new TaskScope()) {
+                final List<TaskScope.Subtask<FileSegments>> indexed = new ArrayList<>(logPaths.size());
+                for (int file = 0; file < logPaths.size(); file++) {
+                    final int fileIndex = file;
+                    indexed.add(scope.fork(scheduler.cpu(), () -> indexFile(logPaths.get(fileIndex), fileIndex, segmentDir)));
+                }
+                scope.join();
+                indexed.forEach(subtask -> files.add(subtask.get()));
+            }
+
+            final Path indexPath = outputDir.resolve(AnalyzerConfig.SEARCH_INDEX);
+            // write to a temporary file first so an interrupted run never leaves a truncated index behind
+            final Path temporary = Files.createTempFile(outputDir, AnalyzerConfig.SEARCH_INDEX, ".tmp");
+            try {
+                merge(files, temporary);
+                Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            return indexPath;
+        } finally {
+            deleteDirectory(segmentDir);
+        }
+    }
+
+    /**
+     * Indexes one export file, a file that cannot be read is logged and indexed without messages
+     */
+    private FileSegments indexFile(String logFilePath, int fileIndex, Path segmentDir) throws IOException {
+        final List<Path> segmentPaths = new ArrayList<>();
+        final IndexSegment[] segment = {new IndexSegment()};
+        final int[] ordinal = {0};
+
+        try {
+            fileService.parseLogFile(logFilePath, (channel, message) -> {
+                addMessage(segment[0], ordinal[0]++, message);
+                if (segment[0].getPostingCount() >= AnalyzerConfig.SEARCH_INDEX_SEGMENT_POSTINGS) {
+                    segmentPaths.add(writeSegment(segment[0], segmentDir, fileIndex, segmentPaths.size()));
+                    segment[0] = new IndexSegment();
+                }
+            });
+            if (segment[0].getPostingCount() > 0) {
+                segmentPaths.add(writeSegment(segment[0], segmentDir, fileIndex, segmentPaths.size()));
+            }
+        } catch (UncheckedIOException e) {
+            // the segment could not be written, the index would be incomplete
+            throw e.getCause();
+        } catch (IOException | RuntimeException e) {
+            ExceptionHandler.handleFileProcessingException(e, logFilePath);
+            for (Path segmentPath : segmentPaths) {
+                Files.deleteIfExists(segmentPath);
+            }
+            return new FileSegments(0, List.of());
+        }
+        return new FileSegments(ordinal[0], segmentPaths);
+    }
+
+    private static void addMessage(IndexSegment segment, int ordinal, Message message) {
+        if (message.getAuthor() == null || message.getContent() == null || message.getContent().isEmpty()) {
+            return;
+        }
+        final long epochMillis = message.getTimestamp() != null ? Timestamps.epochMillis(message.getTimestamp()) : 0;
+        segment.add(ordinal, message.getAuthor(), epochMillis, message.getContent());
+    }
+
+    private static Path writeSegment(IndexSegment segment, Path segmentDir, int fileIndex, int segmentIndex) {
+        final Path path = segmentDir.resolve(fileIndex + "-" + segmentIndex + ".seg");
+        try {
+            segment.write(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return path;
+    }
+
+    /**
+     * K-way merge of all segments by term. Segments of the same term are taken in file and segment order,
+     * which keeps the postings of every term sorted by ordinal.
+     */
+    private static void merge(List<FileSegments> files, Path indexPath) throws IOException {
+        final List<IndexSegment.Reader> readers = new ArrayList<>();
+        final List<int[]> authorMappings = new ArrayList<>();
+        final GrowableLongArray ordinalBases = new GrowableLongArray();
+        // Global author dictionary in order of first appearance, the latest name of an author wins
+        final Map<String, Integer> authorRefs = new LinkedHashMap<>();
+        final List<String> authorNames = new ArrayList<>();
+
+        try {
+            long messageCount = 0;
+            for (FileSegments file : files) {
+                for (Path segmentPath : file.segmentPaths()) {
+                    final IndexSegment.Reader reader = new IndexSegment.Reader(segmentPath, readers.size());
+                    readers.add(reader);
+                    ordinalBases.add(messageCount);
+
+                    final int[] mapping = new int[reader.authorIds().length];
+                    for (int author = 0; author < mapping.length; author++) {
+                        final String name = reader.authorNames()[author];
+                        mapping[author] = authorRefs.computeIfAbsent(reader.authorIds()[author], id -> {
+                            authorNames.add(name);
+                            return authorNames.size() - 1;
+                        });
+                        authorNames.set(mapping[author], name);
+                    }
+                    authorMappings.add(mapping);
+                }
+                messageCount += file.messageCount();
+            }
+
+            try (CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(indexPath), 1 << 16));
+                 DataOutputStream out = new DataOutputStream(counter)) {
+                out.writeInt(FullTextIndex.MAGIC);
+                out.writeInt(FullTextIndex.FORMAT_VERSION);
+                VarInts.writeUnsigned(out, messageCount);
+                VarInts.writeUnsigned(out, authorNames.size());
+                int author = 0;
+                for (String authorId : authorRefs.keySet()) {
+                    FullTextIndex.writeString(out, authorId);
+                    FullTextIndex.writeString(out, authorNames.get(author++));
+                }
+
+                final PriorityQueue<IndexSegment.Reader> queue = new PriorityQueue<>(Math.max(1, readers.size()),
+                    Comparator.comparing(IndexSegment.Reader::term).thenComparingInt(IndexSegment.Reader::order));
+                for (IndexSegment.Reader reader : readers) {
+                    if (reader.next()) {
+                        queue.add(reader);
+                    }
+                }
+
+                final List<String> terms = new ArrayList<>();
+                final GrowableIntArray postingCounts = new GrowableIntArray();
+                final GrowableLongArray offsets = new GrowableLongArray();
+                while (!queue.isEmpty()) {
+                    final String term = queue.peek().term();
+                    terms.add(term);
+                    offsets.add(counter.getCount());
+
+                    int postingCount = 0;
+                    long previousOrdinal = 0;
+                    long previousMillis = 0;
+                    while (!queue.isEmpty() && queue.peek().term().equals(term)) {
+                        final IndexSegment.Reader reader = queue.poll();
+                        final DataInputStream in = reader.postings();
+                        final int[] mapping = authorMappings.get(reader.order());
+                        long ordinal = ordinalBases.get(reader.order());
+                        long epochMillis = 0;
+                        for (int i = 0; i < reader.postingCount(); i++) {
+                            ordinal += VarInts.readUnsigned(in);
+                            final int segmentAuthor = VarInts.readUnsignedInt(in);
+                            epochMillis += VarInts.readSigned(in);
+                            final int frequency = VarInts.readUnsignedInt(in);
+
+                            VarInts.writeUnsigned(out, ordinal - previousOrdinal);
+                            VarInts.writeUnsigned(out, mapping[segmentAuthor]);
+                            VarInts.writeSigned(out, epochMillis - previousMillis);
+                            VarInts.writeUnsigned(out, frequency);
+                            previousOrdinal = ordinal;
+                            previousMillis = epochMillis;
+                        }
+                        postingCount += reader.postingCount();
+                        if (reader.next()) {
+                            queue.add(reader);
+                        }
+                    }
+                    postingCounts.add(postingCount);
+                }
+
+                final long directoryOffset = counter.getCount();
+                VarInts.writeUnsigned(out, terms.size());
+                long previousOffset = 0;
+                for (int term = 0; term < terms.size(); term++) {
+                    out.writeUTF(terms.get(term));
+                    VarInts.writeUnsigned(out, postingCounts.get(term));
+                    VarInts.writeUnsigned(out, offsets.get(term) - previousOffset);
+                    previousOffset = offsets.get(term);
+                }
+                out.writeLong(directoryOffset);
+            }
+        } finally {
+            for (IndexSegment.Reader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> walk = Files.walk(directory)) {
+            for (Path path : walk.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    /**
+     * Messages of an export file and its written segments in ordinal order
+     */
+    private record FileSegments(int messageCount, List<Path> segmentPaths) {
+    }
+
+    /**
+     * Tracks the number of bytes written, which locates the postings of every term in the index
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
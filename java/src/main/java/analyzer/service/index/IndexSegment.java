@@ -0,0 +1,205 @@
+package analyzer.service.index;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.Author;
+import analyzer.utils.GrowableIntArray;
+import analyzer.utils.GrowableLongArray;
+import analyzer.utils.VarInts;
+import analyzer.utils.WordCounter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory inverted index of a run of messages of one export, written to disk sorted by term once it holds
+ * {@link AnalyzerConfig#SEARCH_INDEX_SEGMENT_POSTINGS} postings. Ordinals count the messages of the export,
+ * authors refer to the segment's own dictionary; both are translated when the segments are merged.
+ */
+final class IndexSegment {
+
+    private static final int MAGIC = 0x44435353; // "DCSS"
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, Integer> authorRefs = new HashMap<>();
+    private final List<Author> authors = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private int postingCount;
+
+    void add(int ordinal, Author author, long epochMillis, String content) {
+        final int authorRef = authorRefs.computeIfAbsent(author.getId(), id -> {
+            authors.add(author);
+            return authors.size() - 1;
+        });
+        WordCounter.forEachWord(content, word -> {
+            if (word.length() <= AnalyzerConfig.SEARCH_INDEX_MAX_TERM_LENGTH
+                && postings.computeIfAbsent(FullTextIndex.normalize(word), term -> new Postings()).add(ordinal, authorRef, epochMillis)) {
+                postingCount++;
+            }
+        });
+    }
+
+    int getPostingCount() {
+        return postingCount;
+    }
+
+    void write(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+
+            VarInts.writeUnsigned(out, authors.size());
+            for (Author author : authors) {
+                FullTextIndex.writeString(out, author.getId());
+                FullTextIndex.writeString(out, author.getName());
+            }
+
+            final List<String> terms = new ArrayList<>(postings.keySet());
+            terms.sort(null);
+            VarInts.writeUnsigned(out, terms.size());
+            for (String term : terms) {
+                final Postings termPostings = postings.get(term);
+                out.writeUTF(term);
+                VarInts.writeUnsigned(out, termPostings.size());
+                int previousOrdinal = 0;
+                long previousMillis = 0;
+                for (int i = 0; i < termPostings.size(); i++) {
+                    VarInts.writeUnsigned(out, termPostings.ordinals.get(i) - previousOrdinal);
+                    VarInts.writeUnsigned(out, termPostings.authors.get(i));
+                    VarInts.writeSigned(out, termPostings.timestamps.get(i) - previousMillis);
+                    VarInts.writeUnsigned(out, termPostings.frequency(i));
+                    previousOrdinal = termPostings.ordinals.get(i);
+                    previousMillis = termPostings.timestamps.get(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * Postings of one term in ordinal order, a message using the term several times is one posting
+     */
+    private static final class Postings {
+
+        private final GrowableIntArray ordinals = new GrowableIntArray(2);
+        private final GrowableIntArray authors = new GrowableIntArray(2);
+        private final GrowableLongArray timestamps = new GrowableLongArray(2);
+        // frequencies of all but the last posting, which is still counting
+        private final GrowableIntArray frequencies = new GrowableIntArray(2);
+        private int lastFrequency;
+
+        /**
+         * @return whether a new posting was added
+         */
+        boolean add(int ordinal, int author, long epochMillis) {
+            if (ordinals.size() > 0 && ordinals.get(ordinals.size() - 1) == ordinal) {
+                lastFrequency++;
+                return false;
+            }
+            if (ordinals.size() > 0) {
+                frequencies.add(lastFrequency);
+            }
+            ordinals.add(ordinal);
+            authors.add(author);
+            timestamps.add(epochMillis);
+            lastFrequency = 1;
+            return true;
+        }
+
+        int size() {
+            return ordinals.size();
+        }
+
+        int frequency(int posting) {
+            return posting < frequencies.size() ? frequencies.get(posting) : lastFrequency;
+        }
+    }
+
+    /**
+     * Streams the terms of a written segment in sorted order, used by the merge
+     */
+    static final class Reader implements Closeable {
+
+        private final DataInputStream in;
+        private final int order;
+        private final String[] authorIds;
+        private final String[] authorNames;
+        private int remainingTerms;
+        private String term;
+        private int postingCount;
+
+        Reader(Path path, int order) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            this.order = order;
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                    throw new IOException("Not an index segment: " + path);
+                }
+                final int authorCount = VarInts.readUnsignedInt(in);
+                authorIds = new String[authorCount];
+                authorNames = new String[authorCount];
+                for (int i = 0; i < authorCount; i++) {
+                    authorIds[i] = FullTextIndex.readString(in);
+                    authorNames[i] = FullTextIndex.readString(in);
+                }
+                remainingTerms = VarInts.readUnsignedInt(in);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Moves to the next term, the postings of the current one must have been read
+         *
+         * @return false once all terms were read
+         */
+        boolean next() throws IOException {
+            if (remainingTerms == 0) {
+                term = null;
+                return false;
+            }
+            remainingTerms--;
+            term = in.readUTF();
+            postingCount = VarInts.readUnsignedInt(in);
+            return true;
+        }
+
+        int order() {
+            return order;
+        }
+
+        String term() {
+            return term;
+        }
+
+        int postingCount() {
+            return postingCount;
+        }
+
+        String[] authorIds() {
+            return authorIds;
+        }
+
+        String[] authorNames() {
+            return authorNames;
+        }
+
+        DataInputStream postings() {
+            return in;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
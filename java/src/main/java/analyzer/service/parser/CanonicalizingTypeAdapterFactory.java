@@ -0,0 +1,51 @@
+package analyzer.service.parser;
+
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Passes every {@link Message} and {@link ChannelInfo} read by Gson through a {@link MessageCanonicalizer},
+ * so authors, emojis and repeated strings of deserialized channels are shared. Writing is not affected.
+ */
+public class CanonicalizingTypeAdapterFactory implements TypeAdapterFactory {
+
+    private final MessageCanonicalizer canonicalizer;
+
+    public CanonicalizingTypeAdapterFactory(MessageCanonicalizer canonicalizer) {
+        this.canonicalizer = canonicalizer;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        final Class<? super T> rawType = type.getRawType();
+        if (rawType != Message.class && rawType != ChannelInfo.class) {
+            return null;
+        }
+
+        final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+        return new TypeAdapter<>() {
+            @Override
+            public void write(JsonWriter out, T value) throws IOException {
+                delegate.write(out, value);
+            }
+
+            @Override
+            public T read(JsonReader in) throws IOException {
+                final T value = delegate.read(in);
+                if (value instanceof Message message) {
+                    return (T) canonicalizer.canonicalize(message);
+                }
+                return (T) canonicalizer.canonicalize((ChannelInfo) value);
+            }
+        };
+    }
+}
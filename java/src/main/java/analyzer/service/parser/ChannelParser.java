@@ -0,0 +1,21 @@
+package analyzer.service.parser;
+
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+
+/**
+ * Decodes a single DiscordChatExporter channel export and pushes its messages to a consumer one at a time.
+ */
+public interface ChannelParser {
+
+    /**
+     * Parses the export at the given path
+     *
+     * @return the number of messages handed to the consumer
+     */
+    long parse(Path logFilePath, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException;
+}
@@ -0,0 +1,36 @@
+package analyzer.service.parser;
+
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+
+/**
+ * Routes plain JSON exports to the configured parser and streams compressed or archived exports
+ * through a {@link GsonChannelParser}. The memory-mapped backend needs the raw bytes on disk,
+ * so decoded streams always take the Gson path.
+ */
+public class CompressedChannelParser implements ChannelParser {
+
+    private final ChannelParser plainParser;
+    private final GsonChannelParser streamParser;
+
+    public CompressedChannelParser(ChannelParser plainParser, GsonChannelParser streamParser) {
+        this.plainParser = plainParser;
+        this.streamParser = streamParser;
+    }
+
+    @Override
+    public long parse(Path logFilePath, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        final ExportFormat format = ExportFormat.of(logFilePath);
+        if (format == null || !format.isCompressed()) {
+            return plainParser.parse(logFilePath, messageConsumer);
+        }
+
+        final long[] messageCount = new long[1];
+        format.forEachDocument(logFilePath, document -> messageCount[0] += streamParser.parse(document, messageConsumer));
+        return messageCount[0];
+    }
+}
@@ -0,0 +1,118 @@
+package analyzer.service.parser;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.utils.PipelinedInputStream;
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Container formats of DiscordChatExporter exports, recognized by file name.
+ * Compressed exports are decoded on a background thread via a {@link PipelinedInputStream},
+ * so decompression overlaps with parsing.
+ */
+public enum ExportFormat {
+
+    JSON(".json"),
+    GZIP(".json.gz"),
+    ZSTD(".json.zst"),
+    /**
+     * Archive of plain JSON exports, every {@code .json} member is one channel
+     */
+    ZIP(".zip");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the format of the given file or null if it is not an export
+     */
+    public static ExportFormat of(Path path) {
+        final String fileName = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (fileName.endsWith(format.extension)) {
+                return format;
+            }
+        }
+        return null;
+    }
+
+    public static boolean isExport(Path path) {
+        return of(path) != null;
+    }
+
+    public boolean isCompressed() {
+        return this != JSON;
+    }
+
+    /**
+     * Hands the decoded JSON of every channel export contained in the file to the consumer, one after the other.
+     * The streams are closed once the consumer returns.
+     */
+    public void forEachDocument(Path path, DocumentConsumer consumer) throws IOException {
+        switch (this) {
+            case JSON -> {
+                try (InputStream in = Files.newInputStream(path)) {
+                    consumer.accept(in);
+                }
+            }
+            case GZIP, ZSTD -> {
+                try (InputStream in = pipelined(decompress(Files.newInputStream(path)))) {
+                    consumer.accept(in);
+                }
+            }
+            case ZIP -> {
+                try (ZipFile zipFile = new ZipFile(path.toFile())) {
+                    for (ZipEntry entry : jsonEntries(zipFile)) {
+                        try (InputStream in = pipelined(zipFile.getInputStream(entry))) {
+                            consumer.accept(in);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private InputStream decompress(InputStream in) throws IOException {
+        final InputStream buffered = new BufferedInputStream(in, AnalyzerConfig.DECOMPRESSION_CHUNK_SIZE);
+        return switch (this) {
+            case GZIP -> new GZIPInputStream(buffered, AnalyzerConfig.DECOMPRESSION_CHUNK_SIZE);
+            case ZSTD -> new ZstdInputStream(buffered);
+            default -> buffered;
+        };
+    }
+
+    private static InputStream pipelined(InputStream in) {
+        return new PipelinedInputStream(in, AnalyzerConfig.DECOMPRESSION_CHUNK_SIZE, AnalyzerConfig.DECOMPRESSION_QUEUE_DEPTH);
+    }
+
+    /**
+     * Archive members holding an export, sorted by name so the channel order does not depend on how the archive was built
+     */
+    private static List<ZipEntry> jsonEntries(ZipFile zipFile) {
+        return zipFile.stream()
+            .filter(entry -> !entry.isDirectory())
+            .filter(entry -> entry.getName().toLowerCase(Locale.ROOT).endsWith(JSON.extension))
+            .sorted(Comparator.comparing(ZipEntry::getName))
+            .map(ZipEntry.class::cast)
+            .toList();
+    }
+
+    @FunctionalInterface
+    public interface DocumentConsumer {
+        void accept(InputStream document) throws IOException;
+    }
+}
@@ -0,0 +1,75 @@
+package analyzer.service.parser;
+
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BiConsumer;
+
+/**
+ * Streams a channel export through Gson's {@link JsonReader}, decoding one message at a time.
+ */
+public class GsonChannelParser implements ChannelParser {
+
+    private final TypeAdapter<ChannelInfo> channelInfoAdapter;
+    private final TypeAdapter<Message> messageAdapter;
+
+    public GsonChannelParser(Gson gson) {
+        this.channelInfoAdapter = gson.getAdapter(ChannelInfo.class);
+        this.messageAdapter = gson.getAdapter(Message.class);
+    }
+
+    /**
+     * Walks the top level of a channel export and decodes the messages array one message at a time.
+     * The channel header precedes the messages in DiscordChatExporter output, so it is passed along with every message.
+     */
+    @Override
+    public long parse(Path logFilePath, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        try (Reader reader = Files.newBufferedReader(logFilePath)) {
+            return parse(reader, messageConsumer);
+        }
+    }
+
+    /**
+     * Parses an export from a UTF-8 byte stream, e.g. a decompressed archive member
+     */
+    public long parse(InputStream document, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        return parse(new InputStreamReader(document, StandardCharsets.UTF_8), messageConsumer);
+    }
+
+    private long parse(Reader reader, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        long messageCount = 0;
+
+        try (JsonReader jsonReader = new JsonReader(reader)) {
+            ChannelInfo channelInfo = null;
+
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                switch (jsonReader.nextName()) {
+                    case "channel" -> channelInfo = channelInfoAdapter.read(jsonReader);
+                    case "messages" -> {
+                        jsonReader.beginArray();
+                        while (jsonReader.hasNext()) {
+                            messageConsumer.accept(channelInfo, messageAdapter.read(jsonReader));
+                            messageCount++;
+                        }
+                        jsonReader.endArray();
+                    }
+                    default -> jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+        }
+
+        return messageCount;
+    }
+}
@@ -0,0 +1,388 @@
+package analyzer.service.parser;
+
+import analyzer.models.Author;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Attachment;
+import analyzer.models.message.Mention;
+import analyzer.models.message.Message;
+import analyzer.models.message.embed.Embed;
+import analyzer.models.message.reaction.Emoji;
+import analyzer.models.message.reaction.Reaction;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Parses channel exports straight from a memory mapping of the file.
+ * Only the fields read by the analysis are decoded, everything else (avatar urls, embed bodies,
+ * attachment metadata, ...) is skipped on the byte level. Attachments and embeds are only counted,
+ * their arrays contain null elements. Authors, mentions and emojis are shared via a {@link MessageCanonicalizer}.
+ */
+public class MappedChannelParser implements ChannelParser {
+
+    private static final byte[] CHANNEL = name("channel");
+    private static final byte[] MESSAGES = name("messages");
+    private static final byte[] ID = name("id");
+    private static final byte[] TYPE = name("type");
+    private static final byte[] NAME = name("name");
+    private static final byte[] CATEGORY_ID = name("categoryId");
+    private static final byte[] CATEGORY = name("category");
+    private static final byte[] TOPIC = name("topic");
+    private static final byte[] TIMESTAMP = name("timestamp");
+    private static final byte[] CONTENT = name("content");
+    private static final byte[] AUTHOR = name("author");
+    private static final byte[] ATTACHMENTS = name("attachments");
+    private static final byte[] EMBEDS = name("embeds");
+    private static final byte[] REACTIONS = name("reactions");
+    private static final byte[] MENTIONS = name("mentions");
+    private static final byte[] NICKNAME = name("nickname");
+    private static final byte[] DISCRIMINATOR = name("discriminator");
+    private static final byte[] IS_BOT = name("isBot");
+    private static final byte[] EMOJI = name("emoji");
+    private static final byte[] COUNT = name("count");
+    private static final byte[] IS_ANIMATED = name("isAnimated");
+    private static final byte[] IMAGE_URL = name("imageUrl");
+
+    private static final Attachment[] NO_ATTACHMENTS = new Attachment[0];
+    private static final Embed[] NO_EMBEDS = new Embed[0];
+    private static final Reaction[] NO_REACTIONS = new Reaction[0];
+    private static final Mention[] NO_MENTIONS = new Mention[0];
+
+    private final MessageCanonicalizer canonicalizer;
+    private final int segmentShift;
+
+    public MappedChannelParser() {
+        this(new MessageCanonicalizer());
+    }
+
+    public MappedChannelParser(MessageCanonicalizer canonicalizer) {
+        this(canonicalizer, MappedJsonTokenizer.SEGMENT_SHIFT);
+    }
+
+    /**
+     * Maps files in segments of 2^segmentShift bytes instead of 1 GiB, lets tests cover values crossing segments
+     */
+    MappedChannelParser(MessageCanonicalizer canonicalizer, int segmentShift) {
+        this.canonicalizer = canonicalizer;
+        this.segmentShift = segmentShift;
+    }
+
+    private static byte[] name(String name) {
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public long parse(Path logFilePath, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        final MappedJsonTokenizer tokenizer = MappedJsonTokenizer.open(logFilePath, segmentShift);
+        ChannelInfo channelInfo = null;
+        long messageCount = 0;
+
+        tokenizer.beginObject();
+        while (tokenizer.hasNext()) {
+            tokenizer.nextName();
+            if (tokenizer.nameIs(CHANNEL)) {
+                channelInfo = readChannelInfo(tokenizer);
+            } else if (tokenizer.nameIs(MESSAGES)) {
+                messageCount += readMessages(tokenizer, channelInfo, messageConsumer);
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+        tokenizer.endObject();
+
+        return messageCount;
+    }
+
+    /**
+     * Splits the messages of a channel export into segments of about {@code segmentBytes}, cut at message boundaries.
+     * Finding the boundaries only scans the structure of the file, the segments can then be parsed concurrently
+     * via {@link #parse(Segment, BiConsumer)}. Segments are returned in file order.
+     */
+    public List<Segment> split(Path logFilePath, long segmentBytes) throws IOException {
+        final MappedJsonTokenizer tokenizer = MappedJsonTokenizer.open(logFilePath, segmentShift);
+        final List<Segment> segments = new ArrayList<>();
+        ChannelInfo channelInfo = null;
+
+        tokenizer.beginObject();
+        while (tokenizer.hasNext()) {
+            tokenizer.nextName();
+            if (tokenizer.nameIs(CHANNEL)) {
+                channelInfo = readChannelInfo(tokenizer);
+            } else if (tokenizer.nameIs(MESSAGES)) {
+                splitMessages(tokenizer, channelInfo, segmentBytes, segments);
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+        tokenizer.endObject();
+
+        return segments;
+    }
+
+    /**
+     * Parses the messages of a single segment created by {@link #split(Path, long)}
+     *
+     * @return the number of messages handed to the consumer
+     */
+    public long parse(Segment segment, BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        final MappedJsonTokenizer tokenizer = segment.source.slice(segment.start, segment.end);
+        for (int i = 0; i < segment.messageCount; i++) {
+            if (i > 0) {
+                tokenizer.hasNext();
+            }
+            messageConsumer.accept(segment.channelInfo, readMessage(tokenizer));
+        }
+        return segment.messageCount;
+    }
+
+    private void splitMessages(MappedJsonTokenizer tokenizer, ChannelInfo channelInfo, long segmentBytes,
+                               List<Segment> segments) throws IOException {
+        if (!tokenizer.beginArrayOrNull()) {
+            return;
+        }
+
+        long segmentStart = -1;
+        int messageCount = 0;
+        while (tokenizer.hasNext()) {
+            if (segmentStart < 0) {
+                segmentStart = tokenizer.valueStart();
+            }
+            tokenizer.skipValue();
+            messageCount++;
+
+            if (tokenizer.position() - segmentStart >= segmentBytes) {
+                segments.add(new Segment(tokenizer, channelInfo, segmentStart, tokenizer.position(), messageCount));
+                segmentStart = -1;
+                messageCount = 0;
+            }
+        }
+        if (messageCount > 0) {
+            segments.add(new Segment(tokenizer, channelInfo, segmentStart, tokenizer.position(), messageCount));
+        }
+        tokenizer.endArray();
+    }
+
+    private long readMessages(MappedJsonTokenizer tokenizer, ChannelInfo channelInfo,
+                              BiConsumer<ChannelInfo, Message> messageConsumer) throws IOException {
+        if (!tokenizer.beginArrayOrNull()) {
+            return 0;
+        }
+
+        long messageCount = 0;
+        while (tokenizer.hasNext()) {
+            messageConsumer.accept(channelInfo, readMessage(tokenizer));
+            messageCount++;
+        }
+        tokenizer.endArray();
+
+        return messageCount;
+    }
+
+    private ChannelInfo readChannelInfo(MappedJsonTokenizer tokenizer) throws IOException {
+        if (!tokenizer.beginObjectOrNull()) {
+            return null;
+        }
+
+        final ChannelInfo channelInfo = new ChannelInfo();
+        while (tokenizer.hasNext()) {
+            tokenizer.nextName();
+            if (tokenizer.nameIs(ID)) {
+                channelInfo.setId(tokenizer.nextString());
+            } else if (tokenizer.nameIs(TYPE)) {
+                channelInfo.setType(tokenizer.nextString());
+            } else if (tokenizer.nameIs(CATEGORY_ID)) {
+                channelInfo.setCategoryId(tokenizer.nextString());
+            } else if (tokenizer.nameIs(CATEGORY)) {
+                channelInfo.setCategory(tokenizer.nextString());
+            } else if (tokenizer.nameIs(NAME)) {
+                channelInfo.setName(tokenizer.nextString());
+            } else if (tokenizer.nameIs(TOPIC)) {
+                channelInfo.setTopic(tokenizer.nextString());
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+        tokenizer.endObject();
+
+        return canonicalizer.canonicalize(channelInfo);
+    }
+
+    private Message readMessage(MappedJsonTokenizer tokenizer) throws IOException {
+        final Message message = new Message();
+        message.setAttachments(NO_ATTACHMENTS);
+        message.setEmbeds(NO_EMBEDS);
+        message.setReactions(NO_REACTIONS);
+        message.setMentions(NO_MENTIONS);
+
+        tokenizer.beginObject();
+        while (tokenizer.hasNext()) {
+            tokenizer.nextName();
+            if (tokenizer.nameIs(ID)) {
+                message.setId(tokenizer.nextString());
+            } else if (tokenizer.nameIs(TYPE)) {
+                message.setType(tokenizer.nextString());
+            } else if (tokenizer.nameIs(TIMESTAMP)) {
+                message.setTimestamp(tokenizer.nextString());
+            } else if (tokenizer.nameIs(CONTENT)) {
+                message.setContent(tokenizer.nextString());
+            } else if (tokenizer.nameIs(AUTHOR)) {
+                message.setAuthor(readAuthor(tokenizer));
+            } else if (tokenizer.nameIs(ATTACHMENTS)) {
+                final int count = tokenizer.countElements();
+                message.setAttachments(count == 0 ? NO_ATTACHMENTS : new Attachment[count]);
+            } else if (tokenizer.nameIs(EMBEDS)) {
+                final int count = tokenizer.countElements();
+                message.setEmbeds(count == 0 ? NO_EMBEDS : new Embed[count]);
+            } else if (tokenizer.nameIs(REACTIONS)) {
+                message.setReactions(readReactions(tokenizer));
+            } else if (tokenizer.nameIs(MENTIONS)) {
+                message.setMentions(readMentions(tokenizer));
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+        tokenizer.endObject();
+
+        return canonicalizer.canonicalize(message);
+    }
+
+    private Author readAuthor(MappedJsonTokenizer tokenizer) throws IOException {
+        if (!tokenizer.beginObjectOrNull()) {
+            return null;
+        }
+
+        final Author author = new Author();
+        while (tokenizer.hasNext()) {
+            tokenizer.nextName();
+            if (tokenizer.nameIs(ID)) {
+                author.setId(tokenizer.nextString());
+            } else if (tokenizer.nameIs(NAME)) {
+                author.setName(tokenizer.nextString());
+            } else if (tokenizer.nameIs(NICKNAME)) {
+                author.setExportedNickname(tokenizer.nextString());
+            } else if (tokenizer.nameIs(DISCRIMINATOR)) {
+                author.setDiscriminator(tokenizer.nextString());
+            } else if (tokenizer.nameIs(IS_BOT)) {
+                author.setBot(tokenizer.nextBoolean());
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+        tokenizer.endObject();
+
+        return author;
+    }
+
+    private Mention[] readMentions(MappedJsonTokenizer tokenizer) throws IOException {
+        if (!tokenizer.beginArrayOrNull()) {
+            return NO_MENTIONS;
+        }
+
+        final List<Mention> mentions = new ArrayList<>();
+        while (tokenizer.hasNext()) {
+            tokenizer.beginObject();
+            final Mention mention = new Mention();
+            while (tokenizer.hasNext()) {
+                tokenizer.nextName();
+                if (tokenizer.nameIs(ID)) {
+                    mention.setId(tokenizer.nextString());
+                } else if (tokenizer.nameIs(NAME)) {
+                    mention.setName(tokenizer.nextString());
+                } else if (tokenizer.nameIs(NICKNAME)) {
+                    mention.setNickname(tokenizer.nextString());
+                } else {
+                    tokenizer.skipValue();
+                }
+            }
+            tokenizer.endObject();
+            mentions.add(mention);
+        }
+        tokenizer.endArray();
+
+        return mentions.isEmpty() ? NO_MENTIONS : mentions.toArray(NO_MENTIONS);
+    }
+
+    private Reaction[] readReactions(MappedJsonTokenizer tokenizer) throws IOException {
+        if (!tokenizer.beginArrayOrNull()) {
+            return NO_REACTIONS;
+        }
+
+        final List<Reaction> reactions = new ArrayList<>();
+        while (tokenizer.hasNext()) {
+            tokenizer.beginObject();
+            final Reaction reaction = new Reaction();
+            while (tokenizer.hasNext()) {
+                tokenizer.nextName();
+                if (tokenizer.nameIs(EMOJI)) {
+                    reaction.setEmoji(readEmoji(tokenizer));
+                } else if (tokenizer.nameIs(COUNT)) {
+                    reaction.setCount((short) tokenizer.nextLong());
+                } else {
+                    tokenizer.skipValue();
+                }
+            }
+            tokenizer.endObject();
+            reactions.add(reaction);
+        }
+        tokenizer.endArray();
+
+        return reactions.isEmpty() ? NO_REACTIONS : reactions.toArray(NO_REACTIONS);
+    }
+
+    private Emoji readEmoji(MappedJsonTokenizer tokenizer) throws IOException {
+        if (!tokenizer.beginObjectOrNull()) {
+            return null;
+        }
+
+        final Emoji emoji = new Emoji();
+        while (tokenizer.hasNext()) {
+            tokenizer.nextName();
+            if (tokenizer.nameIs(ID)) {
+                emoji.setId(tokenizer.nextString());
+            } else if (tokenizer.nameIs(NAME)) {
+                emoji.setName(tokenizer.nextString());
+            } else if (tokenizer.nameIs(IS_ANIMATED)) {
+                emoji.setAnimated(tokenizer.nextBoolean());
+            } else if (tokenizer.nameIs(IMAGE_URL)) {
+                emoji.setImageUrl(tokenizer.nextString());
+            } else {
+                tokenizer.skipValue();
+            }
+        }
+        tokenizer.endObject();
+
+        return emoji;
+    }
+
+    /**
+     * Byte range of consecutive messages within a mapped export
+     */
+    public static final class Segment {
+
+        private final MappedJsonTokenizer source;
+        private final ChannelInfo channelInfo;
+        private final long start;
+        private final long end;
+        private final int messageCount;
+
+        private Segment(MappedJsonTokenizer source, ChannelInfo channelInfo, long start, long end, int messageCount) {
+            this.source = source;
+            this.channelInfo = channelInfo;
+            this.start = start;
+            this.end = end;
+            this.messageCount = messageCount;
+        }
+
+        public long getByteLength() {
+            return end - start;
+        }
+
+        public int getMessageCount() {
+            return messageCount;
+        }
+    }
+}
@@ -0,0 +1,431 @@
+package analyzer.service.parser;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Minimal pull tokenizer working directly on the bytes of a memory-mapped UTF-8 JSON file.
+ * Files larger than a single mapping are split into segments, all positions are absolute.
+ * Object keys are never decoded, they are compared byte by byte via {@link #nameIs(byte[])}.
+ */
+final class MappedJsonTokenizer {
+
+    // Mappings of 1 GiB
+    static final int SEGMENT_SHIFT = 30;
+    private static final char REPLACEMENT_CHAR = '�';
+
+    private final MappedByteBuffer[] segments;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final long limit;
+    private long position;
+    private long nameStart;
+    private long nameEnd;
+    private char[] charBuffer = new char[512];
+
+    private MappedJsonTokenizer(MappedByteBuffer[] segments, int segmentShift, long position, long limit) {
+        this.segments = segments;
+        this.segmentShift = segmentShift;
+        this.segmentMask = (1 << segmentShift) - 1;
+        this.position = position;
+        this.limit = limit;
+    }
+
+    /**
+     * Maps the whole file read-only in segments of 2^segmentShift bytes, {@link #SEGMENT_SHIFT} unless testing.
+     * The mapping stays valid after the channel is closed.
+     */
+    static MappedJsonTokenizer open(Path path, int segmentShift) throws IOException {
+        if (segmentShift < 0 || segmentShift > SEGMENT_SHIFT) {
+            throw new IllegalArgumentException("Segment shift must be between 0 and " + SEGMENT_SHIFT + ": " + segmentShift);
+        }
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = fileChannel.size();
+            final long segmentSize = 1L << segmentShift;
+            final int segmentCount = (int) Math.max(1, (size + segmentSize - 1) >>> segmentShift);
+            final MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+
+            for (int i = 0; i < segmentCount; i++) {
+                final long offset = i * segmentSize;
+                segments[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(segmentSize, size - offset));
+            }
+
+            return new MappedJsonTokenizer(segments, segmentShift, 0, size);
+        }
+    }
+
+    /**
+     * Creates an independent tokenizer over the byte range [from, to) of the same mapping
+     */
+    MappedJsonTokenizer slice(long from, long to) {
+        return new MappedJsonTokenizer(segments, segmentShift, from, to);
+    }
+
+    long position() {
+        return position;
+    }
+
+    /**
+     * Skips whitespace up to the next value
+     *
+     * @return the offset of its first byte
+     */
+    long valueStart() throws IOException {
+        peek();
+        return position;
+    }
+
+    void beginObject() throws IOException {
+        consume('{');
+    }
+
+    void endObject() throws IOException {
+        consume('}');
+    }
+
+    void endArray() throws IOException {
+        consume(']');
+    }
+
+    /**
+     * Consumes the opening brace of an object
+     *
+     * @return false if the value was null instead of an object
+     */
+    boolean beginObjectOrNull() throws IOException {
+        if (skipNull()) {
+            return false;
+        }
+        consume('{');
+        return true;
+    }
+
+    /**
+     * Consumes the opening bracket of an array
+     *
+     * @return false if the value was null instead of an array
+     */
+    boolean beginArrayOrNull() throws IOException {
+        if (skipNull()) {
+            return false;
+        }
+        consume('[');
+        return true;
+    }
+
+    /**
+     * Returns true if the current object or array has another element, consuming the separating comma
+     */
+    boolean hasNext() throws IOException {
+        final byte b = peek();
+        if (b == ',') {
+            position++;
+            return true;
+        }
+        return b != '}' && b != ']';
+    }
+
+    /**
+     * Reads the next object key without decoding it, use {@link #nameIs(byte[])} to inspect it
+     */
+    void nextName() throws IOException {
+        consume('"');
+        nameStart = position;
+        nameEnd = scanStringEnd(position);
+        position = nameEnd + 1;
+        consume(':');
+    }
+
+    boolean nameIs(byte[] name) {
+        if (nameEnd - nameStart != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (byteAt(nameStart + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes the next string value, including escapes and multi byte UTF-8 sequences
+     *
+     * @return the decoded string or null for a JSON null
+     */
+    String nextString() throws IOException {
+        if (skipNull()) {
+            return null;
+        }
+        consume('"');
+
+        char[] chars = charBuffer;
+        int length = 0;
+
+        while (true) {
+            if (position >= limit) {
+                throw endOfInput();
+            }
+            final byte b = byteAt(position++);
+            if (b == '"') {
+                break;
+            }
+            if (length + 2 > chars.length) {
+                chars = charBuffer = Arrays.copyOf(chars, chars.length * 2);
+            }
+            if (b == '\\') {
+                chars[length++] = readEscape();
+            } else if (b >= 0) {
+                chars[length++] = (char) b;
+            } else {
+                length = decodeMultiByte(b, chars, length);
+            }
+        }
+
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Reads an integral number, fractions and exponents are skipped. JSON null is read as zero.
+     */
+    long nextLong() throws IOException {
+        if (skipNull()) {
+            return 0;
+        }
+
+        boolean negative = false;
+        if (peek() == '-') {
+            negative = true;
+            position++;
+        }
+
+        long value = 0;
+        while (position < limit) {
+            final byte b = byteAt(position);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            position++;
+        }
+        skipLiteral();
+
+        return negative ? -value : value;
+    }
+
+    boolean nextBoolean() throws IOException {
+        final byte b = peek();
+        skipLiteral();
+        return b == 't';
+    }
+
+    /**
+     * Counts the elements of an array without decoding them. JSON null counts as an empty array.
+     */
+    int countElements() throws IOException {
+        if (!beginArrayOrNull()) {
+            return 0;
+        }
+
+        int count = 0;
+        while (hasNext()) {
+            skipValue();
+            count++;
+        }
+        endArray();
+
+        return count;
+    }
+
+    /**
+     * Skips the next value of any type, including nested objects and arrays
+     */
+    void skipValue() throws IOException {
+        final byte b = peek();
+        if (b == '"') {
+            position = scanStringEnd(position + 1) + 1;
+        } else if (b == '{' || b == '[') {
+            skipContainer();
+        } else {
+            skipLiteral();
+        }
+    }
+
+    private void skipContainer() throws IOException {
+        int depth = 0;
+        long index = position;
+
+        while (index < limit) {
+            final byte b = byteAt(index);
+            if (b == '"') {
+                index = scanStringEnd(index + 1);
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                depth--;
+                if (depth == 0) {
+                    position = index + 1;
+                    return;
+                }
+            }
+            index++;
+        }
+
+        throw endOfInput();
+    }
+
+    private void skipLiteral() {
+        while (position < limit) {
+            final byte b = byteAt(position);
+            if (b == ',' || b == '}' || b == ']' || isWhitespace(b)) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private boolean skipNull() throws IOException {
+        if (peek() == 'n') {
+            skipLiteral();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the index of the closing quote of a string whose content starts at the given index
+     */
+    private long scanStringEnd(long from) throws IOException {
+        long index = from;
+        while (index < limit) {
+            final byte b = byteAt(index);
+            if (b == '"') {
+                return index;
+            }
+            index += b == '\\' ? 2 : 1;
+        }
+        throw endOfInput();
+    }
+
+    private char readEscape() throws IOException {
+        if (position >= limit) {
+            throw endOfInput();
+        }
+        final byte b = byteAt(position++);
+        return switch (b) {
+            case '"', '\\', '/' -> (char) b;
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'u' -> readUnicodeEscape();
+            default -> throw new MalformedJsonException("Invalid escape sequence at offset " + (position - 1));
+        };
+    }
+
+    private char readUnicodeEscape() throws IOException {
+        if (position + 4 > limit) {
+            throw endOfInput();
+        }
+
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            final int digit = Character.digit(byteAt(position++), 16);
+            if (digit < 0) {
+                throw new MalformedJsonException("Invalid unicode escape at offset " + (position - 1));
+            }
+            value = (value << 4) | digit;
+        }
+
+        return (char) value;
+    }
+
+    /**
+     * Decodes a UTF-8 sequence starting with the given lead byte into one or two chars. Malformed sequences are
+     * replaced with U+FFFD, as the JDK decoder used by the Reader path does: the valid start of a broken sequence is
+     * one replacement and the byte breaking it is decoded on its own, an encoded surrogate is one replacement.
+     */
+    private int decodeMultiByte(byte lead, char[] chars, int length) {
+        final int leadByte = lead & 0xFF;
+        int codePoint;
+        int continuationBytes;
+        // Range of the second byte, narrower after leads of overlong sequences and of code points above U+10FFFF
+        int min = 0x80;
+        int max = 0xBF;
+
+        if (leadByte >= 0xC2 && leadByte <= 0xDF) {
+            codePoint = leadByte & 0x1F;
+            continuationBytes = 1;
+        } else if (leadByte >= 0xE0 && leadByte <= 0xEF) {
+            codePoint = leadByte & 0x0F;
+            continuationBytes = 2;
+            min = leadByte == 0xE0 ? 0xA0 : 0x80;
+        } else if (leadByte >= 0xF0 && leadByte <= 0xF4) {
+            codePoint = leadByte & 0x07;
+            continuationBytes = 3;
+            min = leadByte == 0xF0 ? 0x90 : 0x80;
+            max = leadByte == 0xF4 ? 0x8F : 0xBF;
+        } else {
+            chars[length++] = REPLACEMENT_CHAR;
+            return length;
+        }
+
+        for (int i = 0; i < continuationBytes; i++) {
+            final int b = position < limit ? byteAt(position) & 0xFF : -1;
+            if (b < min || b > max) {
+                chars[length++] = REPLACEMENT_CHAR;
+                return length;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+            position++;
+            min = 0x80;
+            max = 0xBF;
+        }
+
+        if (Character.isBmpCodePoint(codePoint)) {
+            chars[length++] = Character.isSurrogate((char) codePoint) ? REPLACEMENT_CHAR : (char) codePoint;
+        } else {
+            chars[length++] = Character.highSurrogate(codePoint);
+            chars[length++] = Character.lowSurrogate(codePoint);
+        }
+        return length;
+    }
+
+    private byte peek() throws IOException {
+        while (position < limit) {
+            final byte b = byteAt(position);
+            if (!isWhitespace(b)) {
+                return b;
+            }
+            position++;
+        }
+        throw endOfInput();
+    }
+
+    private void consume(char expected) throws IOException {
+        final byte b = peek();
+        if (b != expected) {
+            throw new MalformedJsonException("Expected '" + expected + "' but found '" + (char) b + "' at offset " + position);
+        }
+        position++;
+    }
+
+    private byte byteAt(long index) {
+        return segments[(int) (index >>> segmentShift)].get((int) index & segmentMask);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+
+    private MalformedJsonException endOfInput() {
+        return new MalformedJsonException("Unexpected end of input at offset " + position);
+    }
+}
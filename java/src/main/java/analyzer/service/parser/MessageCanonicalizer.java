@@ -0,0 +1,172 @@
+package analyzer.service.parser;
+
+import analyzer.models.Author;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Mention;
+import analyzer.models.message.Message;
+import analyzer.models.message.reaction.Emoji;
+import analyzer.models.message.reaction.Reaction;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Replaces the per-message copies of authors, mentioned users, emojis and repeated strings
+ * (names, ids of users, message types, channel metadata) with one shared instance each.
+ * Message content, message ids and timestamps are left untouched, they are mostly unique.
+ * <p>
+ * Thread-safe. A user whose name or nickname changes between exports gets a new canonical instance,
+ * so every message still refers to the author data it was exported with.
+ */
+public final class MessageCanonicalizer {
+
+    private final boolean enabled;
+    private final ConcurrentMap<String, String> strings = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Author> authors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Mention> mentions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<EmojiKey, Emoji> emojis = new ConcurrentHashMap<>();
+
+    public MessageCanonicalizer() {
+        this(true);
+    }
+
+    private MessageCanonicalizer(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns a canonicalizer that hands back every object unchanged, e.g. to compare memory usage
+     */
+    public static MessageCanonicalizer disabled() {
+        return new MessageCanonicalizer(false);
+    }
+
+    /**
+     * Canonicalizes the author, mentions and reaction emojis of the message in place
+     */
+    public Message canonicalize(Message message) {
+        if (!enabled || message == null) {
+            return message;
+        }
+
+        message.setType(string(message.getType()));
+        message.setAuthor(author(message.getAuthor()));
+
+        final Mention[] messageMentions = message.getMentions();
+        if (messageMentions != null) {
+            for (int i = 0; i < messageMentions.length; i++) {
+                messageMentions[i] = mention(messageMentions[i]);
+            }
+        }
+
+        final Reaction[] reactions = message.getReactions();
+        if (reactions != null) {
+            for (Reaction reaction : reactions) {
+                if (reaction != null) {
+                    reaction.setEmoji(emoji(reaction.getEmoji()));
+                }
+            }
+        }
+        return message;
+    }
+
+    public ChannelInfo canonicalize(ChannelInfo channelInfo) {
+        if (!enabled || channelInfo == null) {
+            return channelInfo;
+        }
+
+        channelInfo.setId(string(channelInfo.getId()));
+        channelInfo.setType(string(channelInfo.getType()));
+        channelInfo.setCategoryId(string(channelInfo.getCategoryId()));
+        channelInfo.setCategory(string(channelInfo.getCategory()));
+        channelInfo.setName(string(channelInfo.getName()));
+        channelInfo.setTopic(string(channelInfo.getTopic()));
+        return channelInfo;
+    }
+
+    public Author author(Author author) {
+        if (!enabled || author == null || author.getId() == null) {
+            return author;
+        }
+
+        final Author canonical = authors.get(author.getId());
+        if (canonical != null && sameUser(canonical, author)) {
+            return canonical;
+        }
+
+        author.setId(string(author.getId()));
+        author.setName(string(author.getName()));
+        author.setDiscriminator(string(author.getDiscriminator()));
+        author.setExportedNickname(string(author.getNickname()));
+        author.setColor(string(author.getColor()));
+        author.setAvatarUrl(string(author.getAvatarUrl()));
+        authors.put(author.getId(), author);
+        return author;
+    }
+
+    public Mention mention(Mention mention) {
+        if (!enabled || mention == null || mention.getId() == null) {
+            return mention;
+        }
+
+        final Mention canonical = mentions.get(mention.getId());
+        if (canonical != null && sameUser(canonical, mention)) {
+            return canonical;
+        }
+
+        mention.setId(string(mention.getId()));
+        mention.setName(string(mention.getName()));
+        mention.setDiscriminator(string(mention.getDiscriminator()));
+        mention.setNickname(string(mention.getNickname()));
+        mentions.put(mention.getId(), mention);
+        return mention;
+    }
+
+    public Emoji emoji(Emoji emoji) {
+        if (!enabled || emoji == null) {
+            return emoji;
+        }
+
+        return emojis.computeIfAbsent(new EmojiKey(emoji), key -> {
+            emoji.setId(string(emoji.getId()));
+            emoji.setName(string(emoji.getName()));
+            emoji.setImageUrl(string(emoji.getImageUrl()));
+            return emoji;
+        });
+    }
+
+    /**
+     * Returns the shared instance of an equal string
+     */
+    public String string(String value) {
+        if (!enabled || value == null) {
+            return value;
+        }
+
+        final String canonical = strings.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+
+    private static boolean sameUser(Author canonical, Author author) {
+        return canonical.isBot() == author.isBot()
+            && Objects.equals(canonical.getName(), author.getName())
+            && Objects.equals(canonical.getNickname(), author.getNickname())
+            && Objects.equals(canonical.getDiscriminator(), author.getDiscriminator())
+            && Objects.equals(canonical.getColor(), author.getColor())
+            && Objects.equals(canonical.getAvatarUrl(), author.getAvatarUrl());
+    }
+
+    private static boolean sameUser(Mention canonical, Mention mention) {
+        return canonical.isBot() == mention.isBot()
+            && Objects.equals(canonical.getName(), mention.getName())
+            && Objects.equals(canonical.getNickname(), mention.getNickname())
+            && Objects.equals(canonical.getDiscriminator(), mention.getDiscriminator());
+    }
+
+    private record EmojiKey(String id, String name, boolean animated, String imageUrl) {
+        EmojiKey(Emoji emoji) {
+            this(emoji.getId(), emoji.getName(), emoji.isAnimated(), emoji.getImageUrl());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package analyzer.service.parser;
+
+import com.google.gson.Gson;
+
+/**
+ * Available implementations of {@link ChannelParser}
+ */
+public enum ParserBackend {
+
+    /**
+     * Gson JsonReader over a buffered UTF-8 Reader, populates every field of a message
+     */
+    GSON,
+
+    /**
+     * Memory-mapped byte level tokenizer, only extracts the fields needed by the analysis
+     */
+    MAPPED;
+
+    /**
+     * @param gson used by the GSON backend, should have a {@link CanonicalizingTypeAdapterFactory} registered
+     */
+    public ChannelParser createParser(Gson gson) {
+        return switch (this) {
+            case GSON -> new GsonChannelParser(gson);
+            case MAPPED -> new MappedChannelParser();
+        };
+    }
+}
@@ -2,93 +2,155 @@ package analyzer.stats;
 
 import analyzer.models.Author;
 import analyzer.models.message.reaction.Emoji;
-import lombok.Getter;
-import lombok.Setter;
+import analyzer.utils.HyperLogLog;
+import analyzer.utils.LogHistogram;
 
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.Map;
-import java.util.TreeMap;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Holds the analyzed data for a single Author.
+ * Holds the analyzed data for a single Author. A lightweight view onto the author's slot in an {@link AuthorStatsStore},
+ * written to the output by {@link AuthorDataSerializer}.
  */
-@Getter
-@Setter
 public class AuthorData {
 
-    private transient Author author;
-    private transient LocalDate earliestLocalDate;
-    private transient long totalWordCount = 0; // More memory efficient than storing all counts
+    private final AuthorStatsStore store;
+    private final int slot;
 
-    private String authorId;
-    private String firstMessageSent;
-    private double averageWordsPerMessage;
-    private long messagesSent = 0;
-    private long embedsSent = 0;
-    private long attachmentsSent = 0;
-    private long sumEmojisReceived = 0;
-    private long timesMentioned = 0;
-    private Map<Emoji, Integer> emojisReceived = new TreeMap<>(new Emoji.EmojiComparator());
+    AuthorData(AuthorStatsStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
+    }
+
+    public Author getAuthor() {
+        return store.getAuthor(slot);
+    }
+
+    public String getAuthorId() {
+        return store.getAuthorId(slot);
+    }
+
+    public LocalDate getEarliestLocalDate() {
+        return store.getEarliestDate(slot);
+    }
+
+    /**
+     * @return the earliest day in days since the epoch, {@link AuthorStatsStore#NO_DATE} if none is known
+     */
+    public int getEarliestEpochDay() {
+        return store.getEarliestEpochDay(slot);
+    }
+
+    /**
+     * @return the messages, words, mentions and reactions per day, null if none were recorded
+     */
+    public DailyActivity getDailyActivity() {
+        return store.getDailyActivity(slot);
+    }
+
+    public String getFirstMessageSent() {
+        final LocalDate earliestLocalDate = getEarliestLocalDate();
+        return earliestLocalDate != null ? getLocalDateAsString(earliestLocalDate) : null;
+    }
+
+    public long getMessagesSent() {
+        return store.getMessagesSent(slot);
+    }
 
-    // Social graph data - who this user mentions and who mentions them
-    private Map<String, Integer> mentionsSent = new ConcurrentHashMap<>();
-    private Map<String, Integer> mentionsReceived = new ConcurrentHashMap<>();
+    public long getEmbedsSent() {
+        return store.getEmbedsSent(slot);
+    }
+
+    public long getAttachmentsSent() {
+        return store.getAttachmentsSent(slot);
+    }
 
-    public void addWordCount(int wordCount) {
-        totalWordCount += wordCount;
+    public long getTimesMentioned() {
+        return store.getTimesMentioned(slot);
     }
 
     public long getWordCountSum() {
-        return totalWordCount;
+        return store.getWordCount(slot);
+    }
+
+    public long getSumEmojisReceived() {
+        return store.getTotalEmojisReceived(slot);
+    }
+
+    public double getAverageWordsPerMessage() {
+        return store.getAverageWordsPerMessage(slot);
     }
 
-    public void incrementMessages() {
-        messagesSent++;
+    public void setAverageWordsPerMessage(double averageWordsPerMessage) {
+        store.setAverageWordsPerMessage(slot, averageWordsPerMessage);
     }
 
-    public void incrementTimesMentioned() {
-        timesMentioned++;
+    /**
+     * @return the counters per channel id in {@link DimensionCube} measure order, empty if they were not collected
+     */
+    public Map<String, long[]> getChannelCounts() {
+        return store.channelCountsByChannelId(slot);
     }
 
-    public void incrementAttachments() {
-        attachmentsSent++;
+    /**
+     * @return the histogram of the words per message, null if words were not collected
+     */
+    public LogHistogram getWordsPerMessage() {
+        return store.getWordsPerMessage(slot);
     }
 
-    public void incrementEmbeds() {
-        embedsSent++;
+    /**
+     * Reactions received per emoji, materialized on every call
+     */
+    public Map<Emoji, Integer> getEmojisReceived() {
+        return store.emojisReceivedByEmoji(slot);
     }
 
-    public void addMentionSent(String mentionedUserId) {
-        mentionsSent.merge(mentionedUserId, 1, Integer::sum);
+    /**
+     * Social graph data - who this user mentions, by user id. Materialized on every call.
+     */
+    public Map<String, Integer> getMentionsSent() {
+        return store.mentionsSentByUserId(slot);
     }
 
-    public void addMentionReceived(String mentionerUserId) {
-        mentionsReceived.merge(mentionerUserId, 1, Integer::sum);
+    /**
+     * Social graph data - who mentions this user, by user id. Materialized on every call.
+     */
+    public Map<String, Integer> getMentionsReceived() {
+        return store.mentionsReceivedByUserId(slot);
+    }
+
+    public int getMentionsSentTo(String userId) {
+        final int mentionedSlot = store.slotOf(userId);
+        return mentionedSlot == AuthorIndex.MISSING ? 0 : store.getMentionsSent(slot, mentionedSlot);
+    }
+
+    public int getDistinctUsersMentioned() {
+        return store.getDistinctUsersMentioned(slot);
+    }
+
+    public int getDistinctMentioners() {
+        return store.getDistinctMentioners(slot);
     }
 
     public long getTotalMentionsSent() {
-        return mentionsSent.values().stream().mapToLong(Integer::longValue).sum();
+        return store.getTotalMentionsSent(slot);
     }
 
     public long getTotalMentionsReceived() {
-        return mentionsReceived.values().stream().mapToLong(Integer::longValue).sum();
+        return store.getTotalMentionsReceived(slot);
     }
 
-    public void setEarliestLocalDate(String timestamp) {
-        //  "timestamp": "2018-10-18T08:52:29.781+00:00",
-        final String yearMonthDay = timestamp.substring(0, 10);
-        LocalDate localDate = LocalDate.parse(yearMonthDay);
-        if (earliestLocalDate == null || earliestLocalDate.isAfter(localDate)) {
-            earliestLocalDate = localDate;
-        }
-        setFirstMessageSent();
+    /**
+     * @return the sketch of the distinct users mentioned, null without distinct count sketches or mentions
+     */
+    public HyperLogLog getMentionPartners() {
+        return store.getMentionPartners(slot);
     }
 
     @Override
     public String toString() {
-        return author.getNickname();
+        return getAuthor().getNickname();
     }
 
     public String getLocalDateAsString(LocalDate localDate) {
@@ -98,95 +160,4 @@ public class AuthorData {
             "." +
             localDate.getYear();
     }
-
-    private void setFirstMessageSent() {
-        firstMessageSent = getLocalDateAsString(earliestLocalDate);
-    }
-
-    public static class AuthorDataMessagesCountComparator implements Comparator<AuthorData> {
-        @Override
-        public int compare(AuthorData o1, AuthorData o2) {
-            final Long messagesSent1 = o1.getMessagesSent();
-            final Long messagesSent2 = o2.getMessagesSent();
-            final int compare = messagesSent2.compareTo(messagesSent1);
-
-            if (compare == 0) {
-                return 1;
-            } else {
-                return compare;
-            }
-        }
-    }
-
-    public static class AuthorDataMentionsCountComparator implements Comparator<AuthorData> {
-        @Override
-        public int compare(AuthorData o1, AuthorData o2) {
-            final Long timesMentioned1 = o1.getTimesMentioned();
-            final Long timesMentioned2 = o2.getTimesMentioned();
-            final int compare = timesMentioned2.compareTo(timesMentioned1);
-
-            if (compare == 0) {
-                return 1;
-            } else {
-                return compare;
-            }
-        }
-    }
-
-    public static class AuthorDataEmbedsCountComparator implements Comparator<AuthorData> {
-        @Override
-        public int compare(AuthorData o1, AuthorData o2) {
-            final Long embedsSent1 = o1.getEmbedsSent();
-            final Long embedsSent2 = o2.getEmbedsSent();
-            final int compare = embedsSent2.compareTo(embedsSent1);
-
-            if (compare == 0) {
-                return 1;
-            } else {
-                return compare;
-            }
-        }
-    }
-
-    public static class AuthorDataAttachmentsCountComparator implements Comparator<AuthorData> {
-        @Override
-        public int compare(AuthorData o1, AuthorData o2) {
-            final Long attachmentsSent1 = o1.getAttachmentsSent();
-            final Long attachmentsSent2 = o2.getAttachmentsSent();
-            final int compare = attachmentsSent2.compareTo(attachmentsSent1);
-
-            if (compare == 0) {
-                return 1;
-            } else {
-                return compare;
-            }
-        }
-    }
-
-    public static class AuthorDataFirstMessageComparator implements Comparator<AuthorData> {
-        @Override
-        public int compare(AuthorData o1, AuthorData o2) {
-            final int compare = o1.getEarliestLocalDate().compareTo(o2.getEarliestLocalDate());
-            if (compare == 0) {
-                return 1;
-            } else {
-                return compare;
-            }
-        }
-    }
-
-    public static class AuthorDataMentionsSentComparator implements Comparator<AuthorData> {
-        @Override
-        public int compare(AuthorData o1, AuthorData o2) {
-            final Long mentionsSent1 = o1.getTotalMentionsSent();
-            final Long mentionsSent2 = o2.getTotalMentionsSent();
-            final int compare = mentionsSent2.compareTo(mentionsSent1);
-
-            if (compare == 0) {
-                return 1;
-            } else {
-                return compare;
-            }
-        }
-    }
 }
@@ -0,0 +1,41 @@
+package analyzer.stats;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+/**
+ * Writes an {@link AuthorData} view with the same properties the former field based serialization produced, plus the
+ * name and nickname of the author, which were the key of the entry before output-all.json was keyed by author id
+ */
+public class AuthorDataSerializer implements JsonSerializer<AuthorData> {
+
+    @Override
+    public JsonElement serialize(AuthorData authorData, Type typeOfSrc, JsonSerializationContext context) {
+        final JsonObject json = new JsonObject();
+        json.addProperty("authorId", authorData.getAuthorId());
+        json.addProperty("name", authorData.getAuthor().getName());
+        json.addProperty("nickname", authorData.getAuthor().getNickname());
+        json.addProperty("firstMessageSent", authorData.getFirstMessageSent());
+        json.addProperty("averageWordsPerMessage", authorData.getAverageWordsPerMessage());
+        json.addProperty("messagesSent", authorData.getMessagesSent());
+        json.addProperty("embedsSent", authorData.getEmbedsSent());
+        json.addProperty("attachmentsSent", authorData.getAttachmentsSent());
+        json.addProperty("sumEmojisReceived", authorData.getSumEmojisReceived());
+        json.addProperty("timesMentioned", authorData.getTimesMentioned());
+        json.add("emojisReceived", toJson(authorData.getEmojisReceived()));
+        json.add("mentionsSent", toJson(authorData.getMentionsSent()));
+        json.add("mentionsReceived", toJson(authorData.getMentionsReceived()));
+        return json;
+    }
+
+    private static JsonObject toJson(Map<?, Integer> counts) {
+        final JsonObject json = new JsonObject();
+        counts.forEach((key, count) -> json.addProperty(String.valueOf(key), count));
+        return json;
+    }
+}
@@ -0,0 +1,72 @@
+package analyzer.stats;
+
+import analyzer.utils.LongIntHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assigns dense slots 0..n-1 to author ids, in order of first appearance.
+ * Discord ids are numeric snowflakes and are kept in a primitive long to int index,
+ * ids that are not numeric (e.g. from hand edited exports) fall back to a regular map.
+ */
+public final class AuthorIndex {
+
+    public static final int MISSING = LongIntHashMap.MISSING;
+
+    private final LongIntHashMap snowflakeSlots = new LongIntHashMap(256);
+    private final Map<String, Integer> otherSlots = new HashMap<>();
+    private int size;
+
+    /**
+     * @return the slot of the author id or {@link #MISSING}
+     */
+    public int slotOf(String authorId) {
+        final long snowflake = parseSnowflake(authorId);
+        if (snowflake >= 0) {
+            return snowflakeSlots.get(snowflake);
+        }
+        return otherSlots.getOrDefault(authorId, MISSING);
+    }
+
+    /**
+     * Returns the slot of the author id, assigning the next free slot if the id is new
+     */
+    public int getOrAddSlot(String authorId) {
+        final long snowflake = parseSnowflake(authorId);
+        if (snowflake >= 0) {
+            int slot = snowflakeSlots.get(snowflake);
+            if (slot == MISSING) {
+                slot = size++;
+                snowflakeSlots.put(snowflake, slot);
+            }
+            return slot;
+        }
+        return otherSlots.computeIfAbsent(authorId, id -> size++);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parses a snowflake without allocating
+     *
+     * @return the id or -1 if it is not a canonical decimal number fitting into a positive long
+     */
+    private static long parseSnowflake(String id) {
+        if (id == null || id.isEmpty() || id.length() > 19 || (id.length() > 1 && id.charAt(0) == '0')) {
+            return -1;
+        }
+
+        long value = 0;
+        for (int i = 0; i < id.length(); i++) {
+            final int digit = id.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
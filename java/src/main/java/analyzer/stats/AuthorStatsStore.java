@@ -0,0 +1,544 @@
+package analyzer.stats;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.Author;
+import analyzer.models.message.reaction.Emoji;
+import analyzer.utils.HyperLogLog;
+import analyzer.utils.IntIntHashMap;
+import analyzer.utils.LogHistogram;
+import analyzer.utils.Timestamps;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column store of the per-author statistics. Every author id owns a dense slot, the counters live in
+ * primitive arrays indexed by slot. Per-pair counts are primitive int maps keyed by the slot of the other
+ * author (mentions) or the dictionary id of the emoji, their totals are kept up to date on every update.
+ * {@link AuthorData} objects are lightweight views onto a slot.
+ * <p>
+ * Not thread-safe, parallel work uses one store per worker and {@link #merge(AuthorStatsStore)}.
+ */
+public class AuthorStatsStore {
+
+    // Earliest epoch day of an author without a known earliest day
+    public static final int NO_DATE = Integer.MAX_VALUE;
+    private static final String PLACEHOLDER_NAME_PREFIX = "Unknown User ";
+
+    private final AuthorIndex index = new AuthorIndex();
+    private int size;
+
+    private String[] authorIds;
+    // HyperLogLog hash of the author id, see HyperLogLog#hash(String)
+    private long[] idHashes;
+    private Author[] authors;
+    private boolean[] placeholders;
+    // Earliest day per author in days since the epoch, NO_DATE if none is known
+    private int[] earliestEpochDays;
+    private long[] messagesSent;
+    private long[] embedsSent;
+    private long[] attachmentsSent;
+    private long[] wordCounts;
+    private long[] timesMentioned;
+    private long[] mentionsSentTotals;
+    private long[] mentionsReceivedTotals;
+    private long[] emojisReceivedTotals;
+    private double[] averageWordsPerMessage;
+    private IntIntHashMap[] mentionsSent;
+    private IntIntHashMap[] mentionsReceived;
+    private IntIntHashMap[] emojisReceived;
+    // Words per message of every message, for the quantiles next to the average
+    private LogHistogram[] wordsPerMessage;
+    // Sketches of the users mentioned per author, only in sketch mode
+    private HyperLogLog[] mentionPartners;
+    private DailyActivity[] dailyActivity;
+    private AuthorData[] views;
+    // Counters per author and channel id, for the per-channel and per-category rankings
+    private final DimensionCube channelCube = new DimensionCube();
+
+    // Emoji dictionary, emojis are told apart by name like Emoji#equals does, by id if they have no name
+    private final List<Emoji> emojis = new ArrayList<>();
+    private final Map<String, Integer> emojiIdsByName = new HashMap<>();
+    private final Map<String, Integer> emojiIdsById = new HashMap<>();
+
+    public AuthorStatsStore() {
+        allocate(64);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the slot of the author id or {@link AuthorIndex#MISSING}
+     */
+    public int slotOf(String authorId) {
+        return authorId == null ? AuthorIndex.MISSING : index.slotOf(authorId);
+    }
+
+    /**
+     * Returns the slot of the author id. New ids get a placeholder author until {@link #setAuthor(int, Author)}
+     * is called, which keeps users that were only mentioned apart from real authors.
+     */
+    public int getOrAddSlot(String authorId) {
+        final int slot = index.getOrAddSlot(authorId);
+        if (slot == size) {
+            if (size == authorIds.length) {
+                grow(size * 2);
+            }
+            authorIds[slot] = authorId;
+            idHashes[slot] = HyperLogLog.hash(authorId);
+            authors[slot] = createPlaceholder(authorId);
+            placeholders[slot] = true;
+            size++;
+        }
+        return slot;
+    }
+
+    public String getAuthorId(int slot) {
+        return authorIds[slot];
+    }
+
+    public long getIdHash(int slot) {
+        return idHashes[slot];
+    }
+
+    public Author getAuthor(int slot) {
+        return authors[slot];
+    }
+
+    public void setAuthor(int slot, Author author) {
+        authors[slot] = author;
+        placeholders[slot] = false;
+    }
+
+    public boolean isPlaceholder(int slot) {
+        return placeholders[slot];
+    }
+
+    /**
+     * Returns true for the authors created for mentioned users without messages, e.g. when restoring cached aggregates
+     */
+    public static boolean isPlaceholder(Author author) {
+        return author.getName() != null && author.getName().equals(PLACEHOLDER_NAME_PREFIX + author.getId());
+    }
+
+    /**
+     * Returns the view of the slot, the same instance on every call
+     */
+    public AuthorData view(int slot) {
+        if (views[slot] == null) {
+            views[slot] = new AuthorData(this, slot);
+        }
+        return views[slot];
+    }
+
+    /**
+     * Returns views of all slots in slot order
+     */
+    public List<AuthorData> views() {
+        return new AbstractList<>() {
+            @Override
+            public AuthorData get(int slot) {
+                return view(slot);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Counters
+
+    public void incrementMessages(int slot) {
+        messagesSent[slot]++;
+    }
+
+    public void incrementEmbeds(int slot) {
+        embedsSent[slot]++;
+    }
+
+    public void incrementAttachments(int slot) {
+        attachmentsSent[slot]++;
+    }
+
+    public void incrementTimesMentioned(int slot) {
+        timesMentioned[slot]++;
+    }
+
+    public void addWordCount(int slot, long wordCount) {
+        wordCounts[slot] += wordCount;
+    }
+
+    /**
+     * Adds the words of a single message to the histogram of the slot's author, the sum is kept by addWordCount
+     */
+    public void addMessageWords(int slot, int words) {
+        if (wordsPerMessage[slot] == null) {
+            wordsPerMessage[slot] = new LogHistogram();
+        }
+        wordsPerMessage[slot].add(words);
+    }
+
+    public void addWordsPerMessage(int slot, LogHistogram histogram) {
+        if (wordsPerMessage[slot] == null) {
+            wordsPerMessage[slot] = new LogHistogram();
+        }
+        wordsPerMessage[slot].merge(histogram);
+    }
+
+    /**
+     * @return the histogram of the words per message of the slot's author, null if words were not collected
+     */
+    public LogHistogram getWordsPerMessage(int slot) {
+        return wordsPerMessage[slot];
+    }
+
+    /**
+     * Adds already aggregated counters, e.g. restored from a cache
+     */
+    public void addCounts(int slot, long messages, long embeds, long attachments, long words, long mentioningMessages) {
+        messagesSent[slot] += messages;
+        embedsSent[slot] += embeds;
+        attachmentsSent[slot] += attachments;
+        wordCounts[slot] += words;
+        timesMentioned[slot] += mentioningMessages;
+    }
+
+    /**
+     * Records that the author of the first slot mentioned the one of the second slot
+     */
+    public void addMention(int mentionerSlot, int mentionedSlot, int count) {
+        addMentionsSent(mentionerSlot, mentionedSlot, count);
+        addMentionsReceived(mentionedSlot, mentionerSlot, count);
+    }
+
+    /**
+     * Adds a user mentioned by the slot's author to its sketch of distinct mention partners
+     */
+    public void addMentionPartner(int slot, long userIdHash) {
+        if (mentionPartners[slot] == null) {
+            mentionPartners[slot] = new HyperLogLog(AnalyzerConfig.AUTHOR_SKETCH_PRECISION);
+        }
+        mentionPartners[slot].add(userIdHash);
+    }
+
+    public DimensionCube getChannelCube() {
+        return channelCube;
+    }
+
+    /**
+     * @return the counters of the slot's author per channel id in {@link DimensionCube} measure order
+     */
+    public Map<String, long[]> channelCountsByChannelId(int slot) {
+        final Map<String, long[]> countsByChannelId = new LinkedHashMap<>();
+        for (int cell = channelCube.firstCell(slot); cell != DimensionCube.NO_CELL; cell = channelCube.nextCell(cell)) {
+            countsByChannelId.put(channelCube.getMemberId(channelCube.getMember(cell)), channelCube.getCounts(cell));
+        }
+        return countsByChannelId;
+    }
+
+    public void addMentionPartners(int slot, HyperLogLog sketch) {
+        if (mentionPartners[slot] == null) {
+            mentionPartners[slot] = new HyperLogLog(sketch.getPrecision());
+        }
+        mentionPartners[slot].merge(sketch);
+    }
+
+    /**
+     * @return the sketch of the users mentioned by the slot's author, null if none was recorded
+     */
+    public HyperLogLog getMentionPartners(int slot) {
+        return mentionPartners[slot];
+    }
+
+    public void addEmojisReceived(int slot, Emoji emoji, int count) {
+        if (emoji == null) {
+            return;
+        }
+        if (emojisReceived[slot] == null) {
+            emojisReceived[slot] = new IntIntHashMap();
+        }
+        emojisReceived[slot].addTo(emojiId(emoji), count);
+        emojisReceivedTotals[slot] += count;
+    }
+
+    /**
+     * Keeps the earliest day of the given ISO-8601 timestamp, e.g. "2018-10-18T08:52:29.781+00:00"
+     */
+    public void updateEarliestDate(int slot, String timestamp) {
+        updateEarliestEpochDay(slot, Timestamps.localEpochDay(timestamp));
+    }
+
+    public void updateEarliestDate(int slot, LocalDate date) {
+        updateEarliestEpochDay(slot, (int) date.toEpochDay());
+    }
+
+    public void updateEarliestEpochDay(int slot, int epochDay) {
+        if (epochDay < earliestEpochDays[slot]) {
+            earliestEpochDays[slot] = epochDay;
+        }
+    }
+
+    public void addActivity(int slot, int epochDay, int messages, int words, int mentions, int reactions) {
+        if (dailyActivity[slot] == null) {
+            dailyActivity[slot] = new DailyActivity();
+        }
+        dailyActivity[slot].add(epochDay, messages, words, mentions, reactions);
+    }
+
+    public void addActivity(int slot, DailyActivity activity) {
+        if (dailyActivity[slot] == null) {
+            dailyActivity[slot] = new DailyActivity();
+        }
+        dailyActivity[slot].merge(activity);
+    }
+
+    /**
+     * @return the daily activity of the slot's author, null if none was recorded
+     */
+    public DailyActivity getDailyActivity(int slot) {
+        return dailyActivity[slot];
+    }
+
+    public void setAverageWordsPerMessage(int slot, double average) {
+        averageWordsPerMessage[slot] = average;
+    }
+
+    /**
+     * @return the earliest day in days since the epoch, {@link #NO_DATE} if none is known
+     */
+    public int getEarliestEpochDay(int slot) {
+        return earliestEpochDays[slot];
+    }
+
+    public LocalDate getEarliestDate(int slot) {
+        return earliestEpochDays[slot] != NO_DATE ? LocalDate.ofEpochDay(earliestEpochDays[slot]) : null;
+    }
+
+    public long getMessagesSent(int slot) {
+        return messagesSent[slot];
+    }
+
+    public long getEmbedsSent(int slot) {
+        return embedsSent[slot];
+    }
+
+    public long getAttachmentsSent(int slot) {
+        return attachmentsSent[slot];
+    }
+
+    public long getWordCount(int slot) {
+        return wordCounts[slot];
+    }
+
+    public long getTimesMentioned(int slot) {
+        return timesMentioned[slot];
+    }
+
+    public long getTotalMentionsSent(int slot) {
+        return mentionsSentTotals[slot];
+    }
+
+    public long getTotalMentionsReceived(int slot) {
+        return mentionsReceivedTotals[slot];
+    }
+
+    public long getTotalEmojisReceived(int slot) {
+        return emojisReceivedTotals[slot];
+    }
+
+    public double getAverageWordsPerMessage(int slot) {
+        return averageWordsPerMessage[slot];
+    }
+
+    // Per-pair counts
+
+    public int getMentionsSent(int slot, int mentionedSlot) {
+        return mentionsSent[slot] == null ? 0 : mentionsSent[slot].get(mentionedSlot);
+    }
+
+    public int getDistinctUsersMentioned(int slot) {
+        return mentionsSent[slot] == null ? 0 : mentionsSent[slot].size();
+    }
+
+    public int getDistinctMentioners(int slot) {
+        return mentionsReceived[slot] == null ? 0 : mentionsReceived[slot].size();
+    }
+
+    /**
+     * Materializes the mentions sent by the slot's author as map of mentioned user id to count
+     */
+    public Map<String, Integer> mentionsSentByUserId(int slot) {
+        return countsByUserId(mentionsSent[slot]);
+    }
+
+    /**
+     * Materializes the mentions received by the slot's author as map of mentioning user id to count
+     */
+    public Map<String, Integer> mentionsReceivedByUserId(int slot) {
+        return countsByUserId(mentionsReceived[slot]);
+    }
+
+    /**
+     * Materializes the reactions received by the slot's author as map of emoji to count
+     */
+    public Map<Emoji, Integer> emojisReceivedByEmoji(int slot) {
+        if (emojisReceived[slot] == null) {
+            return Collections.emptyMap();
+        }
+        final Map<Emoji, Integer> counts = new LinkedHashMap<>();
+        emojisReceived[slot].forEach((emojiId, count) -> counts.put(emojis.get(emojiId), count));
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Adds all authors and counts of another store. Authors are matched by id, a placeholder never replaces a real author.
+     */
+    public void merge(AuthorStatsStore other) {
+        final int[] slotMap = new int[other.size];
+
+        for (int otherSlot = 0; otherSlot < other.size; otherSlot++) {
+            final int slot = getOrAddSlot(other.authorIds[otherSlot]);
+            slotMap[otherSlot] = slot;
+
+            if (!other.placeholders[otherSlot]) {
+                setAuthor(slot, other.authors[otherSlot]);
+            }
+            updateEarliestEpochDay(slot, other.earliestEpochDays[otherSlot]);
+            addCounts(slot, other.messagesSent[otherSlot], other.embedsSent[otherSlot], other.attachmentsSent[otherSlot],
+                other.wordCounts[otherSlot], other.timesMentioned[otherSlot]);
+            if (other.dailyActivity[otherSlot] != null) {
+                addActivity(slot, other.dailyActivity[otherSlot]);
+            }
+            if (other.wordsPerMessage[otherSlot] != null) {
+                addWordsPerMessage(slot, other.wordsPerMessage[otherSlot]);
+            }
+            if (other.mentionPartners[otherSlot] != null) {
+                addMentionPartners(slot, other.mentionPartners[otherSlot]);
+            }
+        }
+
+        // Pair counts reference other slots, translate them once every slot of the other store is known here
+        for (int otherSlot = 0; otherSlot < other.size; otherSlot++) {
+            final int slot = slotMap[otherSlot];
+            if (other.mentionsSent[otherSlot] != null) {
+                other.mentionsSent[otherSlot].forEach((mentioned, count) -> addMentionsSent(slot, slotMap[mentioned], count));
+            }
+            if (other.mentionsReceived[otherSlot] != null) {
+                other.mentionsReceived[otherSlot].forEach((mentioner, count) -> addMentionsReceived(slot, slotMap[mentioner], count));
+            }
+            if (other.emojisReceived[otherSlot] != null) {
+                other.emojisReceived[otherSlot].forEach((emojiId, count) -> addEmojisReceived(slot, other.emojis.get(emojiId), count));
+            }
+        }
+        channelCube.merge(other.channelCube, slotMap);
+    }
+
+    private void addMentionsSent(int slot, int mentionedSlot, int count) {
+        if (mentionsSent[slot] == null) {
+            mentionsSent[slot] = new IntIntHashMap();
+        }
+        mentionsSent[slot].addTo(mentionedSlot, count);
+        mentionsSentTotals[slot] += count;
+    }
+
+    private void addMentionsReceived(int slot, int mentionerSlot, int count) {
+        if (mentionsReceived[slot] == null) {
+            mentionsReceived[slot] = new IntIntHashMap();
+        }
+        mentionsReceived[slot].addTo(mentionerSlot, count);
+        mentionsReceivedTotals[slot] += count;
+    }
+
+    private Map<String, Integer> countsByUserId(IntIntHashMap counts) {
+        if (counts == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Integer> countsByUserId = new LinkedHashMap<>();
+        counts.forEach((slot, count) -> countsByUserId.put(authorIds[slot], count));
+        return Collections.unmodifiableMap(countsByUserId);
+    }
+
+    private int emojiId(Emoji emoji) {
+        final boolean named = StringUtils.isNotBlank(emoji.getName());
+        final Map<String, Integer> ids = named ? emojiIdsByName : emojiIdsById;
+        final Integer id = ids.get(named ? emoji.getName() : emoji.getId());
+        if (id != null) {
+            return id;
+        }
+
+        emojis.add(emoji);
+        ids.put(named ? emoji.getName() : emoji.getId(), emojis.size() - 1);
+        return emojis.size() - 1;
+    }
+
+    private static Author createPlaceholder(String authorId) {
+        final Author placeholder = new Author();
+        placeholder.setId(authorId);
+        placeholder.setName(PLACEHOLDER_NAME_PREFIX + authorId);
+        placeholder.setNickname(PLACEHOLDER_NAME_PREFIX + authorId);
+        return placeholder;
+    }
+
+    private void allocate(int capacity) {
+        authorIds = new String[capacity];
+        idHashes = new long[capacity];
+        authors = new Author[capacity];
+        placeholders = new boolean[capacity];
+        earliestEpochDays = new int[capacity];
+        Arrays.fill(earliestEpochDays, NO_DATE);
+        messagesSent = new long[capacity];
+        embedsSent = new long[capacity];
+        attachmentsSent = new long[capacity];
+        wordCounts = new long[capacity];
+        timesMentioned = new long[capacity];
+        mentionsSentTotals = new long[capacity];
+        mentionsReceivedTotals = new long[capacity];
+        emojisReceivedTotals = new long[capacity];
+        averageWordsPerMessage = new double[capacity];
+        mentionsSent = new IntIntHashMap[capacity];
+        mentionsReceived = new IntIntHashMap[capacity];
+        emojisReceived = new IntIntHashMap[capacity];
+        wordsPerMessage = new LogHistogram[capacity];
+        mentionPartners = new HyperLogLog[capacity];
+        dailyActivity = new DailyActivity[capacity];
+        views = new AuthorData[capacity];
+    }
+
+    private void grow(int capacity) {
+        authorIds = Arrays.copyOf(authorIds, capacity);
+        idHashes = Arrays.copyOf(idHashes, capacity);
+        authors = Arrays.copyOf(authors, capacity);
+        placeholders = Arrays.copyOf(placeholders, capacity);
+        final int previousCapacity = earliestEpochDays.length;
+        earliestEpochDays = Arrays.copyOf(earliestEpochDays, capacity);
+        Arrays.fill(earliestEpochDays, previousCapacity, capacity, NO_DATE);
+        messagesSent = Arrays.copyOf(messagesSent, capacity);
+        embedsSent = Arrays.copyOf(embedsSent, capacity);
+        attachmentsSent = Arrays.copyOf(attachmentsSent, capacity);
+        wordCounts = Arrays.copyOf(wordCounts, capacity);
+        timesMentioned = Arrays.copyOf(timesMentioned, capacity);
+        mentionsSentTotals = Arrays.copyOf(mentionsSentTotals, capacity);
+        mentionsReceivedTotals = Arrays.copyOf(mentionsReceivedTotals, capacity);
+        emojisReceivedTotals = Arrays.copyOf(emojisReceivedTotals, capacity);
+        averageWordsPerMessage = Arrays.copyOf(averageWordsPerMessage, capacity);
+        mentionsSent = Arrays.copyOf(mentionsSent, capacity);
+        mentionsReceived = Arrays.copyOf(mentionsReceived, capacity);
+        emojisReceived = Arrays.copyOf(emojisReceived, capacity);
+        wordsPerMessage = Arrays.copyOf(wordsPerMessage, capacity);
+        mentionPartners = Arrays.copyOf(mentionPartners, capacity);
+        dailyActivity = Arrays.copyOf(dailyActivity, capacity);
+        views = Arrays.copyOf(views, capacity);
+    }
+}
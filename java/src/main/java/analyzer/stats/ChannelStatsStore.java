@@ -0,0 +1,195 @@
+package analyzer.stats;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.utils.HyperLogLog;
+import analyzer.utils.LogHistogram;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-channel statistics in dense slots 0..n-1, assigned in order of first appearance like the author slots of
+ * {@link AuthorStatsStore}. A server has few channels compared to messages, so ids are kept in a regular map.
+ * <p>
+ * Not thread-safe, parallel work uses one store per worker and {@link #merge(ChannelStatsStore)}.
+ */
+public class ChannelStatsStore {
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int size;
+
+    private String[] channelIds = new String[8];
+    private ChannelInfo[] channels = new ChannelInfo[8];
+    private DailyActivity[] dailyActivity = new DailyActivity[8];
+    private long[] wordCounts = new long[8];
+    private LogHistogram[] wordsPerMessage = new LogHistogram[8];
+    // Sketches of the active users per month and of the emojis reacted with, only in sketch mode
+    private MonthlySketches[] activeUsers = new MonthlySketches[8];
+    private HyperLogLog[] distinctEmojis = new HyperLogLog[8];
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the slot of the channel, the latest channel info of an id is kept
+     */
+    public int getOrAddSlot(ChannelInfo channel) {
+        final Integer existing = slots.get(channel.getId());
+        if (existing != null) {
+            channels[existing] = channel;
+            return existing;
+        }
+
+        if (size == channelIds.length) {
+            channelIds = Arrays.copyOf(channelIds, size * 2);
+            channels = Arrays.copyOf(channels, size * 2);
+            dailyActivity = Arrays.copyOf(dailyActivity, size * 2);
+            wordCounts = Arrays.copyOf(wordCounts, size * 2);
+            wordsPerMessage = Arrays.copyOf(wordsPerMessage, size * 2);
+            activeUsers = Arrays.copyOf(activeUsers, size * 2);
+            distinctEmojis = Arrays.copyOf(distinctEmojis, size * 2);
+        }
+        final int slot = size++;
+        slots.put(channel.getId(), slot);
+        channelIds[slot] = channel.getId();
+        channels[slot] = channel;
+        return slot;
+    }
+
+    /**
+     * @return the slot of the channel id, -1 if the channel is unknown
+     */
+    public int slotOf(String channelId) {
+        final Integer slot = slots.get(channelId);
+        return slot != null ? slot : -1;
+    }
+
+    public String getChannelId(int slot) {
+        return channelIds[slot];
+    }
+
+    public ChannelInfo getChannel(int slot) {
+        return channels[slot];
+    }
+
+    public void addActivity(int slot, int epochDay, int messages, int words, int mentions, int reactions) {
+        if (dailyActivity[slot] == null) {
+            dailyActivity[slot] = new DailyActivity();
+        }
+        dailyActivity[slot].add(epochDay, messages, words, mentions, reactions);
+    }
+
+    public void addActivity(int slot, DailyActivity activity) {
+        if (dailyActivity[slot] == null) {
+            dailyActivity[slot] = new DailyActivity();
+        }
+        dailyActivity[slot].merge(activity);
+    }
+
+    /**
+     * @return the daily activity of the channel, null if none was recorded
+     */
+    public DailyActivity getDailyActivity(int slot) {
+        return dailyActivity[slot];
+    }
+
+    /**
+     * Adds the words of a single message to the sum and the histogram of the channel
+     */
+    public void addMessageWords(int slot, int words) {
+        if (wordsPerMessage[slot] == null) {
+            wordsPerMessage[slot] = new LogHistogram();
+        }
+        wordsPerMessage[slot].add(words);
+        wordCounts[slot] += words;
+    }
+
+    public void addWordsPerMessage(int slot, long words, LogHistogram histogram) {
+        if (wordsPerMessage[slot] == null) {
+            wordsPerMessage[slot] = new LogHistogram();
+        }
+        wordsPerMessage[slot].merge(histogram);
+        wordCounts[slot] += words;
+    }
+
+    public long getWordCount(int slot) {
+        return wordCounts[slot];
+    }
+
+    /**
+     * @return the histogram of the words per message of the channel, null if words were not collected
+     */
+    public LogHistogram getWordsPerMessage(int slot) {
+        return wordsPerMessage[slot];
+    }
+
+    /**
+     * @return the sketch of the channel's active users in the month starting at the given day, created on first use
+     */
+    public HyperLogLog activeUsers(int slot, int monthStart) {
+        return activeUserSketches(slot).month(monthStart);
+    }
+
+    /**
+     * @return the sketches of the channel's active users per month, null if none were recorded
+     */
+    public MonthlySketches getActiveUsers(int slot) {
+        return activeUsers[slot];
+    }
+
+    public void addActiveUsers(int slot, MonthlySketches sketches) {
+        activeUserSketches(slot).merge(sketches);
+    }
+
+    private MonthlySketches activeUserSketches(int slot) {
+        if (activeUsers[slot] == null) {
+            activeUsers[slot] = new MonthlySketches(AnalyzerConfig.SKETCH_PRECISION);
+        }
+        return activeUsers[slot];
+    }
+
+    public void addEmoji(int slot, long emojiHash) {
+        if (distinctEmojis[slot] == null) {
+            distinctEmojis[slot] = new HyperLogLog(AnalyzerConfig.SKETCH_PRECISION);
+        }
+        distinctEmojis[slot].add(emojiHash);
+    }
+
+    public void addEmojis(int slot, HyperLogLog sketch) {
+        if (distinctEmojis[slot] == null) {
+            distinctEmojis[slot] = new HyperLogLog(sketch.getPrecision());
+        }
+        distinctEmojis[slot].merge(sketch);
+    }
+
+    /**
+     * @return the sketch of the emojis reacted with in the channel, null if none were recorded
+     */
+    public HyperLogLog getDistinctEmojis(int slot) {
+        return distinctEmojis[slot];
+    }
+
+    /**
+     * Adds all channels and counts of another store, channels are matched by id
+     */
+    public void merge(ChannelStatsStore other) {
+        for (int otherSlot = 0; otherSlot < other.size; otherSlot++) {
+            final int slot = getOrAddSlot(other.channels[otherSlot]);
+            if (other.dailyActivity[otherSlot] != null) {
+                addActivity(slot, other.dailyActivity[otherSlot]);
+            }
+            if (other.wordsPerMessage[otherSlot] != null) {
+                addWordsPerMessage(slot, other.wordCounts[otherSlot], other.wordsPerMessage[otherSlot]);
+            }
+            if (other.activeUsers[otherSlot] != null) {
+                addActiveUsers(slot, other.activeUsers[otherSlot]);
+            }
+            if (other.distinctEmojis[otherSlot] != null) {
+                addEmojis(slot, other.distinctEmojis[otherSlot]);
+            }
+        }
+    }
+}
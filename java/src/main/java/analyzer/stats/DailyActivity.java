@@ -0,0 +1,308 @@
+package analyzer.stats;
+
+import java.util.Arrays;
+
+/**
+ * Messages, words, mentions and reactions per day of one author or channel. Weekly and monthly totals are derived
+ * from the days, see {@link analyzer.models.activity.ActivityPeriod}.
+ * <p>
+ * A series starts sparse: the active days in ascending order, each with its counts. Partial aggregates of a batch
+ * or a single export mostly touch a few days spread over a long period, so they do not pay for the days in between.
+ * Once a series is filled densely enough that an array over all days from the first to the last one is not larger,
+ * e.g. for an active author in the merged aggregate of a folder, it switches to such an array indexed by epoch day
+ * relative to the first day. A dense series that would grow to more than twice the size of its sparse form goes
+ * back to sparse.
+ * <p>
+ * Not thread-safe, parallel work uses one series per worker and {@link #merge(DailyActivity)}.
+ */
+public final class DailyActivity {
+
+    public static final int MESSAGES = 0;
+    public static final int WORDS = 1;
+    public static final int MENTIONS = 2;
+    public static final int REACTIONS = 3;
+    public static final int METRIC_COUNT = 4;
+
+    // Short series stay sparse, so a few days close together do not decide the representation
+    private static final int MIN_DENSE_DAYS = 16;
+
+    // Sparse: the recorded days in ascending order, null once the series is dense
+    private int[] days = new int[4];
+    private int size;
+    // Dense: the first day, the number of days from the first to the last one and the days with activity
+    private int firstDay;
+    private int dayCount;
+    private int activeDays;
+    // Sparse: counts[entry * METRIC_COUNT + metric], dense: counts[(day - firstDay) * METRIC_COUNT + metric]
+    private int[] counts = new int[4 * METRIC_COUNT];
+
+    /**
+     * Receives the counts of one day
+     */
+    @FunctionalInterface
+    public interface DayConsumer {
+        void accept(int epochDay, int messages, int words, int mentions, int reactions);
+    }
+
+    /**
+     * Restores a series written by {@link #toArray()}
+     */
+    public static DailyActivity of(int firstDay, int[] counts) {
+        final DailyActivity activity = new DailyActivity();
+        for (int day = 0; day < counts.length / METRIC_COUNT; day++) {
+            final int offset = day * METRIC_COUNT;
+            activity.add(firstDay + day, counts[offset + MESSAGES], counts[offset + WORDS], counts[offset + MENTIONS],
+                counts[offset + REACTIONS]);
+        }
+        return activity;
+    }
+
+    public void add(int epochDay, int messages, int words, int mentions, int reactions) {
+        if (messages == 0 && words == 0 && mentions == 0 && reactions == 0) {
+            return;
+        }
+        if (days == null && isSparseEnough(epochDay)) {
+            toSparse();
+        }
+        final int index = indexOf(epochDay) * METRIC_COUNT;
+        if (days == null && isZero(index)) {
+            activeDays++;
+        }
+        counts[index + MESSAGES] += messages;
+        counts[index + WORDS] += words;
+        counts[index + MENTIONS] += mentions;
+        counts[index + REACTIONS] += reactions;
+        if (days != null && isDenseEnough()) {
+            toDense();
+        }
+    }
+
+    /**
+     * Adds all days of another series
+     */
+    public void merge(DailyActivity other) {
+        if (other.isEmpty()) {
+            return;
+        }
+        if (days == null) {
+            other.forEachDay(this::add);
+            return;
+        }
+        if (other.days != null) {
+            mergeSparse(other);
+        } else {
+            other.forEachDay(this::add);
+        }
+        if (days != null && isDenseEnough()) {
+            toDense();
+        }
+    }
+
+    public boolean isEmpty() {
+        return days != null ? size == 0 : dayCount == 0;
+    }
+
+    /**
+     * @return the first day of the series in days since the epoch, only defined if it is not empty
+     */
+    public int getFirstDay() {
+        return days != null ? days[0] : firstDay;
+    }
+
+    public int getLastDay() {
+        return days != null ? days[size - 1] : firstDay + dayCount - 1;
+    }
+
+    /**
+     * @return the count of the metric on the given day, 0 outside of the series
+     */
+    public int get(int epochDay, int metric) {
+        if (days != null) {
+            final int entry = Arrays.binarySearch(days, 0, size, epochDay);
+            return entry >= 0 ? counts[entry * METRIC_COUNT + metric] : 0;
+        }
+        final int day = epochDay - firstDay;
+        return day >= 0 && day < dayCount ? counts[day * METRIC_COUNT + metric] : 0;
+    }
+
+    /**
+     * Hands the counts of every day with activity to the consumer, in ascending order of the days
+     */
+    public void forEachDay(DayConsumer consumer) {
+        if (days != null) {
+            for (int entry = 0; entry < size; entry++) {
+                final int offset = entry * METRIC_COUNT;
+                consumer.accept(days[entry], counts[offset + MESSAGES], counts[offset + WORDS],
+                    counts[offset + MENTIONS], counts[offset + REACTIONS]);
+            }
+            return;
+        }
+        for (int day = 0; day < dayCount; day++) {
+            final int offset = day * METRIC_COUNT;
+            if (!isZero(offset)) {
+                consumer.accept(firstDay + day, counts[offset + MESSAGES], counts[offset + WORDS],
+                    counts[offset + MENTIONS], counts[offset + REACTIONS]);
+            }
+        }
+    }
+
+    /**
+     * @return the counts of all days from the first to the last day, {@link #METRIC_COUNT} values per day
+     */
+    public int[] toArray() {
+        if (isEmpty()) {
+            return new int[0];
+        }
+        if (days == null) {
+            return Arrays.copyOf(counts, dayCount * METRIC_COUNT);
+        }
+        final int[] array = new int[(getLastDay() - getFirstDay() + 1) * METRIC_COUNT];
+        for (int entry = 0; entry < size; entry++) {
+            System.arraycopy(counts, entry * METRIC_COUNT, array, (days[entry] - days[0]) * METRIC_COUNT, METRIC_COUNT);
+        }
+        return array;
+    }
+
+    /**
+     * @return whether the days are kept in an array over the whole period instead of as a list of active days
+     */
+    public boolean isDense() {
+        return days == null;
+    }
+
+    private int indexOf(int epochDay) {
+        return days != null ? sparseIndexOf(epochDay) : denseIndexOf(epochDay);
+    }
+
+    private int sparseIndexOf(int epochDay) {
+        // Messages arrive mostly in chronological order
+        if (size > 0 && days[size - 1] == epochDay) {
+            return size - 1;
+        }
+        final int entry = size == 0 || days[size - 1] < epochDay ? -size - 1 : Arrays.binarySearch(days, 0, size, epochDay);
+        if (entry >= 0) {
+            return entry;
+        }
+
+        final int insertAt = -entry - 1;
+        if (size == days.length) {
+            days = Arrays.copyOf(days, size * 2);
+            counts = Arrays.copyOf(counts, size * 2 * METRIC_COUNT);
+        }
+        System.arraycopy(days, insertAt, days, insertAt + 1, size - insertAt);
+        System.arraycopy(counts, insertAt * METRIC_COUNT, counts, (insertAt + 1) * METRIC_COUNT, (size - insertAt) * METRIC_COUNT);
+        days[insertAt] = epochDay;
+        Arrays.fill(counts, insertAt * METRIC_COUNT, (insertAt + 1) * METRIC_COUNT, 0);
+        size++;
+        return insertAt;
+    }
+
+    private int denseIndexOf(int epochDay) {
+        if (dayCount == 0) {
+            firstDay = epochDay;
+            ensureCapacity(1);
+            dayCount = 1;
+            return 0;
+        }
+
+        if (epochDay < firstDay) {
+            final int shift = firstDay - epochDay;
+            final int[] shifted = new int[Math.max(dayCount + shift, capacity() * 2) * METRIC_COUNT];
+            System.arraycopy(counts, 0, shifted, shift * METRIC_COUNT, dayCount * METRIC_COUNT);
+            counts = shifted;
+            firstDay = epochDay;
+            dayCount += shift;
+            return 0;
+        }
+
+        final int day = epochDay - firstDay;
+        if (day >= dayCount) {
+            ensureCapacity(day + 1);
+            dayCount = day + 1;
+        }
+        return day;
+    }
+
+    private void mergeSparse(DailyActivity other) {
+        final int[] mergedDays = new int[size + other.size];
+        final int[] mergedCounts = new int[(size + other.size) * METRIC_COUNT];
+        int merged = 0;
+        int entry = 0;
+        int otherEntry = 0;
+        while (entry < size || otherEntry < other.size) {
+            final int day = entry < size ? days[entry] : Integer.MAX_VALUE;
+            final int otherDay = otherEntry < other.size ? other.days[otherEntry] : Integer.MAX_VALUE;
+            mergedDays[merged] = Math.min(day, otherDay);
+            if (day <= otherDay) {
+                System.arraycopy(counts, entry++ * METRIC_COUNT, mergedCounts, merged * METRIC_COUNT, METRIC_COUNT);
+            }
+            if (otherDay <= day) {
+                for (int metric = 0; metric < METRIC_COUNT; metric++) {
+                    mergedCounts[merged * METRIC_COUNT + metric] += other.counts[otherEntry * METRIC_COUNT + metric];
+                }
+                otherEntry++;
+            }
+            merged++;
+        }
+        days = mergedDays;
+        counts = mergedCounts;
+        size = merged;
+    }
+
+    private boolean isZero(int offset) {
+        return isZero(counts, offset);
+    }
+
+    private static boolean isZero(int[] counts, int offset) {
+        return counts[offset + MESSAGES] == 0 && counts[offset + WORDS] == 0
+            && counts[offset + MENTIONS] == 0 && counts[offset + REACTIONS] == 0;
+    }
+
+    // An entry holds its day and its counts, a dense day only its counts
+    private boolean isDenseEnough() {
+        return size >= MIN_DENSE_DAYS
+            && (long) size * (METRIC_COUNT + 1) >= (long) (getLastDay() - getFirstDay() + 1) * METRIC_COUNT;
+    }
+
+    // Whether the span including the day would be more than twice the size of the sparse entries
+    private boolean isSparseEnough(int epochDay) {
+        final long span = (long) Math.max(epochDay, firstDay + dayCount - 1) - Math.min(epochDay, firstDay) + 1;
+        return span * METRIC_COUNT > 2L * (activeDays + 1) * (METRIC_COUNT + 1);
+    }
+
+    private void toDense() {
+        final int[] dense = toArray();
+        firstDay = days[0];
+        dayCount = dense.length / METRIC_COUNT;
+        activeDays = size;
+        counts = dense;
+        days = null;
+        size = 0;
+    }
+
+    private void toSparse() {
+        final int[] dense = counts;
+        days = new int[Math.max(4, activeDays * 2)];
+        counts = new int[days.length * METRIC_COUNT];
+        for (int day = 0; day < dayCount; day++) {
+            if (!isZero(dense, day * METRIC_COUNT)) {
+                days[size] = firstDay + day;
+                System.arraycopy(dense, day * METRIC_COUNT, counts, size * METRIC_COUNT, METRIC_COUNT);
+                size++;
+            }
+        }
+        firstDay = 0;
+        dayCount = 0;
+        activeDays = 0;
+    }
+
+    private void ensureCapacity(int dayCapacity) {
+        if (dayCapacity > capacity()) {
+            counts = Arrays.copyOf(counts, Math.max(dayCapacity, Math.max(8, capacity() * 2)) * METRIC_COUNT);
+        }
+    }
+
+    private int capacity() {
+        return counts.length / METRIC_COUNT;
+    }
+}
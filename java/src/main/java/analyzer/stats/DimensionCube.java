@@ -0,0 +1,223 @@
+package analyzer.stats;
+
+import analyzer.utils.LongIntHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Counters per author and member of a dimension, e.g. per author and channel. Members have dense ids in order of
+ * first appearance, every (author slot, member) pair owns a dense cell and the counters of all cells live in a single
+ * long array. Cells of the same author are chained, so an author's cells are found without scanning the cube.
+ * <p>
+ * A cube {@link #rollUp(UnaryOperator) rolls up} to a coarser dimension, e.g. channels to categories, by adding
+ * the cells of all members mapped to the same group.
+ * <p>
+ * Not thread-safe, parallel work uses one cube per worker and {@link #merge(DimensionCube, int[])}.
+ */
+public final class DimensionCube {
+
+    public static final int MESSAGES = 0;
+    public static final int WORDS = 1;
+    public static final int EMBEDS = 2;
+    public static final int ATTACHMENTS = 3;
+    // Messages with at least one mention
+    public static final int MENTIONING_MESSAGES = 4;
+    public static final int MENTIONS = 5;
+    public static final int MEASURE_COUNT = 6;
+    public static final int NO_CELL = -1;
+
+    private final Map<String, Integer> memberIds = new HashMap<>();
+    private String[] members = new String[8];
+    private int memberCount;
+
+    // Cell of (author slot << 32 | member)
+    private final LongIntHashMap cellIndex = new LongIntHashMap();
+    private int size;
+    private int[] authorSlots = new int[64];
+    private int[] cellMembers = new int[64];
+    // counts[cell * MEASURE_COUNT + measure]
+    private long[] counts = new long[64 * MEASURE_COUNT];
+    // First cell per author slot and the next cell of the same author per cell, NO_CELL ends the chain
+    private int[] firstCells = new int[0];
+    private int[] nextCells = new int[64];
+
+    // Messages of one author often follow each other in the same channel
+    private int lastAuthorSlot = -1;
+    private int lastMember = -1;
+    private int lastCell;
+
+    public int size() {
+        return size;
+    }
+
+    public int memberCount() {
+        return memberCount;
+    }
+
+    /**
+     * @return the dense id of the member, assigned on first use
+     */
+    public int member(String memberId) {
+        final Integer existing = memberIds.get(memberId);
+        if (existing != null) {
+            return existing;
+        }
+        if (memberCount == members.length) {
+            members = Arrays.copyOf(members, memberCount * 2);
+        }
+        members[memberCount] = memberId;
+        memberIds.put(memberId, memberCount);
+        return memberCount++;
+    }
+
+    public String getMemberId(int member) {
+        return members[member];
+    }
+
+    /**
+     * @return the cell of the author slot and member, created on first use
+     */
+    public int cell(int authorSlot, int member) {
+        if (authorSlot == lastAuthorSlot && member == lastMember) {
+            return lastCell;
+        }
+
+        final long key = ((long) authorSlot << 32) | member;
+        int cell = cellIndex.get(key);
+        if (cell == LongIntHashMap.MISSING) {
+            cell = addCell(authorSlot, member);
+            cellIndex.put(key, cell);
+        }
+        lastAuthorSlot = authorSlot;
+        lastMember = member;
+        lastCell = cell;
+        return cell;
+    }
+
+    /**
+     * @return the cell of the author slot and member or {@link #NO_CELL}, does not modify the cube
+     */
+    public int find(int authorSlot, int member) {
+        final int cell = cellIndex.get(((long) authorSlot << 32) | member);
+        return cell == LongIntHashMap.MISSING ? NO_CELL : cell;
+    }
+
+    private int addCell(int authorSlot, int member) {
+        if (size == authorSlots.length) {
+            authorSlots = Arrays.copyOf(authorSlots, size * 2);
+            cellMembers = Arrays.copyOf(cellMembers, size * 2);
+            nextCells = Arrays.copyOf(nextCells, size * 2);
+            counts = Arrays.copyOf(counts, size * 2 * MEASURE_COUNT);
+        }
+        if (authorSlot >= firstCells.length) {
+            final int previousLength = firstCells.length;
+            firstCells = Arrays.copyOf(firstCells, Math.max(authorSlot + 1, previousLength * 2));
+            Arrays.fill(firstCells, previousLength, firstCells.length, NO_CELL);
+        }
+
+        final int cell = size++;
+        authorSlots[cell] = authorSlot;
+        cellMembers[cell] = member;
+        nextCells[cell] = firstCells[authorSlot];
+        firstCells[authorSlot] = cell;
+        return cell;
+    }
+
+    /**
+     * Counts a single message of the author in the member
+     */
+    public void addMessage(int authorSlot, int member, int words, int embeds, int attachments, int mentions) {
+        final int offset = cell(authorSlot, member) * MEASURE_COUNT;
+        counts[offset + MESSAGES]++;
+        counts[offset + WORDS] += words;
+        counts[offset + EMBEDS] += embeds;
+        counts[offset + ATTACHMENTS] += attachments;
+        counts[offset + MENTIONING_MESSAGES] += mentions > 0 ? 1 : 0;
+        counts[offset + MENTIONS] += mentions;
+    }
+
+    /**
+     * Adds already aggregated counters in measure order, e.g. restored from a cache
+     */
+    public void addCounts(int authorSlot, int member, long[] measures) {
+        final int offset = cell(authorSlot, member) * MEASURE_COUNT;
+        for (int measure = 0; measure < MEASURE_COUNT; measure++) {
+            counts[offset + measure] += measures[measure];
+        }
+    }
+
+    public long get(int cell, int measure) {
+        return counts[cell * MEASURE_COUNT + measure];
+    }
+
+    /**
+     * @return the counters of the cell in measure order, a copy
+     */
+    public long[] getCounts(int cell) {
+        return Arrays.copyOfRange(counts, cell * MEASURE_COUNT, (cell + 1) * MEASURE_COUNT);
+    }
+
+    public int getAuthorSlot(int cell) {
+        return authorSlots[cell];
+    }
+
+    public int getMember(int cell) {
+        return cellMembers[cell];
+    }
+
+    /**
+     * @return the latest cell of the author slot or {@link #NO_CELL}, continue with {@link #nextCell(int)}
+     */
+    public int firstCell(int authorSlot) {
+        return authorSlot < firstCells.length ? firstCells[authorSlot] : NO_CELL;
+    }
+
+    /**
+     * @return the previous cell of the same author or {@link #NO_CELL}
+     */
+    public int nextCell(int cell) {
+        return nextCells[cell];
+    }
+
+    /**
+     * Adds all cells of another cube, members are matched by id
+     *
+     * @param authorSlotMap the slot in this cube of every author slot of the other cube
+     */
+    public void merge(DimensionCube other, int[] authorSlotMap) {
+        final int[] memberMap = new int[other.memberCount];
+        for (int otherMember = 0; otherMember < other.memberCount; otherMember++) {
+            memberMap[otherMember] = member(other.members[otherMember]);
+        }
+        for (int otherCell = 0; otherCell < other.size; otherCell++) {
+            final int offset = cell(authorSlotMap[other.authorSlots[otherCell]], memberMap[other.cellMembers[otherCell]]) * MEASURE_COUNT;
+            final int otherOffset = otherCell * MEASURE_COUNT;
+            for (int measure = 0; measure < MEASURE_COUNT; measure++) {
+                counts[offset + measure] += other.counts[otherOffset + measure];
+            }
+        }
+    }
+
+    /**
+     * Rolls the cube up to a coarser dimension. Author slots stay the same.
+     *
+     * @param group the id of the group of a member id, e.g. the category of a channel
+     */
+    public DimensionCube rollUp(UnaryOperator<String> group) {
+        final DimensionCube rolledUp = new DimensionCube();
+        final int[] memberMap = new int[memberCount];
+        for (int member = 0; member < memberCount; member++) {
+            memberMap[member] = rolledUp.member(group.apply(members[member]));
+        }
+        for (int cell = 0; cell < size; cell++) {
+            final int offset = rolledUp.cell(authorSlots[cell], memberMap[cellMembers[cell]]) * MEASURE_COUNT;
+            for (int measure = 0; measure < MEASURE_COUNT; measure++) {
+                rolledUp.counts[offset + measure] += counts[cell * MEASURE_COUNT + measure];
+            }
+        }
+        return rolledUp;
+    }
+}
@@ -0,0 +1,48 @@
+package analyzer.stats;
+
+import analyzer.utils.HyperLogLog;
+
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * {@link HyperLogLog} sketches per month, keyed by the first day of the month in days since the epoch.
+ * Only months with values get a sketch.
+ */
+public final class MonthlySketches {
+
+    private final int precision;
+    private final TreeMap<Integer, HyperLogLog> months = new TreeMap<>();
+
+    public MonthlySketches(int precision) {
+        this.precision = precision;
+    }
+
+    /**
+     * @return the sketch of the month, created on first use
+     */
+    public HyperLogLog month(int monthStart) {
+        HyperLogLog sketch = months.get(monthStart);
+        if (sketch == null) {
+            sketch = new HyperLogLog(precision);
+            months.put(monthStart, sketch);
+        }
+        return sketch;
+    }
+
+    public void merge(MonthlySketches other) {
+        other.months.forEach((monthStart, sketch) -> month(monthStart).merge(sketch));
+    }
+
+    public void merge(int monthStart, HyperLogLog sketch) {
+        month(monthStart).merge(sketch);
+    }
+
+    /**
+     * @return the sketches by month, earliest first
+     */
+    public SortedMap<Integer, HyperLogLog> getMonths() {
+        return Collections.unmodifiableSortedMap(months);
+    }
+}
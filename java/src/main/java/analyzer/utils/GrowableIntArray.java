@@ -0,0 +1,35 @@
+package analyzer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Append-only int array without boxing
+ */
+public final class GrowableIntArray {
+
+    private int[] values;
+    private int size;
+
+    public GrowableIntArray() {
+        this(16);
+    }
+
+    public GrowableIntArray(int initialCapacity) {
+        this.values = new int[Math.max(1, initialCapacity)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+}
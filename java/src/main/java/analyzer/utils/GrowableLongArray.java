@@ -0,0 +1,35 @@
+package analyzer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Append-only long array without boxing
+ */
+public final class GrowableLongArray {
+
+    private long[] values;
+    private int size;
+
+    public GrowableLongArray() {
+        this(16);
+    }
+
+    public GrowableLongArray(int initialCapacity) {
+        this.values = new long[Math.max(1, initialCapacity)];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+}
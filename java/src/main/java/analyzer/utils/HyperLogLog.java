@@ -0,0 +1,175 @@
+package analyzer.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * HyperLogLog sketch estimating the number of distinct values added to it. It keeps 2^precision one-byte registers,
+ * however many values there are. Values are added as 64-bit hashes, see {@link #hash(String)}.
+ * <p>
+ * The relative standard error of the estimate is 1.04 / sqrt(2^precision): 6.5 % with precision 8 (256 bytes),
+ * 2.3 % with 11 (2 KiB) and 1.6 % with 12 (4 KiB). About 95 % of the estimates are within twice that error.
+ * Up to about 2.5 * 2^precision distinct values, linear counting is used, which is close to exact.
+ * <p>
+ * Sketches of the same precision {@link #merge(HyperLogLog) merge} to the sketch of the union by keeping the larger
+ * register, so partial sketches of threads or files combine in any order. Not thread-safe.
+ */
+public final class HyperLogLog {
+
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException("Precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ": " + precision);
+        }
+        this.precision = precision;
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * 64-bit hash of a string, FNV-1a over the chars followed by a 64-bit finalizer
+     */
+    public static long hash(String value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    // Finalizer of SplitMix64, spreads every input bit over all output bits
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Adds a hashed value, does not allocate
+     */
+    public void add(long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        // The marker bit caps the rank at 64 - precision + 1 for hashes with only zeros below the index bits
+        final int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * Adds all values of another sketch of the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Cannot merge sketches of precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct values added
+     */
+    public long estimate() {
+        final double m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Math.scalb(1.0, -register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        final double estimate = alpha(registers.length) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            return Math.round(m * Math.log(m / zeros));
+        }
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * @return the relative standard error of the estimates of this precision
+     */
+    public double getRelativeStandardError() {
+        return relativeStandardError(precision);
+    }
+
+    public static double relativeStandardError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    /**
+     * Writes the precision and the registers. Sketches of few values are mostly empty, so at most half of the registers
+     * set are written as (gap, value) pairs, fuller sketches as all registers.
+     */
+    public void write(DataOutput out) throws IOException {
+        int nonZero = 0;
+        for (byte register : registers) {
+            nonZero += register != 0 ? 1 : 0;
+        }
+        out.writeByte(precision);
+        VarInts.writeUnsigned(out, nonZero);
+        if (nonZero > registers.length / 2) {
+            out.write(registers);
+            return;
+        }
+        int previous = -1;
+        for (int index = 0; index < registers.length; index++) {
+            if (registers[index] != 0) {
+                VarInts.writeUnsigned(out, index - previous - 1);
+                out.writeByte(registers[index]);
+                previous = index;
+            }
+        }
+    }
+
+    /**
+     * Restores a sketch written by {@link #write(DataOutput)}
+     */
+    public static HyperLogLog read(DataInput in) throws IOException {
+        final int precision = in.readUnsignedByte();
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION) {
+            throw new IOException("Not a sketch: precision " + precision);
+        }
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        final int nonZero = VarInts.readUnsignedInt(in);
+        if (nonZero > sketch.registers.length / 2) {
+            in.readFully(sketch.registers);
+            return sketch;
+        }
+        int index = -1;
+        for (int i = 0; i < nonZero; i++) {
+            index += VarInts.readUnsignedInt(in) + 1;
+            if (index >= sketch.registers.length) {
+                throw new IOException("Not a sketch: register " + index + " of " + sketch.registers.length);
+            }
+            sketch.registers[index] = in.readByte();
+        }
+        return sketch;
+    }
+}
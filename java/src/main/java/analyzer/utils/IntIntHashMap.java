@@ -0,0 +1,108 @@
+package analyzer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from non-negative int keys to int counters, without boxing.
+ * Missing keys read as zero. Uses linear probing on a power of two table, entries cannot be removed.
+ */
+public final class IntIntHashMap {
+
+    private static final int FREE = -1;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int resizeThreshold;
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(int key, int value);
+    }
+
+    public IntIntHashMap() {
+        allocate(4);
+    }
+
+    /**
+     * @return the value of the key or zero
+     */
+    public int get(int key) {
+        final int mask = keys.length - 1;
+        for (int index = hash(key) & mask; ; index = (index + 1) & mask) {
+            if (keys[index] == key) {
+                return values[index];
+            }
+            if (keys[index] == FREE) {
+                return 0;
+            }
+        }
+    }
+
+    public void addTo(int key, int delta) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Keys must not be negative: " + key);
+        }
+
+        final int mask = keys.length - 1;
+        int index = hash(key) & mask;
+        while (keys[index] != FREE && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+
+        if (keys[index] == FREE) {
+            if (++size > resizeThreshold) {
+                resize();
+                addTo(key, delta);
+                return;
+            }
+            keys[index] = key;
+        }
+        values[index] += delta;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Visits all entries in table order
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void resize() {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+
+        allocate(keys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                addTo(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int hash(int key) {
+        final int mixed = key * 0x9E3779B9;
+        return mixed ^ (mixed >>> 16);
+    }
+}
@@ -0,0 +1,132 @@
+package analyzer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Mergeable histogram of non-negative ints for quantiles, e.g. the words per message. Values below
+ * {@link #EXACT_VALUES} have a bucket each, every larger power of two range is split into {@link #SUB_BUCKETS}
+ * buckets of equal width. Quantiles are exact below {@link #EXACT_VALUES} and within 1 / (2 * SUB_BUCKETS), 6.25 %,
+ * of the value above.
+ * <p>
+ * The buckets grow up to the largest value seen and never beyond {@link #MAX_BUCKETS} (232 ints), however many values
+ * are added. Adding a value does not allocate unless it is the largest so far. Histograms
+ * {@link #merge(LogHistogram) merge} by adding the bucket counts. Not thread-safe.
+ */
+public final class LogHistogram {
+
+    public static final int EXACT_VALUES = 16;
+    public static final int SUB_BUCKETS = 8;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int EXACT_BITS = Integer.numberOfTrailingZeros(EXACT_VALUES);
+    public static final int MAX_BUCKETS = bucket(Integer.MAX_VALUE) + 1;
+    // Covers up to 63 words, most messages are shorter
+    private static final int INITIAL_BUCKETS = 32;
+
+    private int[] counts;
+    private long total;
+
+    public LogHistogram() {
+        this.counts = new int[INITIAL_BUCKETS];
+    }
+
+    private LogHistogram(int[] counts) {
+        this.counts = counts;
+        for (int count : counts) {
+            total += count;
+        }
+    }
+
+    private static int bucket(int value) {
+        if (value < EXACT_VALUES) {
+            return value;
+        }
+        final int powerOfTwo = 31 - Integer.numberOfLeadingZeros(value);
+        final int subBucket = (value >>> (powerOfTwo - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return EXACT_VALUES + (powerOfTwo - EXACT_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    private static int lowerBound(int bucket) {
+        if (bucket < EXACT_VALUES) {
+            return bucket;
+        }
+        final int powerOfTwo = EXACT_BITS + (bucket - EXACT_VALUES) / SUB_BUCKETS;
+        final int subBucket = (bucket - EXACT_VALUES) % SUB_BUCKETS;
+        return (SUB_BUCKETS + subBucket) << (powerOfTwo - SUB_BUCKET_BITS);
+    }
+
+    private static int width(int bucket) {
+        return bucket < EXACT_VALUES ? 1 : 1 << ((bucket - EXACT_VALUES) / SUB_BUCKETS + EXACT_BITS - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Adds a value, negative values count as 0
+     */
+    public void add(int value) {
+        final int bucket = bucket(Math.max(0, value));
+        if (bucket >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.min(MAX_BUCKETS, Math.max(bucket + 1, counts.length * 2)));
+        }
+        counts[bucket]++;
+        total++;
+    }
+
+    public void merge(LogHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int bucket = 0; bucket < other.counts.length; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        total += other.total;
+    }
+
+    /**
+     * @return the number of values added
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Nearest-rank quantile: the smallest value at least the given fraction of all values are less than or equal to.
+     * Values of wider buckets are reported as the middle of the bucket.
+     *
+     * @param quantile between 0 and 1, e.g. 0.9 for the 90th percentile
+     * @return the quantile, 0 if no value was added
+     */
+    public double quantile(double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return lowerBound(bucket) + (width(bucket) - 1) / 2.0;
+            }
+        }
+        return lowerBound(counts.length - 1);
+    }
+
+    /**
+     * @return the bucket counts up to the last non-empty bucket, see {@link #of(int[])}
+     */
+    public int[] toArray() {
+        int length = counts.length;
+        while (length > 0 && counts[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(counts, length);
+    }
+
+    /**
+     * Restores a histogram written by {@link #toArray()}
+     */
+    public static LogHistogram of(int[] counts) {
+        if (counts.length > MAX_BUCKETS) {
+            throw new IllegalArgumentException("Not a histogram: " + counts.length + " buckets");
+        }
+        return new LogHistogram(Arrays.copyOf(counts, Math.max(INITIAL_BUCKETS, counts.length)));
+    }
+}
@@ -0,0 +1,169 @@
+package analyzer.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a source stream ahead on a virtual thread of the {@link Scheduler}, so an expensive source (e.g. a decompressor)
+ * runs concurrently with whoever consumes this stream. Data is handed over in a fixed set of recycled
+ * chunks, at most {@code depth} chunks are buffered. Failures of the source are rethrown to the reader.
+ */
+public final class PipelinedInputStream extends InputStream {
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> filled;
+    private final BlockingQueue<Chunk> free;
+    private final Thread producer;
+    private volatile IOException failure;
+
+    private Chunk current;
+    private int position;
+    private boolean endOfStream;
+    private boolean closed;
+
+    public PipelinedInputStream(InputStream source, int chunkSize, int depth) {
+        this.source = source;
+        // one extra slot for the end marker, the producer never blocks on it
+        this.filled = new ArrayBlockingQueue<>(depth + 1);
+        this.free = new ArrayBlockingQueue<>(depth);
+        for (int i = 0; i < depth; i++) {
+            free.add(new Chunk(new byte[chunkSize]));
+        }
+
+        this.producer = Scheduler.shared().ioThreads().newThread(this::produce);
+        producer.start();
+    }
+
+    private void produce() {
+        try {
+            while (true) {
+                final Chunk chunk = free.take();
+                chunk.length = source.readNBytes(chunk.data, 0, chunk.data.length);
+                if (chunk.length == 0) {
+                    break;
+                }
+                filled.put(chunk);
+                if (chunk.length < chunk.data.length) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed by the reader
+            return;
+        } catch (IOException e) {
+            failure = e;
+        }
+        filled.add(Chunk.END);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+
+        final int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return current != null ? current.length - position : 0;
+    }
+
+    /**
+     * Makes sure the current chunk has unread bytes
+     *
+     * @return false at the end of the source
+     */
+    private boolean ensureData() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (endOfStream) {
+            return false;
+        }
+
+        if (current != null) {
+            free.add(current);
+            current = null;
+        }
+
+        final Chunk next;
+        try {
+            next = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for input");
+        }
+
+        if (next == Chunk.END) {
+            endOfStream = true;
+            if (failure != null) {
+                throw new IOException("Reading the source stream failed", failure);
+            }
+            return false;
+        }
+
+        current = next;
+        position = 0;
+        return true;
+    }
+
+    /**
+     * Stops the background reader and closes the source
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        producer.interrupt();
+        boolean interrupted = false;
+        while (producer.isAlive()) {
+            try {
+                producer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        source.close();
+    }
+
+    private static final class Chunk {
+
+        private static final Chunk END = new Chunk(new byte[0]);
+
+        private final byte[] data;
+        private int length;
+
+        private Chunk(byte[] data) {
+            this.data = data;
+        }
+    }
+}
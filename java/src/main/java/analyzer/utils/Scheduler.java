@@ -0,0 +1,89 @@
+package analyzer.utils;
+
+import analyzer.config.AnalyzerConfig;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Execution layer shared by the whole run. Blocking work (reading and writing files, waiting for other tasks)
+ * runs on virtual threads, CPU-bound work on a fixed pool of {@link AnalyzerConfig#THREAD_POOL_SIZE} platform threads.
+ * <p>
+ * Tasks on the CPU pool must never wait for other tasks, fork and join them from an IO thread or the caller
+ * instead. Otherwise nested waits could occupy every pool thread.
+ */
+public final class Scheduler implements AutoCloseable {
+
+    private static final Scheduler SHARED = new Scheduler(AnalyzerConfig.THREAD_POOL_SIZE);
+
+    private final int cpuThreads;
+    private final ExecutorService cpu;
+    private final ThreadFactory ioThreads = Thread.ofVirtual().name("analyzer-io-", 0).factory();
+    private final ExecutorService io = Executors.newThreadPerTaskExecutor(ioThreads);
+
+    public Scheduler(int cpuThreads) {
+        this.cpuThreads = cpuThreads;
+        this.cpu = Executors.newFixedThreadPool(cpuThreads, Thread.ofPlatform().name("analyzer-cpu-", 0).daemon(true).factory());
+    }
+
+    /**
+     * The scheduler used by the analysis, sized by the configuration
+     */
+    public static Scheduler shared() {
+        return SHARED;
+    }
+
+    public Executor cpu() {
+        return cpu;
+    }
+
+    public Executor io() {
+        return io;
+    }
+
+    /**
+     * Creates unstarted virtual threads, for long running readers that are not tied to a {@link TaskScope}
+     */
+    public ThreadFactory ioThreads() {
+        return ioThreads;
+    }
+
+    public int getCpuThreads() {
+        return cpuThreads;
+    }
+
+    /**
+     * Runs the task on the CPU pool and waits for its result, meant to be called from IO threads
+     */
+    public <T> T compute(Callable<T> task) throws Exception {
+        final Future<T> future = cpu.submit(task);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops the pools of a scheduler created for a single purpose, e.g. a benchmark. The shared scheduler lives as long as the JVM.
+     */
+    @Override
+    public void close() {
+        if (this == SHARED) {
+            return;
+        }
+        cpu.shutdown();
+        io.shutdown();
+    }
+}
@@ -12,6 +12,25 @@ import java.util.stream.Collectors;
 
 public class SocialGraphUtils {
 
+    /**
+     * Maps author ids to names, used to label mentioned users
+     */
+    public static Map<String, String> idToNameMap(Collection<AuthorData> authorDataCollection) {
+        final Map<String, String> idToNameMap = new HashMap<>();
+        for (AuthorData authorData : authorDataCollection) {
+            idToNameMap.put(authorData.getAuthorId(), authorData.getAuthor().getName());
+        }
+        return idToNameMap;
+    }
+
+    /**
+     * Maps author ids to their data
+     */
+    public static Map<String, AuthorData> authorsById(Collection<AuthorData> authorDataCollection) {
+        return authorDataCollection.stream()
+            .collect(Collectors.toMap(AuthorData::getAuthorId, data -> data));
+    }
+
     /**
      * Calculates the most connected users in the social graph based on total connections
      */
@@ -20,8 +39,8 @@ public class SocialGraphUtils {
             .map(authorData -> new UserConnection(
                 authorData.getAuthorId(),
                 authorData.getAuthor().getNickname(),
-                authorData.getMentionsSent().size(),
-                authorData.getMentionsReceived().size(),
+                authorData.getDistinctUsersMentioned(),
+                authorData.getDistinctMentioners(),
                 authorData.getTotalMentionsSent(),
                 authorData.getTotalMentionsReceived()
             ))
@@ -34,9 +53,15 @@ public class SocialGraphUtils {
      */
     public static List<MutualMentionRelationship> findMutualMentionRelationships(
         final Collection<AuthorData> authorDataCollection) {
+        return findMutualMentionRelationships(authorDataCollection, authorsById(authorDataCollection));
+    }
+
+    /**
+     * Finds mutual mention relationships with a prebuilt {@link #authorsById(Collection)} lookup
+     */
+    public static List<MutualMentionRelationship> findMutualMentionRelationships(
+        final Collection<AuthorData> authorDataCollection, final Map<String, AuthorData> userIdToAuthorData) {
         final List<MutualMentionRelationship> mutualRelationships = new ArrayList<>();
-        final Map<String, AuthorData> userIdToAuthorData = authorDataCollection.stream()
-            .collect(Collectors.toMap(AuthorData::getAuthorId, data -> data));
 
         for (AuthorData authorData : authorDataCollection) {
             final String userId = authorData.getAuthorId();
@@ -49,8 +74,8 @@ public class SocialGraphUtils {
                 // Check if the mentioned user also mentions this user back
                 final AuthorData mentionedUser = userIdToAuthorData.get(mentionedUserId);
                 if (mentionedUser != null) {
-                    final Integer mentionsReceivedCount = mentionedUser.getMentionsSent().get(userId);
-                    if (mentionsReceivedCount != null && mentionsReceivedCount > 0) {
+                    final int mentionsReceivedCount = mentionedUser.getMentionsSentTo(userId);
+                    if (mentionsReceivedCount > 0) {
                         // Mutual relationship found - avoid duplicates by only adding if userId < mentionedUserId
                         if (userId.compareTo(mentionedUserId) < 0) {
                             // Get user names for display
@@ -80,15 +105,17 @@ public class SocialGraphUtils {
      * Exports social graph data in a format suitable for network visualization tools
      */
     public static SocialGraphExport exportSocialGraphData(Collection<AuthorData> authorDataCollection) {
+        return exportSocialGraphData(authorDataCollection, idToNameMap(authorDataCollection));
+    }
+
+    /**
+     * Exports social graph data with a prebuilt {@link #idToNameMap(Collection)}
+     */
+    public static SocialGraphExport exportSocialGraphData(Collection<AuthorData> authorDataCollection,
+                                                          Map<String, String> idToNameMap) {
         final List<Node> nodes = new ArrayList<>();
         final List<Edge> edges = new ArrayList<>();
 
-        // Create mapping from ID to name for lookup
-        final Map<String, String> idToNameMap = new HashMap<>();
-        for (AuthorData authorData : authorDataCollection) {
-            idToNameMap.put(authorData.getAuthorId(), authorData.getAuthor().getName());
-        }
-
         // Create nodes (using names as IDs for visualization)
         for (AuthorData authorData : authorDataCollection) {
             nodes.add(new Node(
@@ -125,7 +152,7 @@ public class SocialGraphUtils {
             .sum();
 
         final int totalConnections = authorDataCollection.stream()
-            .mapToInt(authorData -> authorData.getMentionsSent().size())
+            .mapToInt(AuthorData::getDistinctUsersMentioned)
             .sum();
 
         final double averageConnectionsPerUser = totalUsers > 0 ? (double) totalConnections / totalUsers : 0;
@@ -22,10 +22,23 @@ public class SocialGraphVisualizer {
      * Generate a simple text-based visualization of the social graph
      */
     public static String generateTextVisualization(Collection<AuthorData> authorDataCollection) {
+        final Map<String, AuthorData> authorsById = SocialGraphUtils.authorsById(authorDataCollection);
+        return generateTextVisualization(
+            SocialGraphUtils.calculateNetworkStatistics(authorDataCollection),
+            SocialGraphUtils.getMostConnectedUsers(authorDataCollection),
+            SocialGraphUtils.findMutualMentionRelationships(authorDataCollection, authorsById),
+            authorsById);
+    }
+
+    /**
+     * Generate the text visualization from intermediate results computed once per analysis
+     */
+    public static String generateTextVisualization(NetworkStatistics stats, List<UserConnection> mostConnected,
+                                                   List<MutualMentionRelationship> mutualRelationships,
+                                                   Map<String, AuthorData> authorsById) {
         StringBuilder sb = new StringBuilder();
 
         // Network overview
-        NetworkStatistics stats = SocialGraphUtils.calculateNetworkStatistics(authorDataCollection);
         sb.append("=== SOCIAL GRAPH ANALYSIS ===\n\n");
         sb.append("Network Statistics:\n");
         sb.append("- Total Users: ").append(stats.totalUsers()).append("\n");
@@ -35,7 +48,6 @@ public class SocialGraphVisualizer {
         sb.append("- Avg Mentions/User: ").append(String.format("%.2f", stats.averageMentionsPerUser())).append("\n\n");
 
         // Most connected users
-        List<UserConnection> mostConnected = SocialGraphUtils.getMostConnectedUsers(authorDataCollection);
         sb.append("=== MOST CONNECTED USERS ===\n");
         for (int i = 0; i < Math.min(10, mostConnected.size()); i++) {
             UserConnection user = mostConnected.get(i);
@@ -45,7 +57,6 @@ public class SocialGraphVisualizer {
         }
 
         // Mutual relationships
-        List<MutualMentionRelationship> mutualRelationships = SocialGraphUtils.findMutualMentionRelationships(authorDataCollection);
         sb.append("\n=== TOP MUTUAL RELATIONSHIPS ===\n");
         for (int i = 0; i < Math.min(10, mutualRelationships.size()); i++) {
             MutualMentionRelationship rel = mutualRelationships.get(i);
@@ -58,7 +69,7 @@ public class SocialGraphVisualizer {
 
         // Simple network diagram
         sb.append("\n=== NETWORK DIAGRAM ===\n");
-        sb.append(generateSimpleNetworkDiagram(authorDataCollection));
+        sb.append(generateSimpleNetworkDiagram(mostConnected, authorsById));
 
         return sb.toString();
     }
@@ -66,11 +77,10 @@ public class SocialGraphVisualizer {
     /**
      * Generate a simple ASCII network diagram
      */
-    private static String generateSimpleNetworkDiagram(Collection<AuthorData> authorDataCollection) {
+    private static String generateSimpleNetworkDiagram(List<UserConnection> mostConnected, Map<String, AuthorData> authorsById) {
         StringBuilder sb = new StringBuilder();
 
-        List<UserConnection> topUsers = SocialGraphUtils.getMostConnectedUsers(authorDataCollection)
-            .stream()
+        List<UserConnection> topUsers = mostConnected.stream()
             .limit(8)  // Show top 8 users to keep diagram readable
             .collect(Collectors.toList());
 
@@ -78,21 +88,15 @@ public class SocialGraphVisualizer {
             sb.append(String.format("%-15s", user.getNickname()));
 
             // Find who this user mentions most
-            AuthorData userData = authorDataCollection.stream()
-                .filter(ad -> ad.getAuthorId().equals(user.getUserId()))
-                .findFirst()
-                .orElse(null);
+            AuthorData userData = authorsById.get(user.getUserId());
 
             if (userData != null && !userData.getMentionsSent().isEmpty()) {
                 String topMentioned = userData.getMentionsSent().entrySet().stream()
                     .max(Map.Entry.comparingByValue())
                     .map(entry -> {
                         // Find nickname for this user ID
-                        return authorDataCollection.stream()
-                            .filter(ad -> ad.getAuthorId().equals(entry.getKey()))
-                            .findFirst()
-                            .map(ad -> ad.getAuthor().getNickname())
-                            .orElse("Unknown");
+                        AuthorData mentioned = authorsById.get(entry.getKey());
+                        return mentioned != null ? mentioned.getAuthor().getNickname() : "Unknown";
                     })
                     .orElse("None");
 
@@ -112,7 +116,14 @@ public class SocialGraphVisualizer {
      * Generate HTML content for visualization (as string)
      */
     public static String generateHTMLContent(Collection<AuthorData> authorDataCollection) {
-        SocialGraphExport graphData = SocialGraphUtils.exportSocialGraphData(authorDataCollection);
+        return generateHTMLContent(SocialGraphUtils.exportSocialGraphData(authorDataCollection),
+            SocialGraphUtils.calculateNetworkStatistics(authorDataCollection));
+    }
+
+    /**
+     * Generate HTML content from intermediate results computed once per analysis
+     */
+    public static String generateHTMLContent(SocialGraphExport graphData, NetworkStatistics stats) {
 
         StringBuilder html = new StringBuilder();
         html.append("<!DOCTYPE html>\n");
@@ -130,7 +141,6 @@ public class SocialGraphVisualizer {
         html.append("<h1>Discord Social Graph Visualization</h1>\n");
 
         // Add network statistics
-        NetworkStatistics stats = SocialGraphUtils.calculateNetworkStatistics(authorDataCollection);
         html.append("<div class=\"stats\">\n");
         html.append("<h3>Network Statistics</h3>\n");
         html.append("<p><strong>Total Users:</strong> ").append(stats.totalUsers()).append("</p>\n");
@@ -0,0 +1,178 @@
+package analyzer.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small dependency graph executor. Every node declares the nodes it depends on and is started once all of them
+ * are done, independent nodes run concurrently within one {@link TaskScope}. A node is computed at most once per
+ * graph, its result is memoized and shared by all dependents, also across several {@link #run(Collection)} calls.
+ */
+public final class TaskGraph {
+
+    private static final Object NULL_RESULT = new Object();
+
+    private final Scheduler scheduler;
+    private final Map<Node<?>, Object> results = new ConcurrentHashMap<>();
+
+    public TaskGraph(Scheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Declares a CPU-bound node, run on the CPU pool of the scheduler
+     */
+    public static <T> Node<T> cpu(String name, Computation<T> computation, Node<?>... dependencies) {
+        return new Node<>(name, false, computation, List.of(dependencies));
+    }
+
+    /**
+     * Declares a blocking node, e.g. writing a file, run on a virtual thread
+     */
+    public static <T> Node<T> io(String name, Computation<T> computation, Node<?>... dependencies) {
+        return new Node<>(name, true, computation, List.of(dependencies));
+    }
+
+    /**
+     * Computes the given nodes and everything they depend on, skipping nodes computed by an earlier run.
+     * The first failing node cancels the remaining ones.
+     */
+    public void run(Collection<? extends Node<?>> targets) throws InterruptedException, ExecutionException {
+        final List<Node<?>> pending = new ArrayList<>();
+        collect(targets, pending, new HashSet<>(), new HashSet<>());
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        final Map<Node<?>, AtomicInteger> openDependencies = new HashMap<>();
+        final Map<Node<?>, List<Node<?>>> dependents = new HashMap<>();
+        final List<Node<?>> ready = new ArrayList<>();
+        for (Node<?> node : pending) {
+            int open = 0;
+            for (Node<?> dependency : node.dependencies) {
+                if (!results.containsKey(dependency)) {
+                    dependents.computeIfAbsent(dependency, key -> new ArrayList<>()).add(node);
+                    open++;
+                }
+            }
+            openDependencies.put(node, new AtomicInteger(open));
+            if (open == 0) {
+                ready.add(node);
+            }
+        }
+
+        // The ready nodes are collected up front, once forking starts, counters reach zero concurrently
+        try (TaskScope scope = new TaskScope()) {
+            ready.forEach(node -> fork(scope, node, openDependencies, dependents));
+            scope.join();
+        }
+    }
+
+    /**
+     * @return the memoized result of a node computed by {@link #run(Collection)}
+     */
+    public <T> T get(Node<T> node) {
+        final Object result = results.get(node);
+        if (result == null) {
+            throw new IllegalStateException("Node was not computed: " + node.name);
+        }
+        return unwrap(result);
+    }
+
+    private void fork(TaskScope scope, Node<?> node, Map<Node<?>, AtomicInteger> openDependencies,
+                      Map<Node<?>, List<Node<?>>> dependents) {
+        scope.fork(node.blocking ? scheduler.io() : scheduler.cpu(), () -> {
+            final Object result = node.computation.compute(new Results(node));
+            results.put(node, result != null ? result : NULL_RESULT);
+
+            for (Node<?> dependent : dependents.getOrDefault(node, List.of())) {
+                if (openDependencies.get(dependent).decrementAndGet() == 0) {
+                    fork(scope, dependent, openDependencies, dependents);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Depth-first walk adding every node that is not computed yet, dependencies before their dependents
+     */
+    private void collect(Collection<? extends Node<?>> nodes, List<Node<?>> pending, Set<Node<?>> visited, Set<Node<?>> path) {
+        for (Node<?> node : nodes) {
+            if (path.contains(node)) {
+                throw new IllegalArgumentException("Dependency cycle at node " + node.name);
+            }
+            if (results.containsKey(node) || !visited.add(node)) {
+                continue;
+            }
+            path.add(node);
+            collect(node.dependencies, pending, visited, path);
+            path.remove(node);
+            pending.add(node);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T unwrap(Object result) {
+        return result == NULL_RESULT ? null : (T) result;
+    }
+
+    @FunctionalInterface
+    public interface Computation<T> {
+        T compute(Results results) throws Exception;
+    }
+
+    /**
+     * A product of the graph. Nodes are compared by identity.
+     */
+    public static final class Node<T> {
+
+        private final String name;
+        private final boolean blocking;
+        private final Computation<T> computation;
+        private final List<Node<?>> dependencies;
+
+        private Node(String name, boolean blocking, Computation<T> computation, List<Node<?>> dependencies) {
+            this.name = name;
+            this.blocking = blocking;
+            this.computation = computation;
+            this.dependencies = dependencies;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * Gives a running node access to the results of its declared dependencies
+     */
+    public final class Results {
+
+        private final Node<?> node;
+
+        private Results(Node<?> node) {
+            this.node = node;
+        }
+
+        public <T> T get(Node<T> dependency) {
+            if (!node.dependencies.contains(dependency)) {
+                throw new IllegalArgumentException(node.name + " does not declare a dependency on " + dependency.name);
+            }
+            return TaskGraph.this.get(dependency);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package analyzer.utils;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Structured group of concurrent subtasks, used like the JDK's preview {@code StructuredTaskScope.ShutdownOnFailure}:
+ * subtasks are forked onto an executor of the {@link Scheduler}, {@link #join()} waits for all of them and
+ * rethrows the first failure. A failure cancels all other subtasks, interrupting the running ones.
+ * {@link #close()} never returns while a subtask of the scope is still running.
+ * <p>
+ * Unlike the JDK scope, subtasks may fork further subtasks into the scope they run in.
+ */
+public final class TaskScope implements AutoCloseable {
+
+    private final Set<Subtask<?>> running = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Object lock = new Object();
+    private int pending;
+    private volatile boolean shutdown;
+    private boolean closed;
+
+    /**
+     * Starts the task on the executor
+     *
+     * @return a handle to read the result after {@link #join()}
+     */
+    public <T> Subtask<T> fork(Executor executor, Callable<T> task) {
+        final Subtask<T> subtask = new Subtask<>(this, task);
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Task scope is closed");
+            }
+            if (shutdown) {
+                subtask.state.set(Subtask.DONE);
+                return subtask;
+            }
+            pending++;
+        }
+
+        running.add(subtask);
+        try {
+            executor.execute(subtask);
+        } catch (RejectedExecutionException e) {
+            if (subtask.state.compareAndSet(Subtask.NEW, Subtask.DONE)) {
+                subtask.fail(e);
+                subtaskDone(subtask);
+            }
+        }
+        return subtask;
+    }
+
+    /**
+     * Waits until all subtasks are done
+     *
+     * @throws ExecutionException with the first failure of a subtask as cause
+     */
+    public void join() throws InterruptedException, ExecutionException {
+        try {
+            awaitSubtasks(true);
+        } catch (InterruptedException e) {
+            shutdown();
+            throw e;
+        }
+
+        final Throwable cause = failure.get();
+        if (cause != null) {
+            throw new ExecutionException(cause);
+        }
+    }
+
+    /**
+     * Cancels all subtasks that did not finish yet, new forks are not started anymore
+     */
+    public void shutdown() {
+        shutdown = true;
+        running.forEach(Subtask::cancel);
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Cancels the remaining subtasks and waits for them to stop
+     */
+    @Override
+    public void close() {
+        shutdown();
+        try {
+            awaitSubtasks(false);
+        } catch (InterruptedException e) {
+            // not reached, waiting uninterruptibly
+        }
+        synchronized (lock) {
+            closed = true;
+        }
+    }
+
+    private void awaitSubtasks(boolean interruptible) throws InterruptedException {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (pending > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    if (interruptible) {
+                        throw e;
+                    }
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void subtaskFailed(Throwable cause) {
+        if (failure.compareAndSet(null, cause)) {
+            shutdown();
+        }
+    }
+
+    private void subtaskDone(Subtask<?> subtask) {
+        running.remove(subtask);
+        synchronized (lock) {
+            pending--;
+            if (pending == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Handle of a forked task
+     */
+    public static final class Subtask<T> implements Runnable {
+
+        private static final int NEW = 0;
+        private static final int RUNNING = 1;
+        private static final int DONE = 2;
+
+        private final TaskScope scope;
+        private final Callable<T> task;
+        private final AtomicInteger state = new AtomicInteger(NEW);
+        private Thread runner;
+        private volatile boolean succeeded;
+        private T result;
+        private Throwable exception;
+
+        private Subtask(TaskScope scope, Callable<T> task) {
+            this.scope = scope;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(NEW, RUNNING)) {
+                return;
+            }
+            synchronized (this) {
+                runner = Thread.currentThread();
+            }
+
+            try {
+                if (!scope.isShutdown()) {
+                    result = task.call();
+                    succeeded = true;
+                }
+            } catch (Throwable t) {
+                fail(t);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                // a cancellation racing with the end of the task must not leak into the next task of the thread
+                Thread.interrupted();
+                finish();
+            }
+        }
+
+        /**
+         * @return the result of the task
+         * @throws IllegalStateException if the task did not complete successfully
+         */
+        public T get() {
+            if (!succeeded) {
+                throw new IllegalStateException("Subtask did not complete successfully", exception);
+            }
+            return result;
+        }
+
+        public boolean isSucceeded() {
+            return succeeded;
+        }
+
+        private void fail(Throwable cause) {
+            exception = cause;
+            scope.subtaskFailed(cause);
+        }
+
+        private void finish() {
+            state.set(DONE);
+            scope.subtaskDone(this);
+        }
+
+        private void cancel() {
+            if (state.compareAndSet(NEW, DONE)) {
+                scope.subtaskDone(this);
+                return;
+            }
+            synchronized (this) {
+                if (runner != null) {
+                    runner.interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package analyzer.utils;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Decodes the ISO-8601 timestamps of DiscordChatExporter ({@code 2018-10-18T08:52:29.781+00:00}) without
+ * going through {@link java.time.format.DateTimeFormatter}. Anything not in that layout falls back to
+ * {@link OffsetDateTime#parse(CharSequence)}. Malformed timestamps throw a {@link DateTimeParseException}, like
+ * java.time does.
+ */
+public final class Timestamps {
+
+    private static final int MIN_LENGTH = "2018-10-18T08:52:29Z".length();
+
+    private Timestamps() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * Returns the instant of the timestamp in milliseconds since the epoch
+     */
+    public static long epochMillis(String timestamp) {
+        if (!isStandardLayout(timestamp)) {
+            return OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+        }
+
+        final int year = digits(timestamp, 0, 4);
+        final int month = digits(timestamp, 5, 2);
+        final int day = digits(timestamp, 8, 2);
+        final int hour = digits(timestamp, 11, 2);
+        final int minute = digits(timestamp, 14, 2);
+        final int second = digits(timestamp, 17, 2);
+        if (!isValidDateTime(year, month, day, hour, minute, second)) {
+            // let java.time report the invalid date or time
+            return OffsetDateTime.parse(timestamp).toInstant().toEpochMilli();
+        }
+        final long epochDay = epochDay(year, month, day);
+        final long secondOfDay = hour * 3600L + minute * 60L + second;
+        return (epochDay * 86_400L + secondOfDay - offsetSeconds(timestamp)) * 1000L + fractionMillis(timestamp);
+    }
+
+    /**
+     * Returns the UTC offset of the timestamp in seconds
+     */
+    public static int offsetSeconds(String timestamp) {
+        if (!isStandardLayout(timestamp)) {
+            return OffsetDateTime.parse(timestamp).getOffset().getTotalSeconds();
+        }
+
+        // The offset of a timestamp with an invalid date or time is just as invalid
+        if (!isValidDateTime(digits(timestamp, 0, 4), digits(timestamp, 5, 2), digits(timestamp, 8, 2),
+            digits(timestamp, 11, 2), digits(timestamp, 14, 2), digits(timestamp, 17, 2))) {
+            return OffsetDateTime.parse(timestamp).getOffset().getTotalSeconds();
+        }
+
+        final int offsetStart = offsetStart(timestamp);
+        if (timestamp.charAt(offsetStart) == 'Z') {
+            return 0;
+        }
+        final int hours = digits(timestamp, offsetStart + 1, 2);
+        final int minutes = digits(timestamp, offsetStart + 4, 2);
+        if (hours > 18 || minutes > 59 || hours * 60 + minutes > 18 * 60) {
+            // let java.time report the invalid offset
+            return OffsetDateTime.parse(timestamp).getOffset().getTotalSeconds();
+        }
+        final int seconds = hours * 3600 + minutes * 60;
+        return timestamp.charAt(offsetStart) == '-' ? -seconds : seconds;
+    }
+
+    /**
+     * Returns the calendar day of the timestamp as written, i.e. in its own offset, in days since the epoch.
+     * Only the leading {@code yyyy-MM-dd} is read, without allocating.
+     */
+    public static int localEpochDay(String timestamp) {
+        if (timestamp.length() < 10 || timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-') {
+            return (int) LocalDate.parse(timestamp.substring(0, 10)).toEpochDay();
+        }
+
+        final int year = digits(timestamp, 0, 4);
+        final int month = digits(timestamp, 5, 2);
+        final int day = digits(timestamp, 8, 2);
+        if (!isValidDate(year, month, day)) {
+            // let java.time report the invalid date
+            return (int) LocalDate.parse(timestamp.substring(0, 10)).toEpochDay();
+        }
+        return (int) epochDay(year, month, day);
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date, see Howard Hinnant's days_from_civil
+     */
+    public static long epochDay(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = Math.floorDiv(y, 400);
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+
+    private static boolean isValidDateTime(int year, int month, int day, int hour, int minute, int second) {
+        return isValidDate(year, month, day) && hour <= 23 && minute <= 59 && second <= 59;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static boolean isStandardLayout(String timestamp) {
+        if (timestamp.length() < MIN_LENGTH
+            || timestamp.charAt(4) != '-' || timestamp.charAt(7) != '-' || timestamp.charAt(10) != 'T'
+            || timestamp.charAt(13) != ':' || timestamp.charAt(16) != ':') {
+            return false;
+        }
+
+        final int offsetStart = offsetStart(timestamp);
+        // at most nine fraction digits, java.time reports more
+        if (offsetStart > 29) {
+            return false;
+        }
+        final char sign = timestamp.charAt(offsetStart);
+        if (sign == 'Z') {
+            return offsetStart == timestamp.length() - 1;
+        }
+        return (sign == '+' || sign == '-')
+            && offsetStart == timestamp.length() - 6
+            && timestamp.charAt(offsetStart + 3) == ':';
+    }
+
+    private static int offsetStart(String timestamp) {
+        int index = 19;
+        if (timestamp.charAt(index) == '.') {
+            index++;
+            while (index < timestamp.length() && isDigit(timestamp.charAt(index))) {
+                index++;
+            }
+        }
+        return Math.min(index, timestamp.length() - 1);
+    }
+
+    private static int fractionMillis(String timestamp) {
+        if (timestamp.charAt(19) != '.') {
+            return 0;
+        }
+
+        // only the first three of the fraction digits matter
+        int millis = 0;
+        int index = 20;
+        for (int place = 0; place < 3; place++) {
+            final char c = index < timestamp.length() ? timestamp.charAt(index) : 'Z';
+            if (isDigit(c)) {
+                millis = millis * 10 + (c - '0');
+                index++;
+            } else {
+                millis *= 10;
+            }
+        }
+        return millis;
+    }
+
+    // Only ASCII digits, unlike Character.isDigit
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int digits(String text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            final char c = text.charAt(i);
+            if (!isDigit(c)) {
+                throw new DateTimeParseException("Text '" + text + "' could not be parsed at index " + i, text, i);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
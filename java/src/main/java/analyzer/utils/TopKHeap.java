@@ -0,0 +1,132 @@
+package analyzer.utils;
+
+import java.util.Arrays;
+
+/**
+ * Bounded heap keeping the k best (index, score) pairs without boxing. Higher scores are better, equal scores are
+ * ordered by index, the lower index first. The order is total, so the result does not depend on the order of the
+ * offers, and heaps over disjoint index ranges can be {@link #merge(TopKHeap) merged} to the top k of the union.
+ * <p>
+ * The root is the worst pair kept, a full heap replaces it in O(log k). Storage grows with the pairs kept,
+ * so an unbounded k costs no more than the input.
+ */
+public final class TopKHeap {
+
+    private final int k;
+    private int[] indexes;
+    private long[] scores;
+    private int size;
+
+    public TopKHeap(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.k = k;
+        this.indexes = new int[Math.min(k, 16)];
+        this.scores = new long[indexes.length];
+    }
+
+    /**
+     * Maps a double to a long with the same order, for ranking by fractional scores
+     */
+    public static long doubleScore(double value) {
+        final long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    public void offer(int index, long score) {
+        if (size < k) {
+            if (size == indexes.length) {
+                final int capacity = (int) Math.min(k, Math.max(16L, size * 2L));
+                indexes = Arrays.copyOf(indexes, capacity);
+                scores = Arrays.copyOf(scores, capacity);
+            }
+            indexes[size] = index;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (k > 0 && isWorse(indexes[0], scores[0], index, score)) {
+            indexes[0] = index;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Offers all pairs of the other heap, e.g. a partial result of another range of indexes
+     */
+    public void merge(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offer(other.indexes[i], other.scores[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the indexes kept, best first
+     */
+    public int[] sortedIndexes() {
+        final int[] heapIndexes = Arrays.copyOf(indexes, size);
+        final long[] heapScores = Arrays.copyOf(scores, size);
+        final int[] sorted = new int[size];
+        // Heap sort on a copy: the worst remaining pair is at the root, it goes to the back
+        for (int remaining = size; remaining > 0; remaining--) {
+            sorted[remaining - 1] = heapIndexes[0];
+            heapIndexes[0] = heapIndexes[remaining - 1];
+            heapScores[0] = heapScores[remaining - 1];
+            siftDown(heapIndexes, heapScores, remaining - 1, 0);
+        }
+        return sorted;
+    }
+
+    /**
+     * @return whether pair a ranks below pair b
+     */
+    private static boolean isWorse(int indexA, long scoreA, int indexB, long scoreB) {
+        return scoreA < scoreB || (scoreA == scoreB && indexA > indexB);
+    }
+
+    private void siftUp(int position) {
+        final int index = indexes[position];
+        final long score = scores[position];
+        while (position > 0) {
+            final int parent = (position - 1) >>> 1;
+            if (!isWorse(index, score, indexes[parent], scores[parent])) {
+                break;
+            }
+            indexes[position] = indexes[parent];
+            scores[position] = scores[parent];
+            position = parent;
+        }
+        indexes[position] = index;
+        scores[position] = score;
+    }
+
+    private void siftDown(int position) {
+        siftDown(indexes, scores, size, position);
+    }
+
+    private static void siftDown(int[] indexes, long[] scores, int size, int position) {
+        final int index = indexes[position];
+        final long score = scores[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && isWorse(indexes[child + 1], scores[child + 1], indexes[child], scores[child])) {
+                child++;
+            }
+            if (!isWorse(indexes[child], scores[child], index, score)) {
+                break;
+            }
+            indexes[position] = indexes[child];
+            scores[position] = scores[child];
+            position = child;
+        }
+        indexes[position] = index;
+        scores[position] = score;
+    }
+}
@@ -0,0 +1,49 @@
+package analyzer.utils;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * LEB128 style variable length encoding, small values take a single byte.
+ * Signed values are zigzag encoded so small negative numbers stay small as well.
+ */
+public final class VarInts {
+
+    private VarInts() {
+        // Utility class - prevent instantiation
+    }
+
+    public static void writeUnsigned(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readUnsigned(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable length integer");
+    }
+
+    public static void writeSigned(DataOutput out, long value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readSigned(DataInput in) throws IOException {
+        final long value = readUnsigned(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public static int readUnsignedInt(DataInput in) throws IOException {
+        return Math.toIntExact(readUnsigned(in));
+    }
+}
@@ -0,0 +1,79 @@
+package analyzer.utils;
+
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Word counting with the incubating Vector API, classifying a full vector of chars per step. Chunks containing
+ * non-ASCII chars are counted scalar with {@link Character#isWhitespace(char)}, so the result always matches
+ * {@link WordCounter#countWords(char[], int, int)}.
+ * <p>
+ * Only usable if {@link WordCounter#isVectorApiAvailable()}, loading this class fails otherwise.
+ */
+public final class VectorWordCounter {
+
+    private static final VectorSpecies<Short> SPECIES = ShortVector.SPECIES_PREFERRED;
+
+    private VectorWordCounter() {
+        // Utility class - prevent instantiation
+    }
+
+    /**
+     * @return the number of chars classified per step
+     */
+    public static int lanes() {
+        return SPECIES.length();
+    }
+
+    public static int countWords(char[] text, int from, int to) {
+        final int lanes = SPECIES.length();
+        final long laneBits = lanes == 64 ? -1L : (1L << lanes) - 1;
+
+        int count = 0;
+        // 1 if the char before the current chunk is whitespace, the start of the text counts as whitespace
+        long previousWhitespace = 1;
+
+        int i = from;
+        for (; i <= to - lanes; i += lanes) {
+            final ShortVector chars = ShortVector.fromCharArray(SPECIES, text, i);
+            if (chars.compare(VectorOperators.UNSIGNED_GT, (short) 127).anyTrue()) {
+                boolean inWord = previousWhitespace == 0;
+                for (int j = i; j < i + lanes; j++) {
+                    if (WordCounter.isWhitespace(text[j])) {
+                        inWord = false;
+                    } else if (!inWord) {
+                        count++;
+                        inWord = true;
+                    }
+                }
+                previousWhitespace = inWord ? 0 : 1;
+                continue;
+            }
+
+            // ASCII whitespace: space, \t to \r and the separators \u001C to \u001F
+            final VectorMask<Short> whitespace = chars.compare(VectorOperators.EQ, (short) ' ')
+                .or(chars.compare(VectorOperators.GE, (short) '\t').and(chars.compare(VectorOperators.LE, (short) '\r')))
+                .or(chars.compare(VectorOperators.GE, (short) 0x1C).and(chars.compare(VectorOperators.LE, (short) 0x1F)));
+            final long whitespaceBits = whitespace.toLong();
+
+            // a word starts at every non-whitespace char following a whitespace char
+            final long wordStarts = ~whitespaceBits & ((whitespaceBits << 1) | previousWhitespace) & laneBits;
+            count += Long.bitCount(wordStarts);
+            previousWhitespace = (whitespaceBits >>> (lanes - 1)) & 1;
+        }
+
+        boolean inWord = previousWhitespace == 0;
+        for (; i < to; i++) {
+            if (WordCounter.isWhitespace(text[i])) {
+                inWord = false;
+            } else if (!inWord) {
+                count++;
+                inWord = true;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,256 @@
+package analyzer.models.ranking;
+
+import analyzer.Analyzer;
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.Author;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Attachment;
+import analyzer.models.message.Mention;
+import analyzer.models.message.Message;
+import analyzer.service.cache.PartialAggregate;
+import analyzer.stats.AuthorData;
+import analyzer.stats.AuthorStatsStore;
+import analyzer.stats.DimensionCube;
+import analyzer.utils.WordCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DimensionRankingTest {
+
+    private static final int AUTHORS = 16;
+    private static final String[] WORDS = {"hello", "world", "lorem", "ipsum", "gg"};
+
+    // Two channels of category 10, one of category 20 and two without category
+    private final List<ChannelInfo> channels = List.of(
+        channel("1", "alpha-one", "10", "Alpha"),
+        channel("2", "alpha-two", "10", "Alpha"),
+        channel("3", "beta", "20", "Beta"),
+        channel("4", "loose", null, null),
+        channel("5", "other-loose", null, null));
+
+    // Counters in DimensionCube measure order per channel id and author id
+    private final Map<String, Map<String, long[]>> expectedCells = new HashMap<>();
+    private Analyzer raw;
+
+    @BeforeEach
+    void analyzeMessages() {
+        final Random random = new Random(42);
+        raw = new Analyzer();
+        int messageId = 0;
+        for (int author = 0; author < AUTHORS; author++) {
+            // The last author is not active enough to be ranked
+            final int messages = author == AUTHORS - 1 ? AnalyzerConfig.MIN_AMOUNT_MESSAGES - 1 : 10 + random.nextInt(60);
+            for (int i = 0; i < messages; i++) {
+                final ChannelInfo channel = channels.get(random.nextInt(channels.size()));
+                final Message message = message(messageId++, author, random);
+                raw.addMessage(channel, message);
+                count(channel, message);
+            }
+        }
+    }
+
+    @Test
+    void channelCellsRollUpToCategories() {
+        final AuthorStatsStore store = raw.getStatsStore();
+        final DimensionCube cube = store.getChannelCube();
+        final DimensionCube categories = cube.rollUp(channelId -> categoryId(channel(channelId)));
+        assertEquals(3, categories.memberCount());
+
+        for (int slot = 0; slot < store.size(); slot++) {
+            // Sum the channel cells of the author per category
+            final Map<String, long[]> sums = new HashMap<>();
+            for (int cell = cube.firstCell(slot); cell != DimensionCube.NO_CELL; cell = cube.nextCell(cell)) {
+                final String channelId = cube.getMemberId(cube.getMember(cell));
+                assertArrayEquals(expectedCells.get(channelId).get(store.getAuthorId(slot)), cube.getCounts(cell));
+                final long[] sum = sums.computeIfAbsent(categoryId(channel(channelId)),
+                    category -> new long[DimensionCube.MEASURE_COUNT]);
+                for (int measure = 0; measure < DimensionCube.MEASURE_COUNT; measure++) {
+                    sum[measure] += cube.get(cell, measure);
+                }
+            }
+
+            int cells = 0;
+            for (int cell = categories.firstCell(slot); cell != DimensionCube.NO_CELL; cell = categories.nextCell(cell)) {
+                assertArrayEquals(sums.get(categories.getMemberId(categories.getMember(cell))), categories.getCounts(cell));
+                cells++;
+            }
+            assertEquals(sums.size(), cells);
+        }
+    }
+
+    @Test
+    void rankingsMatchTheMessagesOfEveryChannelAndCategory() {
+        raw.finalizeAnalysis();
+        assertRankings(raw);
+    }
+
+    @Test
+    void rankingsOfARestoredCubeMatch() throws Exception {
+        final PartialAggregate partial = PartialAggregate.of(raw.getAuthorData(), raw.getChannelStore());
+        final Analyzer restored = new Analyzer();
+        restored.merge(partial.toStatsStore());
+        restored.merge(partial.toChannelStore());
+        restored.finalizeAnalysis();
+        assertRankings(restored);
+    }
+
+    private void assertRankings(Analyzer analyzer) {
+        final List<AuthorData> authors = analyzer.getSortedAuthorData();
+        assertEquals(AUTHORS - 1, authors.size());
+
+        final DimensionRanking byChannel = DimensionRanking.byChannel(authors, analyzer.getStatsStore(), analyzer.getChannelStore());
+        assertEquals("CHANNEL", byChannel.getDimension());
+        assertEquals(List.of("alpha-one", "alpha-two", "beta", "loose", "other-loose"),
+            byChannel.getMembers().stream().map(DimensionRanking.MemberRanking::getName).toList());
+        for (DimensionRanking.MemberRanking member : byChannel.getMembers()) {
+            assertMember(expectedCells.get(member.getId()), member, authors);
+        }
+
+        final DimensionRanking byCategory = DimensionRanking.byCategory(authors, analyzer.getStatsStore(), analyzer.getChannelStore());
+        assertEquals("CATEGORY", byCategory.getDimension());
+        // Channels without category are ranked together, that member has no name and comes first
+        final List<DimensionRanking.MemberRanking> categories = byCategory.getMembers();
+        assertEquals(List.of("", "10", "20"), categories.stream().map(DimensionRanking.MemberRanking::getId).toList());
+        assertNull(categories.get(0).getName());
+        assertEquals("Alpha", categories.get(1).getName());
+        assertEquals("Beta", categories.get(2).getName());
+        for (DimensionRanking.MemberRanking category : categories) {
+            final Map<String, long[]> cells = new HashMap<>();
+            for (ChannelInfo channel : channels) {
+                if (categoryId(channel).equals(category.getId())) {
+                    expectedCells.get(channel.getId()).forEach((authorId, counts) -> {
+                        final long[] sum = cells.computeIfAbsent(authorId, id -> new long[DimensionCube.MEASURE_COUNT]);
+                        for (int measure = 0; measure < DimensionCube.MEASURE_COUNT; measure++) {
+                            sum[measure] += counts[measure];
+                        }
+                    });
+                }
+            }
+            assertMember(cells, category, authors);
+
+            // The totals of a category are the totals of its channels
+            final long channelMessages = byChannel.getMembers().stream()
+                .filter(member -> categoryId(channel(member.getId())).equals(category.getId()))
+                .mapToLong(DimensionRanking.MemberRanking::getMessagesSent)
+                .sum();
+            assertEquals(channelMessages, category.getMessagesSent());
+        }
+    }
+
+    /**
+     * Compares a member with the counters of its authors, inactive authors are not ranked
+     */
+    private static void assertMember(Map<String, long[]> cells, DimensionRanking.MemberRanking member, List<AuthorData> authors) {
+        final Map<String, long[]> active = new LinkedHashMap<>();
+        authors.forEach(authorData -> {
+            if (cells.containsKey(authorData.getAuthorId())) {
+                active.put(authorData.getAuthorId(), cells.get(authorData.getAuthorId()));
+            }
+        });
+        assertNotEquals(0, active.size(), member.getId());
+
+        assertEquals(total(active, DimensionCube.MESSAGES), member.getMessagesSent(), member.getId());
+        assertEquals(total(active, DimensionCube.ATTACHMENTS), member.getAttachmentsSent(), member.getId());
+        assertEquals(total(active, DimensionCube.MENTIONING_MESSAGES), member.getCountMentions(), member.getId());
+        assertEquals(total(active, DimensionCube.MENTIONS), member.getTotalMentionsSent(), member.getId());
+        assertEquals(top(active, DimensionCube.MESSAGES, authors), member.getMostMessages(), member.getId());
+        assertEquals(top(active, DimensionCube.ATTACHMENTS, authors), member.getMostAttachments(), member.getId());
+        assertEquals(top(active, DimensionCube.MENTIONING_MESSAGES, authors), member.getTimesMentioned(), member.getId());
+        assertEquals(top(active, DimensionCube.MENTIONS, authors), member.getMostMentionsSent(), member.getId());
+    }
+
+    private static long total(Map<String, long[]> cells, int measure) {
+        return cells.values().stream().mapToLong(counts -> counts[measure]).sum();
+    }
+
+    /**
+     * The authors of the cells sorted by the measure, equal counts in the order of the authors, cut to the top k
+     */
+    private static List<RankedEntry<Long>> top(Map<String, long[]> cells, int measure, List<AuthorData> authors) {
+        final Map<String, AuthorData> byId = new HashMap<>();
+        authors.forEach(authorData -> byId.put(authorData.getAuthorId(), authorData));
+        final List<String> ids = new ArrayList<>(cells.keySet());
+        final Function<String, Long> count = id -> cells.get(id)[measure];
+        return IntStream.range(0, ids.size()).boxed()
+            .sorted(Comparator.comparing((Integer index) -> count.apply(ids.get(index))).reversed()
+                .thenComparing(Comparator.naturalOrder()))
+            .limit(AnalyzerConfig.DIMENSION_RANKING_TOP_K)
+            .map(index -> new RankedEntry<>(byId.get(ids.get(index)).getAuthor().getNickname(), count.apply(ids.get(index))))
+            .toList();
+    }
+
+    private void count(ChannelInfo channel, Message message) {
+        final long[] counts = expectedCells.computeIfAbsent(channel.getId(), id -> new HashMap<>())
+            .computeIfAbsent(message.getAuthor().getId(), id -> new long[DimensionCube.MEASURE_COUNT]);
+        counts[DimensionCube.MESSAGES]++;
+        counts[DimensionCube.WORDS] += WordCounter.countWords(message.getContent());
+        counts[DimensionCube.ATTACHMENTS] += message.getAttachments().length > 0 ? 1 : 0;
+        counts[DimensionCube.MENTIONING_MESSAGES] += message.getMentions().length > 0 ? 1 : 0;
+        counts[DimensionCube.MENTIONS] += message.getMentions().length;
+    }
+
+    private ChannelInfo channel(String channelId) {
+        return channels.stream().filter(channel -> channel.getId().equals(channelId)).findFirst().orElseThrow();
+    }
+
+    private static String categoryId(ChannelInfo channel) {
+        return channel.getCategoryId() != null ? channel.getCategoryId() : "";
+    }
+
+    private static ChannelInfo channel(String id, String name, String categoryId, String category) {
+        final ChannelInfo channel = new ChannelInfo();
+        channel.setId(id);
+        channel.setType("GuildTextChat");
+        channel.setName(name);
+        channel.setCategoryId(categoryId);
+        channel.setCategory(category);
+        return channel;
+    }
+
+    private static Message message(int id, int author, Random random) {
+        final Author sender = new Author();
+        sender.setId(String.valueOf(1000 + author));
+        sender.setName("user" + author);
+        sender.setNickname("nick" + author);
+
+        final StringBuilder content = new StringBuilder();
+        for (int word = random.nextInt(8); word > 0; word--) {
+            content.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        final Attachment[] attachments = new Attachment[random.nextInt(4) == 0 ? 1 + random.nextInt(2) : 0];
+        for (int i = 0; i < attachments.length; i++) {
+            attachments[i] = new Attachment();
+            attachments[i].setId(id + "-" + i);
+        }
+        final Mention[] mentions = new Mention[random.nextInt(3) == 0 ? 1 + random.nextInt(3) : 0];
+        for (int i = 0; i < mentions.length; i++) {
+            mentions[i] = new Mention();
+            mentions[i].setId(String.valueOf(1000 + random.nextInt(AUTHORS - 1)));
+        }
+
+        final Message message = new Message();
+        message.setId(String.valueOf(id));
+        message.setType("Default");
+        message.setTimestamp("2024-03-01T12:00:00+00:00");
+        message.setContent(content.toString());
+        message.setAuthor(sender);
+        message.setAttachments(attachments);
+        message.setMentions(mentions);
+        return message;
+    }
+}
@@ -0,0 +1,63 @@
+package analyzer.models.ranking;
+
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.Author;
+import analyzer.models.ranking.impl.MostMessagesRanking;
+import analyzer.stats.AuthorData;
+import analyzer.stats.AuthorStatsStore;
+import analyzer.utils.Scheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RankingEngineTest {
+
+    @Test
+    void topKeepsTheInputOrderOfEqualScores() {
+        final List<String> items = List.of("b1", "a3", "c1", "d3", "e2", "f3", "g1");
+        final List<String> top = RankingEngine.top(items, item -> item.charAt(1) - '0', 4);
+        assertEquals(List.of("a3", "d3", "f3", "e2"), top);
+        assertEquals(List.of("a3", "d3", "f3", "e2", "b1", "c1", "g1"), RankingEngine.top(items, item -> item.charAt(1) - '0', 100));
+        assertEquals(List.of(), RankingEngine.top(items, item -> 0, 0));
+    }
+
+    @Test
+    void parallelRankingMatchesTruncatedFullSort() {
+        // Enough authors to be split into ranges, few distinct counts so most of them tie
+        final int authorCount = AnalyzerConfig.RANKING_PARALLEL_THRESHOLD + 1_000;
+        final Random random = new Random(42);
+        final AuthorStatsStore store = new AuthorStatsStore();
+        for (int author = 0; author < authorCount; author++) {
+            final int slot = store.getOrAddSlot(String.valueOf(author));
+            store.setAuthor(slot, author(author));
+            store.addCounts(slot, random.nextInt(50), 0, 0, 0, 0);
+        }
+        final List<AuthorData> authors = store.views();
+
+        final List<RankedEntry<Long>> expected = IntStream.range(0, authorCount).boxed()
+            .sorted(Comparator.<Integer>comparingLong(index -> authors.get(index).getMessagesSent()).reversed()
+                .thenComparing(Comparator.naturalOrder()))
+            .map(index -> new RankedEntry<>(authors.get(index).getAuthor().getNickname(), authors.get(index).getMessagesSent()))
+            .toList();
+
+        try (Scheduler scheduler = new Scheduler(4)) {
+            final MostMessagesRanking parallel = new MostMessagesRanking(authors, new RankingEngine(scheduler));
+            assertEquals(expected, parallel.getMostMessages());
+            assertEquals(expected.stream().mapToLong(RankedEntry::value).sum(), parallel.getMessagesSent());
+        }
+        assertEquals(expected, new MostMessagesRanking(authors).getMostMessages());
+    }
+
+    private static Author author(int id) {
+        final Author author = new Author();
+        author.setId(String.valueOf(id));
+        author.setName("user" + id);
+        author.setNickname("nick" + id);
+        return author;
+    }
+}
@@ -0,0 +1,214 @@
+package analyzer.service;
+
+import analyzer.Analyzer;
+import analyzer.benchmark.SyntheticExportGenerator;
+import analyzer.config.AnalyzerConfig;
+import analyzer.service.cache.AnalysisManifest;
+import analyzer.service.cache.PartialAggregate;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalAnalysisServiceTest {
+
+    private static final FileTime OLD_TIME = FileTime.fromMillis(1_000_000_000_000L);
+
+    @TempDir
+    Path tempDir;
+
+    private Path folder;
+    private Path cacheDir;
+    private final IncrementalAnalysisService service = new IncrementalAnalysisService(new FileService());
+
+    @BeforeEach
+    void generateFolder() throws IOException {
+        folder = tempDir.resolve("folder");
+        cacheDir = folder.resolve(AnalyzerConfig.OUTPUT_SUBFOLDER).resolve(AnalyzerConfig.CACHE_SUBFOLDER);
+        SyntheticExportGenerator.main(new String[]{folder.toString(), "4", "1500", "300", "7"});
+    }
+
+    @Test
+    void warmRunReusesAllPartials() throws Exception {
+        final byte[] cold = encode(service.analyzeFolder(folder.toString()));
+        final AnalysisManifest coldManifest = manifest();
+        markPartialsOld();
+
+        assertArrayEquals(cold, encode(service.analyzeFolder(folder.toString())));
+        assertEquals(partialFiles(coldManifest), partialFiles(manifest()));
+        assertPartialsNotRewritten(manifest(), null);
+
+        // JSON partials were about a third of the exports
+        final long exportBytes = sizeOf(folder, ".json");
+        final long partialBytes = sizeOf(cacheDir, ".bin");
+        assertTrue(partialBytes * 10 < exportBytes, "partials " + partialBytes + " bytes for " + exportBytes + " bytes of exports");
+    }
+
+    @Test
+    void touchedButIdenticalFileReusesItsPartial() throws Exception {
+        final byte[] cold = encode(service.analyzeFolder(folder.toString()));
+        final Path touched = folder.resolve("channel-1.json");
+        final String partialFile = entry(manifest(), touched).getPartialFile();
+        markPartialsOld();
+        Files.setLastModifiedTime(touched, FileTime.fromMillis(Files.getLastModifiedTime(touched).toMillis() + 60_000));
+
+        assertArrayEquals(cold, encode(service.analyzeFolder(folder.toString())));
+        final AnalysisManifest.Entry entry = entry(manifest(), touched);
+        assertEquals(partialFile, entry.getPartialFile());
+        assertEquals(Files.getLastModifiedTime(touched).toMillis(), entry.getLastModified());
+        assertPartialsNotRewritten(manifest(), null);
+    }
+
+    @Test
+    void fileWithChangedContentIsReparsed() throws Exception {
+        service.analyzeFolder(folder.toString());
+        final Path edited = folder.resolve("channel-1.json");
+        final String oldPartial = entry(manifest(), edited).getPartialFile();
+        markPartialsOld();
+
+        // Same size, only the modification time and the hash differ
+        final String content = Files.readString(edited, StandardCharsets.UTF_8);
+        Files.writeString(edited, content.replaceFirst("hello", "jello"), StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(edited, FileTime.fromMillis(Files.getLastModifiedTime(edited).toMillis() + 60_000));
+
+        assertArrayEquals(coldResult(), encode(service.analyzeFolder(folder.toString())));
+        final AnalysisManifest.Entry entry = entry(manifest(), edited);
+        assertEquals(Files.size(edited), entry.getSize());
+        assertNotEquals(oldPartial, entry.getPartialFile());
+        assertFalse(Files.exists(cacheDir.resolve(oldPartial)));
+        assertPartialsNotRewritten(manifest(), entry.getPartialFile());
+    }
+
+    @Test
+    void fileWithChangedSizeIsReparsed() throws Exception {
+        final byte[] before = encode(service.analyzeFolder(folder.toString()));
+        final Path replaced = folder.resolve("channel-2.json");
+        final String oldPartial = entry(manifest(), replaced).getPartialFile();
+        markPartialsOld();
+
+        final Path other = tempDir.resolve("other");
+        SyntheticExportGenerator.main(new String[]{other.toString(), "3", "900", "300", "8"});
+        Files.copy(other.resolve("channel-2.json"), replaced, StandardCopyOption.REPLACE_EXISTING);
+
+        final byte[] after = encode(service.analyzeFolder(folder.toString()));
+        assertFalse(Arrays.equals(before, after));
+        assertArrayEquals(coldResult(), after);
+        final AnalysisManifest.Entry entry = entry(manifest(), replaced);
+        assertEquals(Files.size(replaced), entry.getSize());
+        assertFalse(Files.exists(cacheDir.resolve(oldPartial)));
+        assertPartialsNotRewritten(manifest(), entry.getPartialFile());
+    }
+
+    @Test
+    void deletedFileDropsItsPartial() throws Exception {
+        service.analyzeFolder(folder.toString());
+        final Path deleted = folder.resolve("channel-3.json");
+        final String oldPartial = entry(manifest(), deleted).getPartialFile();
+        markPartialsOld();
+        Files.delete(deleted);
+
+        assertArrayEquals(coldResult(), encode(service.analyzeFolder(folder.toString())));
+        assertNull(entry(manifest(), deleted));
+        assertFalse(Files.exists(cacheDir.resolve(oldPartial)));
+        assertEquals(3, manifest().getEntries().size());
+        assertPartialsNotRewritten(manifest(), null);
+    }
+
+    @Test
+    void unreadablePartialIsReparsed() throws Exception {
+        final byte[] cold = encode(service.analyzeFolder(folder.toString()));
+        final String partialFile = entry(manifest(), folder.resolve("channel-0.json")).getPartialFile();
+        final byte[] partial = Files.readAllBytes(cacheDir.resolve(partialFile));
+        Files.write(cacheDir.resolve(partialFile), Arrays.copyOf(partial, partial.length / 2));
+
+        assertArrayEquals(cold, encode(service.analyzeFolder(folder.toString())));
+        assertArrayEquals(partial, Files.readAllBytes(cacheDir.resolve(partialFile)));
+    }
+
+    /**
+     * @return the result of a run without cache on a copy of the exports
+     */
+    private byte[] coldResult() throws Exception {
+        final Path copy = Files.createTempDirectory(tempDir, "cold");
+        try (Stream<Path> files = Files.list(folder)) {
+            for (Path file : files.filter(file -> file.toString().endsWith(".json")).toList()) {
+                Files.copy(file, copy.resolve(file.getFileName()));
+            }
+        }
+        return encode(new IncrementalAnalysisService(new FileService()).analyzeFolder(copy.toString()));
+    }
+
+    private static byte[] encode(Analyzer analyzer) {
+        return PartialAggregate.of(analyzer.getAuthorData(), analyzer.getChannelStore()).toByteArray();
+    }
+
+    private AnalysisManifest manifest() throws IOException {
+        try (Reader reader = Files.newBufferedReader(cacheDir.resolve(AnalyzerConfig.ANALYSIS_MANIFEST))) {
+            return new Gson().fromJson(reader, AnalysisManifest.class);
+        }
+    }
+
+    private AnalysisManifest.Entry entry(AnalysisManifest manifest, Path logFile) {
+        return manifest.getEntries().entrySet().stream()
+            .filter(entry -> Path.of(entry.getKey()).getFileName().equals(logFile.getFileName()))
+            .map(Map.Entry::getValue)
+            .findFirst()
+            .orElse(null);
+    }
+
+    private static Set<String> partialFiles(AnalysisManifest manifest) {
+        final Set<String> files = new TreeSet<>();
+        manifest.getEntries().values().forEach(entry -> files.add(entry.getPartialFile()));
+        return files;
+    }
+
+    // A partial that is reused keeps the old modification time, a written one gets a new one
+    private void markPartialsOld() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : files.filter(file -> file.toString().endsWith(".bin")).toList()) {
+                Files.setLastModifiedTime(file, OLD_TIME);
+            }
+        }
+    }
+
+    private void assertPartialsNotRewritten(AnalysisManifest manifest, String except) throws IOException {
+        for (String partialFile : partialFiles(manifest)) {
+            final FileTime modified = Files.getLastModifiedTime(cacheDir.resolve(partialFile));
+            if (partialFile.equals(except)) {
+                assertNotEquals(OLD_TIME, modified, partialFile);
+            } else {
+                assertEquals(OLD_TIME, modified, partialFile);
+            }
+        }
+    }
+
+    private static long sizeOf(Path directory, String extension) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long size = 0;
+            for (Path file : files.filter(file -> file.toString().endsWith(extension)).toList()) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+}
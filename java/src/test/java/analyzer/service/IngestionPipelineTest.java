@@ -0,0 +1,190 @@
+package analyzer.service;
+
+import analyzer.benchmark.SyntheticExportGenerator;
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.ranking.Metric;
+import analyzer.service.cache.PartialAggregate;
+import analyzer.stats.AuthorData;
+import analyzer.utils.Scheduler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestionPipelineTest {
+
+    private static Scheduler scheduler;
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void startScheduler() {
+        scheduler = new Scheduler(4);
+    }
+
+    @AfterAll
+    static void stopScheduler() {
+        scheduler.close();
+    }
+
+    @Test
+    void boundsPendingWorkWhileLaterFilesFinishFirst() throws Exception {
+        // A large first file keeps the second parser ahead with the small files
+        final List<String> logPaths = new ArrayList<>();
+        logPaths.add(generate("a-large", 1, 20_000).getFirst());
+        logPaths.addAll(generate("b-small", 12, 300));
+
+        final List<String> expected = aggregates(logPaths, 1,
+            new IngestionPipeline.Budget(Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+
+        final IngestionPipeline.Budget budget = new IngestionPipeline.Budget(2L * 1024 * 1024, 3, 2);
+        final List<String> actual = aggregates(logPaths, 2, budget);
+
+        assertEquals(expected, actual);
+        assertTrue(budget.getPeakPendingBatches() <= 3, "pending batches: " + budget.getPeakPendingBatches());
+        assertTrue(budget.getPeakPendingFiles() <= 2, "pending files: " + budget.getPeakPendingFiles());
+    }
+
+    @Test
+    void oversizedBatchTakesTheWholeBudget() throws Exception {
+        final List<String> logPaths = generate("c", 3, 5_000);
+
+        final List<String> expected = aggregates(logPaths, 1,
+            new IngestionPipeline.Budget(Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+        final IngestionPipeline.Budget budget = new IngestionPipeline.Budget(1024, 1, 1);
+
+        assertEquals(expected, aggregates(logPaths, 2, budget));
+        assertEquals(1, budget.getPeakPendingBatches());
+    }
+
+    @Test
+    void failedFileAbortsTheRun() throws Exception {
+        final List<String> logPaths = generate("d", 4, 500);
+        final Path broken = Path.of(logPaths.get(2));
+        Files.write(broken, Arrays.copyOf(Files.readAllBytes(broken), (int) (Files.size(broken) / 2)));
+
+        final List<Integer> handedOut = new ArrayList<>();
+        final ExecutionException failure = assertThrows(ExecutionException.class, () ->
+            new IngestionPipeline(new FileService(), scheduler, Metric.all())
+                .run(folder.toString(), logPaths, result -> handedOut.add(result.fileIndex())));
+
+        assertInstanceOf(IOException.class, failure.getCause());
+        assertTrue(failure.getCause().getMessage().contains(broken.getFileName().toString()));
+        assertTrue(handedOut.stream().allMatch(fileIndex -> fileIndex < 2), "handed out: " + handedOut);
+    }
+
+    @Test
+    void consumerFailureAbortsTheRun() throws Exception {
+        final List<String> logPaths = generate("e", 3, 500);
+
+        final ExecutionException failure = assertThrows(ExecutionException.class, () ->
+            new IngestionPipeline(new FileService(), scheduler, Metric.all()).run(folder.toString(), logPaths, result -> {
+                if (result.fileIndex() == 1) {
+                    throw new IllegalStateException("consumer failed");
+                }
+            }));
+
+        assertEquals("consumer failed", failure.getCause().getMessage());
+    }
+
+    @Test
+    void splitsLargeExportWithinBoundedHeap() throws Exception {
+        // Above the split threshold, with many authors each active on a few days of every segment. Surefire runs
+        // the tests with a small heap, partial aggregates over the full period of the export would not fit.
+        final List<String> logPaths = generate("f", 1, 72_000, 20_000);
+        final SplitExport splitExport = new FileService().splitLogFile(folder.toString(), logPaths.getFirst());
+        assertTrue(splitExport != null && splitExport.getSegmentCount() >= 4, "not split");
+
+        final IngestionPipeline.Budget budget = new IngestionPipeline.Budget(64L * 1024 * 1024, 8, 2);
+        final List<String> split = summaries(scheduler, logPaths.getFirst(), budget);
+        assertTrue(budget.getPeakPendingBatches() <= 8, "pending batches: " + budget.getPeakPendingBatches());
+
+        // Streamed in batches on a single CPU thread, without the snapshot the split run stored
+        deleteRecursively(folder.resolve(AnalyzerConfig.OUTPUT_SUBFOLDER));
+        try (Scheduler singleThread = new Scheduler(1)) {
+            assertEquals(split, summaries(singleThread, logPaths.getFirst(),
+                new IngestionPipeline.Budget(64L * 1024 * 1024, 8, 2)));
+        }
+    }
+
+    /**
+     * One line per author of a single file, small enough to keep two runs of a large export on the test heap
+     */
+    private List<String> summaries(Scheduler scheduler, String logPath, IngestionPipeline.Budget budget) throws Exception {
+        final List<String> summaries = new ArrayList<>();
+        new IngestionPipeline(new FileService(), scheduler, Metric.all()).run(folder.toString(), List.of(logPath), result -> {
+            for (AuthorData authorData : result.analyzer().getAuthorData()) {
+                final StringBuilder summary = new StringBuilder(authorData.getAuthorId()).append(' ')
+                    .append(authorData.getMessagesSent()).append(' ').append(authorData.getWordCountSum()).append(' ')
+                    .append(authorData.getEmbedsSent()).append(' ').append(authorData.getAttachmentsSent()).append(' ')
+                    .append(authorData.getTimesMentioned()).append(' ').append(authorData.getSumEmojisReceived()).append(' ')
+                    .append(authorData.getTotalMentionsSent());
+                // Only mentioned authors have neither
+                if (authorData.getWordsPerMessage() != null) {
+                    summary.append(' ').append(Arrays.toString(authorData.getWordsPerMessage().toArray()));
+                }
+                if (authorData.getDailyActivity() != null) {
+                    authorData.getDailyActivity().forEachDay((day, messages, words, mentions, reactions) ->
+                        summary.append(' ').append(day).append(':').append(messages).append(',').append(words)
+                            .append(',').append(mentions).append(',').append(reactions));
+                }
+                summaries.add(summary.toString());
+            }
+        }, 1, budget);
+        return summaries;
+    }
+
+    private List<String> aggregates(List<String> logPaths, int parserThreads, IngestionPipeline.Budget budget)
+        throws Exception {
+        final List<String> aggregates = new ArrayList<>();
+        new IngestionPipeline(new FileService(), scheduler, Metric.all()).run(folder.toString(), logPaths, result -> {
+            assertEquals(aggregates.size(), result.fileIndex());
+            aggregates.add(HexFormat.of().formatHex(PartialAggregate.of(result.analyzer().getAuthorData(),
+                result.analyzer().getChannelStore()).toByteArray()));
+        }, parserThreads, budget);
+        return aggregates;
+    }
+
+    private List<String> generate(String prefix, int channels, int messagesPerChannel) throws IOException {
+        return generate(prefix, channels, messagesPerChannel, 50);
+    }
+
+    private List<String> generate(String prefix, int channels, int messagesPerChannel, int authors) throws IOException {
+        final Path generated = folder.resolve("generated-" + prefix);
+        SyntheticExportGenerator.main(new String[]{generated.toString(), String.valueOf(channels),
+            String.valueOf(messagesPerChannel), String.valueOf(authors), String.valueOf(prefix.hashCode())});
+
+        final List<String> logPaths = new ArrayList<>();
+        for (int channel = 0; channel < channels; channel++) {
+            final Path logPath = folder.resolve(String.format("%s-%02d.json", prefix, channel));
+            Files.move(generated.resolve("channel-" + channel + ".json"), logPath);
+            logPaths.add(logPath.toString());
+        }
+        return logPaths;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path child : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(child);
+            }
+        }
+    }
+}
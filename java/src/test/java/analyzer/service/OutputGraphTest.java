@@ -0,0 +1,66 @@
+package analyzer.service;
+
+import analyzer.Analyzer;
+import analyzer.config.AnalyzerConfig;
+import analyzer.models.Author;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Message;
+import analyzer.utils.Scheduler;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OutputGraphTest {
+
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void authorsSharingANameGetTheirOwnEntries() throws Exception {
+        final ChannelInfo channel = new ChannelInfo();
+        channel.setId("1");
+        channel.setName("general");
+
+        // Two users with the same name and nickname, both active enough to be written
+        final Analyzer analyzer = new Analyzer();
+        final int firstMessages = AnalyzerConfig.MIN_AMOUNT_MESSAGES;
+        final int secondMessages = AnalyzerConfig.MIN_AMOUNT_MESSAGES + 2;
+        for (int i = 0; i < firstMessages + secondMessages; i++) {
+            analyzer.addMessage(channel, message(String.valueOf(100 + i), i < firstMessages ? "2" : "3", "hello there"));
+        }
+        analyzer.finalizeAnalysis();
+
+        new OutputGraph(analyzer, new FileService(), outputDir.toString(), Scheduler.shared()).write();
+
+        final JsonObject authors;
+        try (Reader reader = Files.newBufferedReader(outputDir.resolve(AnalyzerConfig.OUTPUT_FILE_AUTHORS))) {
+            authors = JsonParser.parseReader(reader).getAsJsonObject();
+        }
+        assertEquals(2, authors.size());
+        assertEquals(firstMessages, authors.getAsJsonObject("2").get("messagesSent").getAsInt());
+        assertEquals(secondMessages, authors.getAsJsonObject("3").get("messagesSent").getAsInt());
+        assertEquals("sam", authors.getAsJsonObject("3").get("nickname").getAsString());
+    }
+
+    private static Message message(String id, String authorId, String content) {
+        final Author author = new Author();
+        author.setId(authorId);
+        author.setName("sam");
+        author.setNickname("sam");
+
+        final Message message = new Message();
+        message.setId(id);
+        message.setType("Default");
+        message.setTimestamp("2024-03-01T12:00:00+00:00");
+        message.setContent(content);
+        message.setAuthor(author);
+        return message;
+    }
+}
@@ -0,0 +1,95 @@
+package analyzer.service;
+
+import analyzer.Analyzer;
+import analyzer.benchmark.SyntheticExportGenerator;
+import analyzer.utils.Scheduler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedAnalysisServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ShardedAnalysisService service = new ShardedAnalysisService(new FileService());
+
+    @Test
+    void mergedShardsMatchSingleProcessRun() throws Exception {
+        final Path folder = generate(5);
+        final Map<String, byte[]> expected = outputs(new IncrementalAnalysisService(new FileService())
+            .analyzeFolder(folder.toString()), "single");
+
+        for (int shardCount : new int[]{2, 3}) {
+            final List<Path> partials = writeShards(folder, shardCount);
+            // Given in any order, merged in shard order
+            final Map<String, byte[]> actual = outputs(service.mergeShards(partials.reversed()), "merged-" + shardCount);
+            assertEquals(expected.keySet(), actual.keySet());
+            expected.forEach((file, content) -> assertArrayEquals(content, actual.get(file), shardCount + " shards: " + file));
+        }
+    }
+
+    @Test
+    void shardsCoverEveryFileOnce() {
+        final List<String> files = IntStream.range(0, 7).mapToObj(i -> "channel-" + i + ".json").toList();
+        final List<String> covered = new ArrayList<>();
+        for (int shard = 0; shard < 3; shard++) {
+            covered.addAll(ShardedAnalysisService.shardFiles(files, shard, 3));
+        }
+        assertEquals(files, covered);
+    }
+
+    @Test
+    void rejectsShardsOfDifferentRuns() throws Exception {
+        final Path folder = generate(3);
+        final List<Path> twoShards = writeShards(folder, 2);
+        final List<Path> threeShards = writeShards(folder, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> service.mergeShards(List.of(twoShards.get(0), threeShards.get(1))));
+        assertThrows(IllegalArgumentException.class, () -> service.mergeShards(List.of(twoShards.get(0), twoShards.get(0))));
+    }
+
+    private Path generate(int channels) throws Exception {
+        final Path folder = tempDir.resolve("folder");
+        SyntheticExportGenerator.main(new String[]{folder.toString(), String.valueOf(channels), "1200", "150", "11"});
+        return folder;
+    }
+
+    private List<Path> writeShards(Path folder, int shardCount) throws Exception {
+        final Path shardDir = Files.createTempDirectory(tempDir, "shards");
+        final List<Path> partials = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            final Path partial = shardDir.resolve("shard-" + shard + ".bin");
+            service.writeShard(folder.toString(), shard, shardCount, partial);
+            partials.add(partial);
+        }
+        return partials;
+    }
+
+    /**
+     * @return the content of every output file written for the analyzer, by file name
+     */
+    private Map<String, byte[]> outputs(Analyzer analyzer, String name) throws Exception {
+        final Path outputDir = tempDir.resolve(name);
+        new OutputGraph(analyzer, new FileService(), outputDir.toString(), Scheduler.shared()).write();
+        final Map<String, byte[]> outputs = new TreeMap<>();
+        try (Stream<Path> files = Files.list(outputDir)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                outputs.put(file.getFileName().toString(), Files.readAllBytes(file));
+            }
+        }
+        return outputs;
+    }
+}
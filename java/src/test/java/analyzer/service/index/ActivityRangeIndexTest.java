@@ -0,0 +1,163 @@
+package analyzer.service.index;
+
+import analyzer.models.Author;
+import analyzer.stats.AuthorData;
+import analyzer.stats.AuthorStatsStore;
+import analyzer.stats.DailyActivity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActivityRangeIndexTest {
+
+    private static final int FIRST_DAY = (int) LocalDate.of(2020, 1, 1).toEpochDay();
+
+    @TempDir
+    Path tempDir;
+
+    private List<AuthorData> authors;
+    private ActivityRangeIndex index;
+
+    @BeforeEach
+    void buildIndex() {
+        final Random random = new Random(42);
+        final AuthorStatsStore store = new AuthorStatsStore();
+        for (int author = 0; author < 20; author++) {
+            final int slot = store.getOrAddSlot(String.valueOf(1000 + author));
+            store.setAuthor(slot, author("user" + author, 1000 + author));
+            // The last author has no activity at all
+            final int messages = author == 19 ? 0 : 1 + random.nextInt(300);
+            final int start = FIRST_DAY + random.nextInt(400);
+            for (int message = 0; message < messages; message++) {
+                // Every recorded day has messages, like the activity of analyzed messages
+                store.addActivity(slot, start + random.nextInt(1 + random.nextInt(700)), 1, random.nextInt(40),
+                    random.nextInt(3), random.nextInt(5));
+            }
+        }
+        authors = store.views();
+        index = ActivityRangeIndex.build(authors);
+    }
+
+    @Test
+    void rangeSumsMatchNaiveSums() {
+        final Random random = new Random(7);
+        for (int query = 0; query < 2_000; query++) {
+            final int author = random.nextInt(authors.size());
+            final int metric = random.nextInt(DailyActivity.METRIC_COUNT);
+            // Also ranges starting before the first and ending after the last active day
+            final int from = FIRST_DAY - 50 + random.nextInt(1_300);
+            final int to = from + random.nextInt(400);
+            assertEquals(naiveSum(author, metric, from, to), index.sum(author, metric, from, to),
+                "author " + author + " metric " + metric + " [" + from + ", " + to + "]");
+        }
+    }
+
+    @Test
+    void includesFirstAndLastDay() {
+        for (int author = 0; author < 19; author++) {
+            final DailyActivity activity = authors.get(author).getDailyActivity();
+            final int first = activity.getFirstDay();
+            final int last = activity.getLastDay();
+            for (int metric = 0; metric < DailyActivity.METRIC_COUNT; metric++) {
+                assertEquals(activity.get(first, metric), index.sum(author, metric, first, first));
+                assertEquals(activity.get(last, metric), index.sum(author, metric, last, last));
+                assertEquals(naiveSum(author, metric, first, last), index.sum(author, metric, first, last));
+                assertEquals(naiveSum(author, metric, first + 1, last - 1), index.sum(author, metric, first + 1, last - 1));
+            }
+        }
+    }
+
+    @Test
+    void emptyAndOutsideRangesSumToZero() {
+        for (int author = 0; author < authors.size(); author++) {
+            final DailyActivity activity = authors.get(author).getDailyActivity();
+            final int first = activity != null ? activity.getFirstDay() : FIRST_DAY;
+            final int last = activity != null ? activity.getLastDay() : FIRST_DAY;
+            assertEquals(0, index.sum(author, DailyActivity.MESSAGES, last, first - 1));
+            assertEquals(0, index.sum(author, DailyActivity.MESSAGES, first - 100, first - 1));
+            assertEquals(0, index.sum(author, DailyActivity.MESSAGES, last + 1, last + 100));
+            assertEquals(naiveSum(author, DailyActivity.MESSAGES, first, last),
+                index.sum(author, DailyActivity.MESSAGES, Integer.MIN_VALUE + 1, Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        final Path path = tempDir.resolve("activity-index.bin");
+        index.write(path);
+        final ActivityRangeIndex restored = ActivityRangeIndex.read(path);
+
+        assertEquals(index.size(), restored.size());
+        final Random random = new Random(11);
+        for (int author = 0; author < index.size(); author++) {
+            assertEquals(index.getAuthorId(author), restored.getAuthorId(author));
+            assertEquals(index.getAuthorName(author), restored.getAuthorName(author));
+            for (int query = 0; query < 100; query++) {
+                final int metric = random.nextInt(DailyActivity.METRIC_COUNT);
+                final int from = FIRST_DAY - 50 + random.nextInt(1_300);
+                final int to = from + random.nextInt(400);
+                assertEquals(index.sum(author, metric, from, to), restored.sum(author, metric, from, to));
+            }
+        }
+        final LocalDate from = LocalDate.ofEpochDay(FIRST_DAY + 100);
+        final LocalDate to = LocalDate.ofEpochDay(FIRST_DAY + 500);
+        assertEquals(index.top(DailyActivity.WORDS, from, to, 5), restored.top(DailyActivity.WORDS, from, to, 5));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        final Path path = tempDir.resolve("other.bin");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IOException.class, () -> ActivityRangeIndex.read(path));
+    }
+
+    @Test
+    void topRanksBySumInTheWindow() {
+        final LocalDate from = LocalDate.ofEpochDay(FIRST_DAY + 200);
+        final LocalDate to = LocalDate.ofEpochDay(FIRST_DAY + 300);
+        final List<ActivityRangeIndex.RangeCount> top = index.top(DailyActivity.MESSAGES, from, to, 5);
+
+        assertEquals(5, top.size());
+        for (int i = 1; i < top.size(); i++) {
+            assertTrue(top.get(i - 1).count() >= top.get(i).count());
+        }
+        long best = 0;
+        for (int author = 0; author < authors.size(); author++) {
+            best = Math.max(best, naiveSum(author, DailyActivity.MESSAGES, (int) from.toEpochDay(), (int) to.toEpochDay()));
+        }
+        assertEquals(best, top.getFirst().count());
+    }
+
+    private long naiveSum(int author, int metric, int from, int to) {
+        final DailyActivity activity = authors.get(author).getDailyActivity();
+        if (activity == null) {
+            return 0;
+        }
+        final long[] sum = new long[1];
+        activity.forEachDay((day, messages, words, mentions, reactions) -> {
+            if (day >= from && day <= to) {
+                sum[0] += new int[]{messages, words, mentions, reactions}[metric];
+            }
+        });
+        return sum[0];
+    }
+
+    private static Author author(String name, long id) {
+        final Author author = new Author();
+        author.setId(String.valueOf(id));
+        author.setName(name);
+        author.setNickname(name);
+        return author;
+    }
+}
@@ -0,0 +1,201 @@
+package analyzer.service.index;
+
+import analyzer.benchmark.SyntheticExportGenerator;
+import analyzer.config.AnalyzerConfig;
+import analyzer.service.FileService;
+import analyzer.utils.Scheduler;
+import analyzer.utils.Timestamps;
+import analyzer.utils.WordCounter;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FullTextIndexTest {
+
+    private static final String TIMESTAMP = "2024-03-01T12:00:00+00:00";
+
+    @TempDir
+    Path tempDir;
+
+    private final FileService fileService = new FileService();
+
+    @Test
+    void termsAreLowerCasedButKeepTheirPunctuation() throws Exception {
+        try (FullTextIndex index = buildHandWrittenFolder()) {
+            assertEquals(List.of(0L, 1L, 5L), ordinals(index.postings("hello")));
+            assertEquals(ordinals(index.postings("hello")), ordinals(index.postings("HeLLo")));
+            assertEquals(List.of(1, 1, 2), frequencies(index.postings("hello")));
+            assertEquals(List.of(0L), ordinals(index.postings("Hello,")));
+            assertEquals(List.of(0L), ordinals(index.postings("world!")));
+            assertEquals(List.of(1L, 5L), ordinals(index.postings("world")));
+        }
+    }
+
+    @Test
+    void nonAsciiTermsAreIndexed() throws Exception {
+        try (FullTextIndex index = buildHandWrittenFolder()) {
+            assertEquals(List.of(3L), ordinals(index.postings("\u00FCber")));
+            assertEquals(List.of(3L), ordinals(index.postings("\u00DCBER")));
+            // Lower-casing does not fold the sharp s, it is a term of its own
+            assertEquals(List.of(3L), ordinals(index.postings("strasse")));
+            assertEquals(List.of(3L), ordinals(index.postings("STRA\u00DFE")));
+            assertEquals(List.of(3L), ordinals(index.postings("caf\u00E9")));
+            assertEquals(List.of(3L), ordinals(index.postings("\u6F22\u5B57")));
+            assertEquals(List.of(3L), ordinals(index.postings("\uD83D\uDE00")));
+            // A non-breaking space does not split words
+            assertEquals(List.of(4L), ordinals(index.postings("world\u00A0peace")));
+            assertEquals(List.of(), index.postings("peace"));
+        }
+    }
+
+    @Test
+    void postingsCarryAuthorAndTimestamp() throws Exception {
+        try (FullTextIndex index = buildHandWrittenFolder()) {
+            assertEquals(6, index.getMessageCount());
+            final FullTextIndex.Posting posting = index.postings("caf\u00E9").getFirst();
+            assertEquals("2", posting.authorId());
+            assertEquals("bob", posting.authorName());
+            assertEquals(Timestamps.epochMillis(TIMESTAMP) + 3_000, posting.epochMillis());
+            assertEquals(1, posting.frequency());
+
+            final Map<String, Long> expected = new LinkedHashMap<>();
+            expected.put("1", 3L);
+            expected.put("2", 1L);
+            assertEquals(expected, index.countsByAuthor("hello"));
+            assertEquals(List.copyOf(expected.keySet()), List.copyOf(index.countsByAuthor("hello").keySet()));
+        }
+    }
+
+    @Test
+    void overlongTermsAreNotIndexed() throws Exception {
+        try (FullTextIndex index = buildHandWrittenFolder()) {
+            assertEquals(List.of(), index.postings("x".repeat(AnalyzerConfig.SEARCH_INDEX_MAX_TERM_LENGTH + 1)));
+            assertEquals(List.of(5L), ordinals(index.postings("y".repeat(AnalyzerConfig.SEARCH_INDEX_MAX_TERM_LENGTH))));
+        }
+    }
+
+    @Test
+    void searchIntersectsAllQueryTerms() throws Exception {
+        try (FullTextIndex index = buildHandWrittenFolder()) {
+            final List<FullTextIndex.Posting> matches = index.search("hello world");
+            assertEquals(List.of(1L, 5L), ordinals(matches));
+            // The frequency is summed over the query terms
+            assertEquals(List.of(2, 3), frequencies(matches));
+            assertEquals(matches, index.search("  WORLD\tHello "));
+            assertEquals(List.of(0L), ordinals(index.search("hello, world! hello")));
+            assertEquals(List.of(), index.search("hello missing"));
+            assertEquals(List.of(), index.search("missing hello"));
+            assertEquals(List.of(), index.search(" \n "));
+        }
+    }
+
+    @Test
+    void writtenIndexMatchesPostingsOfTheExports() throws Exception {
+        final Path folder = tempDir.resolve("synthetic");
+        SyntheticExportGenerator.main(new String[]{folder.toString(), "3", "800", "50", "5"});
+        final Path indexPath = new FullTextIndexBuilder(fileService, Scheduler.shared()).build(folder.toString());
+        final byte[] written = Files.readAllBytes(indexPath);
+
+        // Postings computed from the exports, in the order of the sorted files
+        final Map<String, List<FullTextIndex.Posting>> expected = new HashMap<>();
+        final long[] ordinal = {0};
+        for (String logFile : fileService.listLogFiles(folder.toString()).stream().sorted().toList()) {
+            fileService.parseLogFile(logFile, (channel, message) -> {
+                final Map<String, Integer> frequencies = new LinkedHashMap<>();
+                WordCounter.forEachWord(message.getContent(), word -> frequencies.merge(FullTextIndex.normalize(word), 1, Integer::sum));
+                final long messageOrdinal = ordinal[0]++;
+                frequencies.forEach((term, frequency) -> expected.computeIfAbsent(term, key -> new ArrayList<>())
+                    .add(new FullTextIndex.Posting(messageOrdinal, message.getAuthor().getId(), message.getAuthor().getName(),
+                        Timestamps.epochMillis(message.getTimestamp()), frequency)));
+            });
+        }
+
+        // Reopened from disk, rebuilding writes the same bytes
+        try (FullTextIndex index = fileService.openSearchIndex(folder.toString())) {
+            assertEquals(ordinal[0], index.getMessageCount());
+            assertEquals(expected.size(), index.getTermCount());
+            for (Map.Entry<String, List<FullTextIndex.Posting>> term : expected.entrySet()) {
+                assertEquals(term.getValue(), index.postings(term.getKey()), term.getKey());
+            }
+        }
+        new FullTextIndexBuilder(fileService, Scheduler.shared()).build(folder.toString());
+        assertArrayEquals(written, Files.readAllBytes(indexPath));
+        assertTrue(Files.notExists(indexPath.resolveSibling(AnalyzerConfig.CACHE_SUBFOLDER).resolve(AnalyzerConfig.SEARCH_SEGMENT_SUBFOLDER)));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        final Path path = tempDir.resolve("other.bin");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertThrows(IOException.class, () -> FullTextIndex.open(path));
+    }
+
+    /**
+     * Two exports of six messages, message 2 has no content but still counts
+     */
+    private FullTextIndex buildHandWrittenFolder() throws Exception {
+        final Path folder = tempDir.resolve("folder");
+        Files.createDirectories(folder);
+        writeExport(folder.resolve("a.json"), "1", List.of(
+            new String[]{"1", "ann", "Hello, World! hello"},
+            new String[]{"2", "bob", "HELLO world"},
+            new String[]{"1", "ann", ""},
+            new String[]{"2", "bob", "\u00DCber STRASSE stra\u00DFe caf\u00E9 \u6F22\u5B57 \uD83D\uDE00"}));
+        writeExport(folder.resolve("b.json"), "2", List.of(
+            new String[]{"3", "cy", "world\u00A0peace"},
+            new String[]{"1", "ann", "hello world hello " + "x".repeat(AnalyzerConfig.SEARCH_INDEX_MAX_TERM_LENGTH + 1)
+                + " " + "y".repeat(AnalyzerConfig.SEARCH_INDEX_MAX_TERM_LENGTH)}));
+
+        new FullTextIndexBuilder(fileService, Scheduler.shared()).build(folder.toString());
+        return fileService.openSearchIndex(folder.toString());
+    }
+
+    // Messages as author id, author name and content, one second apart
+    private static void writeExport(Path file, String channelId, List<String[]> messages) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file); JsonWriter json = new JsonWriter(writer)) {
+            json.beginObject();
+            json.name("guild").beginObject().name("id").value("1").name("name").value("Guild").endObject();
+            json.name("channel").beginObject()
+                .name("id").value(channelId)
+                .name("type").value("GuildTextChat")
+                .name("name").value("channel-" + channelId)
+                .endObject();
+            json.name("messages").beginArray();
+            for (int i = 0; i < messages.size(); i++) {
+                final String[] message = messages.get(i);
+                json.beginObject()
+                    .name("id").value(channelId + "00" + i)
+                    .name("type").value("Default")
+                    .name("timestamp").value(TIMESTAMP.replace(":00+", ":0" + i + "+"))
+                    .name("content").value(message[2]);
+                json.name("author").beginObject().name("id").value(message[0]).name("name").value(message[1]).endObject();
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+    }
+
+    private static List<Long> ordinals(List<FullTextIndex.Posting> postings) {
+        return postings.stream().map(FullTextIndex.Posting::ordinal).toList();
+    }
+
+    private static List<Integer> frequencies(List<FullTextIndex.Posting> postings) {
+        return postings.stream().map(FullTextIndex.Posting::frequency).toList();
+    }
+}
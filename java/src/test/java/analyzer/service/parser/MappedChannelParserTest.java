@@ -0,0 +1,278 @@
+package analyzer.service.parser;
+
+import analyzer.models.Author;
+import analyzer.models.channel.ChannelInfo;
+import analyzer.models.message.Mention;
+import analyzer.models.message.Message;
+import analyzer.models.message.reaction.Reaction;
+import com.google.gson.GsonBuilder;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedChannelParserTest {
+
+    // Mapped segments of 128 bytes, 4 KiB and the default. Every segment is a mapping of its own, smaller ones would
+    // exceed the number of mappings a process may have on the larger exports.
+    private static final int[] SEGMENT_SHIFTS = {7, 12, MappedJsonTokenizer.SEGMENT_SHIFT};
+
+    // Contents as raw JSON string bodies, escapes are decoded by the parsers
+    private static final List<String> ESCAPED_CONTENTS = List.of(
+        "plain text",
+        "",
+        "quote \\\" backslash \\\\ slash \\/ controls \\b\\f\\n\\r\\t end",
+        "unicode escapes \\u00e9\\u00C9 \\u20AC \\u0000 \\uFFFF",
+        "escaped surrogate pair \\uD83D\\uDE00 and \\ud83c\\udf89",
+        "lone escaped surrogates \\uD83D then \\uDE00 alone",
+        "braces {[ ]} and \\\"quoted\\\" inside a string, a , b : c"
+    );
+
+    // UTF-8 sequences, valid and malformed, the Reader of the Gson backend replaces malformed ones with U+FFFD
+    private static final List<byte[]> RAW_SEQUENCES = List.of(
+        bytes(0xC3, 0xA9),                   // é
+        bytes(0xE2, 0x82, 0xAC),             // €
+        bytes(0xF0, 0x9F, 0x98, 0x80),       // surrogate pair
+        bytes(0xF4, 0x8F, 0xBF, 0xBF),       // U+10FFFF
+        bytes(0xC3),                         // truncated
+        bytes(0xE2, 0x82),                   // truncated
+        bytes(0xF0, 0x9F, 0x98),             // truncated
+        bytes(0x80),                         // continuation without lead
+        bytes(0xBF, 0xBF),
+        bytes(0xC0, 0x80),                   // overlong NUL
+        bytes(0xC1, 0xBF),                   // overlong
+        bytes(0xE0, 0x80, 0x80),             // overlong
+        bytes(0xE0, 0x9F, 0xBF),             // overlong
+        bytes(0xF0, 0x80, 0x80, 0x80),       // overlong
+        bytes(0xED, 0xA0, 0x80),             // encoded surrogate
+        bytes(0xED, 0xBF, 0xBF),             // encoded surrogate
+        bytes(0xF4, 0x90, 0x80, 0x80),       // above U+10FFFF
+        bytes(0xF5, 0x80, 0x80, 0x80),
+        bytes(0xF8, 0x88, 0x80, 0x80, 0x80),
+        bytes(0xFE),
+        bytes(0xFF)
+    );
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void matchesGsonOnEscapes() throws IOException {
+        final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        for (int i = 0; i < ESCAPED_CONTENTS.size(); i++) {
+            writeMessage(messages, i, ESCAPED_CONTENTS.get(i).getBytes(StandardCharsets.UTF_8));
+        }
+        assertSameChannel(export(messages));
+    }
+
+    @Test
+    void matchesGsonOnValidAndMalformedUtf8() throws IOException {
+        final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        int id = 0;
+        for (byte[] sequence : RAW_SEQUENCES) {
+            // Alone, between ASCII and followed by a multi byte character
+            writeMessage(messages, id++, sequence);
+            writeMessage(messages, id++, concat("a".getBytes(StandardCharsets.US_ASCII), sequence, "b".getBytes(StandardCharsets.US_ASCII)));
+            writeMessage(messages, id++, concat(sequence, bytes(0xE2, 0x82, 0xAC), sequence));
+        }
+        assertSameChannel(export(messages));
+    }
+
+    @Test
+    void matchesGsonOnRandomBytes() throws IOException {
+        final Random random = new Random(42);
+        final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        for (int id = 0; id < 1_000; id++) {
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            for (int part = random.nextInt(12); part > 0; part--) {
+                switch (random.nextInt(4)) {
+                    case 0 -> content.writeBytes(RAW_SEQUENCES.get(random.nextInt(RAW_SEQUENCES.size())));
+                    case 1 -> content.writeBytes(ESCAPED_CONTENTS.get(random.nextInt(ESCAPED_CONTENTS.size())).getBytes(StandardCharsets.UTF_8));
+                    // Any byte but the ones ending the string or starting an escape
+                    case 2 -> content.write(randomByte(random, 0x80, 0x100));
+                    default -> content.write(randomByte(random, 0x20, 0x80));
+                }
+            }
+            writeMessage(messages, id, content.toByteArray());
+        }
+        final Path export = export(messages);
+        // Spans many segments of 4 KiB, too
+        assertTrue(Files.size(export) > 100 << SEGMENT_SHIFTS[1], Files.size(export) + " bytes");
+        assertSameChannel(export);
+    }
+
+    @Test
+    void splitSegmentsMatchGson() throws IOException {
+        final Random random = new Random(3);
+        final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        for (int id = 0; id < 500; id++) {
+            writeMessage(messages, id, RAW_SEQUENCES.get(random.nextInt(RAW_SEQUENCES.size())));
+        }
+        final Path export = export(messages);
+        final List<String> expected = gsonMessages(export);
+
+        for (int shift : SEGMENT_SHIFTS) {
+            final MappedChannelParser parser = new MappedChannelParser(new MessageCanonicalizer(), shift);
+            final List<MappedChannelParser.Segment> segments = parser.split(export, 2_000);
+            assertTrue(segments.size() > 10, segments.size() + " segments");
+            final List<String> actual = new ArrayList<>();
+            for (MappedChannelParser.Segment segment : segments) {
+                parser.parse(segment, (channel, message) -> actual.add(describe(channel, message)));
+            }
+            assertEquals(expected, actual, "segment shift " + shift);
+        }
+    }
+
+    @Test
+    void malformedJsonThrows() throws IOException {
+        final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+        writeMessage(messages, 0, "invalid escape \\x".getBytes(StandardCharsets.US_ASCII));
+        final Path export = export(messages);
+        assertThrows(IOException.class, () -> gsonMessages(export));
+        assertThrows(IOException.class, () -> new MappedChannelParser().parse(export, (channel, message) -> {
+        }));
+
+        final Path truncated = tempDir.resolve("truncated.json");
+        final byte[] complete = Files.readAllBytes(export(new ByteArrayOutputStream()));
+        Files.write(truncated, Arrays.copyOf(complete, complete.length / 2));
+        assertThrows(IOException.class, () -> new MappedChannelParser().parse(truncated, (channel, message) -> {
+        }));
+    }
+
+    /**
+     * Parses the export with the Gson backend and with the mapped backend at every segment size
+     */
+    private static void assertSameChannel(Path export) throws IOException {
+        final List<String> expected = gsonMessages(export);
+        for (int shift : SEGMENT_SHIFTS) {
+            final List<String> actual = new ArrayList<>();
+            final long count = new MappedChannelParser(new MessageCanonicalizer(), shift)
+                .parse(export, (channel, message) -> actual.add(describe(channel, message)));
+            assertEquals(expected.size(), count);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), actual.get(i), "segment shift " + shift + ", message " + i);
+            }
+        }
+    }
+
+    // Through an InputStream, its Reader replaces malformed UTF-8 like the mapped backend instead of failing
+    private static List<String> gsonMessages(Path export) throws IOException {
+        final GsonChannelParser parser = new GsonChannelParser(new GsonBuilder()
+            .registerTypeAdapterFactory(new CanonicalizingTypeAdapterFactory(new MessageCanonicalizer()))
+            .create());
+        final List<String> messages = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(export)) {
+            parser.parse(in, (channel, message) -> messages.add(describe(channel, message)));
+        }
+        return messages;
+    }
+
+    /**
+     * The fields the mapped backend decodes, attachments and embeds are only counted
+     */
+    private static String describe(ChannelInfo channel, Message message) {
+        final Author author = message.getAuthor();
+        return String.join(" | ",
+            channel.getId(), channel.getType(), channel.getCategoryId(), channel.getCategory(), channel.getName(),
+            String.valueOf(channel.getTopic()),
+            message.getId(), message.getType(), message.getTimestamp(), String.valueOf(message.getContent()),
+            author.getId(), author.getName(), author.getNickname(), author.getDiscriminator(), String.valueOf(author.isBot()),
+            String.valueOf(length(message.getAttachments())), String.valueOf(length(message.getEmbeds())),
+            message.getReactions() == null ? "[]" : Arrays.stream(message.getReactions()).map(MappedChannelParserTest::describe)
+                .collect(Collectors.joining(", ", "[", "]")),
+            message.getMentions() == null ? "[]" : Arrays.stream(message.getMentions()).map(MappedChannelParserTest::describe)
+                .collect(Collectors.joining(", ", "[", "]")));
+    }
+
+    private static String describe(Reaction reaction) {
+        return reaction.getEmoji().getId() + " " + reaction.getEmoji().getName() + " " + reaction.getEmoji().isAnimated()
+            + " " + reaction.getEmoji().getImageUrl() + " " + reaction.getCount();
+    }
+
+    private static String describe(Mention mention) {
+        return mention.getId() + " " + mention.getName() + " " + mention.getNickname();
+    }
+
+    private static int length(Object[] array) {
+        return array == null ? 0 : array.length;
+    }
+
+    /**
+     * Writes an export of the given messages, with the channel header and unknown fields around them
+     */
+    private Path export(ByteArrayOutputStream messages) throws IOException {
+        final ByteArrayOutputStream export = new ByteArrayOutputStream();
+        write(export, "{\n  \"guild\": {\"id\": \"1\", \"name\": \"G \\u00e9\", \"iconUrl\": \"https://x/y.png\"},\n"
+            + "  \"channel\": {\"id\": \"944165\", \"type\": \"GuildTextChat\", \"categoryId\": \"55\","
+            + " \"category\": \"Caf\u00e9 \\\"talk\\\"\", \"name\": \"g\u00e9n\u00e9ral \uD83C\uDF89\", \"topic\": null},\n"
+            + "  \"dateRange\": {\"after\": null, \"before\": null},\n  \"messages\": [\n");
+        export.writeBytes(messages.toByteArray());
+        write(export, "\n  ],\n  \"messageCount\": 0\n}\n");
+
+        final Path path = Files.createTempFile(tempDir, "export", ".json");
+        Files.write(path, export.toByteArray());
+        return path;
+    }
+
+    private static void writeMessage(ByteArrayOutputStream out, int id, byte[] content) {
+        if (id > 0) {
+            write(out, ",\n");
+        }
+        write(out, "    {\"id\": \"" + (900_000_000_000_000_000L + id) + "\", \"type\": \"Default\","
+            + " \"timestamp\": \"2018-01-01T08:52:29.781+00:00\", \"timestampEdited\": null, \"isPinned\": false,"
+            + " \"content\": \"");
+        out.writeBytes(content);
+        write(out, "\", \"author\": {\"id\": \"" + (100 + id % 7) + "\", \"name\": \"user" + id % 7 + "\","
+            + " \"discriminator\": \"0000\", \"nickname\": \"Nick \\\\ " + id % 7 + " \u00e9\", \"color\": null,"
+            + " \"isBot\": " + (id % 5 == 0) + ", \"avatarUrl\": \"https://x/a.png\"},"
+            + " \"attachments\": [" + (id % 3 == 0 ? "{\"id\": \"1\", \"url\": \"https://x/y.png\", \"fileSizeBytes\": 123}" : "") + "],"
+            + " \"embeds\": [" + (id % 4 == 0 ? "{\"title\": \"t\", \"description\": \"d {[ ]} \\\" \", \"fields\": [], \"thumbnail\": {\"url\": \"x\"}}" : "") + "],"
+            + " \"stickers\": [],"
+            + " \"reactions\": [" + (id % 2 == 0 ? "{\"emoji\": {\"id\": \"\", \"name\": \"\uD83D\uDC4D\", \"isAnimated\": false,"
+            + " \"imageUrl\": \"https://x/e.svg\"}, \"count\": " + (1 + id % 9) + ", \"users\": [{\"id\": \"1\"}]}" : "") + "],"
+            + " \"mentions\": [" + (id % 3 == 1 ? "{\"id\": \"" + (100 + (id + 1) % 7) + "\", \"name\": \"user\", \"nickname\": \"N\u00e9\", \"isBot\": false}" : "") + "],"
+            + " \"reference\": " + (id % 6 == 0 ? "{\"messageId\": \"1\", \"channelId\": \"2\", \"guildId\": null}" : "null") + "}");
+    }
+
+    private static void write(ByteArrayOutputStream out, String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int randomByte(Random random, int from, int to) {
+        int b;
+        do {
+            b = from + random.nextInt(to - from);
+        } while (b == '"' || b == '\\');
+        return b;
+    }
+
+    private static byte[] bytes(int... values) {
+        final byte[] bytes = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = (byte) values[i];
+        }
+        return bytes;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+}
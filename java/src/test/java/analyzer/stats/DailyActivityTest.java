@@ -0,0 +1,81 @@
+package analyzer.stats;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DailyActivityTest {
+
+    @Test
+    void staysSparseForFewDaysOverALongPeriod() {
+        final DailyActivity activity = new DailyActivity();
+        // A message every 100 days over 30 years
+        for (int day = 0; day < 11_000; day += 100) {
+            activity.add(day, 1, 5, 0, 2);
+        }
+        activity.add(3_050, 1, 1, 1, 0);
+
+        assertFalse(activity.isDense());
+        assertEquals(0, activity.getFirstDay());
+        assertEquals(10_900, activity.getLastDay());
+        assertEquals(1, activity.get(3_050, DailyActivity.MENTIONS));
+        assertEquals(0, activity.get(3_051, DailyActivity.MESSAGES));
+        assertEquals(111, days(activity).size());
+    }
+
+    @Test
+    void switchesToDenseOnceFilled() {
+        final DailyActivity activity = new DailyActivity();
+        for (int day = 20; day >= 0; day--) {
+            activity.add(day, 1, day, 0, 0);
+        }
+
+        assertTrue(activity.isDense());
+        assertEquals(0, activity.getFirstDay());
+        assertEquals(20, activity.getLastDay());
+        assertEquals(7, activity.get(7, DailyActivity.WORDS));
+
+        // A single day years later does not blow up the array
+        activity.add(10_000, 1, 3, 0, 0);
+        assertFalse(activity.isDense());
+        assertEquals(22, days(activity).size());
+        assertEquals(7, activity.get(7, DailyActivity.WORDS));
+        assertEquals(3, activity.get(10_000, DailyActivity.WORDS));
+    }
+
+    @Test
+    void mergeMatchesAddingAllDays() {
+        final Random random = new Random(42);
+        final DailyActivity merged = new DailyActivity();
+        final DailyActivity expected = new DailyActivity();
+        for (int partial = 0; partial < 20; partial++) {
+            final DailyActivity activity = new DailyActivity();
+            final int start = random.nextInt(2_000);
+            for (int message = 0; message < 30; message++) {
+                final int day = start + random.nextInt(500);
+                activity.add(day, 1, random.nextInt(50), random.nextInt(3), random.nextInt(4));
+            }
+            activity.forEachDay(expected::add);
+            merged.merge(activity);
+        }
+
+        assertEquals(days(expected), days(merged));
+        assertArrayEquals(expected.toArray(), merged.toArray());
+        final DailyActivity restored = DailyActivity.of(merged.getFirstDay(), merged.toArray());
+        assertEquals(days(merged), days(restored));
+    }
+
+    private static List<String> days(DailyActivity activity) {
+        final List<String> days = new ArrayList<>();
+        activity.forEachDay((day, messages, words, mentions, reactions) ->
+            days.add(day + ":" + messages + "," + words + "," + mentions + "," + reactions));
+        return days;
+    }
+}
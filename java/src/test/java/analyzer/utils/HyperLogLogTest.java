@@ -0,0 +1,129 @@
+package analyzer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HyperLogLogTest {
+
+    private static final long SNOWFLAKE_BASE = 100_000_000_000_000_000L;
+
+    @Test
+    void estimatesStayWithinThreeStandardErrors() {
+        for (int precision : new int[]{8, 10, 11, 12, 14}) {
+            for (int distinct : new int[]{1, 10, 1_000, 10_000, 100_000}) {
+                final HyperLogLog sketch = sketch(precision, 0, distinct);
+                final double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+                assertTrue(error <= 3 * sketch.getRelativeStandardError(),
+                    "precision " + precision + ", " + distinct + " ids estimated as " + sketch.estimate());
+            }
+        }
+        assertEquals(0, new HyperLogLog(12).estimate());
+    }
+
+    @Test
+    void duplicatesDoNotChangeTheSketch() {
+        final HyperLogLog once = sketch(11, 0, 5_000);
+        final HyperLogLog repeated = sketch(11, 0, 5_000);
+        for (int round = 0; round < 3; round++) {
+            repeated.merge(sketch(11, 0, 5_000));
+            for (int id = 0; id < 5_000; id += 7) {
+                repeated.add(HyperLogLog.hash(id(id)));
+            }
+        }
+        assertArrayEquals(bytes(once), bytes(repeated));
+    }
+
+    @Test
+    void mergeEqualsTheSketchOfTheUnion() {
+        for (int precision : new int[]{HyperLogLog.MIN_PRECISION, 11, HyperLogLog.MAX_PRECISION}) {
+            // Overlapping ranges of ids
+            final HyperLogLog a = sketch(precision, 0, 60_000);
+            final HyperLogLog b = sketch(precision, 40_000, 100_000);
+            final HyperLogLog union = sketch(precision, 0, 100_000);
+
+            final HyperLogLog ab = sketch(precision, 0, 0);
+            ab.merge(a);
+            ab.merge(b);
+            final HyperLogLog ba = sketch(precision, 0, 0);
+            ba.merge(b);
+            ba.merge(a);
+            assertArrayEquals(bytes(union), bytes(ab));
+            assertArrayEquals(bytes(union), bytes(ba));
+            assertEquals(union.estimate(), ab.estimate());
+        }
+    }
+
+    @Test
+    void rejectsMergingOtherPrecisions() {
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(11).merge(new HyperLogLog(12)));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(HyperLogLog.MIN_PRECISION - 1));
+        assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(HyperLogLog.MAX_PRECISION + 1));
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        // Empty, sparse and dense sketches
+        for (int distinct : new int[]{0, 1, 50, 600, 100_000}) {
+            final HyperLogLog sketch = sketch(10, 0, distinct);
+            final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(buffer);
+            sketch.write(out);
+            out.writeInt(0x12345678);
+
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+            final HyperLogLog restored = HyperLogLog.read(in);
+            assertEquals(0x12345678, in.readInt(), "sketch of " + distinct + " ids read to its end");
+            assertEquals(sketch.getPrecision(), restored.getPrecision());
+            assertEquals(sketch.estimate(), restored.estimate());
+            assertArrayEquals(bytes(sketch), bytes(restored));
+
+            // A restored sketch keeps merging like the original
+            restored.merge(sketch(10, distinct, distinct + 1_000));
+            assertArrayEquals(bytes(sketch(10, 0, distinct + 1_000)), bytes(restored));
+        }
+    }
+
+    @Test
+    void rejectsOtherData() {
+        assertThrows(IOException.class, () -> HyperLogLog.read(new DataInputStream(new ByteArrayInputStream(new byte[]{2, 0}))));
+        assertThrows(IOException.class, () -> HyperLogLog.read(new DataInputStream(new ByteArrayInputStream(new byte[]{(byte) 200, 0}))));
+        // One register past the end of a sketch of 16 registers
+        assertThrows(IOException.class, () -> HyperLogLog.read(new DataInputStream(new ByteArrayInputStream(new byte[]{4, 1, 16, 1}))));
+    }
+
+    /**
+     * @return the sketch of the ids in [from, to)
+     */
+    private static HyperLogLog sketch(int precision, int from, int to) {
+        final HyperLogLog sketch = new HyperLogLog(precision);
+        for (int id = from; id < to; id++) {
+            sketch.add(HyperLogLog.hash(id(id)));
+        }
+        return sketch;
+    }
+
+    // Ids like Discord snowflakes
+    private static String id(int id) {
+        return String.valueOf(SNOWFLAKE_BASE + id * 4_194_304L);
+    }
+
+    private static byte[] bytes(HyperLogLog sketch) {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            sketch.write(out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,129 @@
+package analyzer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogHistogramTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1};
+
+    @Test
+    void quantilesOfSmallValuesAreExact() {
+        final Random random = new Random(42);
+        final int[] values = random.ints(10_001, 0, LogHistogram.EXACT_VALUES).toArray();
+        final LogHistogram histogram = histogram(values);
+        Arrays.sort(values);
+        for (double quantile : QUANTILES) {
+            assertEquals(nearestRank(values, quantile), histogram.quantile(quantile), "quantile " + quantile);
+        }
+    }
+
+    @Test
+    void quantilesOfLargeValuesAreWithinTheBucketError() {
+        final Random random = new Random(7);
+        // Spread over all magnitudes up to Integer.MAX_VALUE
+        final int[] values = new int[50_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (int) Math.min(Integer.MAX_VALUE, Math.round(Math.pow(2, random.nextDouble() * 31)));
+        }
+        final LogHistogram histogram = histogram(values);
+        Arrays.sort(values);
+        for (double quantile : QUANTILES) {
+            final double exact = nearestRank(values, quantile);
+            final double error = Math.abs(histogram.quantile(quantile) - exact) / exact;
+            assertTrue(error <= 1.0 / (2 * LogHistogram.SUB_BUCKETS), "quantile " + quantile + ": " + histogram.quantile(quantile) + " for " + exact);
+        }
+    }
+
+    @Test
+    void emptyAndNegativeValues() {
+        assertEquals(0, new LogHistogram().quantile(0.5));
+        assertEquals(0, new LogHistogram().getTotal());
+
+        final LogHistogram histogram = histogram(new int[]{-5, Integer.MIN_VALUE, 3});
+        assertEquals(3, histogram.getTotal());
+        assertEquals(0, histogram.quantile(0.5));
+        assertEquals(3, histogram.quantile(1));
+    }
+
+    @Test
+    void mergeEqualsTheHistogramOfAllValues() {
+        final Random random = new Random(3);
+        final int[] small = random.ints(500, 0, 40).toArray();
+        final int[] large = random.ints(500, 0, 1_000_000).toArray();
+        final int[] all = new int[small.length + large.length];
+        System.arraycopy(small, 0, all, 0, small.length);
+        System.arraycopy(large, 0, all, small.length, large.length);
+        final LogHistogram expected = histogram(all);
+
+        // Merging a histogram with more buckets into one with fewer and the other way around
+        final LogHistogram smallFirst = histogram(small);
+        smallFirst.merge(histogram(large));
+        final LogHistogram largeFirst = histogram(large);
+        largeFirst.merge(histogram(small));
+        for (LogHistogram merged : new LogHistogram[]{smallFirst, largeFirst}) {
+            assertEquals(expected.getTotal(), merged.getTotal());
+            assertArrayEquals(expected.toArray(), merged.toArray());
+            for (double quantile : QUANTILES) {
+                assertEquals(expected.quantile(quantile), merged.quantile(quantile));
+            }
+        }
+
+        final LogHistogram empty = new LogHistogram();
+        empty.merge(expected);
+        assertArrayEquals(expected.toArray(), empty.toArray());
+    }
+
+    @Test
+    void toArrayAndOfRoundTrip() {
+        final Random random = new Random(11);
+        for (int bound : new int[]{1, 16, 100, 70_000, Integer.MAX_VALUE}) {
+            final LogHistogram histogram = histogram(random.ints(2_000, 0, bound).toArray());
+            final int[] counts = histogram.toArray();
+            assertTrue(counts.length == 0 || counts[counts.length - 1] != 0, "trailing empty buckets are dropped");
+
+            final LogHistogram restored = LogHistogram.of(counts);
+            assertArrayEquals(counts, restored.toArray());
+            assertEquals(histogram.getTotal(), restored.getTotal());
+            for (double quantile : QUANTILES) {
+                assertEquals(histogram.quantile(quantile), restored.quantile(quantile));
+            }
+            // A restored histogram keeps growing
+            restored.add(Integer.MAX_VALUE);
+            assertEquals(LogHistogram.MAX_BUCKETS, restored.toArray().length);
+        }
+        assertArrayEquals(new int[0], LogHistogram.of(new int[0]).toArray());
+        assertArrayEquals(new int[0], new LogHistogram().toArray());
+    }
+
+    @Test
+    void bucketsAreBounded() {
+        assertEquals(232, LogHistogram.MAX_BUCKETS);
+        final LogHistogram histogram = histogram(new int[]{0, Integer.MAX_VALUE});
+        assertEquals(LogHistogram.MAX_BUCKETS, histogram.toArray().length);
+        assertThrows(IllegalArgumentException.class, () -> LogHistogram.of(new int[LogHistogram.MAX_BUCKETS + 1]));
+    }
+
+    private static LogHistogram histogram(int[] values) {
+        final LogHistogram histogram = new LogHistogram();
+        for (int value : values) {
+            histogram.add(value);
+        }
+        return histogram;
+    }
+
+    /**
+     * The nearest-rank quantile of sorted values
+     */
+    private static double nearestRank(int[] sorted, double quantile) {
+        final int rank = Math.max(1, (int) Math.ceil(quantile * sorted.length));
+        return sorted[rank - 1];
+    }
+}
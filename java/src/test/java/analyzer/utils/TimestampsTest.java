@@ -0,0 +1,147 @@
+package analyzer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TimestampsTest {
+
+    private static final List<String> TIMESTAMPS = List.of(
+        "2018-10-18T08:52:29.781+00:00",
+        "2018-10-18T08:52:29+00:00",
+        "2018-10-18T08:52:29Z",
+        "2018-10-18T08:52:29.7Z",
+        "2018-10-18T08:52:29.Z",
+        "2018-10-18T08:52:29.123456789+14:00",
+        "2018-10-18T23:59:59.999-12:00",
+        "2018-10-18T00:00:00-00:00",
+        "2020-02-29T12:00:00.5+05:30",
+        "2021-01-01T00:30:00+18:00",
+        "2021-01-01T00:30:00-18:00",
+        // before 1970
+        "1969-12-31T23:59:59.999+00:00",
+        "1969-12-31T23:59:59.001Z",
+        "1970-01-01T00:00:00.000+01:00",
+        "1900-03-01T00:00:00-03:45",
+        "1600-02-29T06:07:08.09+09:00",
+        "0001-01-01T00:00:00Z",
+        "9999-12-31T23:59:59.999999999Z"
+    );
+
+    private static final List<String> MALFORMED = List.of(
+        "",
+        "garbage",
+        "2018-10-18",
+        "2018-10-18T08:52:29",
+        "2018-10-18 08:52:29Z",
+        "2018-13-01T00:00:00+00:00",
+        "2018-00-01T00:00:00+00:00",
+        "2019-02-29T00:00:00+00:00",
+        "1900-02-29T00:00:00+00:00",
+        "2018-04-31T00:00:00Z",
+        "2018-10-18T24:00:00Z",
+        "2018-10-18T08:60:00Z",
+        "2018-10-18T08:52:60Z",
+        "2018-1a-18T08:52:29Z",
+        "2018-10-18T08:52:29+19:00",
+        "2018-10-18T08:52:29+18:01",
+        "2018-10-18T08:52:29+05:60",
+        "2018-10-18T08:52:29+0500",
+        "2018-10-18T08:52:29.1234567890Z",
+        "2018-10-18T08:52:29.7a1Z",
+        // Digits that are not ASCII
+        "2018-10-18T08:52:29.\u0663Z",
+        "2018-10-18T08:52:\u0662\u0669Z"
+    );
+
+    @Test
+    void matchesJavaTimeOnKnownTimestamps() {
+        for (String timestamp : TIMESTAMPS) {
+            assertMatchesJavaTime(timestamp);
+        }
+    }
+
+    @Test
+    void matchesJavaTimeOnRandomTimestamps() {
+        final Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            assertMatchesJavaTime(randomTimestamp(random));
+        }
+    }
+
+    @Test
+    void malformedTimestampsThrow() {
+        for (String timestamp : MALFORMED) {
+            assertThrows(DateTimeParseException.class, () -> OffsetDateTime.parse(timestamp), timestamp);
+            assertThrows(DateTimeParseException.class, () -> Timestamps.epochMillis(timestamp), timestamp);
+            assertThrows(DateTimeParseException.class, () -> Timestamps.offsetSeconds(timestamp), timestamp);
+        }
+        assertThrows(DateTimeParseException.class, () -> Timestamps.localEpochDay("2019-02-29T00:00:00Z"));
+        assertThrows(DateTimeParseException.class, () -> Timestamps.localEpochDay("2018-1a-18T00:00:00Z"));
+    }
+
+    @Test
+    void mutatedTimestampsParseOrThrowLikeJavaTime() {
+        final Random random = new Random(7);
+        final String replacements = "0123456789-+:.TZ x\u0663";
+        for (int i = 0; i < 20_000; i++) {
+            final char[] chars = randomTimestamp(random).toCharArray();
+            chars[random.nextInt(chars.length)] = replacements.charAt(random.nextInt(replacements.length()));
+            final String timestamp = new String(chars);
+
+            final OffsetDateTime expected;
+            try {
+                expected = OffsetDateTime.parse(timestamp);
+            } catch (DateTimeParseException e) {
+                assertThrows(DateTimeParseException.class, () -> Timestamps.epochMillis(timestamp), timestamp);
+                assertThrows(DateTimeParseException.class, () -> Timestamps.offsetSeconds(timestamp), timestamp);
+                continue;
+            }
+            assertEquals(expected.toInstant().toEpochMilli(), Timestamps.epochMillis(timestamp), timestamp);
+            assertEquals(expected.getOffset().getTotalSeconds(), Timestamps.offsetSeconds(timestamp), timestamp);
+        }
+    }
+
+    @Test
+    void epochDaysMatchJavaTime() {
+        for (LocalDate date = LocalDate.of(1599, 12, 1); date.isBefore(LocalDate.of(2401, 3, 1)); date = date.plusDays(1)) {
+            assertEquals(date.toEpochDay(), Timestamps.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()), date.toString());
+        }
+    }
+
+    private static void assertMatchesJavaTime(String timestamp) {
+        final OffsetDateTime expected = OffsetDateTime.parse(timestamp);
+        assertEquals(expected.toInstant().toEpochMilli(), Timestamps.epochMillis(timestamp), timestamp);
+        assertEquals(expected.getOffset().getTotalSeconds(), Timestamps.offsetSeconds(timestamp), timestamp);
+        assertEquals(expected.toLocalDate().toEpochDay(), Timestamps.localEpochDay(timestamp), timestamp);
+    }
+
+    /**
+     * A timestamp between the years 1 and 9999 with a random offset and zero to nine fraction digits
+     */
+    private static String randomTimestamp(Random random) {
+        final LocalDate date = LocalDate.ofEpochDay(LocalDate.of(1, 1, 1).toEpochDay() + random.nextInt(3_652_058));
+        final StringBuilder timestamp = new StringBuilder(String.format("%04d-%02d-%02dT%02d:%02d:%02d", date.getYear(),
+            date.getMonthValue(), date.getDayOfMonth(), random.nextInt(24), random.nextInt(60), random.nextInt(60)));
+        final int fractionDigits = random.nextInt(10);
+        if (fractionDigits > 0) {
+            timestamp.append('.');
+            for (int digit = 0; digit < fractionDigits; digit++) {
+                timestamp.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        if (random.nextInt(5) == 0) {
+            return timestamp.append('Z').toString();
+        }
+        final int offsetMinutes = random.nextInt(2 * 18 * 60 + 1) - 18 * 60;
+        return timestamp.append(String.format("%s%02d:%02d", offsetMinutes < 0 ? "-" : "+",
+            Math.abs(offsetMinutes) / 60, Math.abs(offsetMinutes) % 60)).toString();
+    }
+}
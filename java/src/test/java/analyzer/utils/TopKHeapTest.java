@@ -0,0 +1,105 @@
+package analyzer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopKHeapTest {
+
+    @Test
+    void matchesFullSortTruncatedToK() {
+        final Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            final int n = random.nextInt(300);
+            // Few distinct scores, so many pairs tie
+            final long[] scores = random.longs(n, -5, 5).toArray();
+            for (int k : new int[]{0, 1, 2, 16, 17, n / 2, n, n + 1}) {
+                assertArrayEquals(fullSort(scores, k), top(scores, shuffledIndexes(n, random), k), "n " + n + " k " + k);
+            }
+        }
+    }
+
+    @Test
+    void keepsEveryPairWhenKExceedsTheInput() {
+        final long[] scores = {3, 9, 1, 9, 4};
+        final int[] sorted = top(scores, IntStream.range(0, scores.length).boxed().toList(), 100);
+        assertArrayEquals(new int[]{1, 3, 4, 0, 2}, sorted);
+        assertArrayEquals(sorted, top(scores, IntStream.range(0, scores.length).boxed().toList(), Integer.MAX_VALUE));
+        assertEquals(0, new TopKHeap(Integer.MAX_VALUE).sortedIndexes().length);
+    }
+
+    @Test
+    void breaksTiesByIndexWhateverTheOfferOrder() {
+        final long[] scores = new long[50];
+        final Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            assertArrayEquals(new int[]{0, 1, 2, 3, 4}, top(scores, shuffledIndexes(scores.length, random), 5));
+        }
+    }
+
+    @Test
+    void mergedRangesMatchASingleHeap() {
+        final Random random = new Random(3);
+        final long[] scores = random.longs(1_000, 0, 20).toArray();
+        final TopKHeap merged = new TopKHeap(25);
+        for (int from = 0; from < scores.length; from += 130) {
+            final TopKHeap range = new TopKHeap(25);
+            for (int index = from; index < Math.min(scores.length, from + 130); index++) {
+                range.offer(index, scores[index]);
+            }
+            merged.merge(range);
+        }
+        assertEquals(25, merged.size());
+        assertArrayEquals(fullSort(scores, 25), merged.sortedIndexes());
+    }
+
+    @Test
+    void doubleScoresKeepTheOrderOfDoubles() {
+        final double[] values = {Double.NEGATIVE_INFINITY, -1e300, -2.5, -0.0, 0.0, Double.MIN_VALUE, 0.5, 1, 7.25, 1e300,
+            Double.POSITIVE_INFINITY};
+        for (int i = 1; i < values.length; i++) {
+            assertTrue(TopKHeap.doubleScore(values[i - 1]) < TopKHeap.doubleScore(values[i]), values[i - 1] + " < " + values[i]);
+        }
+    }
+
+    @Test
+    void rejectsNegativeK() {
+        assertThrows(IllegalArgumentException.class, () -> new TopKHeap(-1));
+    }
+
+    private static int[] top(long[] scores, List<Integer> offerOrder, int k) {
+        final TopKHeap heap = new TopKHeap(k);
+        for (int index : offerOrder) {
+            heap.offer(index, scores[index]);
+        }
+        assertEquals(Math.min(k, scores.length), heap.size());
+        return heap.sortedIndexes();
+    }
+
+    /**
+     * Sorts all indexes by score, highest first and the lower index first on ties, and keeps the first k
+     */
+    private static int[] fullSort(long[] scores, int k) {
+        return IntStream.range(0, scores.length).boxed()
+            .sorted(Comparator.<Integer>comparingLong(index -> scores[index]).reversed().thenComparing(Comparator.naturalOrder()))
+            .limit(k)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    private static List<Integer> shuffledIndexes(int n, Random random) {
+        final List<Integer> indexes = new ArrayList<>(IntStream.range(0, n).boxed().toList());
+        Collections.shuffle(indexes, random);
+        return indexes;
+    }
+}
@@ -0,0 +1,106 @@
+package analyzer.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WordCounterTest {
+
+    // ASCII, whitespace that is not ASCII, non-breaking spaces that are no whitespace, CJK and surrogate pairs
+    private static final List<String> CORPUS = List.of(
+        "",
+        " ",
+        " \t\n\r\u000B\u000C ",
+        "one",
+        "hello world, this is plain ASCII text",
+        " leading and trailing ",
+        "file\u001Cgroup\u001Drecord\u001Eunit\u001Fseparators",
+        "no\u00A0break\u2007figure\u202Fnarrow",
+        "line\u2028separator\u2029paragraph\u0085next",
+        "\u2003\u3000 \u1680",
+        "em\u2003space\u3000ideographic",
+        "\u6F22\u5B57\u3068\u304B\u306A \u6DF7\u3058\u308A\u306E\u3000\u6587\u7AE0",
+        "\u00FCber gr\u00F6\u00DFe na\u00EFve caf\u00E9",
+        "emoji \uD83D\uDE00 between\uD83D\uDE00words \uD83C\uDF89"
+    );
+
+    // Characters the random texts are built from, whitespace and not
+    private static final char[] ALPHABET = {
+        'a', 'Z', '0', '.', ' ', '\t', '\n', '\u001F', '\u0085', '\u00A0', '\u00E9', '\u2007', '\u2028', '\u2003',
+        '\u3000', '\u6F22', '\uD83D', '\uDE00'
+    };
+
+    @Test
+    void matchesBaselineOnCorpus() {
+        for (String text : corpus()) {
+            final int expected = countWordsEfficiently(text);
+            assertEquals(expected, WordCounter.countWords(text), text);
+            assertEquals(expected, WordCounter.countWords(text.toCharArray(), 0, text.length()), text);
+
+            final List<String> words = new ArrayList<>();
+            WordCounter.forEachWord(text, words::add);
+            assertEquals(expected, words.size(), text);
+        }
+    }
+
+    @Test
+    void countsSlicesOfCharArrays() {
+        final String joined = String.join("\n", corpus());
+        final char[] chars = joined.toCharArray();
+        final Random random = new Random(42);
+        for (int i = 0; i < 1_000; i++) {
+            final int from = random.nextInt(chars.length);
+            final int to = from + random.nextInt(chars.length - from + 1);
+            assertEquals(countWordsEfficiently(joined.substring(from, to)), WordCounter.countWords(chars, from, to));
+        }
+    }
+
+    @Test
+    void handlesNullAndEmptyText() {
+        assertEquals(0, WordCounter.countWords(null));
+        assertEquals(0, WordCounter.countWords(new char[0], 0, 0));
+        WordCounter.forEachWord(null, word -> {
+            throw new AssertionError(word);
+        });
+    }
+
+    private static List<String> corpus() {
+        final List<String> corpus = new ArrayList<>(CORPUS);
+        final Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            final StringBuilder text = new StringBuilder();
+            for (int length = random.nextInt(200); length > 0; length--) {
+                text.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            corpus.add(text.toString());
+        }
+        return corpus;
+    }
+
+    /**
+     * The baseline implementation, {@link Character#isWhitespace(char)} on every char
+     */
+    private static int countWordsEfficiently(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+
+        int count = 0;
+        boolean inWord = false;
+
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                inWord = false;
+            } else if (!inWord) {
+                count++;
+                inWord = true;
+            }
+        }
+
+        return count;
+    }
+}